@@ -1,6 +1,9 @@
 package edu.progAvUD.parcialSegundoCorteAvanzada.cliente.control;
 
 import edu.progAvUD.parcialSegundoCorteAvanzada.cliente.modelo.Cliente;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.CodecBinario;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.Protocolo;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.TransporteMultiplexado;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -53,20 +56,93 @@ public class ControlCliente {
         }
     }
 
+    /**
+     * Asigna el transporte con el que se conecta el cliente.
+     *
+     * @param transporte "unPuerto" (una conexión multiplexada, por defecto) o
+     * "dosPuertos" (los dos sockets antiguos)
+     */
+    public void asignarTransporte(String transporte) {
+        Cliente.setUN_PUERTO(transporte == null || !transporte.trim().equalsIgnoreCase("dosPuertos"));
+    }
+
+    /**
+     * Asigna el protocolo de mensajes del cliente.
+     *
+     * @param protocolo "binario" (se negocia con el servidor, por defecto) o
+     * "texto" (siempre el protocolo de texto, para servidores antiguos)
+     */
+    public void asignarProtocolo(String protocolo) {
+        Cliente.setPROTOCOLO_BINARIO(protocolo == null || !protocolo.trim().equalsIgnoreCase("texto"));
+    }
+
+    /**
+     * Asigna cómo se entera el cliente de lo que pasa en la partida.
+     *
+     * @param eventos "push" (el servidor envía los turnos y los resultados, por
+     * defecto) o "consulta" (el cliente pregunta el turno y sus estadísticas
+     * después de cada jugada, para servidores antiguos)
+     */
+    public void asignarModoEventos(String eventos) {
+        Cliente.setMODO_EVENTOS(eventos == null || !eventos.trim().equalsIgnoreCase("consulta"));
+    }
+
+    /**
+     * Asigna cada cuánto se envía un latido al servidor, para que no cierre
+     * la sesión mientras el jugador espera su turno.
+     *
+     * @param latidoMs El periodo en milisegundos; vacío para el de por
+     * defecto, 0 para no enviar latidos
+     */
+    public void asignarLatido(String latidoMs) {
+        try {
+            if (latidoMs != null && !latidoMs.isBlank()) {
+                Cliente.setLATIDO_MS(Math.max(0, Long.parseLong(latidoMs.trim())));
+            }
+        } catch (NumberFormatException e) {
+            // Error silencioso: se conserva el periodo por defecto
+        }
+    }
+
     /**
      * Establece la conexión al servidor utilizando los datos IP y puertos
      * previamente configurados. Si no se puede conectar, finaliza la aplicación.
+     * 
+     * Con el transporte de un solo puerto se abre una única conexión a
+     * `PUERTO_1`, se envía el preámbulo y los comandos y los eventos viajan por
+     * canales lógicos distintos de esa misma conexión. Después, si está
+     * habilitado, se negocia el protocolo binario; si el servidor no lo
+     * acepta se sigue con el de texto. Por último se pide el modo de eventos,
+     * si está habilitado.
      */
     public void conectarAServer() {
         try {
             Socket comunicacion1 = new Socket(Cliente.getIP_SERVER(), Cliente.getPUERTO_1());
-            Socket comunicacion2 = new Socket(Cliente.getIP_SERVER(), Cliente.getPUERTO_2());
-
             cliente.setComunication(comunicacion1);
-            cliente.setComunication2(comunicacion2);
-            cliente.setEntrada(new DataInputStream(comunicacion1.getInputStream()));
-            cliente.setSalida(new DataOutputStream(comunicacion1.getOutputStream()));
-            cliente.setEntrada2(new DataInputStream(comunicacion2.getInputStream()));
+
+            if (Cliente.isUN_PUERTO()) {
+                TransporteMultiplexado.enviarPreambulo(comunicacion1.getOutputStream());
+                TransporteMultiplexado transporte = new TransporteMultiplexado(comunicacion1.getInputStream(), comunicacion1.getOutputStream());
+                cliente.setEntrada(new DataInputStream(transporte.getEntrada(TransporteMultiplexado.CANAL_CONTROL)));
+                cliente.setSalida(new DataOutputStream(transporte.getSalida(TransporteMultiplexado.CANAL_CONTROL)));
+                cliente.setEntrada2(new DataInputStream(transporte.getEntrada(TransporteMultiplexado.CANAL_EVENTOS)));
+            } else {
+                Socket comunicacion2 = new Socket(Cliente.getIP_SERVER(), Cliente.getPUERTO_2());
+                cliente.setComunication2(comunicacion2);
+                cliente.setEntrada(new DataInputStream(comunicacion1.getInputStream()));
+                cliente.setSalida(new DataOutputStream(comunicacion1.getOutputStream()));
+                cliente.setEntrada2(new DataInputStream(comunicacion2.getInputStream()));
+            }
+
+            if (Cliente.isPROTOCOLO_BINARIO()) {
+                cliente.setCodec(CodecBinario.negociar(cliente.getEntrada(), cliente.getSalida()));
+            }
+
+            if (Cliente.isMODO_EVENTOS()) {
+                cliente.getCodec().escribirComando(cliente.getSalida(), Protocolo.OP_SUSCRIBIR_EVENTOS);
+                String respuesta = cliente.getCodec().leerTexto(cliente.getEntrada());
+                cliente.setEventosActivos(Protocolo.RESPUESTA_EVENTOS_ACTIVADOS.equals(respuesta));
+            }
 
             controlPrincipal.mostrarMensajeExito("Se ha hecho la conexión al servidor");
         } catch (IOException e) {
@@ -85,14 +161,14 @@ public class ControlCliente {
     public String enviarCredencialesCliente(String usuario, String contrasena) {
         String respuesta = "";
         try {
-            cliente.getSalida().writeUTF("login," + usuario + "," + contrasena);
-            String estado = cliente.getEntrada().readUTF();
+            cliente.getCodec().escribirLogin(cliente.getSalida(), usuario, contrasena);
+            byte estado = cliente.getCodec().leerRespuestaLogin(cliente.getEntrada());
 
-            if (estado.equalsIgnoreCase("valido")) {
+            if (estado == Protocolo.OP_LOGIN_VALIDO) {
                 respuesta = "logeado";
-            } else if (estado.equalsIgnoreCase("invalido")) {
+            } else if (estado == Protocolo.OP_LOGIN_INVALIDO) {
                 respuesta = "noLogeado";
-            } else if (estado.equalsIgnoreCase("yaConectado")) {
+            } else if (estado == Protocolo.OP_YA_CONECTADO) {
                 respuesta = "conectado";
             }
 
@@ -113,8 +189,9 @@ public class ControlCliente {
      * Crea y lanza el hilo encargado de recibir mensajes del servidor.
      */
     public void crearThreadCliente() {
-        this.threadCliente = new ThreadCliente(cliente.getEntrada(), cliente.getSalida(), this);
+        this.threadCliente = new ThreadCliente(cliente.getEntrada(), cliente.getEntradaEventos(), cliente.getSalida(), cliente.getCodec(), cliente.isEventosActivos(), this);
         threadCliente.start();
+        threadCliente.iniciarLatidos(Cliente.getLATIDO_MS());
     }
 
     /**
@@ -135,6 +212,16 @@ public class ControlCliente {
         controlPrincipal.mostrarMensajeChatJuego(msg);
     }
 
+    /**
+     * Limita las coordenadas que se pueden elegir al tamaño del tablero.
+     * 
+     * @param filas Filas del tablero
+     * @param columnas Columnas del tablero
+     */
+    public void configurarTablero(int filas, int columnas) {
+        controlPrincipal.configurarTablero(filas, columnas);
+    }
+
     /**
      * Bloquea los controles de entrada del chat y coordenadas en la interfaz de juego.
      */
@@ -5,6 +5,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.IOException;
+import javax.swing.SpinnerNumberModel;
 
 /**
  * Clase encargada del control gráfico del cliente.
@@ -118,6 +119,18 @@ public class ControlGrafico implements ActionListener {
         ventanaPrincipal.panelJuegoChat.mostrarMensajeChatJuego(msg);
     }
 
+    /**
+     * Ajusta los spinners de coordenadas al tamaño del tablero: X va de 1 a
+     * las columnas y Y de 1 a las filas.
+     *
+     * @param filas Filas del tablero
+     * @param columnas Columnas del tablero
+     */
+    public void configurarTablero(int filas, int columnas) {
+        ventanaPrincipal.panelJuegoChat.jSpinnerCoordenadaX.setModel(new SpinnerNumberModel(1, 1, columnas, 1));
+        ventanaPrincipal.panelJuegoChat.jSpinnerCoordenadaY.setModel(new SpinnerNumberModel(1, 1, filas, 1));
+    }
+
     /**
      * Deshabilita la entrada del chat del juego (spinners y botón de enviar).
      */
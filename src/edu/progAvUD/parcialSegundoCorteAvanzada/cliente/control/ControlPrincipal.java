@@ -52,7 +52,13 @@ public class ControlPrincipal {
 
     /**
      * Carga los datos de IP y puertos del servidor desde el archivo de propiedades
-     * y los asigna al cliente.
+     * y los asigna al cliente. La propiedad opcional `TRANSPORTE` indica si se usa
+     * una sola conexión multiplexada ("unPuerto", por defecto) o los dos sockets
+     * antiguos ("dosPuertos"), y `PROTOCOLO` si se negocia el protocolo binario
+     * ("binario", por defecto) o se usa siempre el de texto ("texto"). La
+     * propiedad `EVENTOS` indica si el servidor empuja los turnos y resultados
+     * ("push", por defecto) o el cliente los consulta ("consulta"), y
+     * `LATIDO_MS` cada cuánto se avisa al servidor que el cliente sigue vivo.
      */
     public void cargarDatosSocket() {
         ConexionPropiedades conexionPropiedades = crearConexionPropiedades();
@@ -62,6 +68,10 @@ public class ControlPrincipal {
             String puerto1 = propiedadesSocket.getProperty("PUERTO_1");
             String puerto2 = propiedadesSocket.getProperty("PUERTO_2");
             controlCliente.asignarDatosConexionCliente(ipServer, puerto1, puerto2);
+            controlCliente.asignarTransporte(propiedadesSocket.getProperty("TRANSPORTE"));
+            controlCliente.asignarProtocolo(propiedadesSocket.getProperty("PROTOCOLO"));
+            controlCliente.asignarModoEventos(propiedadesSocket.getProperty("EVENTOS"));
+            controlCliente.asignarLatido(propiedadesSocket.getProperty("LATIDO_MS"));
         } catch (IOException e) {
             controlGrafico.mostrarMensajeError("No se pudo cargar el archivo propiedades de la conexión al socket");
         }
@@ -117,6 +127,16 @@ public class ControlPrincipal {
         controlCliente.crearThreadCliente();
     }
 
+    /**
+     * Limita las coordenadas que se pueden elegir al tamaño del tablero.
+     *
+     * @param filas Filas del tablero
+     * @param columnas Columnas del tablero
+     */
+    public void configurarTablero(int filas, int columnas) {
+        controlGrafico.configurarTablero(filas, columnas);
+    }
+
     /**
      * Muestra un mensaje dentro del chat del juego en la interfaz.
      *
@@ -1,8 +1,14 @@
 package edu.progAvUD.parcialSegundoCorteAvanzada.cliente.control;
 
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.CodecProtocolo;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.MensajeProtocolo;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.Protocolo;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * La clase {@code ThreadCliente} es un hilo que gestiona la comunicación entre
@@ -14,22 +20,39 @@ import java.io.IOException;
  * También administra el envío de coordenadas del jugador hacia el servidor y
  * controla la interfaz del usuario en función del estado del turno.
  *
+ * En el modo de eventos el hilo solo lee: cada evento del servidor (cambio de
+ * turno, resultado de una jugada con las estadísticas, fin del juego) trae
+ * todo lo necesario para actualizar la interfaz, así que durante la partida
+ * no se envía ninguna consulta.
+ *
  * Autor: Andres Felipe
  */
 public class ThreadCliente extends Thread {
 
-    // Flujo de entrada desde el servidor
+    // Flujo de entrada desde el servidor (respuestas a los comandos)
     private DataInputStream entrada;
 
+    // Flujo del que llegan los eventos del servidor (puede ser el mismo que la entrada)
+    private DataInputStream eventos;
+
     // Flujo de salida hacia el servidor
     private DataOutputStream salida;
 
+    // Códec negociado con el servidor (texto o binario)
+    private CodecProtocolo codec;
+
     // Turno asignado a este cliente
     private int turno;
 
     // Turno actual del juego (determinado por el servidor)
     private int turnoActual;
 
+    // Indica si el servidor confirmó el modo de eventos
+    private boolean modoEventos;
+
+    // Indica si la entrada de coordenadas está habilitada (solo se usa en el modo de eventos)
+    private boolean puedeJugar;
+
     // Controlador general del cliente para manejar la interfaz y la lógica del cliente
     private ControlCliente controlCliente;
 
@@ -37,13 +60,19 @@ public class ThreadCliente extends Thread {
      * Constructor del hilo cliente.
      *
      * @param entrada Flujo de entrada desde el servidor.
+     * @param eventos Flujo del que se leen los eventos del servidor.
      * @param salida Flujo de salida hacia el servidor.
+     * @param codec Códec con el que se escriben y leen los mensajes.
+     * @param modoEventos {@code true} si el servidor confirmó el modo de eventos.
      * @param controlCliente Instancia del controlador del cliente que maneja la
      * lógica de IU.
      */
-    public ThreadCliente(DataInputStream entrada, DataOutputStream salida, ControlCliente controlCliente) {
+    public ThreadCliente(DataInputStream entrada, DataInputStream eventos, DataOutputStream salida, CodecProtocolo codec, boolean modoEventos, ControlCliente controlCliente) {
         this.entrada = entrada;
+        this.eventos = eventos;
         this.salida = salida;
+        this.codec = codec;
+        this.modoEventos = modoEventos;
         this.controlCliente = controlCliente;
     }
 
@@ -55,21 +84,38 @@ public class ThreadCliente extends Thread {
     public void run() {
         try {
             controlCliente.mostrarMensajeChatJuego("Esperando a empezar el juego, espere que el servidor empiece el juego");
-            turno = entrada.readInt();
+            turno = codec.leerTurno(entrada);
         } catch (IOException ex) {
             controlCliente.mostrarMensajeError("Ocurrió un error al recibir el turno inicial.");
         }
+        try {
+            // El tamaño del tablero lo decide el servidor y llega justo después del turno, antes que
+            // cualquier evento; pedirlo aquí podría cruzarse con un evento que llegue por el mismo flujo
+            int[] tablero = new int[2];
+            codec.leerTablero(entrada, tablero);
+            controlCliente.configurarTablero(tablero[0], tablero[1]);
+        } catch (IOException ex) {
+            controlCliente.mostrarMensajeError("No se pudo recibir el tamaño del tablero, se usa el de 5x8.");
+        }
+
+        // El evento y las estadísticas se reutilizan en cada vuelta del bucle
+        MensajeProtocolo evento = new MensajeProtocolo();
+        int[] datos = new int[3];
 
         while (true) {
             try {
-                String opcion = entrada.readUTF();
-                String[] partesOpcion = opcion.split(",");
+                codec.leerEvento(eventos, evento);
+
+                if (modoEventos) {
+                    atenderEvento(evento);
+                    continue;
+                }
 
-                switch (partesOpcion[0]) {
+                switch (evento.getOpcode()) {
 
-                    case "pedirCoordenadas":
-                        salida.writeUTF("consultarTurno");
-                        turnoActual = entrada.readInt();
+                    case Protocolo.OP_PEDIR_COORDENADAS:
+                        codec.escribirComando(salida, Protocolo.OP_CONSULTAR_TURNO);
+                        turnoActual = codec.leerTurno(entrada);
                         if (turno == turnoActual) {
                             controlCliente.permitirEntradaTextoChatJuego();
                             controlCliente.mostrarMensajeChatJuego("Es tu turno. Ingresa la primera coordenada:");
@@ -77,51 +123,48 @@ public class ThreadCliente extends Thread {
                         }
                         break;
 
-                    case "acerto":
-                        salida.writeUTF("consultarTurno");
-                        turnoActual = entrada.readInt();
+                    case Protocolo.OP_ACERTO:
+                        codec.escribirComando(salida, Protocolo.OP_CONSULTAR_TURNO);
+                        turnoActual = codec.leerTurno(entrada);
 
                         controlCliente.mostrarMensajeChatJuego("¡Acertaste! Ingresa otras coordenadas.");
-                        salida.writeUTF("pedirDatosJugador");
-
-                        String datosA = entrada.readUTF();
-                        String[] datosAA = datosA.split(",");
+                        codec.escribirComando(salida, Protocolo.OP_PEDIR_DATOS_JUGADOR);
+                        codec.leerDatosJugador(entrada, datos);
 
-                        controlCliente.mostrarMensajeChatJuego("Intentos realizados: " + datosAA[0]
-                                + " | Aciertos: " + datosAA[1]
-                                + " | Eficiencia: " + datosAA[2] + "%");
+                        controlCliente.mostrarMensajeChatJuego("Intentos realizados: " + datos[0]
+                                + " | Aciertos: " + datos[1]
+                                + " | Eficiencia: " + datos[2] + "%");
 
                         if (turno == turnoActual) {
                             controlCliente.permitirEntradaTextoChatJuego();
                             controlCliente.setEsperandoPrimera(true);
                         }
 
-                        salida.writeUTF("siguienteTurno");
+                        codec.escribirComando(salida, Protocolo.OP_SIGUIENTE_TURNO);
                         break;
 
-                    case "fallo":
-                        salida.writeUTF("consultarTurno");
-                        turnoActual = entrada.readInt();
+                    case Protocolo.OP_FALLO:
+                        codec.escribirComando(salida, Protocolo.OP_CONSULTAR_TURNO);
+                        turnoActual = codec.leerTurno(entrada);
 
-                        controlCliente.mostrarMensajeChatJuego("Fallaste porque " + partesOpcion[1]
+                        controlCliente.mostrarMensajeChatJuego("Fallaste porque " + evento.getTexto()
                                 + ". Se pasa el turno al siguiente jugador.");
 
-                        salida.writeUTF("pedirDatosJugador");
-                        String datosB = entrada.readUTF();
-                        String[] datosBB = datosB.split(",");
+                        codec.escribirComando(salida, Protocolo.OP_PEDIR_DATOS_JUGADOR);
+                        codec.leerDatosJugador(entrada, datos);
 
-                        controlCliente.mostrarMensajeChatJuego("Intentos realizados: " + datosBB[0]
-                                + " | Aciertos: " + datosBB[1]
-                                + " | Eficiencia: " + datosBB[2] + "%");
+                        controlCliente.mostrarMensajeChatJuego("Intentos realizados: " + datos[0]
+                                + " | Aciertos: " + datos[1]
+                                + " | Eficiencia: " + datos[2] + "%");
 
                         controlCliente.bloquearEntradaTextoChatJuego();
 
-                        salida.writeUTF("siguienteTurno");
+                        codec.escribirComando(salida, Protocolo.OP_SIGUIENTE_TURNO);
                         break;
 
-                    case "juegoTerminado":
-                        salida.writeUTF("pedirGanador");
-                        controlCliente.mostrarMensajeError(entrada.readUTF());
+                    case Protocolo.OP_JUEGO_TERMINADO:
+                        codec.escribirComando(salida, Protocolo.OP_PEDIR_GANADOR);
+                        controlCliente.mostrarMensajeError(codec.leerTexto(entrada));
 
                         break;
 
@@ -137,9 +180,107 @@ public class ThreadCliente extends Thread {
         }
     }
 
+    /**
+     * Atiende un evento del modo de eventos. Ninguno necesita una consulta al
+     * servidor: el cambio de turno trae el turno activo, el resultado de una
+     * jugada trae además las estadísticas del jugador y las cartas elegidas, y
+     * el fin del juego trae el anuncio del ganador.
+     *
+     * @param evento El evento recibido.
+     */
+    private void atenderEvento(MensajeProtocolo evento) {
+        switch (evento.getOpcode()) {
+
+            case Protocolo.OP_CAMBIO_TURNO:
+                cambiarTurno(evento.getValor(0));
+                break;
+
+            case Protocolo.OP_RESULTADO_JUGADA:
+                int jugador = evento.getValor(Protocolo.RESULTADO_TURNO_JUGADOR);
+                boolean acierto = evento.getValor(Protocolo.RESULTADO_ACIERTO) == 1;
+                int turnoActivo = evento.getValor(Protocolo.RESULTADO_TURNO_ACTIVO);
+
+                if (jugador != turno) {
+                    controlCliente.mostrarMensajeChatJuego("El jugador del turno " + jugador
+                            + (acierto ? " acertó con " : " falló con ")
+                            + describirCarta(evento, Protocolo.RESULTADO_X1) + " y "
+                            + describirCarta(evento, Protocolo.RESULTADO_X2) + ".");
+                    cambiarTurno(turnoActivo);
+                    break;
+                }
+
+                if (acierto) {
+                    controlCliente.mostrarMensajeChatJuego("¡Acertaste! Ingresa otras coordenadas.");
+                } else {
+                    controlCliente.mostrarMensajeChatJuego("Fallaste porque " + evento.getTexto()
+                            + ". Se pasa el turno al siguiente jugador.");
+                }
+                controlCliente.mostrarMensajeChatJuego("Intentos realizados: " + evento.getValor(Protocolo.RESULTADO_INTENTOS)
+                        + " | Aciertos: " + evento.getValor(Protocolo.RESULTADO_ACIERTOS)
+                        + " | Eficiencia: " + evento.getValor(Protocolo.RESULTADO_EFICIENCIA) + "%");
+
+                // Después de una jugada propia la entrada se habilita de nuevo sin repetir el aviso de turno
+                turnoActual = turnoActivo;
+                puedeJugar = turno == turnoActivo;
+                if (puedeJugar) {
+                    controlCliente.permitirEntradaTextoChatJuego();
+                    controlCliente.setEsperandoPrimera(true);
+                } else {
+                    controlCliente.bloquearEntradaTextoChatJuego();
+                }
+                break;
+
+            case Protocolo.OP_JUEGO_TERMINADO:
+                controlCliente.mostrarMensajeError(evento.getTexto() != null ? evento.getTexto() : "El juego ha terminado.");
+                break;
+
+            default:
+                controlCliente.mostrarMensajeError("La opción recibida no es válida.");
+                break;
+        }
+    }
+
+    /**
+     * Describe una de las cartas de un resultado de jugada.
+     *
+     * @param evento El resultado de la jugada.
+     * @param campoX La posición de la coordenada X; la Y va en la siguiente.
+     * @return Las coordenadas entre paréntesis, o un aviso si la carta no
+     * estaba en el tablero.
+     */
+    private static String describirCarta(MensajeProtocolo evento, int campoX) {
+        int x = evento.getValor(campoX);
+        int y = evento.getValor(campoX + 1);
+        if (x == Protocolo.COORDENADA_FUERA_TABLERO || y == Protocolo.COORDENADA_FUERA_TABLERO) {
+            return "una casilla fuera del tablero";
+        }
+        return "(" + x + "," + y + ")";
+    }
+
+    /**
+     * Actualiza el turno activo en el modo de eventos. Si el turno pasa a este
+     * jugador se habilita la entrada de coordenadas; si pasa a otro, se
+     * bloquea. Un turno repetido no vuelve a mostrar el aviso.
+     *
+     * @param turnoActivo El turno activo enviado por el servidor.
+     */
+    private void cambiarTurno(int turnoActivo) {
+        turnoActual = turnoActivo;
+        boolean esMiTurno = turno == turnoActivo;
+        if (esMiTurno && !puedeJugar) {
+            controlCliente.permitirEntradaTextoChatJuego();
+            controlCliente.mostrarMensajeChatJuego("Es tu turno. Ingresa la primera coordenada:");
+            controlCliente.setEsperandoPrimera(true);
+        } else if (!esMiTurno && puedeJugar) {
+            controlCliente.bloquearEntradaTextoChatJuego();
+        }
+        puedeJugar = esMiTurno;
+    }
+
     /**
      * Envía al servidor las coordenadas seleccionadas por el jugador. Solo se
-     * ejecuta si es el turno actual del jugador.
+     * ejecuta si es el turno actual del jugador. Con el protocolo binario las
+     * dos cartas viajan en un solo mensaje; con el de texto, en dos.
      *
      * @param x1 Coordenada X de la primera carta.
      * @param y1 Coordenada Y de la primera carta.
@@ -149,19 +290,39 @@ public class ThreadCliente extends Thread {
      * servidor.
      */
     public synchronized void enviarPosicionCartas(int x1, int y1, int x2, int y2) throws IOException {
-        esperarEntradaCoordenada(x1, y1);
-        esperarEntradaCoordenada(x2, y2);
+        codec.escribirEleccion(salida, x1, y1, x2, y2);
+    }
+
+    /**
+     * Empieza a enviar un latido al servidor cada cierto tiempo desde un hilo
+     * aparte, para que el servidor sepa que el cliente sigue vivo aunque no
+     * sea su turno. Si un envío falla se dejan de enviar; este hilo se entera
+     * de la desconexión al leer.
+     *
+     * @param periodoMs Cada cuánto se envía el latido; 0 o menos para no
+     * enviarlo.
+     */
+    public void iniciarLatidos(long periodoMs) {
+        if (periodoMs <= 0) {
+            return;
+        }
+        ScheduledExecutorService latidos = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon(true).name("latidos").factory());
+        latidos.scheduleAtFixedRate(() -> {
+            try {
+                enviarLatido();
+            } catch (IOException ex) {
+                latidos.shutdown();
+            }
+        }, periodoMs, periodoMs, TimeUnit.MILLISECONDS);
     }
 
     /**
-     * Envía una única coordenada al servidor.
+     * Envía un latido al servidor. No tiene respuesta.
      *
-     * @param x Coordenada X.
-     * @param y Coordenada Y.
-     * @throws IOException En caso de error en el envío de datos.
+     * @throws IOException En caso de error en la escritura de datos al
+     * servidor.
      */
-    private void esperarEntradaCoordenada(int x, int y) throws IOException {
-        String mensajeSalida = String.format("eleccionJugador,%d,%d", x, y);
-        salida.writeUTF(mensajeSalida);
+    private synchronized void enviarLatido() throws IOException {
+        codec.escribirComando(salida, Protocolo.OP_LATIDO);
     }
 }
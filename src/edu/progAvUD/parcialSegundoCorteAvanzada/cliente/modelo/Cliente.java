@@ -1,5 +1,7 @@
 package edu.progAvUD.parcialSegundoCorteAvanzada.cliente.modelo;
 
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.CodecProtocolo;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.CodecTexto;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.net.Socket;
@@ -11,8 +13,10 @@ import java.net.Socket;
  * flujos de comunicación mediante sockets. Además, administra los flujos de entrada y salida
  * para el envío y recepción de datos desde y hacia el servidor.
  * 
- * Esta clase permite gestionar dos canales de comunicación (posiblemente uno principal y otro
- * para funciones secundarias como chat privado o monitoreo).
+ * Esta clase permite gestionar dos canales de comunicación: el de control (comandos y
+ * respuestas) y el de eventos que el servidor envía por su cuenta. Con el transporte de un
+ * solo puerto ambos viajan multiplexados por el socket principal; con el transporte antiguo
+ * de dos sockets los eventos llegan por el flujo principal.
  * 
  * Los atributos IP y puertos son estáticos, lo que permite configurarlos a nivel global
  * para todas las instancias del cliente.
@@ -29,6 +33,18 @@ public class Cliente {
     
     // Segundo puerto de conexión al servidor (posiblemente para un canal alternativo)
     private static int PUERTO_2;
+
+    // Indica si se usa una sola conexión multiplexada (true) o los dos sockets antiguos (false)
+    private static boolean UN_PUERTO = true;
+
+    // Indica si se intenta negociar el protocolo binario (true) o se usa siempre el de texto (false)
+    private static boolean PROTOCOLO_BINARIO = true;
+
+    // Indica si se pide el modo de eventos (true) o se consulta el turno y las estadísticas como antes (false)
+    private static boolean MODO_EVENTOS = true;
+
+    // Cada cuánto (ms) se envía un latido al servidor; 0 para no enviarlos
+    private static long LATIDO_MS = 10000;
     
     // Flujo de entrada desde el servidor (lectura de datos)
     private DataInputStream entrada;
@@ -36,9 +52,15 @@ public class Cliente {
     // Flujo de salida hacia el servidor (envío de datos)
     private DataOutputStream salida;
 
-    // Segundo flujo de entrada (posiblemente para mensajes privados o monitoreo)
+    // Segundo flujo de entrada: el canal de eventos del transporte multiplexado
     private DataInputStream entrada2;
 
+    // Códec con el que se escriben y leen los mensajes; empieza en texto hasta negociar
+    private CodecProtocolo codec;
+
+    // Indica si el servidor confirmó el modo de eventos para esta conexión
+    private boolean eventosActivos;
+
     // Socket principal de comunicación con el servidor
     private Socket comunication;
 
@@ -50,6 +72,43 @@ public class Cliente {
      * Se utiliza para inicializar un cliente sin establecer inmediatamente las conexiones.
      */
     public Cliente() {
+        this.codec = new CodecTexto();
+    }
+
+    /**
+     * Obtiene el códec con el que el cliente se comunica con el servidor.
+     *
+     * @return El {@code CodecProtocolo} de la conexión.
+     */
+    public CodecProtocolo getCodec() {
+        return codec;
+    }
+
+    /**
+     * Establece el códec con el que el cliente se comunica con el servidor.
+     *
+     * @param codec El {@code CodecProtocolo} negociado.
+     */
+    public void setCodec(CodecProtocolo codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * Indica si el servidor confirmó el modo de eventos para esta conexión.
+     *
+     * @return {@code true} si el servidor empuja los turnos y los resultados.
+     */
+    public boolean isEventosActivos() {
+        return eventosActivos;
+    }
+
+    /**
+     * Establece si el servidor confirmó el modo de eventos.
+     *
+     * @param eventosActivos {@code true} si el servidor aceptó {@code suscribirEventos}.
+     */
+    public void setEventosActivos(boolean eventosActivos) {
+        this.eventosActivos = eventosActivos;
     }
 
     /**
@@ -106,6 +165,17 @@ public class Cliente {
         this.entrada2 = entrada2;
     }
 
+    /**
+     * Obtiene el flujo por el que llegan los eventos del servidor (pedirCoordenadas,
+     * acerto, fallo...). Con el transporte de un solo puerto es el canal de eventos;
+     * con el de dos sockets es el flujo de entrada principal.
+     *
+     * @return Objeto {@code DataInputStream} del que se leen los eventos.
+     */
+    public DataInputStream getEntradaEventos() {
+        return UN_PUERTO && entrada2 != null ? entrada2 : entrada;
+    }
+
     /**
      * Obtiene el socket principal de comunicación con el servidor.
      *
@@ -195,4 +265,76 @@ public class Cliente {
     public static void setPUERTO_2(int PUERTO_2) {
         Cliente.PUERTO_2 = PUERTO_2;
     }
-}
\ No newline at end of file
+
+    /**
+     * Indica si el cliente usa el transporte de un solo puerto multiplexado.
+     *
+     * @return {@code true} si se usa una sola conexión.
+     */
+    public static boolean isUN_PUERTO() {
+        return UN_PUERTO;
+    }
+
+    /**
+     * Establece si el cliente usa el transporte de un solo puerto multiplexado.
+     *
+     * @param UN_PUERTO {@code true} para una sola conexión, {@code false} para los dos sockets antiguos.
+     */
+    public static void setUN_PUERTO(boolean UN_PUERTO) {
+        Cliente.UN_PUERTO = UN_PUERTO;
+    }
+
+    /**
+     * Indica si el cliente intenta negociar el protocolo binario.
+     *
+     * @return {@code true} si se negocia el protocolo binario.
+     */
+    public static boolean isPROTOCOLO_BINARIO() {
+        return PROTOCOLO_BINARIO;
+    }
+
+    /**
+     * Establece si el cliente intenta negociar el protocolo binario.
+     *
+     * @param PROTOCOLO_BINARIO {@code false} para usar siempre el protocolo de texto (servidores antiguos).
+     */
+    public static void setPROTOCOLO_BINARIO(boolean PROTOCOLO_BINARIO) {
+        Cliente.PROTOCOLO_BINARIO = PROTOCOLO_BINARIO;
+    }
+
+    /**
+     * Indica si el cliente pide el modo de eventos al conectarse.
+     *
+     * @return {@code true} si se pide el modo de eventos.
+     */
+    public static boolean isMODO_EVENTOS() {
+        return MODO_EVENTOS;
+    }
+
+    /**
+     * Establece si el cliente pide el modo de eventos al conectarse.
+     *
+     * @param MODO_EVENTOS {@code false} para consultar el turno y las estadísticas después de cada jugada (servidores antiguos).
+     */
+    public static void setMODO_EVENTOS(boolean MODO_EVENTOS) {
+        Cliente.MODO_EVENTOS = MODO_EVENTOS;
+    }
+
+    /**
+     * Obtiene cada cuánto se envía un latido al servidor.
+     *
+     * @return El periodo en milisegundos; 0 si no se envían.
+     */
+    public static long getLATIDO_MS() {
+        return LATIDO_MS;
+    }
+
+    /**
+     * Establece cada cuánto se envía un latido al servidor.
+     *
+     * @param LATIDO_MS El periodo en milisegundos; 0 para no enviarlos (servidores antiguos).
+     */
+    public static void setLATIDO_MS(long LATIDO_MS) {
+        Cliente.LATIDO_MS = LATIDO_MS;
+    }
+}
@@ -0,0 +1,240 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.control;
+
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.ConexionBD;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.NivelConsola;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * La clase `ControlConsola` es la interfaz del servidor sin pantalla. No crea
+ * ninguna ventana: la consola del servidor, los errores y los avisos se
+ * escriben con la hora en un archivo de registro (o en la salida estándar si
+ * no se indica uno), y el administrador maneja el servidor escribiendo
+ * comandos en la entrada estándar.
+ *
+ * Los archivos de propiedades no se piden con un diálogo, se pasan en la línea
+ * de comandos (ver {@link LauncherServidor}). Tampoco hay tablero: voltear
+ * cartas y actualizar el panel de estadísticas no hacen nada.
+ *
+ * @author Andres Felipe
+ */
+public class ControlConsola implements InterfazServidor {
+
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private final ControlPrincipal controlPrincipal;
+
+    /**
+     * El archivo de registro (o la salida estándar).
+     */
+    private final PrintWriter registro;
+
+    /**
+     * Evita que las líneas de varios hilos se mezclen en el registro.
+     */
+    private final ReentrantLock candadoRegistro;
+
+    /**
+     * La entrada estándar, de donde se leen los datos faltantes y los
+     * comandos del administrador.
+     */
+    private final BufferedReader entrada;
+
+    /**
+     * Si ya se avisó que hay jugadores suficientes para empezar.
+     */
+    private volatile boolean jugadoresSuficientes;
+
+    /**
+     * Constructor de la clase `ControlConsola`.
+     *
+     * @param controlPrincipal El controlador principal.
+     * @param archivoRegistro La ruta del archivo de registro, o `null` para
+     * escribir en la salida estándar. Si el archivo existe se escribe al
+     * final.
+     * @throws IOException Si no se puede abrir el archivo de registro.
+     */
+    public ControlConsola(ControlPrincipal controlPrincipal, String archivoRegistro) throws IOException {
+        this.controlPrincipal = controlPrincipal;
+        this.candadoRegistro = new ReentrantLock();
+        this.entrada = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        if (archivoRegistro == null || archivoRegistro.isBlank()) {
+            this.registro = new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        } else {
+            this.registro = new PrintWriter(Files.newBufferedWriter(Path.of(archivoRegistro), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        }
+    }
+
+    /**
+     * Arranca el hilo que lee los comandos del administrador en la entrada
+     * estándar:
+     *
+     * - `iniciar`: baraja y empieza la partida de la sala única.
+     * - `clientes`: muestra los jugadores de cada sala.
+     * - `usuarios`: muestra los usuarios conectados.
+     * - `metricas`: muestra el estado de la cola de emparejamiento y del planificador.
+     * - `conexiones`: muestra el estado del pool de conexiones a la base de datos.
+     * - `cache`: muestra los aciertos y fallos de la caché de jugadores.
+     * - `estadisticas`: muestra las estadísticas pendientes de guardar.
+     * - `clasificacion`: muestra los primeros jugadores de la clasificación.
+     * - `salir`: cierra el servidor.
+     *
+     * Si la entrada estándar se cierra (por ejemplo, en un contenedor), el
+     * hilo termina y el servidor sigue atendiendo clientes.
+     */
+    public void iniciarComandos() {
+        Thread lector = new Thread(() -> {
+            try {
+                String linea;
+                while ((linea = entrada.readLine()) != null) {
+                    ejecutarComando(linea.trim());
+                }
+            } catch (IOException e) {
+                mostrarMensajeError("No se pudo leer la entrada estándar: " + e.getMessage());
+            }
+        }, "consola-comandos");
+        lector.setDaemon(true);
+        lector.start();
+    }
+
+    /**
+     * Ejecuta un comando del administrador.
+     *
+     * @param comando El comando escrito.
+     */
+    private void ejecutarComando(String comando) {
+        switch (comando.toLowerCase()) {
+            case "":
+                break;
+            case "iniciar":
+                controlPrincipal.asignarOrdenMatrizCartas();
+                controlPrincipal.iniciarJuego();
+                break;
+            case "clientes":
+                controlPrincipal.mostrarClientesConectados();
+                break;
+            case "usuarios":
+                controlPrincipal.mostrarUsuariosConectados();
+                break;
+            case "metricas":
+                controlPrincipal.mostrarMetricasEmparejamiento();
+                break;
+            case "conexiones":
+                mostrarMensajeConsolaServidor(ConexionBD.describirPool());
+                break;
+            case "cache":
+                controlPrincipal.mostrarMetricasCacheJugadores();
+                break;
+            case "estadisticas":
+                controlPrincipal.mostrarEstadoEstadisticas();
+                break;
+            case "clasificacion":
+                controlPrincipal.mostrarClasificacion();
+                break;
+            case "salir":
+                mostrarMensajeConsolaServidor("Servidor detenido por el administrador");
+                System.exit(0);
+                break;
+            default:
+                mostrarMensajeConsolaServidor("Comando desconocido '" + comando + "'. Comandos: iniciar, clientes, usuarios, metricas, conexiones, cache, estadisticas, clasificacion, salir");
+                break;
+        }
+    }
+
+    @Override
+    public void mostrarMensajeError(String mensaje) {
+        escribir("ERROR", mensaje);
+    }
+
+    @Override
+    public void mostrarMensajeExito(String mensaje) {
+        escribir("OK", mensaje);
+    }
+
+    /**
+     * Sin pantalla no hay diálogo para elegir el archivo.
+     *
+     * @return Siempre `null`.
+     */
+    @Override
+    public File pedirArchivoPropiedades() {
+        return null;
+    }
+
+    /**
+     * Pide el dato en la entrada estándar.
+     *
+     * @return La línea escrita, o `null` si la entrada estándar está cerrada.
+     */
+    @Override
+    public String mostrarJOptionEscribirDatoFaltante(String datoFaltante) {
+        escribir("DATO", "Hace falta el dato de '" + datoFaltante + "'. Escriba el dato:");
+        try {
+            return entrada.readLine();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void mostrarMensajeConsolaServidor(NivelConsola nivel, String cliente, String mensaje) {
+        escribir(nivel.name(), cliente != null ? "[" + cliente + "] " + mensaje : mensaje);
+    }
+
+    private void mostrarMensajeConsolaServidor(String mensaje) {
+        escribir(NivelConsola.INFO.name(), mensaje);
+    }
+
+    /**
+     * Avisa una sola vez cuando la sala única ya tiene jugadores suficientes
+     * para empezar con el comando `iniciar`.
+     */
+    @Override
+    public void ocultarBotonIniciarJuego(boolean estado) {
+        if (estado && !jugadoresSuficientes) {
+            mostrarMensajeConsolaServidor("Hay jugadores suficientes: escriba 'iniciar' para empezar la partida");
+        }
+        jugadoresSuficientes = estado;
+    }
+
+    @Override
+    public void seleccionarCarta(int idCarta) {
+    }
+
+    @Override
+    public void deseleccionarCarta(int idCarta) {
+    }
+
+    @Override
+    public void actualizarPanelEstadisticas(String numeroIntentos, String numeroParejas, String nombreUsuario) {
+    }
+
+    /**
+     * Escribe una línea en el registro con la hora y el nivel.
+     *
+     * @param nivel El nivel del mensaje.
+     * @param mensaje El mensaje.
+     */
+    private void escribir(String nivel, String mensaje) {
+        String linea = LocalDateTime.now().format(FORMATO_HORA) + " [" + nivel + "] " + mensaje;
+        candadoRegistro.lock();
+        try {
+            registro.println(linea);
+            registro.flush();
+        } finally {
+            candadoRegistro.unlock();
+        }
+    }
+}
@@ -1,22 +1,69 @@
 package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.control;
 
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.BufferConsola;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.LineaConsola;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.NivelConsola;
 import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.vista.VentanaPrincipal;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.Timer;
 
 /**
  * Gestiona las interacciones de la interfaz gráfica de usuario y actúa como intermediario
  * entre la vista (VentanaPrincipal) y la lógica principal de la aplicación (ControlPrincipal).
  * Maneja las acciones del usuario desde la GUI y actualiza la vista basándose en el estado de la aplicación.
  *
+ * Los hilos de red no tocan la consola de la ventana: dejan cada mensaje en un {@link BufferConsola}
+ * y un temporizador de Swing lo vacía por lotes cada {@link #PERIODO_CONSOLA_MS} ms. La consola
+ * conserva las últimas {@link #LINEAS_CONSOLA} líneas y se puede filtrar por nivel y por cliente.
+ *
  * @author Andres Felipe
  */
-public class ControlGrafico implements ActionListener {
+public class ControlGrafico implements ActionListener, InterfazServidor {
+
+    /**
+     * Líneas que se conservan en la consola.
+     */
+    private static final int LINEAS_CONSOLA = 2000;
+
+    /**
+     * Cada cuánto se vacía el buffer de la consola.
+     */
+    private static final int PERIODO_CONSOLA_MS = 100;
+
+    /**
+     * Líneas sin mostrar que caben en el buffer antes de descartar las más viejas.
+     */
+    private static final int CAPACIDAD_BUFFER_CONSOLA = 8192;
+
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm:ss");
 
     private ControlPrincipal controlPrincipal;
     private VentanaPrincipal ventanaPrincipal;
 
+    private final BufferConsola bufferConsola;
+
+    /**
+     * Las últimas líneas de la consola sin filtrar, para volver a mostrarlas al cambiar
+     * los filtros. Solo se usa desde el hilo de eventos.
+     */
+    private final ArrayDeque<LineaConsola> historialConsola;
+
+    /**
+     * Lote de líneas que se toma del buffer en cada vuelta del temporizador.
+     */
+    private final List<LineaConsola> loteConsola;
+
+    /**
+     * Líneas descartadas que ya se avisaron en la consola.
+     */
+    private long descartadasAvisadas;
+
     /**
      * Construye una nueva instancia de ControlGrafico.
      * Inicializa la ventana principal y configura los 'action listeners' para varios botones
@@ -42,6 +89,13 @@ public class ControlGrafico implements ActionListener {
         ventanaPrincipal.panelConsolaServidor.jButtonEmpezarJuego.setVisible(false);
         ventanaPrincipal.panelConsolaServidor.jButtonEmpezarJuego.addActionListener(this);
 
+        // Configura la consola por lotes y sus filtros
+        this.bufferConsola = new BufferConsola(CAPACIDAD_BUFFER_CONSOLA);
+        this.historialConsola = new ArrayDeque<>();
+        this.loteConsola = new ArrayList<>();
+        ventanaPrincipal.panelConsolaServidor.jComboBoxNivel.addActionListener(this);
+        ventanaPrincipal.panelConsolaServidor.jTextFieldCliente.addActionListener(this);
+        new Timer(PERIODO_CONSOLA_MS, e -> drenarConsola()).start();
     }
 
     /**
@@ -49,6 +103,7 @@ public class ControlGrafico implements ActionListener {
      *
      * @param mensaje La cadena del mensaje de error a mostrar.
      */
+    @Override
     public void mostrarMensajeError(String mensaje) {
         ventanaPrincipal.mostrarMensajeError(mensaje);
     }
@@ -58,6 +113,7 @@ public class ControlGrafico implements ActionListener {
      *
      * @param mensaje La cadena del mensaje de éxito a mostrar.
      */
+    @Override
     public void mostrarMensajeExito(String mensaje) {
         ventanaPrincipal.mostrarMensajeExito(mensaje);
     }
@@ -68,6 +124,7 @@ public class ControlGrafico implements ActionListener {
      *
      * @return El archivo seleccionado por el usuario.
      */
+    @Override
     public File pedirArchivoPropiedades() {
         return ventanaPrincipal.pedirArchivoPropiedades();
     }
@@ -78,6 +135,7 @@ public class ControlGrafico implements ActionListener {
      * @param datoFaltante Una descripción del dato que el usuario necesita ingresar.
      * @return El texto ingresado por el usuario.
      */
+    @Override
     public String mostrarJOptionEscribirDatoFaltante(String datoFaltante) {
         return ventanaPrincipal.mostrarJOptionEscribirDatoFaltante(datoFaltante);
     }
@@ -118,16 +176,90 @@ public class ControlGrafico implements ActionListener {
             controlPrincipal.iniciarJuego(); // Inicia la lógica del juego
             ventanaPrincipal.mostrarPanel(ventanaPrincipal.panelJuego); // Muestra el panel de juego
         }
+        // Maneja el cambio de los filtros de la consola
+        if (e.getSource() == ventanaPrincipal.panelConsolaServidor.jComboBoxNivel
+                || e.getSource() == ventanaPrincipal.panelConsolaServidor.jTextFieldCliente) {
+            refiltrarConsola();
+        }
 
     }
 
     /**
-     * Muestra un mensaje en el área de la consola gráfica del servidor.
+     * Deja un mensaje para la consola gráfica del servidor. Se puede llamar desde cualquier
+     * hilo y no espera a la interfaz: el mensaje aparece en la siguiente vuelta del temporizador.
      *
+     * @param nivel El nivel del mensaje.
+     * @param cliente El usuario del cliente al que se refiere, o `null`.
      * @param mensaje La cadena de texto a mostrar en el área de la consola.
      */
-    public void mostrarMensajeConsolaServidor(String mensaje) {
-        ventanaPrincipal.mostrarMensajeConsolaServidor(mensaje);
+    @Override
+    public void mostrarMensajeConsolaServidor(NivelConsola nivel, String cliente, String mensaje) {
+        bufferConsola.publicar(nivel, cliente, mensaje);
+    }
+
+    /**
+     * Vacía el buffer de la consola y agrega de una vez las líneas que pasan los filtros.
+     * Lo llama el temporizador en el hilo de eventos.
+     */
+    private void drenarConsola() {
+        StringBuilder texto = new StringBuilder();
+        loteConsola.clear();
+        bufferConsola.drenar(loteConsola, CAPACIDAD_BUFFER_CONSOLA);
+        long descartadas = bufferConsola.getDescartadas();
+        if (descartadas > descartadasAvisadas) {
+            texto.append("... ").append(descartadas - descartadasAvisadas).append(" mensajes descartados\n");
+            descartadasAvisadas = descartadas;
+        }
+        for (LineaConsola linea : loteConsola) {
+            historialConsola.addLast(linea);
+            if (historialConsola.size() > LINEAS_CONSOLA) {
+                historialConsola.removeFirst();
+            }
+            if (pasaFiltrosConsola(linea)) {
+                formatearLineaConsola(linea, texto);
+            }
+        }
+        if (texto.length() > 0) {
+            ventanaPrincipal.agregarLineasConsola(texto.toString(), LINEAS_CONSOLA);
+        }
+    }
+
+    /**
+     * Vuelve a mostrar las últimas líneas de la consola con los filtros actuales.
+     */
+    private void refiltrarConsola() {
+        StringBuilder texto = new StringBuilder();
+        for (LineaConsola linea : historialConsola) {
+            if (pasaFiltrosConsola(linea)) {
+                formatearLineaConsola(linea, texto);
+            }
+        }
+        ventanaPrincipal.reemplazarConsola(texto.toString());
+    }
+
+    /**
+     * Indica si una línea cumple los filtros de la consola: el nivel elegido (o todos) y,
+     * si se escribió un cliente, que se refiera a un usuario que lo contenga.
+     *
+     * @param linea La línea de la consola.
+     * @return `true` si la línea se debe mostrar.
+     */
+    private boolean pasaFiltrosConsola(LineaConsola linea) {
+        Object nivel = ventanaPrincipal.panelConsolaServidor.jComboBoxNivel.getSelectedItem();
+        if (nivel != null && !"Todos".equals(nivel) && !linea.getNivel().name().equals(nivel)) {
+            return false;
+        }
+        String cliente = ventanaPrincipal.panelConsolaServidor.jTextFieldCliente.getText().trim();
+        return cliente.isEmpty()
+                || (linea.getCliente() != null && linea.getCliente().toLowerCase().contains(cliente.toLowerCase()));
+    }
+
+    private void formatearLineaConsola(LineaConsola linea, StringBuilder texto) {
+        texto.append(linea.getHora().format(FORMATO_HORA)).append(' ');
+        if (linea.getNivel() != NivelConsola.INFO) {
+            texto.append(linea.getNivel()).append(": ");
+        }
+        texto.append(linea.getTexto()).append('\n');
     }
 
     /**
@@ -135,16 +267,21 @@ public class ControlGrafico implements ActionListener {
      *
      * @param estado Un valor booleano; 'true' para hacer el botón visible, 'false' para ocultarlo.
      */
+    @Override
     public void ocultarBotonIniciarJuego(boolean estado) {
         ventanaPrincipal.panelConsolaServidor.jButtonEmpezarJuego.setVisible(estado);
     }
 
     /**
-     * Añade el número especificado de botones de cartas al panel de juego.
-     * Este método itera 40 veces, añadiendo un botón por cada carta.
+     * Prepara el panel de juego con el tamaño del tablero de la sala visible y
+     * añade un botón por cada carta.
      */
     public void anadirCartasJuego() {
-        for (int i = 0; i < 40; i++) {
+        int[][] matrizCartas = controlPrincipal.getMatrizCartas();
+        int filas = matrizCartas.length;
+        int columnas = filas == 0 ? 0 : matrizCartas[0].length;
+        ventanaPrincipal.panelJuego.prepararTablero(filas, columnas);
+        for (int i = 0; i < filas * columnas; i++) {
             ventanaPrincipal.panelJuego.anadirBoton(i);
         }
     }
@@ -158,9 +295,10 @@ public class ControlGrafico implements ActionListener {
         int idCarta;
         int idImagen;
         int[][] matrizCartas = controlPrincipal.getMatrizCartas(); // Obtiene la matriz de cartas de ControlPrincipal
-        for (int fila = 0; fila < 5; fila++) {
-            for (int columna = 0; columna < 8; columna++) {
-                idCarta = fila * 8 + columna; // Calcula el ID único para cada carta
+        for (int fila = 0; fila < matrizCartas.length; fila++) {
+            int columnas = matrizCartas[fila].length;
+            for (int columna = 0; columna < columnas; columna++) {
+                idCarta = fila * columnas + columna; // Calcula el ID único para cada carta
                 idImagen = matrizCartas[fila][columna]; // Obtiene el ID de la imagen para la carta actual
                 ventanaPrincipal.panelJuego.ponerImagenCarta(idCarta, idImagen); // Establece la imagen en el botón de la carta
             }
@@ -173,6 +311,7 @@ public class ControlGrafico implements ActionListener {
      *
      * @param idCarta El identificador único de la carta a seleccionar.
      */
+    @Override
     public void seleccionarCarta(int idCarta){
         ventanaPrincipal.panelJuego.seleccionarCarta(idCarta);
     }
@@ -182,6 +321,7 @@ public class ControlGrafico implements ActionListener {
      *
      * @param idCarta El identificador único de la carta a deseleccionar.
      */
+    @Override
     public void deseleccionarCarta(int idCarta){
         ventanaPrincipal.panelJuego.deseleccionarCarta(idCarta);
     }
@@ -194,6 +334,7 @@ public class ControlGrafico implements ActionListener {
      * @param numeroParejas La representación en cadena del número de parejas encontradas.
      * @param nombreUsuario El nombre del jugador actual.
      */
+    @Override
     public void actualizarPanelEstadisticas(String numeroIntentos, String numeroParejas, String nombreUsuario){
         ventanaPrincipal.panelJuego.jLabelNumeroIntentos.setText(numeroIntentos);
         ventanaPrincipal.panelJuego.jLabelNumeroParejas.setText(numeroParejas);
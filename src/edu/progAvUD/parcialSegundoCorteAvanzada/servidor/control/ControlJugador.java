@@ -1,9 +1,15 @@
 package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.control;
 
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.CacheJugadores;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.InsercionPorLotes;
 import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.JugadorDAO;
 import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.JugadorVO;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.ResultadoImportacion;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
 
 /**
  * Controlador de jugador con validación mejorada para usuarios únicos.
@@ -14,9 +20,19 @@ import java.util.ArrayList;
  */
 public class ControlJugador {
 
+    /**
+     * Cuántos jugadores se envían a la base de datos en cada lote de una importación.
+     */
+    private static final int TAMANO_LOTE_IMPORTACION = 1000;
+
     private ControlPrincipal controlPrincipal;
     private JugadorDAO jugadorDao;
 
+    /**
+     * Jugadores ya consultados, para que el inicio de sesión no vaya a la base de datos en cada paso.
+     */
+    private volatile CacheJugadores cacheJugadores;
+
     /**
      * Construye una nueva instancia de ControlJugador.
      * Inicializa las dependencias con el controlador principal y el objeto de acceso a datos de jugador.
@@ -26,6 +42,27 @@ public class ControlJugador {
     public ControlJugador(ControlPrincipal controlPrincipal) {
         this.controlPrincipal = controlPrincipal;
         this.jugadorDao = new JugadorDAO();
+        this.cacheJugadores = new CacheJugadores(jugadorDao, 1000, 300000);
+    }
+
+    /**
+     * Reemplaza la caché de jugadores por una vacía con otra capacidad y vigencia.
+     *
+     * @param capacidad La cantidad máxima de jugadores guardados; 0 desactiva la caché.
+     * @param vigenciaMs El tiempo (ms) que se usa un jugador guardado antes de volver a consultarlo.
+     * @throws IllegalArgumentException Si la capacidad o la vigencia son negativas.
+     */
+    public void configurarCache(int capacidad, long vigenciaMs) {
+        this.cacheJugadores = new CacheJugadores(jugadorDao, capacidad, vigenciaMs);
+    }
+
+    /**
+     * Resume los aciertos y fallos de la caché de jugadores.
+     *
+     * @return El texto para la consola del servidor.
+     */
+    public String describirCache() {
+        return cacheJugadores.describirMetricas();
     }
 
     /**
@@ -82,6 +119,82 @@ public class ControlJugador {
         }
     }
 
+    /**
+     * Importa muchos jugadores de una vez, sin preguntar por los datos que falten.
+     * Los usuarios y cédulas ya registrados se cargan una sola vez y la unicidad se valida en memoria,
+     * también entre las filas importadas. Los jugadores válidos se insertan por lotes en una sola
+     * transacción; las filas inválidas se rechazan con su motivo y no detienen la importación.
+     * Si falla la base de datos no se guarda ningún jugador.
+     *
+     * @param jugadores Los jugadores a importar; el id de cada uno es su número de fila. Se recorren
+     * una sola vez, así que pueden venir de un archivo que se lee a medida que se importa.
+     * @return Los jugadores insertados y las filas rechazadas.
+     */
+    public ResultadoImportacion importarJugadores(Iterator<JugadorVO> jugadores) {
+        ResultadoImportacion resultado = new ResultadoImportacion();
+        Set<String> usuarios = new HashSet<>();
+        Set<String> cedulas = new HashSet<>();
+        try {
+            jugadorDao.cargarUsuariosYCedulas(usuarios, cedulas);
+            try (InsercionPorLotes insercion = jugadorDao.iniciarInsercionPorLotes(TAMANO_LOTE_IMPORTACION)) {
+                while (jugadores.hasNext()) {
+                    JugadorVO jugador = jugadores.next();
+                    String motivo = validarParaImportar(jugador);
+                    if (motivo == null && !usuarios.add(JugadorDAO.normalizarUsuario(jugador.getUsuario()))) {
+                        motivo = "el usuario '" + jugador.getUsuario() + "' ya existe";
+                    }
+                    if (motivo == null && !cedulas.add(jugador.getCedula())) {
+                        motivo = "la cédula '" + jugador.getCedula() + "' ya existe";
+                    }
+                    if (motivo != null) {
+                        resultado.rechazar(jugador.getId(), motivo);
+                    } else {
+                        insercion.agregar(jugador);
+                    }
+                }
+                resultado.setInsertados(insercion.confirmar());
+            }
+        } catch (SQLException ex) {
+            controlPrincipal.mostrarMensajeError("Error SQL al importar jugadores, no se guardó ninguno: " + ex.getMessage());
+            resultado.setInsertados(0);
+        }
+        cacheJugadores.limpiar();
+        return resultado;
+    }
+
+    /**
+     * Valida los datos de un jugador que se importa, con las mismas reglas que
+     * {@link #obtenerDatoFaltante(String, String)}, salvo la unicidad.
+     *
+     * @param jugador El jugador, con los datos sin espacios a los lados.
+     * @return El motivo por el que no se puede importar, o `null` si es válido.
+     */
+    private String validarParaImportar(JugadorVO jugador) {
+        if (jugador.getNombreJugador() == null || jugador.getNombreJugador().isBlank()
+                || jugador.getCedula() == null || jugador.getCedula().isBlank()
+                || jugador.getUsuario() == null || jugador.getUsuario().isBlank()
+                || jugador.getContrasena() == null || jugador.getContrasena().isBlank()) {
+            return "faltan datos (se esperan nombre, cédula, usuario y contraseña)";
+        }
+        try {
+            if (Long.parseLong(jugador.getCedula()) <= 0) {
+                return "la cédula debe ser un número positivo";
+            }
+        } catch (NumberFormatException e) {
+            return "la cédula '" + jugador.getCedula() + "' no es un número entero";
+        }
+        if (jugador.getNombreJugador().length() > 35) {
+            return "el nombre tiene más de 35 caracteres";
+        }
+        if (jugador.getUsuario().length() > 20) {
+            return "el usuario tiene más de 20 caracteres";
+        }
+        if (jugador.getContrasena().length() > 20) {
+            return "la contraseña tiene más de 20 caracteres";
+        }
+        return null;
+    }
+
     /**
      * Verifica que el nombre de usuario sea único en la base de datos.
      *
@@ -149,6 +262,7 @@ public class ControlJugador {
     public void insertarJugador(JugadorVO jugador) {
         try {
             jugadorDao.insertarJugador(jugador);
+            cacheJugadores.invalidar(jugador.getUsuario());
         } catch (SQLException ex) {
             // Si es un error de usuario duplicado, muestra un mensaje específico.
             if (ex.getMessage().contains("ya existe")) {
@@ -162,15 +276,21 @@ public class ControlJugador {
     /**
      * Solicita al usuario un dato faltante y valida la entrada según el tipo de dato.
      * Reintenta la solicitud en caso de entrada inválida y valida la unicidad para los campos de usuario y cédula.
+     * Si no se obtiene respuesta (se cancela el diálogo o el servidor corre sin interfaz) el jugador no se crea.
      *
      * @param mensaje El texto que se mostrará al usuario para solicitar el dato.
      * @param tipo Indica el tipo de dato esperado (ej. "cedula", "usuario", "contrasena", "nombre") para aplicar validaciones específicas.
      * @return La cadena con el valor ingresado por el usuario, ya validado y sin espacios en blanco al inicio o al final.
+     * @throws IllegalArgumentException Si no se obtuvo respuesta.
      */
     private String obtenerDatoFaltante(String mensaje, String tipo) {
         String dato = controlPrincipal.mostrarJOptionEscribirDatoFaltante(mensaje);
 
-        if (dato == null || dato.trim().isBlank()) {
+        if (dato == null) {
+            // Se canceló el diálogo o el servidor corre sin interfaz y no hay a quién preguntar
+            throw new IllegalArgumentException("Falta el dato de " + mensaje);
+        }
+        if (dato.trim().isBlank()) {
             controlPrincipal.mostrarMensajeError("No se ha escrito nada en el campo de " + tipo);
             return obtenerDatoFaltante(mensaje, tipo); // Reintenta la solicitud.
         }
@@ -223,16 +343,17 @@ public class ControlJugador {
 
     /**
      * Consulta si un usuario y contraseña específicos existen y coinciden en la base de datos.
+     * El jugador se busca primero en la caché, así que el {@link #obtenerJugadorPorCredenciales(String)}
+     * que sigue a un inicio de sesión correcto ya no consulta la base de datos.
      *
      * @param usuario El nombre de usuario a verificar.
      * @param contrasena La contraseña a verificar.
      * @return `true` si el usuario y la contraseña coinciden, `false` en caso contrario o si el usuario no existe.
      */
     public boolean consultarUsuarioYContrasenaExistente(String usuario, String contrasena) {
-        JugadorVO jugador = new JugadorVO();
         try {
-            jugador = jugadorDao.consultarUsuarioJugador(usuario, jugador);
-            if (jugador.getContrasena() != null && jugador.getContrasena().equals(contrasena)) {
+            JugadorVO jugador = cacheJugadores.consultar(usuario);
+            if (jugador != null && jugador.getContrasena() != null && jugador.getContrasena().equals(contrasena)) {
                 return true;
             } else {
                 controlPrincipal.mostrarMensajeError("La contraseña no coincide");
@@ -252,10 +373,9 @@ public class ControlJugador {
      * separados por comas si se encuentra el jugador; de lo contrario, "Error".
      */
     public String obtenerJugadorPorCredenciales(String usuario) {
-        JugadorVO jugador = new JugadorVO();
         try {
-            jugador = jugadorDao.consultarUsuarioJugador(usuario, jugador);
-            if (jugador.getNombreJugador() != null) {
+            JugadorVO jugador = cacheJugadores.consultar(usuario);
+            if (jugador != null) {
                 return jugador.getNombreJugador() + "," + jugador.getCedula() + "," + jugador.getUsuario() + "," + jugador.getContrasena();
             }
         } catch (SQLException ex) {
@@ -2,36 +2,96 @@ package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.control;
 
 import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.ConexionBD;
 import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.ConexionPropiedades;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.EscrituraEstadisticas;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.EstadisticasDAO;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.JugadorVO;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.LectorCsvJugadores;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.NivelConsola;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.RegistroServidor;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.ResultadoImportacion;
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.Properties;
+import java.util.Vector;
 
 /**
  * Controlador principal corregido con mejor validación de datos.
  * Esta clase es el punto central del control del servidor, coordinando las interacciones
- * entre la interfaz gráfica (ControlGrafico), la lógica de negocio de los jugadores (ControlJugador)
+ * entre la interfaz de usuario (InterfazServidor), la lógica de negocio de los jugadores (ControlJugador)
  * y la gestión del servidor de red (ControlServidor).
+ * La interfaz puede ser la ventana Swing (ControlGrafico) o, sin pantalla, la consola con
+ * archivo de registro (ControlConsola).
  *
  * @author Andres Felipe
  */
-public class ControlPrincipal {
+public final class ControlPrincipal {
 
-    private ControlGrafico controlGrafico;
+    private InterfazServidor interfaz;
+    private RegistroServidor registro;
+    private EscrituraEstadisticas estadisticas;
     private ControlJugador controlJugador;
     private ControlServidor controlServidor;
-    private int[][] matrizCartas;
 
     /**
      * Constructor de la clase ControlPrincipal.
-     * Inicializa las instancias de los controladores gráfico, de jugador y del servidor,
-     * y también la matriz que almacenará el orden de las cartas del juego.
+     * Inicializa las instancias de los controladores gráfico, de jugador y del servidor.
+     * El tablero de cada partida lo guarda su sala en el `ControlServidor`.
      */
     public ControlPrincipal() {
-        this.controlGrafico = new ControlGrafico(this);
+        this.interfaz = new ControlGrafico(this);
+        this.registro = new RegistroServidor(interfaz::mostrarMensajeConsolaServidor);
+        this.estadisticas = crearEscrituraEstadisticas();
         this.controlJugador = new ControlJugador(this);
         this.controlServidor = new ControlServidor(this);
-        matrizCartas = new int[5][8];
+    }
+
+    /**
+     * Constructor de la clase ControlPrincipal para correr el servidor sin interfaz gráfica.
+     * No crea ninguna ventana: los mensajes se escriben en un archivo de registro y el
+     * servidor se maneja con comandos en la entrada estándar ({@link ControlConsola}).
+     * Después hay que llamar a {@link #iniciarSinInterfaz(File, File, File)}.
+     *
+     * @param archivoRegistro La ruta del archivo de registro, o `null` para escribir en la salida estándar.
+     * @throws IOException Si no se puede abrir el archivo de registro.
+     */
+    public ControlPrincipal(String archivoRegistro) throws IOException {
+        this.interfaz = new ControlConsola(this, archivoRegistro);
+        this.registro = new RegistroServidor(interfaz::mostrarMensajeConsolaServidor);
+        this.estadisticas = crearEscrituraEstadisticas();
+        this.controlJugador = new ControlJugador(this);
+        this.controlServidor = new ControlServidor(this);
+    }
+
+    /**
+     * Crea la escritura diferida de estadísticas, que avisa sus errores en la consola del servidor.
+     * Guarda cada 5 segundos hasta que {@link #cargarDatosBD(File)} lea otro periodo.
+     *
+     * @return La escritura de estadísticas.
+     */
+    private EscrituraEstadisticas crearEscrituraEstadisticas() {
+        return new EscrituraEstadisticas(new EstadisticasDAO(), 5000, aviso -> registro.registrar(NivelConsola.ADVERTENCIA, null, aviso));
+    }
+
+    /**
+     * Arranca el servidor sin interfaz gráfica: carga los tres archivos de propiedades en el
+     * mismo orden que los botones del panel inicial, inicia el servidor y empieza a leer los
+     * comandos del administrador.
+     *
+     * @param propiedadesBD El archivo de propiedades de la base de datos.
+     * @param propiedadesSockets El archivo de propiedades de los puertos.
+     * @param propiedadesJugadores El archivo de propiedades de los jugadores.
+     */
+    public void iniciarSinInterfaz(File propiedadesBD, File propiedadesSockets, File propiedadesJugadores) {
+        cargarDatosBD(propiedadesBD);
+        cargarPropiedadesSockets(propiedadesSockets);
+        cargarDatosJugadoresPropiedades(propiedadesJugadores);
+        empezarServer();
+        if (interfaz instanceof ControlConsola controlConsola) {
+            controlConsola.iniciarComandos();
+        }
     }
 
     /**
@@ -46,26 +106,60 @@ public class ControlPrincipal {
         boolean flag = true;
         do {
             try {
-                conexionPropiedades = new ConexionPropiedades(controlGrafico.pedirArchivoPropiedades());
+                conexionPropiedades = new ConexionPropiedades(interfaz.pedirArchivoPropiedades());
                 if (conexionPropiedades != null) {
                     flag = false;
                 }
             } catch (Exception ex) {
-                controlGrafico.mostrarMensajeError("No se pudo crear la conexión correctamente: " + ex.getMessage());
+                interfaz.mostrarMensajeError("No se pudo crear la conexión correctamente: " + ex.getMessage());
             }
         } while (flag);
 
         return conexionPropiedades;
     }
 
+    /**
+     * Crea la conexión a un archivo de propiedades ya conocido (por ejemplo, pasado en la línea
+     * de comandos). Si el archivo es `null` se le pide al usuario como en {@link #crearConexionPropiedades()}.
+     *
+     * @param archivo El archivo de propiedades, o `null` para pedirlo.
+     * @return La conexión al archivo de propiedades.
+     * @throws IllegalStateException Si el archivo no existe, o si falta y el servidor corre sin
+     * interfaz, donde no hay a quién pedirlo.
+     */
+    public ConexionPropiedades crearConexionPropiedades(File archivo) {
+        if (archivo == null) {
+            if (interfaz instanceof ControlConsola) {
+                throw new IllegalStateException("No se indicó el archivo de propiedades");
+            }
+            return crearConexionPropiedades();
+        }
+        try {
+            return new ConexionPropiedades(archivo);
+        } catch (FileNotFoundException ex) {
+            throw new IllegalStateException("No se encontró el archivo de propiedades '" + archivo.getPath() + "'");
+        }
+    }
+
     /**
      * Este método se encarga de cargar las propiedades de la base de datos desde un archivo.
      * Lee la URL de la base de datos, el usuario y la contraseña del archivo de propiedades
      * y los asigna a la clase `ConexionBD` para establecer la conexión. Realiza validaciones básicas
-     * para asegurar que las propiedades esenciales no estén vacías.
+     * para asegurar que las propiedades esenciales no estén vacías. También lee la configuración
+     * opcional del pool de conexiones (`POOL_MINIMO`, `POOL_MAXIMO`, `POOL_ESPERA_MS`,
+     * `POOL_INACTIVIDAD_MS` y `POOL_FUGA_MS`).
      */
     public void cargarDatosBD() {
-        ConexionPropiedades conexionPropiedades = crearConexionPropiedades();
+        cargarDatosBD(null);
+    }
+
+    /**
+     * Igual que {@link #cargarDatosBD()}, pero con el archivo de propiedades ya elegido.
+     *
+     * @param archivo El archivo de propiedades, o `null` para pedirlo al usuario.
+     */
+    public void cargarDatosBD(File archivo) {
+        ConexionPropiedades conexionPropiedades = crearConexionPropiedades(archivo);
         try {
             Properties propiedadesBD = conexionPropiedades.cargarPropiedades();
             String URLBD = propiedadesBD.getProperty("URLBD");
@@ -74,7 +168,7 @@ public class ControlPrincipal {
 
             // Validar que las propiedades obligatorias no sean nulas o vacías
             if (URLBD == null || URLBD.isBlank() || usuario == null || usuario.isBlank()) {
-                controlGrafico.mostrarMensajeError("URLBD y usuario son obligatorios en el archivo de propiedades de la Base de Datos.");
+                interfaz.mostrarMensajeError("URLBD y usuario son obligatorios en el archivo de propiedades de la Base de Datos.");
                 return; // Termina la ejecución si las propiedades obligatorias faltan
             }
 
@@ -83,46 +177,100 @@ public class ControlPrincipal {
             // Permite que la contraseña sea vacía si no está presente o es nula
             ConexionBD.setContrasena(contrasena != null ? contrasena : ""); 
 
+            // El pool es opcional en el archivo: sin las propiedades se usan sus valores por defecto
+            ConexionBD.setAvisos(aviso -> registro.registrar(NivelConsola.ADVERTENCIA, null, aviso));
+            ConexionBD.configurarPool(
+                    leerEntero(propiedadesBD, "POOL_MINIMO", 1),
+                    leerEntero(propiedadesBD, "POOL_MAXIMO", 8),
+                    leerEntero(propiedadesBD, "POOL_ESPERA_MS", 5000),
+                    leerEntero(propiedadesBD, "POOL_INACTIVIDAD_MS", 300000),
+                    leerEntero(propiedadesBD, "POOL_FUGA_MS", 30000));
+            controlJugador.configurarCache(
+                    leerEntero(propiedadesBD, "CACHE_JUGADORES_MAXIMO", 1000),
+                    leerEntero(propiedadesBD, "CACHE_JUGADORES_VIGENCIA_MS", 300000));
+            estadisticas.configurarPeriodo(leerEntero(propiedadesBD, "ESTADISTICAS_PERIODO_MS", 5000));
+            controlServidor.cargarClasificacion();
+
         } catch (IOException ex) {
-            controlGrafico.mostrarMensajeError("No se pudo cargar el archivo de propiedades de la Base de Datos: " + ex.getMessage());
+            interfaz.mostrarMensajeError("No se pudo cargar el archivo de propiedades de la Base de Datos: " + ex.getMessage());
         } catch (IllegalArgumentException ex) {
-            controlGrafico.mostrarMensajeError("Error en las propiedades de la Base de Datos: " + ex.getMessage());
+            interfaz.mostrarMensajeError("Error en las propiedades de la Base de Datos: " + ex.getMessage());
         }
     }
 
     /**
      * Este método se encarga de cargar las propiedades de los puertos de los sockets desde un archivo.
-     * Lee los valores de `PUERTO_1` y `PUERTO_2` del archivo de propiedades y los asigna
-     * al control del servidor para su configuración.
+     * Lee los valores de `PUERTO_1` y `PUERTO_2` (este último opcional, para los clientes
+     * antiguos de dos sockets) del archivo de propiedades y los asigna al control del
+     * servidor para su configuración. También lee el modo del servidor
+     * (`MODO_SERVIDOR`, "hilos" o "nio"), los bucles del reactor (`HILOS_REACTOR`) y
+     * el tipo de hilo de cada sesión (`TIPO_HILOS`, "plataforma" o "virtual"), la
+     * capacidad de la cola de salida de cada cliente (`CAPACIDAD_COLA_SALIDA`) y qué
+     * hacer cuando se llena (`POLITICA_CLIENTE_LENTO`), los jugadores por sala
+     * (`JUGADORES_POR_SALA`), la espera máxima de una sala incompleta
+     * (`ESPERA_MAXIMA_SALA_MS`), el tamaño del tablero (`FILAS_TABLERO`, `COLUMNAS_TABLERO`),
+     * las esperas de la partida (`ESPERA_VOLTEO_MS`, `ESPERA_CIERRE_MS`), los plazos del turno y de
+     * las sesiones (`TIEMPO_TURNO_MS`, `INACTIVIDAD_MAXIMA_MS`) y el registro de eventos (`NIVEL_REGISTRO`,
+     * `ARCHIVO_REGISTRO`, `TAMANO_MAXIMO_REGISTRO_KB`, `ARCHIVOS_REGISTRO`), que son opcionales.
      */
     public void cargarPropiedadesSockets() {
-        ConexionPropiedades conexionPropiedades = crearConexionPropiedades();
+        cargarPropiedadesSockets(null);
+    }
+
+    /**
+     * Igual que {@link #cargarPropiedadesSockets()}, pero con el archivo de propiedades ya elegido.
+     *
+     * @param archivo El archivo de propiedades, o `null` para pedirlo al usuario.
+     */
+    public void cargarPropiedadesSockets(File archivo) {
+        ConexionPropiedades conexionPropiedades = crearConexionPropiedades(archivo);
         try {
             Properties propiedadesPuertos = conexionPropiedades.cargarPropiedades();
             String Puerto1 = propiedadesPuertos.getProperty("PUERTO_1");
             String Puerto2 = propiedadesPuertos.getProperty("PUERTO_2");
 
-            // Validar que las propiedades de los puertos no sean nulas o vacías
-            if (Puerto1 == null || Puerto1.isBlank() || Puerto2 == null || Puerto2.isBlank()) {
-                controlGrafico.mostrarMensajeError("Los puertos son obligatorios para la ejecución del servidor.");
+            // Validar que el puerto principal no sea nulo o vacío.
+            // PUERTO_2 es opcional: solo se usa para atender a los clientes antiguos de dos sockets
+            if (Puerto1 == null || Puerto1.isBlank()) {
+                interfaz.mostrarMensajeError("El puerto principal es obligatorio para la ejecución del servidor.");
                 return; // Termina la ejecución si las propiedades obligatorias faltan
             }
             controlServidor.asignarIps(Puerto1, Puerto2);
+            controlServidor.asignarModoServidor(propiedadesPuertos.getProperty("MODO_SERVIDOR"), propiedadesPuertos.getProperty("HILOS_REACTOR"));
+            controlServidor.asignarTipoHilos(propiedadesPuertos.getProperty("TIPO_HILOS"));
+            controlServidor.asignarColaSalida(propiedadesPuertos.getProperty("CAPACIDAD_COLA_SALIDA"), propiedadesPuertos.getProperty("POLITICA_CLIENTE_LENTO"));
+            controlServidor.asignarEmparejamiento(propiedadesPuertos.getProperty("JUGADORES_POR_SALA"), propiedadesPuertos.getProperty("ESPERA_MAXIMA_SALA_MS"));
+            controlServidor.asignarTablero(propiedadesPuertos.getProperty("FILAS_TABLERO"), propiedadesPuertos.getProperty("COLUMNAS_TABLERO"));
+            controlServidor.asignarEsperas(propiedadesPuertos.getProperty("ESPERA_VOLTEO_MS"), propiedadesPuertos.getProperty("ESPERA_CIERRE_MS"));
+            controlServidor.asignarPlazos(propiedadesPuertos.getProperty("TIEMPO_TURNO_MS"), propiedadesPuertos.getProperty("INACTIVIDAD_MAXIMA_MS"));
+            configurarRegistro(propiedadesPuertos.getProperty("NIVEL_REGISTRO"), propiedadesPuertos.getProperty("ARCHIVO_REGISTRO"),
+                    propiedadesPuertos.getProperty("TAMANO_MAXIMO_REGISTRO_KB"), propiedadesPuertos.getProperty("ARCHIVOS_REGISTRO"));
         } catch (IOException ex) {
-            controlGrafico.mostrarMensajeError("No se pudo cargar el archivo de propiedades de los puertos: " + ex.getMessage());
+            interfaz.mostrarMensajeError("No se pudo cargar el archivo de propiedades de los puertos: " + ex.getMessage());
         } catch (IllegalArgumentException ex) {
-            controlGrafico.mostrarMensajeError("Error en las propiedades de los puertos: " + ex.getMessage());
+            interfaz.mostrarMensajeError("Error en las propiedades de los puertos: " + ex.getMessage());
         }
     }
 
     /**
      * Carga los datos de los jugadores desde un archivo de propiedades con validación mejorada.
      * Lee la cantidad de jugadores a registrar y luego itera para obtener los datos de cada jugador.
-     * Realiza validaciones de formato para la cédula y otros campos antes de intentar crear cada jugador.
+     * Los jugadores con todos sus datos se importan por lotes ({@link ControlJugador#importarJugadores});
+     * a los que les falta algún dato se les pide al usuario y se crean uno por uno. Si el archivo tiene la
+     * propiedad `archivoCsv`, también se importan los jugadores de ese CSV.
      * En caso de errores, muestra mensajes al usuario y puede terminar la aplicación si el error es crítico.
      */
     public void cargarDatosJugadoresPropiedades() {
-        ConexionPropiedades conexionPropiedades = crearConexionPropiedades();
+        cargarDatosJugadoresPropiedades(null);
+    }
+
+    /**
+     * Igual que {@link #cargarDatosJugadoresPropiedades()}, pero con el archivo de propiedades ya elegido.
+     *
+     * @param archivo El archivo de propiedades, o `null` para pedirlo al usuario.
+     */
+    public void cargarDatosJugadoresPropiedades(File archivo) {
+        ConexionPropiedades conexionPropiedades = crearConexionPropiedades(archivo);
         boolean flag = true;
         do {
             try {
@@ -130,17 +278,21 @@ public class ControlPrincipal {
                 String cantidadStr = propiedadesJugadores.getProperty("cantidadJugadoresARegistrar");
 
                 if (cantidadStr == null || cantidadStr.trim().isBlank()) {
-                    controlGrafico.mostrarMensajeError("La propiedad 'cantidadJugadoresARegistrar' no está definida en el archivo de propiedades de jugadores.");
+                    interfaz.mostrarMensajeError("La propiedad 'cantidadJugadoresARegistrar' no está definida en el archivo de propiedades de jugadores.");
                     System.exit(0); // Sale de la aplicación si la propiedad esencial no está definida
                 }
 
                 int cantidadDeJugadoresRegistrar = Integer.parseInt(cantidadStr.trim());
 
                 if (cantidadDeJugadoresRegistrar <= 0) {
-                    controlGrafico.mostrarMensajeError("La cantidad de jugadores a registrar debe ser un número positivo mayor que 0.");
+                    interfaz.mostrarMensajeError("La cantidad de jugadores a registrar debe ser un número positivo mayor que 0.");
                     System.exit(0); // Sale de la aplicación si la cantidad es inválida
                 }
 
+                // Los jugadores completos se importan por lotes; los que tienen datos faltantes se crean
+                // después uno por uno, pidiendo lo que falta
+                Vector<JugadorVO> completos = new Vector<>();
+                Vector<JugadorVO> incompletos = new Vector<>();
                 for (int i = 1; i <= cantidadDeJugadoresRegistrar; i++) {
                     // Obtener propiedades del jugador, utilizando una cadena vacía como valor por defecto si no existen
                     String nombreJugador = propiedadesJugadores.getProperty("jugador" + i + ".nombreJugador", "").trim();
@@ -148,38 +300,154 @@ public class ControlPrincipal {
                     String usuario = propiedadesJugadores.getProperty("jugador" + i + ".usuario", "").trim();
                     String contrasena = propiedadesJugadores.getProperty("jugador" + i + ".contrasena", "").trim();
 
+                    JugadorVO jugador = new JugadorVO(nombreJugador, cedula, usuario, contrasena, i, 0, 0);
+                    if (nombreJugador.isBlank() || cedula.isBlank() || usuario.isBlank() || contrasena.isBlank()) {
+                        incompletos.add(jugador);
+                    } else {
+                        completos.add(jugador);
+                    }
+                }
+
+                mostrarResultadoImportacion("las propiedades", controlJugador.importarJugadores(completos.iterator()));
+
+                for (JugadorVO jugador : incompletos) {
                     // Validar cédula si no está en blanco
-                    if (!cedula.isBlank()) {
-                        if (!validarCedula(cedula)) {
-                            controlGrafico.mostrarMensajeError("La cédula del jugador " + i + " debe ser un número entero válido: '" + cedula + "'.");
-                            // Considera si debes salir o continuar con el siguiente jugador.
-                            // Por ahora, se mantiene el comportamiento original de solo mostrar error.
-                        }
+                    if (!jugador.getCedula().isBlank() && !validarCedula(jugador.getCedula())) {
+                        interfaz.mostrarMensajeError("La cédula del jugador " + jugador.getId() + " debe ser un número entero válido: '" + jugador.getCedula() + "'.");
                     }
+                    controlJugador.crearJugador(jugador.getNombreJugador(), jugador.getCedula(), jugador.getUsuario(),
+                            jugador.getContrasena(), jugador.getId(), 0, 0);
+                }
 
-                    // Crear el jugador
-                    controlJugador.crearJugador(nombreJugador, cedula, usuario, contrasena, i, 0, 0);
+                // Un CSV opcional para importar muchos jugadores sin listarlos en las propiedades
+                String archivoCsv = propiedadesJugadores.getProperty("archivoCsv", "").trim();
+                if (!archivoCsv.isBlank()) {
+                    importarJugadoresCsv(Path.of(archivoCsv));
                 }
 
                 flag = false;
-                controlGrafico.mostrarMensajeExito("Se han creado correctamente los jugadores a partir de las propiedades.");
 
             } catch (IOException ex) {
-                controlGrafico.mostrarMensajeError("No se pudo cargar el archivo de propiedades de los jugadores: " + ex.getMessage());
+                interfaz.mostrarMensajeError("No se pudo cargar el archivo de propiedades de los jugadores: " + ex.getMessage());
                 System.exit(0); // Salida crítica en caso de que el archivo no se pueda cargar
             } catch (NumberFormatException ex) {
-                controlGrafico.mostrarMensajeError("Error en el formato numérico de la cantidad de jugadores a registrar: " + ex.getMessage());
+                interfaz.mostrarMensajeError("Error en el formato numérico de la cantidad de jugadores a registrar: " + ex.getMessage());
                 System.exit(0); // Salida crítica en caso de error de formato numérico
             } catch (IllegalArgumentException ex) {
-                controlGrafico.mostrarMensajeError("Error en las propiedades de los jugadores: " + ex.getMessage());
+                interfaz.mostrarMensajeError("Error en las propiedades de los jugadores: " + ex.getMessage());
                 System.exit(0); // Salida crítica para otros errores de propiedades
             } catch (Exception ex) {
-                controlGrafico.mostrarMensajeError("Error inesperado al cargar datos de jugadores: " + ex.getMessage());
+                interfaz.mostrarMensajeError("Error inesperado al cargar datos de jugadores: " + ex.getMessage());
                 System.exit(0); // Salida crítica para errores no capturados
             }
         } while (flag);
     }
 
+    /**
+     * Importa por lotes los jugadores de un archivo CSV (`nombreJugador,cedula,usuario,contrasena`).
+     * El archivo se lee a medida que se importa, así que puede ser muy grande.
+     *
+     * @param archivo El archivo CSV.
+     */
+    public void importarJugadoresCsv(Path archivo) {
+        try (LectorCsvJugadores lector = new LectorCsvJugadores(archivo)) {
+            mostrarResultadoImportacion("el archivo '" + archivo + "'", controlJugador.importarJugadores(lector));
+        } catch (IOException | UncheckedIOException ex) {
+            interfaz.mostrarMensajeError("No se pudo leer el archivo de jugadores '" + archivo + "', no se guardó ninguno: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Muestra cuántos jugadores se importaron y registra en la consola cada fila rechazada.
+     *
+     * @param origen De dónde se importaron, para el mensaje.
+     * @param resultado El resultado de la importación.
+     */
+    private void mostrarResultadoImportacion(String origen, ResultadoImportacion resultado) {
+        for (String rechazo : resultado.getRechazos()) {
+            registro.registrar(NivelConsola.ADVERTENCIA, null, "Jugador no importado desde {}. {}", origen, rechazo);
+        }
+        String mensaje = "Se importaron " + resultado.getInsertados() + " jugadores desde " + origen;
+        if (resultado.getRechazos().isEmpty()) {
+            interfaz.mostrarMensajeExito(mensaje + ".");
+        } else {
+            interfaz.mostrarMensajeError(mensaje + "; " + resultado.getRechazos().size() + " filas se rechazaron (ver la consola del servidor).");
+        }
+    }
+
+    /**
+     * Configura el registro de eventos del servidor. Los valores que faltan o no son válidos
+     * toman su valor por defecto: nivel `INFO`, sin archivo, archivos de 1024 KB y 5 archivos viejos.
+     *
+     * @param nivel El nivel mínimo (DEPURACION, INFO, ADVERTENCIA o ERROR).
+     * @param archivo La ruta del archivo de registro, o vacío para no escribir en archivo.
+     * @param tamanoKb El tamaño en KB del archivo antes de rotarlo.
+     * @param archivos Cuántos archivos viejos se conservan.
+     */
+    private void configurarRegistro(String nivel, String archivo, String tamanoKb, String archivos) {
+        NivelConsola nivelMinimo = NivelConsola.INFO;
+        if (nivel != null && !nivel.isBlank()) {
+            try {
+                nivelMinimo = NivelConsola.valueOf(nivel.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                mostrarMensajeConsolaServidor("NIVEL_REGISTRO '" + nivel.trim() + "' no es válido, se usa INFO");
+            }
+        }
+        long tamanoMaximoKb = 1024;
+        int archivosGuardados = 5;
+        try {
+            if (tamanoKb != null && !tamanoKb.isBlank()) {
+                tamanoMaximoKb = Long.parseLong(tamanoKb.trim());
+            }
+            if (archivos != null && !archivos.isBlank()) {
+                archivosGuardados = Integer.parseInt(archivos.trim());
+            }
+        } catch (NumberFormatException e) {
+            mostrarMensajeConsolaServidor("TAMANO_MAXIMO_REGISTRO_KB o ARCHIVOS_REGISTRO no es un número válido, se usan " + tamanoMaximoKb + " KB y " + archivosGuardados + " archivos");
+        }
+        Path rutaArchivo = archivo == null || archivo.isBlank() ? null : Path.of(archivo.trim());
+        registro.configurar(nivelMinimo, rutaArchivo, tamanoMaximoKb * 1024, archivosGuardados);
+    }
+
+    /**
+     * Lee una propiedad entera opcional.
+     *
+     * @param propiedades Las propiedades.
+     * @param nombre El nombre de la propiedad.
+     * @param porDefecto El valor si la propiedad falta.
+     * @return El valor de la propiedad.
+     * @throws IllegalArgumentException Si la propiedad no es un número entero.
+     */
+    private int leerEntero(Properties propiedades, String nombre, int porDefecto) {
+        String valor = propiedades.getProperty(nombre);
+        if (valor == null || valor.isBlank()) {
+            return porDefecto;
+        }
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(nombre + " no es un número válido: '" + valor.trim() + "'");
+        }
+    }
+
+    /**
+     * Obtiene el registro de eventos del servidor.
+     *
+     * @return El registro de eventos.
+     */
+    public RegistroServidor getRegistro() {
+        return registro;
+    }
+
+    /**
+     * Obtiene la escritura diferida de las estadísticas de los jugadores.
+     *
+     * @return La escritura de estadísticas.
+     */
+    public EscrituraEstadisticas getEstadisticas() {
+        return estadisticas;
+    }
+
     /**
      * Valida que una cédula sea un número entero válido y positivo.
      *
@@ -196,38 +464,15 @@ public class ControlPrincipal {
     }
     
     /**
-     * Asigna un orden aleatorio a las cartas del juego y las almacena en la matriz `matrizCartas`.
-     * Se generan 20 pares de números (del 1 al 20), se mezclan aleatoriamente y luego se distribuyen
-     * en una matriz de 5 filas por 8 columnas. La matriz se imprime en la consola para depuración.
+     * Asigna un orden aleatorio a las cartas de la sala que se muestra en la interfaz.
+     * El tablero lo guarda la sala ({@link SalaJuego#barajarCartas()}).
      */
     public void asignarOrdenMatrizCartas(){
-        ArrayList<Integer> numeros = new ArrayList<>();
-        // Crea 20 pares de números (del 1 al 20)
-        for (int i = 1; i <= 20; i++) {
-            numeros.add(i);
-            numeros.add(i);
-        }
-        
-        Collections.shuffle(numeros); // Mezcla aleatoriamente los números
-        
-        // Rellena la matriz con los números mezclados
-        int index = 0;
-        for (int i = 0; i < 5; i++) {
-            for (int j = 0; j < 8; j++) {
-                this.matrizCartas[i][j] = numeros.get(index++);
-            }
+        SalaJuego salaVisible = controlServidor.getSalaVisible();
+        if (salaVisible != null) {
+            salaVisible.barajarCartas();
         }
-        
-        // Imprime la matriz en la consola (para depuración)
-        
-//        for (int i = 0; i < 5; i++) {
-//            for (int j = 0; j < 8; j++) {
-//                System.out.print(matrizCartas[i][j] + "\t");
-//            }
-//            System.out.println();
-//        }
     }
-    
 
     /**
      * Solicita al usuario un dato faltante a través del control gráfico.
@@ -236,7 +481,7 @@ public class ControlPrincipal {
      * @return El valor (cadena de texto) ingresado por el usuario.
      */
     public String mostrarJOptionEscribirDatoFaltante(String datoFaltante) {
-        return controlGrafico.mostrarJOptionEscribirDatoFaltante(datoFaltante);
+        return interfaz.mostrarJOptionEscribirDatoFaltante(datoFaltante);
     }
 
     /**
@@ -245,7 +490,7 @@ public class ControlPrincipal {
      * @param mensaje El mensaje de error a mostrar.
      */
     public void mostrarMensajeError(String mensaje) {
-        controlGrafico.mostrarMensajeError(mensaje);
+        interfaz.mostrarMensajeError(mensaje);
     }
 
     /**
@@ -254,7 +499,7 @@ public class ControlPrincipal {
      * @param mensaje El mensaje de éxito a mostrar.
      */
     public void mostrarMensajeExito(String mensaje) {
-        controlGrafico.mostrarMensajeExito(mensaje);
+        interfaz.mostrarMensajeExito(mensaje);
     }
 
     /**
@@ -263,7 +508,20 @@ public class ControlPrincipal {
      * @param mensaje El mensaje de texto que se desea mostrar en la consola del servidor.
      */
     public void mostrarMensajeConsolaServidor(String mensaje) {
-        controlGrafico.mostrarMensajeConsolaServidor(mensaje);
+        mostrarMensajeConsolaServidor(null, mensaje);
+    }
+
+    /**
+     * Envía a la consola del servidor un mensaje sobre un cliente, para poder filtrarla por
+     * cliente. El nivel se deduce del texto ({@link NivelConsola#deducir(String)}) y el mensaje pasa
+     * por el registro de eventos, que lo escribe en otro hilo. En los caminos frecuentes es mejor usar
+     * {@link #getRegistro()} con una plantilla, que no arma el texto si el nivel está inactivo.
+     *
+     * @param cliente El usuario del cliente, o `null` si el mensaje no es de un cliente.
+     * @param mensaje El mensaje de texto que se desea mostrar en la consola del servidor.
+     */
+    public void mostrarMensajeConsolaServidor(String cliente, String mensaje) {
+        registro.registrar(NivelConsola.deducir(mensaje), cliente, mensaje);
     }
 
     /**
@@ -303,16 +561,18 @@ public class ControlPrincipal {
      * @param estado Un valor booleano: `true` para hacer visible el botón, `false` para ocultarlo.
      */
     public void ocultarBotonIniciarJuego(boolean estado){
-        controlGrafico.ocultarBotonIniciarJuego(estado);
+        interfaz.ocultarBotonIniciarJuego(estado);
     }
 
     /**
-     * Obtiene la matriz de cartas actual que define el orden de las imágenes en el juego.
+     * Obtiene la matriz de cartas de la sala que se muestra en la interfaz.
      *
-     * @return Una matriz bidimensional de enteros que representa la disposición de las cartas.
+     * @return Una matriz bidimensional de enteros que representa la disposición de las cartas,
+     * o una matriz vacía si las salas empiezan solas y ninguna se muestra.
      */
     public int[][] getMatrizCartas() {
-        return matrizCartas;
+        SalaJuego salaVisible = controlServidor.getSalaVisible();
+        return salaVisible != null ? salaVisible.getMatrizCartas() : new int[controlServidor.getFilasTablero()][controlServidor.getColumnasTablero()];
     }   
     
     /**
@@ -322,6 +582,48 @@ public class ControlPrincipal {
     public void iniciarJuego(){
         controlServidor.iniciarJuego();
     }
+
+    /**
+     * Muestra en la consola del servidor los jugadores de cada sala.
+     */
+    public void mostrarClientesConectados() {
+        controlServidor.mostrarClientesConectados();
+    }
+
+    /**
+     * Muestra en la consola del servidor los usuarios con sesión iniciada.
+     */
+    public void mostrarUsuariosConectados() {
+        controlServidor.mostrarUsuariosConectados();
+    }
+
+    /**
+     * Muestra en la consola del servidor el estado de la cola de emparejamiento y del planificador.
+     */
+    public void mostrarMetricasEmparejamiento() {
+        controlServidor.mostrarMetricasEmparejamiento();
+    }
+
+    /**
+     * Muestra en la consola del servidor los aciertos y fallos de la caché de jugadores.
+     */
+    public void mostrarMetricasCacheJugadores() {
+        mostrarMensajeConsolaServidor(controlJugador.describirCache());
+    }
+
+    /**
+     * Muestra en la consola del servidor las estadísticas pendientes de guardar y las escrituras hechas.
+     */
+    public void mostrarEstadoEstadisticas() {
+        mostrarMensajeConsolaServidor(estadisticas.describirEstado());
+    }
+
+    /**
+     * Muestra en la consola del servidor los primeros jugadores de la clasificación.
+     */
+    public void mostrarClasificacion() {
+        controlServidor.mostrarClasificacion();
+    }
     
     /**
      * Selecciona visualmente una carta en la interfaz gráfica del juego.
@@ -329,7 +631,7 @@ public class ControlPrincipal {
      * @param idCarta El identificador único de la carta que se desea seleccionar.
      */
     public void seleccionarCarta(int idCarta){
-        controlGrafico.seleccionarCarta(idCarta);
+        interfaz.seleccionarCarta(idCarta);
     }
     
     /**
@@ -338,7 +640,7 @@ public class ControlPrincipal {
      * @param idCarta El identificador único de la carta que se desea deseleccionar.
      */
     public void deseleccionarCarta(int idCarta){
-        controlGrafico.deseleccionarCarta(idCarta);
+        interfaz.deseleccionarCarta(idCarta);
     }
     
     /**
@@ -349,6 +651,6 @@ public class ControlPrincipal {
      * @param nombreUsuario La cadena que representa el nombre del jugador actual.
      */
     public void actualizarPanelEstadisticas(String numeroIntentos, String numeroParejas, String nombreUsuario){
-        controlGrafico.actualizarPanelEstadisticas(numeroIntentos, numeroParejas, nombreUsuario);
+        interfaz.actualizarPanelEstadisticas(numeroIntentos, numeroParejas, nombreUsuario);
     }
 }
\ No newline at end of file
@@ -1,74 +1,119 @@
 package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.control;
 
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.ColaSalida;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.EscrituraEstadisticas;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.EstadisticasDAO;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.EstadisticasJugadorVO;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.PlanificadorServidor;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.Protocolo;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.RegistroServidor;
 import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.Servidor;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.TablaClasificacion;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.ArrayList;
+import java.sql.SQLException;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Set;
-import java.util.Vector;
 
 /**
  * La clase `ControlServidor` gestiona la lógica principal del servidor para el
- * juego de Concentrese (Memory Game). Se encarga de la gestión de clientes, el
- * sistema de turnos, el estado del juego (cartas emparejadas, progreso), y la
- * comunicación con la interfaz de usuario del servidor a través de
- * {@link ControlPrincipal}.
+ * juego de Concentrese (Memory Game). Se encarga de aceptar a los clientes, del
+ * inicio de sesión, de repartir a los jugadores en salas y de la comunicación
+ * con la interfaz de usuario del servidor a través de {@link ControlPrincipal}.
+ * El estado de cada partida (tablero, turnos, progreso) está en su
+ * {@link SalaJuego}, así que un servidor puede llevar muchas partidas a la vez.
  *
  * @author Cristianlol789
  */
-public class ControlServidor {
+public final class ControlServidor {
 
     private ControlPrincipal controlPrincipal;
 
     /**
-     * Un conjunto estático para almacenar las coordenadas de las cartas que ya
-     * han sido emparejadas exitosamente. Las coordenadas se guardan como
-     * cadenas de texto en formato "x,y".
+     * Todas las sesiones conectadas al servidor, hayan iniciado sesión o no,
+     * por número de sesión y por usuario. Registrar un usuario es atómico y
+     * evita dos sesiones del mismo usuario sin un candado. Los jugadores de
+     * cada partida están en su {@link SalaJuego}.
      */
-    private static Set<String> cartasEmparejadas;
+    private final RegistroSesiones registroSesiones;
 
     /**
-     * Conjunto que mantiene un registro de los nombres de usuario de los
-     * clientes que han iniciado sesión y están actualmente conectados al
-     * servidor.
+     * Las partidas del servidor y la asignación de jugadores a cada una.
+     */
+    private final RegistroSalas registroSalas;
+
+    /**
+     * La cola que decide cuándo empieza la partida de cada sala.
+     */
+    private final ServicioEmparejamiento servicioEmparejamiento;
+
+    /**
+     * La clasificación de todos los jugadores, que se consulta sin ir a la
+     * base de datos.
+     */
+    private final TablaClasificacion tablaClasificacion;
+
+    /**
+     * El modo de atención de clientes: `"hilos"` (un {@link ThreadServidor}
+     * por cliente, el modo original) o `"nio"` (reactor no bloqueante con
+     * {@link ReactorServidor}). Se configura en el archivo de propiedades de
+     * los sockets.
      */
-    private static Set<String> usuariosConectados;
+    private String modoServidor;
 
     /**
-     * Vector (una lista dinámica y segura para hilos) que contiene todos los
-     * hilos de clientes activos conectados al servidor. Cada cliente está
-     * representado por una instancia de {@link ThreadServidor}.
+     * El número de bucles de eventos que usa el reactor en el modo `"nio"`.
      */
-    private static Vector<ThreadServidor> clientesActivos;
+    private int hilosReactor;
 
     /**
-     * Contador estático que lleva el número de clientes que han completado el
-     * proceso de inicio de sesión.
+     * Constructor de los hilos que ejecutan cada {@link ThreadServidor} en el
+     * modo `"hilos"`: hilos de plataforma o hilos virtuales, según la propiedad
+     * `TIPO_HILOS`.
      */
-    private static int cantidadClientesLogeados;
+    private Thread.Builder constructorHilos;
 
     /**
-     * El número de turno que está activo actualmente en el juego.
+     * Constructor de los hilos escritores de las {@link ColaSalida}; son del
+     * mismo tipo que los de las sesiones.
      */
-    private int turnoActivo;
+    private Thread.Builder constructorEscritores;
 
     /**
-     * El número total de pares de cartas que existen en el juego. Este valor es
-     * configurable.
+     * Cantidad máxima de mensajes en espera en la cola de salida de cada
+     * cliente (propiedad `CAPACIDAD_COLA_SALIDA`).
      */
-    private int totalPares;
+    private int capacidadColaSalida;
 
     /**
-     * El número de pares de cartas que han sido encontrados y emparejados hasta
-     * el momento en el juego actual.
+     * Qué hacer cuando la cola de salida de un cliente se llena (propiedad
+     * `POLITICA_CLIENTE_LENTO`).
      */
-    private int paresEncontrados;
+    private ColaSalida.Politica politicaClienteLento;
+
+    /**
+     * Hilos del planificador. Sus tareas son cortas (voltear cartas, revisar
+     * esperas), así que dos bastan para todas las salas.
+     */
+    private static final int HILOS_PLANIFICADOR = 2;
+
+    /**
+     * Ejecuta las esperas del servidor (volteo de cartas, cierre tras el
+     * ganador, revisión del emparejamiento) sin dormir los hilos de sesión.
+     */
+    private final PlanificadorServidor planificador;
+
+    /**
+     * Los plazos de los turnos y el cierre de las sesiones sin latidos.
+     */
+    private final VigilanciaSesiones vigilancia;
 
     /**
      * Constructor de la clase `ControlServidor`. Inicializa las colecciones y
-     * el estado inicial del juego.
+     * el registro de salas, que empieza con una sola sala.
      *
      * @param controlPrincipal La instancia del controlador principal, que
      * representa la ventana principal de control del servidor y su interfaz de
@@ -76,49 +121,79 @@ public class ControlServidor {
      */
     public ControlServidor(ControlPrincipal controlPrincipal) {
         this.controlPrincipal = controlPrincipal;
-        clientesActivos = new Vector<>();
-        usuariosConectados = new HashSet<>();
-        cartasEmparejadas = new HashSet<>();
-        cantidadClientesLogeados = 0;
-        totalPares = 20;
-        paresEncontrados = 0;
-        turnoActivo = 1;
+        registroSesiones = new RegistroSesiones();
+        planificador = new PlanificadorServidor(HILOS_PLANIFICADOR, controlPrincipal::mostrarMensajeConsolaServidor);
+        vigilancia = new VigilanciaSesiones(registroSesiones.getSesiones(), planificador, this);
+        registroSalas = new RegistroSalas(this);
+        servicioEmparejamiento = new ServicioEmparejamiento(registroSalas, planificador);
+        tablaClasificacion = new TablaClasificacion();
+        constructorHilos = Thread.ofPlatform().name("cliente-", 1);
+        constructorEscritores = Thread.ofPlatform().daemon(true).name("escritor-", 1);
+        capacidadColaSalida = 256;
+        politicaClienteLento = ColaSalida.Politica.DESCONECTAR;
+        modoServidor = "hilos";
+        hilosReactor = Runtime.getRuntime().availableProcessors();
     }
 
     /**
-     * Inicia el servidor, abriendo sockets en puertos predefinidos y esperando
-     * por conexiones de clientes. Por cada par de conexiones de socket que se
-     * aceptan, se crea un nuevo hilo {@link ThreadServidor} para manejar la
-     * comunicación con el cliente y se añade a la lista de clientes activos.
+     * Inicia el servidor en el modo configurado. En el modo `"nio"` se delega
+     * en un {@link ReactorServidor}; en cualquier otro caso se usa el modo de
+     * un hilo por cliente.
      */
     public void runServer() {
+        servicioEmparejamiento.iniciar();
+        if ("nio".equalsIgnoreCase(modoServidor)) {
+            try {
+                new ReactorServidor(this, hilosReactor).ejecutar();
+            } catch (IOException e) {
+                controlPrincipal.mostrarMensajeConsolaServidor("No se pudo iniciar el servidor NIO: " + e.getMessage());
+            }
+        } else {
+            runServerHilos();
+        }
+    }
+
+    /**
+     * Inicia el servidor, abriendo el socket del puerto principal y esperando
+     * por conexiones de clientes. Por cada conexión aceptada se crea un
+     * {@link ThreadServidor} que maneja la comunicación con el cliente y se
+     * añade a la lista de clientes activos. El bucle de aceptación no lee nada
+     * del cliente, así que un cliente lento no detiene a los demás: el tipo de
+     * transporte (un puerto multiplexado o dos sockets) lo detecta la propia
+     * sesión.
+     *
+     * Si hay un `PUERTO_2` configurado, un hilo aparte acepta las conexiones
+     * del segundo socket de los clientes antiguos y las cierra, porque nunca
+     * llevan tráfico.
+     */
+    private void runServerHilos() {
         ServerSocket server1 = null;
-        ServerSocket server2 = null;
         boolean listening = true; // Indica si el servidor debe seguir escuchando nuevas conexiones.
         try {
-            // Inicializa los ServerSockets en los puertos definidos en la clase Servidor.
+            // Inicializa el ServerSocket en el puerto principal definido en la clase Servidor.
             server1 = new ServerSocket(Servidor.getPUERTO_1());
-            server2 = new ServerSocket(Servidor.getPUERTO_2());
+            if (Servidor.getPUERTO_2() > 0) {
+                iniciarCompatibilidadDosPuertos(new ServerSocket(Servidor.getPUERTO_2()));
+            }
             controlPrincipal.mostrarMensajeConsolaServidor(".::Servidor activo :");
             controlPrincipal.mostrarMensajeConsolaServidor("Sistema de turnos iniciado");
 
             while (listening) {
                 Socket socket1 = null;
-                Socket socket2 = null;
                 try {
                     controlPrincipal.mostrarMensajeConsolaServidor("Esperando Usuarios");
-                    // Espera y acepta conexiones de dos sockets para cada nuevo cliente.
                     socket1 = server1.accept();
-                    socket2 = server2.accept();
+                    // Para los clientes sin latidos, el sistema detecta las conexiones muertas
+                    socket1.setKeepAlive(true);
                 } catch (IOException e) {
                     controlPrincipal.mostrarMensajeConsolaServidor("Accept failed: " + server1 + ", " + e.getMessage());
                     continue; // Continúa el bucle para seguir esperando conexiones a pesar del error.
                 }
 
-                // Crea un nuevo hilo para manejar al cliente con los sockets aceptados.
-                ThreadServidor usuario = new ThreadServidor(socket1, socket2, this);
+                // Crea una nueva sesión para manejar al cliente con el socket aceptado.
+                ThreadServidor usuario = new ThreadServidor(socket1, null, this);
                 agregarCliente(usuario); // Agrega el cliente a la lista activa y asigna el turno.
-                usuario.start(); // Inicia el hilo para que comience a manejar la comunicación con el cliente.
+                constructorHilos.start(usuario); // Inicia el hilo (de plataforma o virtual) de la sesión.
             }
         } catch (IOException e) {
             // Se puede mostrar mensaje en consola si se desea: controlPrincipal.mostrarMensajeConsolaServidor("error :" + e);
@@ -126,123 +201,126 @@ public class ControlServidor {
     }
 
     /**
-     * Agrega un nuevo cliente a la lista de clientes conectados y registrados.
-     * Este método es sincronizado para asegurar la seguridad de los hilos al
-     * modificar la colección compartida.
+     * Arranca el hilo de compatibilidad con los clientes antiguos, que abren
+     * un segundo socket en `PUERTO_2`. Ese socket nunca transporta datos, así
+     * que solo se acepta (para que el cliente no quede esperando) y se cierra.
      *
-     * @param threadCliente El hilo {@link ThreadServidor} que representa al
-     * cliente a agregar.
+     * @param server2 El {@link ServerSocket} abierto en `PUERTO_2`.
      */
-    public synchronized void agregarCliente(ThreadServidor threadCliente) {
-        clientesActivos.add(threadCliente);
-        controlPrincipal.mostrarMensajeConsolaServidor("Cliente agregado: " + threadCliente);
-        controlPrincipal.mostrarMensajeConsolaServidor("Total de clientes conectados: " + clientesActivos.size());
-        controlPrincipal.mostrarMensajeConsolaServidor("Turno asignado: " + threadCliente.getNumeroTurno());
+    private void iniciarCompatibilidadDosPuertos(ServerSocket server2) {
+        Thread hilo = new Thread(() -> {
+            while (!server2.isClosed()) {
+                try {
+                    server2.accept().close();
+                } catch (IOException e) {
+                    controlPrincipal.mostrarMensajeConsolaServidor("Accept failed: " + server2 + ", " + e.getMessage());
+                }
+            }
+        }, "compatibilidad-puerto-2");
+        hilo.setDaemon(true);
+        hilo.start();
     }
 
     /**
-     * Verifica si una carta en las coordenadas dadas ya ha sido emparejada y
-     * volteada. Este método es sincronizado para manejar el acceso concurrente
-     * al conjunto de cartas emparejadas.
+     * Agrega un nuevo cliente al registro de sesiones, que le asigna su número
+     * de sesión. El registro es concurrente, así que no se toma ningún
+     * candado.
      *
-     * @param x La coordenada X (columna) de la carta.
-     * @param y La coordenada Y (fila) de la carta.
-     * @return `true` si la carta ya está emparejada, `false` en caso contrario.
+     * @param threadCliente El hilo {@link ThreadServidor} que representa al
+     * cliente a agregar.
      */
-    public synchronized boolean esCartaYaEmparejada(int x, int y) {
-        String coordenada = x + "," + y;
-        return cartasEmparejadas.contains(coordenada);
+    public void agregarCliente(ThreadServidor threadCliente) {
+        long idSesion = registroSesiones.agregar(threadCliente);
+        controlPrincipal.mostrarMensajeConsolaServidor("Cliente agregado: sesión #" + idSesion);
+        controlPrincipal.mostrarMensajeConsolaServidor("Total de clientes conectados: " + registroSesiones.getCantidadSesiones());
     }
 
     /**
-     * Remueve un cliente de la lista de clientes activos y desregistra su
-     * nombre de usuario. Si el cliente desconectado tenía el turno activo, el
-     * juego avanza automáticamente al siguiente turno. Este método es
-     * sincronizado para asegurar la seguridad de los hilos.
+     * Remueve un cliente del registro de sesiones, desregistra su nombre de
+     * usuario y lo saca de su sala. Si tenía el turno activo, la
+     * sala avanza al siguiente turno.
+     *
+     * Con una sola sala el servidor se cierra, como siempre, cuando queda un
+     * solo jugador en ella; las conexiones que no iniciaron sesión no cuentan.
+     * Con varias salas solo termina la partida en la que quedó un jugador; las
+     * demás siguen.
      *
      * @param threadCliente El hilo {@link ThreadServidor} del cliente a
      * remover.
      */
-    public synchronized void removerCliente(ThreadServidor threadCliente) {
-        clientesActivos.remove(threadCliente);
-
+    public void removerCliente(ThreadServidor threadCliente) {
         // Desregistrar el usuario del control de sesiones
         String nombreUsuario = threadCliente.getServidor().getNombreUsuario();
-        desregistrarUsuarioConectado(nombreUsuario);
+        desregistrarUsuarioConectado(nombreUsuario, threadCliente);
+        registroSesiones.remover(threadCliente);
 
         controlPrincipal.mostrarMensajeConsolaServidor("Cliente removido: " + threadCliente.getInformacionCliente());
-        controlPrincipal.mostrarMensajeConsolaServidor("Total de clientes restantes: " + clientesActivos.size());
+        controlPrincipal.mostrarMensajeConsolaServidor("Total de clientes restantes: " + registroSesiones.getCantidadSesiones());
 
-        // Si se desconecta el cliente con el turno activo, avanzar al siguiente
-        if (threadCliente.getNumeroTurno() == turnoActivo) {
-            controlPrincipal.mostrarMensajeConsolaServidor("Cliente con turno activo se desconectó, avanzando turno...");
-            avanzarSiguienteTurno();
+        servicioEmparejamiento.retirar(threadCliente);
+        SalaJuego sala = threadCliente.getSala();
+        if (sala == null || !sala.removerJugador(threadCliente)) {
+            return;
         }
 
-        if (clientesActivos.size() == 1) {
-            controlPrincipal.mostrarMensajeError("Solo queda un jugador");
-            System.exit(0);
+        if (sala.isVisible()) {
+            if (sala.getCantidadJugadores() == 1) {
+                controlPrincipal.mostrarMensajeError("Solo queda un jugador");
+                System.exit(0);
+            }
+        } else if (sala.isEnJuego() && sala.getCantidadJugadores() <= 1) {
+            sala.mostrarMensaje("Solo queda un jugador");
+            sala.terminarJuego();
         }
     }
 
     /**
-     * Obtiene el número del turno que está activo actualmente en el juego. Este
-     * método es sincronizado para garantizar que se devuelva el valor más
-     * reciente y consistente.
-     *
-     * @return El número entero del turno activo.
-     */
-    public synchronized int getTurnoActivo() {
-        return this.turnoActivo;
-    }
-
-    /**
-     * Registra un usuario como conectado al servidor. Este método es
-     * sincronizado para evitar condiciones de carrera al modificar el conjunto
-     * de usuarios conectados.
+     * Registra un usuario como conectado al servidor. El registro de sesiones
+     * lo inserta normalizado y con `putIfAbsent`, lo que evita condiciones de
+     * carrera entre dos inicios de sesión del mismo usuario, aunque lo escriban
+     * con otras mayúsculas o espacios.
      *
      * @param usuario El nombre de usuario que se va a registrar.
+     * @param sesion La sesión que inició sesión con ese usuario.
      * @return `true` si el usuario se registró exitosamente (es decir, no
      * estaba conectado previamente), `false` si el usuario ya estaba conectado.
      */
-    public synchronized boolean registrarUsuarioConectado(String usuario) {
-        if (usuariosConectados.contains(usuario)) {
+    public boolean registrarUsuarioConectado(String usuario, ThreadServidor sesion) {
+        if (!registroSesiones.registrarUsuario(usuario, sesion)) {
             return false;
         }
-        usuariosConectados.add(usuario);
         controlPrincipal.mostrarMensajeConsolaServidor(
-                "Usuario '" + usuario + "' registrado como conectado. Total usuarios activos: " + usuariosConectados.size()
+                "Usuario '" + usuario + "' registrado como conectado. Total usuarios activos: " + registroSesiones.getCantidadUsuarios()
         );
         return true;
     }
 
     /**
      * Desregistra un usuario de la lista de conectados cuando se desconecta del
-     * servidor. Este método es sincronizado para manejar el acceso concurrente
-     * al conjunto de usuarios conectados.
+     * servidor.
      *
      * @param usuario El nombre de usuario que se desconectó.
+     * @param sesion La sesión que se desconectó; el usuario solo se libera si
+     * lo tenía registrado ella.
      */
-    public synchronized void desregistrarUsuarioConectado(String usuario) {
-        // Verifica que el nombre de usuario no esté en blanco y que realmente se elimine del conjunto.
-        if (!usuario.isBlank() && usuariosConectados.remove(usuario)) {
+    public void desregistrarUsuarioConectado(String usuario, ThreadServidor sesion) {
+        // Verifica que el nombre de usuario no esté en blanco y que realmente se elimine del registro.
+        if (!usuario.isBlank() && registroSesiones.desregistrarUsuario(usuario, sesion)) {
             controlPrincipal.mostrarMensajeConsolaServidor(
-                    "Usuario '" + usuario + "' desconectado. Total usuarios activos: " + usuariosConectados.size()
+                    "Usuario '" + usuario + "' desconectado. Total usuarios activos: " + registroSesiones.getCantidadUsuarios()
             );
         }
     }
 
     /**
      * Obtiene una copia (HashSet) de la lista de nombres de usuarios que están
-     * actualmente conectados al servidor. Este método es sincronizado para
-     * asegurar la consistencia al acceder a la colección de usuarios
-     * conectados.
+     * actualmente conectados al servidor.
      *
      * @return Un {@link Set<String>} que contiene los nombres de usuarios
      * conectados.
      */
-    public synchronized Set<String> getUsuariosConectados() {
-        return new HashSet<>(usuariosConectados);
+    public Set<String> getUsuariosConectados() {
+        return new HashSet<>(registroSesiones.getUsuarios());
     }
 
     /**
@@ -251,501 +329,503 @@ public class ControlServidor {
      */
     public void mostrarUsuariosConectados() {
         controlPrincipal.mostrarMensajeConsolaServidor("=== USUARIOS CONECTADOS ===");
-        if (usuariosConectados.isEmpty()) {
+        int total = 0;
+        for (String usuario : registroSesiones.getUsuarios()) {
+            controlPrincipal.mostrarMensajeConsolaServidor("- " + usuario);
+            total++;
+        }
+        if (total == 0) {
             controlPrincipal.mostrarMensajeConsolaServidor("No hay usuarios conectados");
-        } else {
-            for (String usuario : usuariosConectados) {
-                controlPrincipal.mostrarMensajeConsolaServidor("- " + usuario);
-            }
         }
-        controlPrincipal.mostrarMensajeConsolaServidor("Total: " + usuariosConectados.size());
+        controlPrincipal.mostrarMensajeConsolaServidor("Total: " + total);
         controlPrincipal.mostrarMensajeConsolaServidor("==========================");
     }
 
     /**
-     * Avanza el sistema de turnos al siguiente jugador activo en el juego. Este
-     * método es sincronizado para gestionar el cambio de turno de forma segura.
-     * Si encuentra un siguiente jugador, actualiza el `turnoActivo` y notifica
-     * a todos los clientes.
+     * Muestra en la consola del servidor los jugadores de cada sala,
+     * indicando su información y si tienen el turno activo o están
+     * esperando.
      */
-    public synchronized void avanzarSiguienteTurno() {
-        int siguienteTurno = encontrarSiguienteJugadorActivo();
-        if (siguienteTurno != -1) {
-            this.turnoActivo = siguienteTurno;
-            controlPrincipal.mostrarMensajeConsolaServidor("Turno activo actualizado a: " + this.turnoActivo);
-            notificarCambioTurno();
+    public void mostrarClientesConectados() {
+        controlPrincipal.mostrarMensajeConsolaServidor("=== CLIENTES CONECTADOS ===");
+        controlPrincipal.mostrarMensajeConsolaServidor("Sesiones abiertas: " + registroSesiones.getCantidadSesiones());
+        for (SalaJuego sala : registroSalas.getSalas()) {
+            sala.mostrarJugadores();
         }
+        controlPrincipal.mostrarMensajeConsolaServidor("========================");
     }
 
     /**
-     * Avanza al siguiente turno específicamente para el juego de Concentrese.
-     * Después de avanzar el turno, envía un mensaje "pedirCoordenadas" al
-     * cliente cuyo turno está activo, para que este cliente pueda realizar su
-     * jugada. Este método es sincronizado para controlar el flujo de turnos.
+     * Envía un mensaje de texto a la consola de la interfaz de usuario del
+     * servidor.
+     *
+     * @param mensaje El {@link String} que se desea mostrar en la consola del
+     * servidor.
      */
-    public synchronized void avanzarSiguienteTurnoConcentrese() {
-        // Encontrar el siguiente jugador conectado
-        int siguienteTurno = encontrarSiguienteJugadorActivo();
+    public void mostrarMensajeConsolaServidor(String mensaje) {
+        controlPrincipal.mostrarMensajeConsolaServidor(mensaje);
+    }
 
-        if (siguienteTurno != -1) {
-            this.turnoActivo = siguienteTurno;
-            controlPrincipal.mostrarMensajeConsolaServidor("Turno de Concentrese pasa a: " + this.turnoActivo);
-            notificarCambioTurno();
+    /**
+     * Envía a la consola del servidor un mensaje sobre un cliente, para que se
+     * pueda filtrar la consola por cliente.
+     *
+     * @param cliente El usuario del cliente, o `null` si todavía no inició
+     * sesión.
+     * @param mensaje El {@link String} que se desea mostrar en la consola del
+     * servidor.
+     */
+    public void mostrarMensajeConsolaServidor(String cliente, String mensaje) {
+        controlPrincipal.mostrarMensajeConsolaServidor(cliente, mensaje);
+    }
 
-            for (ThreadServidor cliente : clientesActivos) {
+    /**
+     * Obtiene el registro de eventos del servidor, para registrar los
+     * eventos de los caminos frecuentes con una plantilla.
+     *
+     * @return El registro de eventos.
+     */
+    public RegistroServidor getRegistro() {
+        return controlPrincipal.getRegistro();
+    }
 
-                if (cliente.getNumeroTurno() == turnoActivo) {
-                    actualizarPanelEstadisticas(cliente);
-                }
-                break;
-            }
+    /**
+     * Obtiene la escritura diferida de las estadísticas de los jugadores,
+     * donde las salas anotan las jugadas y los resultados sin esperar a la
+     * base de datos.
+     *
+     * @return La escritura de estadísticas.
+     */
+    public EscrituraEstadisticas getEstadisticas() {
+        return controlPrincipal.getEstadisticas();
+    }
 
-        } else {
-            controlPrincipal.mostrarMensajeConsolaServidor("No hay más jugadores activos");
+    /**
+     * Asigna los números de puerto para las conexiones del servidor,
+     * convirtiendo las cadenas de texto a enteros y estableciéndolos en la
+     * clase {@link Servidor}. Se incluye un manejo básico de excepciones para
+     * `NumberFormatException`.
+     *
+     * @param puerto1 La cadena de texto que representa el primer número de
+     * puerto.
+     * @param puerto2 La cadena de texto que representa el segundo número de
+     * puerto. Es opcional: si está vacío no se aceptan clientes antiguos de
+     * dos sockets.
+     */
+    public void asignarIps(String puerto1, String puerto2) {
+        try {
+            int puerto1Int = Integer.parseInt(puerto1);
+            int puerto2Int = (puerto2 == null || puerto2.isBlank()) ? 0 : Integer.parseInt(puerto2.trim());
+            Servidor.setPUERTO_1(puerto1Int);
+            Servidor.setPUERTO_2(puerto2Int);
+        } catch (NumberFormatException e) {
+            // En caso de que las cadenas no sean números válidos, no se realiza ninguna acción específica,
+            // pero se podría añadir un mensaje de error a la consola del servidor.
         }
     }
 
     /**
-     * Encuentra el número de turno del siguiente jugador activo en la secuencia
-     * circular.
+     * Asigna el modo de atención de clientes y el número de bucles de eventos
+     * del reactor. Si el número de bucles no es válido se conserva el valor
+     * por defecto (uno por procesador).
      *
-     * @return El número de turno del siguiente jugador, o -1 si no hay
-     * jugadores activos.
+     * @param modo `"hilos"` o `"nio"`.
+     * @param hilos La cadena de texto con el número de bucles de eventos.
      */
-    private int encontrarSiguienteJugadorActivo() {
-        if (clientesActivos.isEmpty()) {
-            return -1; // No hay jugadores, no hay siguiente turno.
+    public void asignarModoServidor(String modo, String hilos) {
+        if (modo != null && !modo.isBlank()) {
+            this.modoServidor = modo.trim();
         }
-
-        // Variables para encontrar el siguiente turno circular
-        int menorTurnoMayor = Integer.MAX_VALUE; // Almacena el menor turno que sea mayor al turno activo actual.
-        int menorTurnoTotal = Integer.MAX_VALUE; // Almacena el menor turno absoluto entre todos los clientes activos.
-
-        for (ThreadServidor cliente : clientesActivos) {
-            int turnoCliente = cliente.getNumeroTurno();
-
-            // Busca el siguiente turno que sea mayor al turno activo actual.
-            if (turnoCliente > this.turnoActivo && turnoCliente < menorTurnoMayor) {
-                menorTurnoMayor = turnoCliente;
-            }
-
-            // Busca el menor turno absoluto entre todos los clientes (para el caso de "wrap-around").
-            if (turnoCliente < menorTurnoTotal) {
-                menorTurnoTotal = turnoCliente;
+        try {
+            if (hilos != null && !hilos.isBlank()) {
+                this.hilosReactor = Integer.parseInt(hilos.trim());
             }
+        } catch (NumberFormatException e) {
+            controlPrincipal.mostrarMensajeConsolaServidor("HILOS_REACTOR no es un número válido, se usan " + hilosReactor);
         }
-
-        // Si se encontró un turno mayor al actual, ese es el siguiente. De lo contrario, se hace "wrap-around"
-        // y el siguiente turno es el menor de todos los turnos activos.
-        return (menorTurnoMayor != Integer.MAX_VALUE) ? menorTurnoMayor : menorTurnoTotal;
     }
 
     /**
-     * Notifica a todos los clientes conectados sobre el cambio de turno. Cada
-     * cliente recibe una señal para gestionar su estado de turno según la
-     * lógica del juego Concentrese.
+     * Elige el tipo de hilo en el que corre cada sesión del modo `"hilos"`.
+     * Con `"virtual"` cada {@link ThreadServidor} se ejecuta en un hilo
+     * virtual, que mientras espera datos del socket solo ocupa unos pocos KB;
+     * con cualquier otro valor se usan hilos de plataforma, como antes.
+     *
+     * @param tipoHilos `"plataforma"` o `"virtual"`.
      */
-    private void notificarCambioTurno() {
-        for (ThreadServidor cliente : clientesActivos) {
-            try {
-                // Llama al método específico del hilo del cliente para gestionar los turnos de Concentrese.
-                cliente.gestionarTurnosConcentrese();
-            } catch (Exception e) {
-                controlPrincipal.mostrarMensajeConsolaServidor("Error al notificar cambio de turno a cliente: " + e.getMessage());
-            }
+    public void asignarTipoHilos(String tipoHilos) {
+        if ("virtual".equalsIgnoreCase(tipoHilos == null ? "" : tipoHilos.trim())) {
+            constructorHilos = Thread.ofVirtual().name("cliente-", 1);
+            constructorEscritores = Thread.ofVirtual().name("escritor-", 1);
+        } else {
+            constructorHilos = Thread.ofPlatform().name("cliente-", 1);
+            constructorEscritores = Thread.ofPlatform().daemon(true).name("escritor-", 1);
         }
     }
 
     /**
-     * Muestra en la consola del servidor una lista de todos los clientes
-     * conectados, indicando su información y si tienen el turno activo o están
-     * esperando.
+     * Configura la cola de salida de cada cliente.
+     *
+     * @param capacidad Cantidad máxima de mensajes en espera por cliente.
+     * @param politica `"bloquear"`, `"descartar"` o `"desconectar"` (por
+     * defecto).
      */
-    public void mostrarClientesConectados() {
-        controlPrincipal.mostrarMensajeConsolaServidor("=== CLIENTES CONECTADOS ===");
-        controlPrincipal.mostrarMensajeConsolaServidor("Turno activo: " + turnoActivo);
-
-        if (clientesActivos.isEmpty()) {
-            controlPrincipal.mostrarMensajeConsolaServidor("No hay clientes conectados");
-        } else {
-            for (int i = 0; i < clientesActivos.size(); i++) {
-                ThreadServidor cliente = clientesActivos.get(i);
-                // Determina el estado del cliente (turno activo o esperando).
-                String estado = (cliente.getNumeroTurno() == turnoActivo) ? " [TURNO ACTIVO]" : " [ESPERANDO]";
-                controlPrincipal.mostrarMensajeConsolaServidor((i + 1) + ". " + cliente.getInformacionCliente() + estado);
+    public void asignarColaSalida(String capacidad, String politica) {
+        try {
+            if (capacidad != null && !capacidad.isBlank()) {
+                this.capacidadColaSalida = Math.max(1, Integer.parseInt(capacidad.trim()));
             }
+        } catch (NumberFormatException e) {
+            controlPrincipal.mostrarMensajeConsolaServidor("CAPACIDAD_COLA_SALIDA no es un número válido, se usan " + capacidadColaSalida);
         }
-        controlPrincipal.mostrarMensajeConsolaServidor("========================");
+        this.politicaClienteLento = ColaSalida.Politica.desde(politica, politicaClienteLento);
     }
 
     /**
-     * Reinicia el sistema de turnos, estableciendo el turno activo al número 1.
-     * Este método es sincronizado.
+     * Crea la cola de salida de un cliente del modo `"hilos"` con la
+     * capacidad y la política configuradas.
+     *
+     * @param socket El socket del cliente.
+     * @return La cola de salida, con su hilo escritor ya en marcha.
+     * @throws IOException Si no se puede obtener el flujo del socket.
      */
-    public synchronized void reiniciarTurnos() {
-        this.turnoActivo = 1;
-        controlPrincipal.mostrarMensajeConsolaServidor("Sistema de turnos reiniciado - Turno activo: " + turnoActivo);
-        notificarCambioTurno();
+    public ColaSalida crearColaSalida(Socket socket) throws IOException {
+        return new ColaSalida(socket, capacidadColaSalida, politicaClienteLento, constructorEscritores.factory());
     }
 
     /**
-     * Fuerza el avance del turno al siguiente jugador activo. Útil para la
-     * administración manual del juego por parte del servidor.
+     * Obtiene la capacidad de la cola de salida de cada cliente.
+     *
+     * @return La cantidad máxima de mensajes en espera.
      */
-    public void forzarSiguienteTurno() {
-        controlPrincipal.mostrarMensajeConsolaServidor("Forzando avance de turno por administrador...");
-        avanzarSiguienteTurno();
+    public int getCapacidadColaSalida() {
+        return capacidadColaSalida;
     }
 
     /**
-     * Establece manualmente un turno específico en el juego. Este método es
-     * sincronizado.
+     * Obtiene la política que se aplica cuando la cola de un cliente se llena.
      *
-     * @param numeroTurno El número de turno al que se desea cambiar. Debe ser
-     * mayor que 0.
+     * @return La política configurada.
      */
-    public synchronized void establecerTurno(int numeroTurno) {
-        if (numeroTurno > 0) {
-            this.turnoActivo = numeroTurno;
-            controlPrincipal.mostrarMensajeConsolaServidor("Turno establecido manualmente a: " + numeroTurno);
-            notificarCambioTurno();
-        } else {
-            controlPrincipal.mostrarMensajeConsolaServidor("Error: El número de turno debe ser mayor a 0");
-        }
+    public ColaSalida.Politica getPoliticaClienteLento() {
+        return politicaClienteLento;
     }
 
     /**
-     * Verifica si dos cartas seleccionadas forman una pareja. Realiza un
-     * seguimiento del progreso del juego y registra las cartas emparejadas.
+     * Busca la existencia de un usuario y contraseña en el sistema de
+     * autenticación, delegando esta tarea al controlador principal.
      *
-     * @param x1 Coordenada X de la primera carta seleccionada.
-     * @param y1 Coordenada Y de la primera carta seleccionada.
-     * @param carta1 El tipo o valor de la primera carta.
-     * @param x2 Coordenada X de la segunda carta seleccionada.
-     * @param y2 Coordenada Y de la segunda carta seleccionada.
-     * @param carta2 El tipo o valor de la segunda carta.
-     * @return `true` si las dos cartas forman una pareja y sus coordenadas son
-     * diferentes, `false` en caso contrario.
+     * @param usuario El nombre de usuario a buscar.
+     * @param contrasena La contraseña asociada al usuario.
+     * @return `true` si el usuario con la contraseña dada existe y es válido,
+     * `false` en caso contrario.
      */
-    public boolean verificarPareja(int x1, int y1, String carta1, int x2, int y2, String carta2) {
-
-        // Evita que se considere una pareja si se seleccionó la misma carta dos veces.
-        if (x1 == x2 && y1 == y2) {
-            return false;
-        }
-
-        // Compara si el valor de las cartas es el mismo.
-        boolean esPareja = carta1 != null && carta1.equals(carta2);
-
-        if (esPareja) {
-            // Incrementa el contador de pares encontrados.
-            // Agrega las coordenadas de las cartas emparejadas al conjunto para evitar seleccionarlas de nuevo.
-            cartasEmparejadas.add((x1 - 1) + "," + (y1 - 1));
-            cartasEmparejadas.add((x2 - 1) + "," + (y2 - 1));
-
-            controlPrincipal.mostrarMensajeConsolaServidor(
-                    "Progreso: " + paresEncontrados + "/" + totalPares + " pares encontrados"
-            );
-        } else {
-            controlPrincipal.mostrarMensajeConsolaServidor(
-                    "No es pareja: '" + carta1 + "' ≠ '" + carta2 + "'"
-            );
-        }
-
-        controlPrincipal.mostrarMensajeConsolaServidor("=========================");
-        return esPareja;
+    public boolean buscarUsuarioYContrasenaExistente(String usuario, String contrasena) {
+        return controlPrincipal.buscarUsuarioYContrasenaExistente(usuario, contrasena);
     }
 
     /**
-     * Método auxiliar para validar si las coordenadas de una carta están dentro
-     * del rango válido del tablero de juego.
+     * Verifica si un usuario con el nombre dado ya se encuentra conectado al
+     * servidor.
      *
-     * @param x La coordenada X (columna) a verificar.
-     * @param y La coordenada Y (fila) a verificar.
-     * @return `true` si las coordenadas son válidas y están dentro de los
-     * límites del tablero, `false` en caso contrario.
+     * @param usuario El nombre de usuario a verificar.
+     * @return `true` si el usuario ya está conectado, `false` en caso
+     * contrario.
      */
-    public boolean coordenadasValidas(int x, int y) {
-        // Para un tablero de 8x5 (40 cartas = 20 pares), las coordenadas válidas son de 0 a 7 para X y 0 a 4 para Y.
-        return x >= 0 && x < 8 && y >= 0 && y < 5;
+    public boolean usuarioYaConectado(String usuario) {
+        return registroSesiones.estaConectado(usuario);
     }
 
     /**
-     * Verifica si el juego de Concentrese ha terminado, lo cual ocurre cuando
-     * todas las cartas han sido emparejadas.
+     * Obtiene la información del jugador a partir de sus credenciales (nombre
+     * de usuario), delegando la operación al controlador principal.
      *
-     * @return `true` si el número de pares encontrados es igual o mayor al
-     * total de pares, indicando que el juego ha terminado.
+     * @param usuario El nombre de usuario del jugador.
+     * @return Una cadena de texto con la información del jugador, o null si no
+     * se encuentra.
      */
-    public boolean verificarJuegoTerminado() {
-        return paresEncontrados >= totalPares;
+    public String obtenerJugadorPorCredenciales(String usuario) {
+        return controlPrincipal.obtenerJugadorPorCredenciales(usuario);
     }
 
     /**
-     * Termina el juego de Concentrese. Declara el fin del juego, muestra los
-     * resultados finales y notifica a todos los clientes conectados que el
-     * juego ha finalizado.
+     * Verifica la cantidad de jugadores de la sala visible. Si hay dos o más,
+     * habilita un botón para iniciar el juego en la interfaz de usuario del
+     * servidor; de lo contrario, lo deshabilita. Cuando las salas empiezan
+     * solas no hay sala visible y el botón no se muestra.
      */
-    public void terminarJuego() {
-        controlPrincipal.mostrarMensajeConsolaServidor("¡JUEGO TERMINADO! Todas las cartas han sido emparejadas");
-
-        // Calcula puntuaciones y determina ganadores (la lógica específica de puntuación puede estar en ThreadServidor).
-        mostrarResultadosFinales();
-
-        // Notifica a todos los clientes conectados que el juego ha terminado.
-        for (ThreadServidor cliente : clientesActivos) {
-            try {
-                cliente.getServidor().getServidorInformacionSalida1().writeUTF("juegoTerminado");
-                cliente.getServidor().getServidorInformacionSalida1().flush(); // Asegura que el mensaje se envíe inmediatamente.
-
-            } catch (IOException e) {
-                controlPrincipal.mostrarMensajeConsolaServidor("Error al notificar fin de juego: " + e.getMessage());
-            }
+    public void verificarJugadoresMostrarBotonJugar() {
+        SalaJuego salaVisible = registroSalas.getSalaVisible();
+        if (salaVisible != null && salaVisible.getCantidadJugadores() >= 2) {
+            controlPrincipal.ocultarBotonIniciarJuego(true); // Oculta el botón (en realidad, lo habilita si el nombre del método significa "hacer visible").
+        } else {
+            controlPrincipal.ocultarBotonIniciarJuego(false); // Muestra el botón (o lo deshabilita).
         }
     }
 
     /**
-     * Muestra los resultados finales del juego en la consola del servidor,
-     * incluyendo el total de pares encontrados y un mensaje de éxito.
+     * Inicia la partida de la sala visible; lo pide el administrador desde la
+     * interfaz.
      */
-    private void mostrarResultadosFinales() {
-        controlPrincipal.mostrarMensajeConsolaServidor("=== RESULTADOS FINALES ===");
-        controlPrincipal.mostrarMensajeConsolaServidor("Total de pares encontrados: " + paresEncontrados);
-        controlPrincipal.mostrarMensajeConsolaServidor("Juego completado exitosamente");
-        controlPrincipal.mostrarMensajeConsolaServidor("========================");
+    public void iniciarJuego() {
+        SalaJuego salaVisible = registroSalas.getSalaVisible();
+        if (salaVisible != null && salaVisible.marcarInicio()) {
+            salaVisible.iniciarJuego();
+        }
     }
 
     /**
-     * Reinicia el estado del juego de Concentrese, reseteando el contador de
-     * pares encontrados, el turno activo y vaciando el conjunto de cartas
-     * emparejadas. Notifica a todos los clientes que el juego ha sido
-     * reiniciado.
+     * Configura el emparejamiento: la cantidad de jugadores por sala
+     * (propiedad `JUGADORES_POR_SALA`) y la espera máxima de una sala
+     * incompleta (propiedad `ESPERA_MAXIMA_SALA_MS`). Con 2 o más jugadores
+     * por sala las partidas empiezan solas; vacío o 0 deja una sola sala que
+     * se inicia desde la interfaz.
+     *
+     * @param jugadoresPorSala La cadena de texto con la cantidad de jugadores.
+     * @param esperaMaximaMs La cadena de texto con la espera máxima en
+     * milisegundos; vacía o 0 para esperar a que la sala se llene.
      */
-    public void reiniciarJuegoConcentrese() {
-        paresEncontrados = 0; // Reinicia el contador de pares.
-        turnoActivo = 1;      // Reinicia el turno al primer jugador.
-        cartasEmparejadas.clear(); // Limpia las cartas emparejadas.
-        controlPrincipal.mostrarMensajeConsolaServidor("Juego de Concentrese reiniciado");
-
-        // Notifica a todos los clientes sobre el reinicio del juego.
-        for (ThreadServidor cliente : clientesActivos) {
-            try {
-                cliente.getServidor().getServidorInformacionSalida1().writeUTF("juegoReiniciado");
-                cliente.getServidor().getServidorInformacionSalida1().flush();
-            } catch (IOException e) {
-                controlPrincipal.mostrarMensajeConsolaServidor("Error al notificar reinicio: " + e.getMessage());
+    public void asignarEmparejamiento(String jugadoresPorSala, String esperaMaximaMs) {
+        try {
+            if (jugadoresPorSala != null && !jugadoresPorSala.isBlank()) {
+                registroSalas.configurar(Integer.parseInt(jugadoresPorSala.trim()));
             }
+        } catch (NumberFormatException e) {
+            controlPrincipal.mostrarMensajeConsolaServidor("JUGADORES_POR_SALA no es un número válido, se usa una sola sala");
+        }
+        try {
+            if (esperaMaximaMs != null && !esperaMaximaMs.isBlank()) {
+                servicioEmparejamiento.configurar(Long.parseLong(esperaMaximaMs.trim()));
+            }
+        } catch (NumberFormatException e) {
+            controlPrincipal.mostrarMensajeConsolaServidor("ESPERA_MAXIMA_SALA_MS no es un número válido, las salas esperan a llenarse");
         }
-
-        notificarCambioTurno(); // Notifica el cambio de turno inicial después del reinicio.
     }
 
     /**
-     * Establece el número total de pares que el juego de Concentrese debe
-     * tener. Este valor se usa para determinar cuándo ha terminado el juego.
+     * Configura el tamaño del tablero de las partidas (propiedades
+     * `FILAS_TABLERO` y `COLUMNAS_TABLERO`). Vacías, se usa el tablero de
+     * siempre, de 5 filas y 8 columnas.
      *
-     * @param totalPares El número entero de pares de cartas que conformarán el
-     * juego.
+     * @param filas La cadena de texto con las filas.
+     * @param columnas La cadena de texto con las columnas.
      */
-    public void configurarTotalPares(int totalPares) {
-        if (totalPares > 0) {
-            this.totalPares = totalPares;
-            controlPrincipal.mostrarMensajeConsolaServidor("Total de pares configurado: " + totalPares);
+    public void asignarTablero(String filas, String columnas) {
+        if ((filas == null || filas.isBlank()) && (columnas == null || columnas.isBlank())) {
+            return;
+        }
+        try {
+            int cantidadFilas = filas == null || filas.isBlank() ? SalaJuego.FILAS_POR_DEFECTO : Integer.parseInt(filas.trim());
+            int cantidadColumnas = columnas == null || columnas.isBlank() ? SalaJuego.COLUMNAS_POR_DEFECTO : Integer.parseInt(columnas.trim());
+            registroSalas.configurarTablero(cantidadFilas, cantidadColumnas);
+            controlPrincipal.mostrarMensajeConsolaServidor("Tablero de " + cantidadFilas + "x" + cantidadColumnas
+                    + " (" + cantidadFilas * cantidadColumnas / 2 + " pares)");
+        } catch (NumberFormatException e) {
+            controlPrincipal.mostrarMensajeConsolaServidor("FILAS_TABLERO o COLUMNAS_TABLERO no es un número válido, se usa el tablero de "
+                    + SalaJuego.FILAS_POR_DEFECTO + "x" + SalaJuego.COLUMNAS_POR_DEFECTO);
+        } catch (IllegalArgumentException e) {
+            controlPrincipal.mostrarMensajeConsolaServidor(e.getMessage() + ", se usa el tablero de "
+                    + SalaJuego.FILAS_POR_DEFECTO + "x" + SalaJuego.COLUMNAS_POR_DEFECTO);
         }
     }
 
     /**
-     * Obtiene el número de pares de cartas que han sido encontrados hasta el
-     * momento en el juego actual.
+     * Configura las esperas de las partidas: cuánto quedan visibles las
+     * cartas de un fallo (propiedad `ESPERA_VOLTEO_MS`) y cuánto se espera
+     * después de anunciar el ganador antes de cerrar el servidor (propiedad
+     * `ESPERA_CIERRE_MS`). Vacías, se usan 500 ms y 6 s.
      *
-     * @return El número entero de pares encontrados.
+     * @param esperaVolteoMs La cadena de texto con la espera del volteo.
+     * @param esperaCierreMs La cadena de texto con la espera del cierre.
      */
-    public int getParesEncontrados() {
-        return paresEncontrados;
+    public void asignarEsperas(String esperaVolteoMs, String esperaCierreMs) {
+        try {
+            long volteo = esperaVolteoMs == null || esperaVolteoMs.isBlank() ? SalaJuego.ESPERA_VOLTEO_POR_DEFECTO_MS : Long.parseLong(esperaVolteoMs.trim());
+            long cierre = esperaCierreMs == null || esperaCierreMs.isBlank() ? SalaJuego.ESPERA_CIERRE_POR_DEFECTO_MS : Long.parseLong(esperaCierreMs.trim());
+            registroSalas.configurarEsperas(volteo, cierre);
+        } catch (NumberFormatException e) {
+            controlPrincipal.mostrarMensajeConsolaServidor("ESPERA_VOLTEO_MS o ESPERA_CIERRE_MS no es un número válido, se usan las esperas por defecto");
+        } catch (IllegalArgumentException e) {
+            controlPrincipal.mostrarMensajeConsolaServidor(e.getMessage() + ", se usan las esperas por defecto");
+        }
     }
 
     /**
-     * Obtiene el número total de pares de cartas configurado para el juego.
+     * Asigna los plazos de la partida desde las propiedades: el tiempo de
+     * cada turno y la inactividad máxima de los clientes con latidos. Vacíos,
+     * se usan los plazos por defecto; 0 desactiva cada plazo.
      *
-     * @return El número entero total de pares.
+     * @param tiempoTurnoMs El tiempo de cada turno (ms), en texto.
+     * @param inactividadMaximaMs La inactividad máxima (ms), en texto.
      */
-    public int getTotalPares() {
-        return totalPares;
+    public void asignarPlazos(String tiempoTurnoMs, String inactividadMaximaMs) {
+        try {
+            long turno = tiempoTurnoMs == null || tiempoTurnoMs.isBlank() ? SalaJuego.TIEMPO_TURNO_POR_DEFECTO_MS : Long.parseLong(tiempoTurnoMs.trim());
+            long inactividad = inactividadMaximaMs == null || inactividadMaximaMs.isBlank() ? VigilanciaSesiones.INACTIVIDAD_MAXIMA_POR_DEFECTO_MS : Long.parseLong(inactividadMaximaMs.trim());
+            registroSalas.configurarTiempoTurno(turno);
+            vigilancia.configurarInactividad(inactividad);
+        } catch (NumberFormatException e) {
+            controlPrincipal.mostrarMensajeConsolaServidor("TIEMPO_TURNO_MS o INACTIVIDAD_MAXIMA_MS no es un número válido, se usan los plazos por defecto");
+        } catch (IllegalArgumentException e) {
+            controlPrincipal.mostrarMensajeConsolaServidor(e.getMessage() + ", se usan los plazos por defecto");
+        }
     }
 
     /**
-     * Envía un mensaje de texto a la consola de la interfaz de usuario del
-     * servidor.
+     * Obtiene los plazos de los turnos y de las sesiones.
      *
-     * @param mensaje El {@link String} que se desea mostrar en la consola del
-     * servidor.
+     * @return La vigilancia de las sesiones.
      */
-    public void mostrarMensajeConsolaServidor(String mensaje) {
-        controlPrincipal.mostrarMensajeConsolaServidor(mensaje);
+    public VigilanciaSesiones getVigilancia() {
+        return vigilancia;
     }
 
     /**
-     * Obtiene el {@link Vector} que contiene todos los hilos de clientes
-     * activos actualmente conectados al servidor.
+     * Obtiene el planificador de las esperas del servidor.
      *
-     * @return Un {@link Vector<ThreadServidor>} de clientes activos.
+     * @return El planificador compartido por todas las salas.
      */
-    public static Vector<ThreadServidor> getClientesActivos() {
-        return clientesActivos;
+    public PlanificadorServidor getPlanificador() {
+        return planificador;
     }
 
     /**
-     * Reemplaza la lista actual de clientes activos con un nuevo
-     * {@link Vector}.
+     * Obtiene las filas del tablero de las partidas.
      *
-     * @param clientesActivos El nuevo {@link Vector<ThreadServidor>} de
-     * clientes activos.
+     * @return Las filas configuradas.
      */
-    public static void setClientesActivos(Vector<ThreadServidor> clientesActivos) {
-        ControlServidor.clientesActivos = clientesActivos;
+    public int getFilasTablero() {
+        return registroSalas.getFilasTablero();
     }
 
     /**
-     * Asigna los números de puerto para las conexiones del servidor,
-     * convirtiendo las cadenas de texto a enteros y estableciéndolos en la
-     * clase {@link Servidor}. Se incluye un manejo básico de excepciones para
-     * `NumberFormatException`.
+     * Obtiene las columnas del tablero de las partidas.
      *
-     * @param puerto1 La cadena de texto que representa el primer número de
-     * puerto.
-     * @param puerto2 La cadena de texto que representa el segundo número de
-     * puerto.
+     * @return Las columnas configuradas.
      */
-    public void asignarIps(String puerto1, String puerto2) {
-        try {
-            int puerto1Int = Integer.parseInt(puerto1);
-            int puerto2Int = Integer.parseInt(puerto2);
-            Servidor.setPUERTO_1(puerto1Int);
-            Servidor.setPUERTO_2(puerto2Int);
-        } catch (NumberFormatException e) {
-            // En caso de que las cadenas no sean números válidos, no se realiza ninguna acción específica,
-            // pero se podría añadir un mensaje de error a la consola del servidor.
-        }
+    public int getColumnasTablero() {
+        return registroSalas.getColumnasTablero();
     }
 
     /**
-     * Busca la existencia de un usuario y contraseña en el sistema de
-     * autenticación, delegando esta tarea al controlador principal.
+     * Agrega a un jugador que acaba de iniciar sesión a una sala y le asigna
+     * su turno en ella.
      *
-     * @param usuario El nombre de usuario a buscar.
-     * @param contrasena La contraseña asociada al usuario.
-     * @return `true` si el usuario con la contraseña dada existe y es válido,
-     * `false` en caso contrario.
+     * @param threadServidor La sesión del jugador.
+     * @return La sala del jugador.
      */
-    public boolean buscarUsuarioYContrasenaExistente(String usuario, String contrasena) {
-        return controlPrincipal.buscarUsuarioYContrasenaExistente(usuario, contrasena);
+    public SalaJuego asignarSala(ThreadServidor threadServidor) {
+        return registroSalas.asignarSala(threadServidor);
     }
 
     /**
-     * Obtiene el tipo de carta (representado como un String de su valor entero)
-     * en una posición específica de la matriz de cartas del juego.
+     * Pone en la cola de emparejamiento a un jugador que ya recibió la
+     * respuesta de su inicio de sesión, de modo que ese cliente ya conoce su
+     * turno cuando llega el primer evento de la partida.
      *
-     * @param x La coordenada X (columna) de la carta.
-     * @param y La coordenada Y (fila) de la carta.
-     * @return El tipo de carta como {@link String}, o una cadena vacía si las
-     * coordenadas son inválidas o si ocurre algún error durante la
-     * recuperación.
+     * @param threadServidor La sesión del jugador.
      */
-    public String obtenerTipoCartaEnPosicion(int x, int y) {
-        try {
-            int[][] matrizCartas = controlPrincipal.getMatrizCartas();
-            // Verifica que las coordenadas estén dentro de los límites de la matriz.
-            if (y < 0 || y >= matrizCartas.length || x < 0 || x >= matrizCartas[0].length) {
-                return ""; // Retorna cadena vacía para coordenadas inválidas.
-            }
-            int valorCarta = matrizCartas[y][x];
-            return String.valueOf(valorCarta); // Convierte el valor entero de la carta a String.
+    public void jugadorListo(ThreadServidor threadServidor) {
+        servicioEmparejamiento.jugadorListo(threadServidor);
+    }
 
-        } catch (Exception e) {
-            // Captura cualquier otra excepción y retorna una cadena vacía.
-            return "";
+    /**
+     * Muestra en la consola del servidor la cantidad de jugadores en espera,
+     * los percentiles de la espera en la cola de emparejamiento, los turnos
+     * vencidos, las sesiones cerradas por inactividad y las tareas del
+     * planificador.
+     */
+    public void mostrarMetricasEmparejamiento() {
+        controlPrincipal.mostrarMensajeConsolaServidor(servicioEmparejamiento.describirMetricas());
+        controlPrincipal.mostrarMensajeConsolaServidor(vigilancia.describirMetricas());
+        controlPrincipal.mostrarMensajeConsolaServidor(planificador.describirEstado());
+    }
+
+    /**
+     * Arma la clasificación con las estadísticas acumuladas de la base de
+     * datos. Se llama una vez, al cargar la configuración de la base de
+     * datos; después la tabla se actualiza al terminar cada partida.
+     */
+    public void cargarClasificacion() {
+        try {
+            List<EstadisticasJugadorVO> estadisticas = new EstadisticasDAO().darEstadisticasJugadores();
+            tablaClasificacion.cargar(estadisticas);
+            controlPrincipal.mostrarMensajeConsolaServidor("Clasificación cargada con " + estadisticas.size() + " jugadores");
+        } catch (SQLException e) {
+            controlPrincipal.mostrarMensajeConsolaServidor("No se pudo cargar la clasificación: " + e.getMessage());
         }
     }
 
     /**
-     * Verifica si un usuario con el nombre dado ya se encuentra conectado al
-     * servidor. Este método es sincronizado para asegurar la consistencia al
-     * acceder a la colección de usuarios conectados.
+     * Obtiene la clasificación de los jugadores.
      *
-     * @param usuario El nombre de usuario a verificar.
-     * @return `true` si el usuario ya está conectado, `false` en caso
-     * contrario.
+     * @return La tabla de clasificación.
      */
-    public synchronized boolean usuarioYaConectado(String usuario) {
-        return usuariosConectados.contains(usuario);
+    public TablaClasificacion getTablaClasificacion() {
+        return tablaClasificacion;
     }
 
     /**
-     * Obtiene la información del jugador a partir de sus credenciales (nombre
-     * de usuario), delegando la operación al controlador principal.
+     * Arma el texto de la clasificación que se envía a los clientes: los
+     * primeros jugadores y, si quien la pide ya inició sesión, su posición.
      *
-     * @param usuario El nombre de usuario del jugador.
-     * @return Una cadena de texto con la información del jugador, o null si no
-     * se encuentra.
-     */
-    public String obtenerJugadorPorCredenciales(String usuario) {
-        return controlPrincipal.obtenerJugadorPorCredenciales(usuario);
+     * @param cantidad Cuántos jugadores se muestran; se limita a
+     * {@link Protocolo#CLASIFICACION_MAXIMA}.
+     * @param usuario El usuario de quien la pide, o `null`.
+     * @return El texto de la clasificación.
+     */
+    public String construirClasificacion(int cantidad, String usuario) {
+        int limite = Math.max(1, Math.min(cantidad, Protocolo.CLASIFICACION_MAXIMA));
+        List<EstadisticasJugadorVO> mejores = tablaClasificacion.mejores(limite);
+        int total = tablaClasificacion.getCantidadJugadores();
+        StringBuilder texto = new StringBuilder();
+        texto.append("Clasificación (").append(mejores.size()).append(" de ").append(total).append(" jugadores):\n");
+        for (int i = 0; i < mejores.size(); i++) {
+            EstadisticasJugadorVO jugador = mejores.get(i);
+            texto.append(String.format(Locale.ROOT, "%d. %s - %d/%d partidas ganadas (%.1f%%), %d parejas, eficiencia %.1f%%\n",
+                    i + 1, jugador.getUsuario(), jugador.getPartidasGanadas(), jugador.getPartidasJugadas(),
+                    TablaClasificacion.porcentajeVictorias(jugador), jugador.getParejas(), TablaClasificacion.eficiencia(jugador)));
+        }
+        if (usuario != null) {
+            int posicion = tablaClasificacion.posicion(usuario);
+            texto.append(posicion > 0 ? "Tu posición: " + posicion + " de " + total : "Todavía no has terminado ninguna partida");
+        }
+        return texto.toString();
     }
 
     /**
-     * Verifica la cantidad de clientes que han iniciado sesión. Si hay dos o
-     * más clientes logeados, habilita un botón para iniciar el juego en la
-     * interfaz de usuario del servidor; de lo contrario, lo deshabilita.
+     * Muestra en la consola del servidor los primeros jugadores de la
+     * clasificación.
      */
-    public void verificarJugadoresMostrarBotonJugar() {
-        if (cantidadClientesLogeados >= 2) {
-            controlPrincipal.ocultarBotonIniciarJuego(true); // Oculta el botón (en realidad, lo habilita si el nombre del método significa "hacer visible").
-        } else {
-            controlPrincipal.ocultarBotonIniciarJuego(false); // Muestra el botón (o lo deshabilita).
-        }
+    public void mostrarClasificacion() {
+        controlPrincipal.mostrarMensajeConsolaServidor(construirClasificacion(Protocolo.CLASIFICACION_POR_DEFECTO, null));
     }
 
     /**
-     * Obtiene el número actual de clientes que han iniciado sesión en el
-     * servidor.
+     * Saca del registro una sala cuya partida terminó.
      *
-     * @return El número entero de clientes logeados.
+     * @param sala La sala.
      */
-    public static int getCantidadClientesLogeados() {
-        return cantidadClientesLogeados;
+    public void cerrarSala(SalaJuego sala) {
+        registroSalas.removerSala(sala);
     }
 
     /**
-     * Establece el número de clientes que han iniciado sesión en el servidor.
+     * Obtiene la sala que se muestra en la interfaz del servidor.
      *
-     * @param cantidadClientesLogeados El nuevo número de clientes logeados.
+     * @return La sala visible, o `null` si las salas empiezan solas.
      */
-    public static void setCantidadClientesLogeados(int cantidadClientesLogeados) {
-        ControlServidor.cantidadClientesLogeados = cantidadClientesLogeados;
+    public SalaJuego getSalaVisible() {
+        return registroSalas.getSalaVisible();
     }
 
     /**
-     * Inicia el juego de Concentrese. Itera sobre los clientes activos,
-     * actualiza las estadísticas del panel para el cliente con el turno activo,
-     * y envía el comando "pedirCoordenadas" a todos los clientes, indicando que
-     * el juego ha comenzado y que deben esperar su turno para realizar una
-     * jugada.
+     * Muestra un mensaje de error en la interfaz del servidor.
+     *
+     * @param mensaje El mensaje de error.
      */
-    public void iniciarJuego() {
-        for (ThreadServidor cliente : clientesActivos) {
-            try {
-                
-                if (cliente.getNumeroTurno() == turnoActivo) {
-                    actualizarPanelEstadisticas(cliente);
-                }
-                
-                cliente.getServidor().getServidorInformacionSalida1().writeUTF("pedirCoordenadas");
-                cliente.getServidor().getServidorInformacionSalida1().flush();
-
-            } catch (IOException e) {
-                controlPrincipal.mostrarMensajeConsolaServidor("Error al notificar inicio de juego: " + e.getMessage());
-            }
-        }
+    public void mostrarMensajeError(String mensaje) {
+        controlPrincipal.mostrarMensajeError(mensaje);
     }
 
     /**
@@ -783,59 +863,4 @@ public class ControlServidor {
         controlPrincipal.actualizarPanelEstadisticas(numeroIntentos, numeroParejas, nombreUsuario);
     }
 
-    /**
-     * Determina y retorna una cadena de texto con la información del ganador o
-     * ganadores del juego. El ganador se determina por el porcentaje de acierto
-     * más alto. En caso de empate, se listan todos los jugadores empatados.
-     *
-     * @return Una {@link String} que contiene los nombres de los jugadores
-     * ganadores y su porcentaje de acierto.
-     */
-    public void enviarGanador() {
-        ArrayList<ThreadServidor> ganadores = new ArrayList<>();
-        int mayorPorcentaje = -1; // Inicializa con un valor bajo para encontrar el porcentaje más alto.
-
-        // Itera sobre todos los clientes activos para encontrar el porcentaje de acierto más alto.
-        for (ThreadServidor cliente : clientesActivos) {
-            int[] estadisticas = cliente.getEstadisticas();
-            int porcentajeAcierto = estadisticas[2]; // Asume que el índice 2 contiene el porcentaje de acierto.
-
-            if (porcentajeAcierto > mayorPorcentaje) {
-                mayorPorcentaje = porcentajeAcierto;
-                ganadores.clear(); // Limpia la lista de ganadores anteriores si se encuentra un nuevo porcentaje más alto.
-                ganadores.add(cliente); // Agrega al nuevo ganador.
-            } else if (porcentajeAcierto == mayorPorcentaje) {
-                ganadores.add(cliente); // Agrega clientes si hay un empate.
-            }
-        }
-
-        // Construye la cadena de texto con la información de los ganadores.
-        StringBuilder info = new StringBuilder();
-        info.append("Ganador(es) con un porcentaje de acierto del ").append(mayorPorcentaje).append("%:\n");
-
-        for (ThreadServidor ganador : ganadores) {
-            info.append("- ").append(ganador.getInformacionCliente()).append("\n");
-        }
-        
-        for (ThreadServidor cliente : clientesActivos) {
-            try {
-                cliente.getServidor().getServidorInformacionSalida1().writeUTF(info.toString());
-            } catch (IOException ex) {
-               controlPrincipal.mostrarMensajeError("Ocurrio un error al informar ganador");
-            }
-        }
-        
-        try {
-            Thread.sleep(6000);
-            System.exit(0);
-        } catch (InterruptedException ex) {
-            controlPrincipal.mostrarMensajeError("Ocurrio un error al hacer el sleep de ganador");
-        }
-        
-    }
-
-    public void setParesEncontrados(int paresEncontrados) {
-        this.paresEncontrados = paresEncontrados;
-    }
-    
 }
@@ -0,0 +1,85 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.control;
+
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.NivelConsola;
+import java.io.File;
+
+/**
+ * La interfaz `InterfazServidor` reúne lo que {@link ControlPrincipal} necesita
+ * de la interfaz de usuario del servidor: mostrar mensajes, pedir archivos y
+ * datos, y reflejar la partida en el tablero. Tiene dos implementaciones:
+ * {@link ControlGrafico}, la ventana Swing de siempre, y {@link ControlConsola},
+ * que corre sin pantalla y escribe la consola del servidor en un archivo.
+ *
+ * @author Andres Felipe
+ */
+public interface InterfazServidor {
+
+    /**
+     * Muestra un mensaje de error.
+     *
+     * @param mensaje El mensaje de error.
+     */
+    void mostrarMensajeError(String mensaje);
+
+    /**
+     * Muestra un mensaje de éxito.
+     *
+     * @param mensaje El mensaje de éxito.
+     */
+    void mostrarMensajeExito(String mensaje);
+
+    /**
+     * Pide al usuario un archivo de propiedades.
+     *
+     * @return El archivo elegido, o `null` si no se puede pedir o se cancela.
+     */
+    File pedirArchivoPropiedades();
+
+    /**
+     * Pide al usuario un dato que falta en las propiedades de un jugador.
+     *
+     * @param datoFaltante La descripción del dato.
+     * @return El texto escrito, o `null` si no hay a quién pedírselo.
+     */
+    String mostrarJOptionEscribirDatoFaltante(String datoFaltante);
+
+    /**
+     * Agrega un mensaje a la consola del servidor. Lo llaman los hilos de red,
+     * así que no debe esperar a la interfaz.
+     *
+     * @param nivel El nivel del mensaje.
+     * @param cliente El usuario del cliente al que se refiere, o `null`.
+     * @param mensaje El mensaje.
+     */
+    void mostrarMensajeConsolaServidor(NivelConsola nivel, String cliente, String mensaje);
+
+    /**
+     * Muestra u oculta la opción de empezar el juego.
+     *
+     * @param estado `true` si ya hay jugadores suficientes para empezar.
+     */
+    void ocultarBotonIniciarJuego(boolean estado);
+
+    /**
+     * Voltea una carta del tablero.
+     *
+     * @param idCarta El identificador de la carta.
+     */
+    void seleccionarCarta(int idCarta);
+
+    /**
+     * Vuelve a ocultar una carta del tablero.
+     *
+     * @param idCarta El identificador de la carta.
+     */
+    void deseleccionarCarta(int idCarta);
+
+    /**
+     * Actualiza el panel de estadísticas del jugador con el turno.
+     *
+     * @param numeroIntentos El número de intentos.
+     * @param numeroParejas El número de parejas encontradas.
+     * @param nombreUsuario El nombre del jugador.
+     */
+    void actualizarPanelEstadisticas(String numeroIntentos, String numeroParejas, String nombreUsuario);
+}
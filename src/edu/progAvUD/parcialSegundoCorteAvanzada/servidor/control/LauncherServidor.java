@@ -1,11 +1,23 @@
 package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.control;
 
+import java.io.File;
+import java.io.IOException;
+
 /**
  * La clase `LauncherServidor` es el punto de entrada principal para iniciar la
  * aplicación del servidor. Su función es crear una instancia de
  * {@link ControlPrincipal}, que se encarga de inicializar la interfaz de
  * usuario del servidor y la lógica de control.
  *
+ * Sin argumentos abre la ventana de siempre. Con `--sin-interfaz` corre como
+ * servicio, sin crear ninguna ventana (se puede lanzar con
+ * `-Djava.awt.headless=true`):
+ *
+ * <pre>
+ * java LauncherServidor --sin-interfaz --bd=BD.properties --sockets=InfoSocket.properties
+ *      --jugadores=Jugadores.properties [--log=servidor.log]
+ * </pre>
+ *
  * @author Andres Felipe
  */
 public class LauncherServidor {
@@ -15,13 +27,61 @@ public class LauncherServidor {
      * ser invocado, crea una nueva instancia de {@link ControlPrincipal}, lo
      * que a su vez pone en marcha toda la aplicación del servidor, incluyendo
      * su interfaz gráfica y la preparación para la gestión de clientes y el
-     * juego.
+     * juego. Con `--sin-interfaz` carga los archivos de propiedades indicados
+     * y arranca el servidor de una vez.
      *
-     * @param args Argumentos de la línea de comandos (no utilizados en esta
-     * aplicación).
+     * @param args Argumentos de la línea de comandos: ninguno para la interfaz
+     * gráfica, o `--sin-interfaz` con `--bd`, `--sockets`, `--jugadores` y,
+     * opcionalmente, `--log`.
      */
     public static void main(String[] args) {
-        // Al crear una nueva instancia de ControlPrincipal, se inicializa la ventana<
-        new ControlPrincipal();
+        boolean sinInterfaz = false;
+        String bd = null;
+        String sockets = null;
+        String jugadores = null;
+        String log = null;
+        for (String argumento : args) {
+            if (argumento.equals("--sin-interfaz")) {
+                sinInterfaz = true;
+            } else if (argumento.startsWith("--bd=")) {
+                bd = argumento.substring("--bd=".length());
+            } else if (argumento.startsWith("--sockets=")) {
+                sockets = argumento.substring("--sockets=".length());
+            } else if (argumento.startsWith("--jugadores=")) {
+                jugadores = argumento.substring("--jugadores=".length());
+            } else if (argumento.startsWith("--log=")) {
+                log = argumento.substring("--log=".length());
+            } else {
+                System.err.println("Argumento desconocido: " + argumento);
+                mostrarUso();
+                System.exit(1);
+            }
+        }
+
+        if (!sinInterfaz) {
+            // Al crear una nueva instancia de ControlPrincipal, se inicializa la ventana
+            new ControlPrincipal();
+            return;
+        }
+
+        if (bd == null || sockets == null || jugadores == null) {
+            System.err.println("Sin interfaz hay que indicar los tres archivos de propiedades.");
+            mostrarUso();
+            System.exit(1);
+        }
+        try {
+            ControlPrincipal controlPrincipal = new ControlPrincipal(log);
+            controlPrincipal.iniciarSinInterfaz(new File(bd), new File(sockets), new File(jugadores));
+        } catch (IOException | IllegalStateException ex) {
+            System.err.println("No se pudo iniciar el servidor: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Muestra en la salida de errores cómo lanzar el servidor.
+     */
+    private static void mostrarUso() {
+        System.err.println("Uso: LauncherServidor [--sin-interfaz --bd=archivo --sockets=archivo --jugadores=archivo [--log=archivo]]");
     }
 }
@@ -0,0 +1,817 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.control;
+
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.CodecProtocolo;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.ColaSalida;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.ConexionBD;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.MensajeProtocolo;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.Servidor;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.TransporteMultiplexado;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * La clase `ReactorServidor` implementa el modo no bloqueante del servidor,
+ * basado en {@link Selector} y {@link SocketChannel} de `java.nio`. En lugar de
+ * crear un {@link ThreadServidor} con su propio hilo por cada cliente, un hilo
+ * aceptador reparte las conexiones entre un número fijo de bucles de eventos.
+ *
+ * Cada bucle lee los bytes disponibles, separa los mensajes con el
+ * {@link CodecProtocolo} de la sesión (texto `writeUTF` o binario) y se los
+ * entrega a {@link ThreadServidor#procesarMensaje(MensajeProtocolo)}, de modo
+ * que la lógica de los comandos es exactamente la misma que en el modo de hilos. Las respuestas que
+ * escribe la sesión se encolan y el bucle las envía cuando el canal lo permite.
+ *
+ * Los clientes que envían el preámbulo de {@link TransporteMultiplexado} usan
+ * una sola conexión: el bucle separa sus tramas y solo entrega al
+ * {@link ThreadServidor} las del canal de control. Para no romper a los
+ * clientes antiguos, si hay un `PUERTO_2` configurado también se aceptan (y se
+ * ignoran) las conexiones al segundo puerto.
+ *
+ * Los comandos que pueden bloquear (ver
+ * {@link ThreadServidor#esComandoBloqueante(byte)}, como el login, que consulta
+ * la base de datos) no se ejecutan en el bucle: pasan a un grupo de hilos
+ * aparte y la sesión deja de procesar mensajes hasta que terminan, para
+ * conservar su orden. Las respuestas salen por la cola de la sesión como
+ * cualquier otra. Así una consulta lenta solo detiene a su propia sesión.
+ *
+ * Un cliente no puede hacer crecer los buffers de lectura sin límite: una
+ * trama de más de {@link TransporteMultiplexado#LONGITUD_MAXIMA_TRAMA} bytes,
+ * o más datos sin procesar de los que caben en {@link #CAPACIDAD_MAXIMA_LECTURA},
+ * cierran la conexión.
+ *
+ * La cola de salida de cada sesión tiene la misma capacidad que las
+ * {@link ColaSalida} del modo de hilos. Cuando se llena, la política
+ * `DESCARTAR` descarta el mensaje; con las demás se cierra la conexión, porque
+ * bloquear a quien escribe detendría un bucle de eventos completo.
+ *
+ * @author Cristianlol789
+ */
+public class ReactorServidor {
+
+    private ControlServidor controlServidor;
+
+    /**
+     * Los bucles de eventos entre los que se reparten las sesiones.
+     */
+    private BucleEventos[] bucles;
+
+    /**
+     * Índice del siguiente bucle al que se asignará una conexión (reparto
+     * circular).
+     */
+    private int siguienteBucle;
+
+    /**
+     * Cantidad máxima de mensajes pendientes de envío por sesión.
+     */
+    private final int capacidadSalida;
+
+    /**
+     * `true` si los mensajes que no caben se descartan; si no, se cierra la
+     * conexión.
+     */
+    private final boolean descartarAlLlenar;
+
+    /**
+     * Cantidad máxima de buffers que se envían en una sola escritura.
+     */
+    private static final int LOTE_ESCRITURA = 32;
+
+    /**
+     * Tamaño máximo de los buffers de lectura de una sesión: una trama
+     * multiplexada completa, que también alcanza para el mensaje de texto o
+     * binario más largo.
+     */
+    private static final int CAPACIDAD_MAXIMA_LECTURA = TransporteMultiplexado.TAMANO_CABECERA + TransporteMultiplexado.LONGITUD_MAXIMA_TRAMA;
+
+    /**
+     * Ejecuta los comandos bloqueantes fuera de los bucles de eventos. Tiene
+     * tantos hilos como conexiones el pool de la base de datos
+     * (`POOL_MAXIMO`): con más, los hilos sobrantes solo esperarían una
+     * conexión libre.
+     */
+    private final ExecutorService tareasBloqueantes;
+
+    /**
+     * Constructor de la clase `ReactorServidor`.
+     *
+     * @param controlServidor El controlador del servidor al que pertenecen las
+     * sesiones.
+     * @param cantidadBucles El número de hilos de bucle de eventos que se van a
+     * usar. Si es menor que 1 se usa 1.
+     */
+    public ReactorServidor(ControlServidor controlServidor, int cantidadBucles) {
+        this.controlServidor = controlServidor;
+        this.bucles = new BucleEventos[Math.max(1, cantidadBucles)];
+        this.siguienteBucle = 0;
+        this.capacidadSalida = controlServidor.getCapacidadColaSalida();
+        this.descartarAlLlenar = controlServidor.getPoliticaClienteLento() == ColaSalida.Politica.DESCARTAR;
+        this.tareasBloqueantes = Executors.newFixedThreadPool(ConexionBD.getMaximoConexiones(),
+                Thread.ofPlatform().daemon(true).name("reactor-tarea-", 1).factory());
+    }
+
+    /**
+     * Abre los puertos del servidor en modo no bloqueante, arranca los bucles
+     * de eventos y se queda aceptando conexiones en el hilo actual.
+     *
+     * @throws IOException Si no se pueden abrir los puertos o el selector.
+     */
+    public void ejecutar() throws IOException {
+        for (int i = 0; i < bucles.length; i++) {
+            bucles[i] = new BucleEventos();
+            Thread hilo = new Thread(bucles[i], "reactor-" + (i + 1));
+            hilo.setDaemon(true);
+            hilo.start();
+        }
+
+        Selector selectorAceptacion = Selector.open();
+        ServerSocketChannel canalPrincipal = abrirPuerto(selectorAceptacion, Servidor.getPUERTO_1(), Boolean.TRUE);
+        ServerSocketChannel canalSecundario = null;
+        if (Servidor.getPUERTO_2() > 0) {
+            canalSecundario = abrirPuerto(selectorAceptacion, Servidor.getPUERTO_2(), Boolean.FALSE);
+        }
+
+        controlServidor.mostrarMensajeConsolaServidor(".::Servidor activo (NIO, " + bucles.length + " bucles de eventos) :");
+        controlServidor.mostrarMensajeConsolaServidor("Sistema de turnos iniciado");
+        controlServidor.mostrarMensajeConsolaServidor("Esperando Usuarios");
+
+        while (selectorAceptacion.isOpen()) {
+            selectorAceptacion.select();
+            Iterator<SelectionKey> llaves = selectorAceptacion.selectedKeys().iterator();
+            while (llaves.hasNext()) {
+                SelectionKey llave = llaves.next();
+                llaves.remove();
+                if (!llave.isValid() || !llave.isAcceptable()) {
+                    continue;
+                }
+                ServerSocketChannel canalServidor = (ServerSocketChannel) llave.channel();
+                SocketChannel canal;
+                try {
+                    canal = canalServidor.accept();
+                } catch (IOException e) {
+                    controlServidor.mostrarMensajeConsolaServidor("Accept failed: " + canalServidor + ", " + e.getMessage());
+                    continue;
+                }
+                if (canal == null) {
+                    continue;
+                }
+                canal.configureBlocking(false);
+                canal.socket().setKeepAlive(true);
+                BucleEventos bucle = bucles[siguienteBucle];
+                siguienteBucle = (siguienteBucle + 1) % bucles.length;
+
+                if (Boolean.TRUE.equals(llave.attachment())) {
+                    bucle.registrar(new SesionNio(canal, bucle));
+                } else {
+                    // Segundo socket de los clientes antiguos: nunca lleva tráfico.
+                    bucle.registrar(new SesionNio(canal, bucle, true));
+                }
+            }
+        }
+        canalPrincipal.close();
+        if (canalSecundario != null) {
+            canalSecundario.close();
+        }
+    }
+
+    /**
+     * Abre un {@link ServerSocketChannel} no bloqueante en el puerto indicado
+     * y lo registra en el selector de aceptación.
+     *
+     * @param selector El selector de aceptación.
+     * @param puerto El puerto en el que se escucha.
+     * @param principal `Boolean.TRUE` si es el puerto principal de comandos.
+     * @return El canal abierto.
+     * @throws IOException Si el puerto no se puede abrir.
+     */
+    private ServerSocketChannel abrirPuerto(Selector selector, int puerto, Boolean principal) throws IOException {
+        ServerSocketChannel canal = ServerSocketChannel.open();
+        canal.bind(new InetSocketAddress(puerto));
+        canal.configureBlocking(false);
+        canal.register(selector, SelectionKey.OP_ACCEPT, principal);
+        return canal;
+    }
+
+    /**
+     * Un bucle de eventos: un hilo con su propio {@link Selector} que atiende
+     * la lectura y escritura de todas las sesiones que tiene asignadas.
+     */
+    private class BucleEventos implements Runnable {
+
+        private final Selector selector;
+
+        /**
+         * Sesiones recién aceptadas que el hilo del bucle debe registrar.
+         */
+        private final Queue<SesionNio> nuevasSesiones = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Sesiones con datos pendientes de escritura.
+         */
+        private final Queue<SesionNio> sesionesConEscritura = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Sesiones cuyo comando bloqueante ya terminó y que pueden seguir
+         * procesando mensajes.
+         */
+        private final Queue<SesionNio> sesionesReanudadas = new ConcurrentLinkedQueue<>();
+
+        BucleEventos() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        /**
+         * Entrega una sesión al bucle desde otro hilo.
+         */
+        void registrar(SesionNio sesion) {
+            nuevasSesiones.add(sesion);
+            selector.wakeup();
+        }
+
+        /**
+         * Avisa al bucle de que la sesión tiene datos por escribir. Puede
+         * llamarse desde cualquier hilo.
+         */
+        void solicitarEscritura(SesionNio sesion) {
+            sesionesConEscritura.add(sesion);
+            selector.wakeup();
+        }
+
+        /**
+         * Avisa al bucle de que terminó el comando bloqueante de la sesión.
+         * Lo llaman los hilos de {@link #tareasBloqueantes}.
+         */
+        void reanudar(SesionNio sesion) {
+            sesionesReanudadas.add(sesion);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    selector.select();
+                    registrarNuevasSesiones();
+                    atenderEscriturasPendientes();
+                    atenderReanudaciones();
+
+                    Iterator<SelectionKey> llaves = selector.selectedKeys().iterator();
+                    while (llaves.hasNext()) {
+                        SelectionKey llave = llaves.next();
+                        llaves.remove();
+                        SesionNio sesion = (SesionNio) llave.attachment();
+                        if (!llave.isValid()) {
+                            continue;
+                        }
+                        try {
+                            if (llave.isReadable()) {
+                                sesion.leer();
+                            }
+                            if (llave.isValid() && llave.isWritable()) {
+                                sesion.escribir();
+                            }
+                        } catch (RuntimeException e) {
+                            fallaSesion(sesion, e);
+                        }
+                    }
+                } catch (IOException e) {
+                    controlServidor.mostrarMensajeConsolaServidor("Error en el bucle de eventos: " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Cierra solo la sesión cuyo manejo lanzó una excepción inesperada
+         * (por ejemplo, por un mensaje mal formado), para que el bucle siga
+         * atendiendo a las demás sesiones.
+         *
+         * @param sesion La sesión que falló.
+         * @param e La excepción.
+         */
+        private void fallaSesion(SesionNio sesion, RuntimeException e) {
+            controlServidor.mostrarMensajeConsolaServidor("Error inesperado en una sesión, se cierra: " + e);
+            try {
+                sesion.cerrar("Error inesperado: " + e);
+            } catch (RuntimeException alCerrar) {
+                controlServidor.mostrarMensajeConsolaServidor("Error al limpiar la sesión: " + alCerrar);
+            }
+        }
+
+        private void registrarNuevasSesiones() {
+            SesionNio sesion;
+            while ((sesion = nuevasSesiones.poll()) != null) {
+                try {
+                    sesion.llave = sesion.canal.register(selector, SelectionKey.OP_READ, sesion);
+                    sesion.iniciar();
+                } catch (IOException e) {
+                    sesion.cerrar(e.getMessage());
+                } catch (RuntimeException e) {
+                    fallaSesion(sesion, e);
+                }
+            }
+        }
+
+        private void atenderEscriturasPendientes() {
+            SesionNio sesion;
+            while ((sesion = sesionesConEscritura.poll()) != null) {
+                if (sesion.llave != null && sesion.llave.isValid()) {
+                    try {
+                        sesion.escribir();
+                    } catch (RuntimeException e) {
+                        fallaSesion(sesion, e);
+                    }
+                }
+            }
+        }
+
+        private void atenderReanudaciones() {
+            SesionNio sesion;
+            while ((sesion = sesionesReanudadas.poll()) != null) {
+                try {
+                    sesion.reanudar();
+                } catch (RuntimeException e) {
+                    fallaSesion(sesion, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Transporte de una sesión que todavía no ha enviado suficientes bytes
+     * para saber si es multiplexada.
+     */
+    private static final int TRANSPORTE_DESCONOCIDO = 0;
+
+    /**
+     * Transporte de los clientes antiguos: mensajes `writeUTF` sin tramas.
+     */
+    private static final int TRANSPORTE_TEXTO = 1;
+
+    /**
+     * Transporte de un solo puerto con tramas por canal.
+     */
+    private static final int TRANSPORTE_MULTIPLEXADO = 2;
+
+    /**
+     * El estado de una conexión dentro de un bucle de eventos: el canal, el
+     * buffer de lectura con los bytes que aún no forman un mensaje completo y
+     * la cola de bytes por enviar.
+     */
+    private class SesionNio {
+
+        private final SocketChannel canal;
+        private final BucleEventos bucle;
+        private final boolean secundaria;
+        private SelectionKey llave;
+        private ThreadServidor threadServidor;
+        private ByteBuffer lectura = ByteBuffer.allocate(1024);
+
+        /**
+         * Con el transporte multiplexado, los datos del canal de control ya
+         * separados de sus tramas.
+         */
+        private ByteBuffer comandos;
+
+        /**
+         * El buffer del que se están leyendo mensajes en este momento:
+         * `lectura` con los clientes antiguos o `comandos` con los
+         * multiplexados.
+         */
+        private ByteBuffer mensajes;
+
+        /**
+         * El transporte de la sesión. Se lee desde otros hilos al encolar
+         * respuestas, por eso es `volatile`.
+         */
+        private volatile int transporte = TRANSPORTE_DESCONOCIDO;
+        private final Queue<ByteBuffer> pendientes = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger cantidadPendientes = new AtomicInteger();
+        private final ByteBuffer[] loteEscritura = new ByteBuffer[LOTE_ESCRITURA];
+
+        /**
+         * Se marca cuando la cola se llenó y la política pide desconectar. El
+         * cierre lo hace el hilo del bucle.
+         */
+        private volatile boolean desbordada;
+
+        /**
+         * La causa con la que otro hilo pidió cerrar la sesión, o `null`. El
+         * cierre lo hace el hilo del bucle.
+         */
+        private volatile String causaCierre;
+        private final EntradaBuffer entradaBuffer = new EntradaBuffer();
+        private final DataInputStream entradaDatos = new DataInputStream(entradaBuffer);
+
+        /**
+         * Mensaje que se reutiliza para decodificar cada comando. Mientras un
+         * comando bloqueante se ejecuta fuera del bucle no se decodifica
+         * nada más, así que ese hilo puede usar este mismo mensaje.
+         */
+        private final MensajeProtocolo mensaje = new MensajeProtocolo();
+        private boolean cerrada;
+
+        /**
+         * `true` mientras un comando bloqueante de la sesión se ejecuta fuera
+         * del bucle. Solo lo cambia el hilo del bucle.
+         */
+        private boolean enTrabajo;
+
+        /**
+         * La causa de un cierre que llegó mientras había un comando
+         * bloqueante en curso; la limpieza de la sesión se hace cuando
+         * termina.
+         */
+        private String desconexionPendiente;
+
+        SesionNio(SocketChannel canal, BucleEventos bucle) {
+            this(canal, bucle, false);
+        }
+
+        SesionNio(SocketChannel canal, BucleEventos bucle, boolean secundaria) {
+            this.canal = canal;
+            this.bucle = bucle;
+            this.secundaria = secundaria;
+        }
+
+        /**
+         * Crea el {@link ThreadServidor} que procesará los comandos de esta
+         * conexión. La sesión nunca se ejecuta en un hilo propio: solo se
+         * reutiliza su lógica.
+         */
+        void iniciar() {
+            if (secundaria) {
+                return;
+            }
+            threadServidor = new ThreadServidor(canal.socket(), null, controlServidor);
+            threadServidor.getServidor().setServidorInformacionSalida1(new DataOutputStream(new SalidaCanal(this, TransporteMultiplexado.CANAL_CONTROL)));
+            threadServidor.getServidor().setServidorInformacionSalidaEventos(new DataOutputStream(new SalidaCanal(this, TransporteMultiplexado.CANAL_EVENTOS)));
+            threadServidor.setCierreSesion(this::solicitarCierre);
+            controlServidor.agregarCliente(threadServidor);
+        }
+
+        /**
+         * Pide al bucle que cierre la sesión. Puede llamarse desde cualquier
+         * hilo.
+         *
+         * @param causa La causa del cierre.
+         */
+        void solicitarCierre(String causa) {
+            causaCierre = causa;
+            bucle.solicitarEscritura(this);
+        }
+
+        /**
+         * Lee los bytes disponibles y procesa todos los mensajes completos.
+         * Si el buffer está lleno y ya tiene el tamaño máximo, el cliente
+         * envió un mensaje demasiado largo y se cierra la conexión.
+         */
+        void leer() {
+            int leidos;
+            try {
+                if (!lectura.hasRemaining()) {
+                    if (lectura.capacity() >= CAPACIDAD_MAXIMA_LECTURA) {
+                        cerrar("Mensaje de más de " + CAPACIDAD_MAXIMA_LECTURA + " bytes: se desconecta al cliente");
+                        return;
+                    }
+                    ByteBuffer mayor = ByteBuffer.allocate(Math.min(lectura.capacity() * 2, CAPACIDAD_MAXIMA_LECTURA));
+                    lectura.flip();
+                    mayor.put(lectura);
+                    lectura = mayor;
+                }
+                leidos = canal.read(lectura);
+            } catch (IOException e) {
+                cerrar(e.getMessage());
+                return;
+            }
+            if (leidos < 0) {
+                cerrar("Conexión cerrada por el cliente");
+                return;
+            }
+            if (secundaria) {
+                lectura.clear(); // El canal secundario no transporta comandos
+                return;
+            }
+
+            lectura.flip();
+            if (transporte == TRANSPORTE_DESCONOCIDO && !detectarTransporte()) {
+                lectura.compact(); // Aún no hay bytes suficientes para decidir
+                return;
+            }
+            if (transporte == TRANSPORTE_MULTIPLEXADO) {
+                try {
+                    extraerTramas();
+                } catch (IOException e) {
+                    cerrar(e.getMessage());
+                    return;
+                }
+                lectura.compact();
+                mensajes = comandos;
+                mensajes.flip();
+            } else {
+                mensajes = lectura;
+            }
+            procesarMensajes();
+        }
+
+        /**
+         * Procesa los mensajes completos de `mensajes`, que debe estar en modo
+         * lectura. Se detiene al llegar a un comando bloqueante, que pasa a
+         * {@link #tareasBloqueantes}; los mensajes siguientes esperan en el
+         * buffer hasta {@link #reanudar()}.
+         */
+        private void procesarMensajes() {
+            try {
+                while (!enTrabajo && mensajes.hasRemaining()) {
+                    int inicio = mensajes.position();
+                    try {
+                        // El códec se consulta en cada mensaje porque cambia tras la negociación
+                        threadServidor.getServidor().getCodec().leerComando(entradaDatos, mensaje);
+                    } catch (EOFException incompleto) {
+                        mensajes.position(inicio); // Falta parte del mensaje, se espera la siguiente lectura
+                        break;
+                    }
+                    if (ThreadServidor.esComandoBloqueante(mensaje.getOpcode())) {
+                        enTrabajo = true;
+                        tareasBloqueantes.execute(this::ejecutarComandoBloqueante);
+                    } else {
+                        threadServidor.procesarMensaje(mensaje);
+                    }
+                }
+            } catch (IOException e) {
+                cerrar(e.getMessage());
+                return;
+            }
+            mensajes.compact();
+        }
+
+        /**
+         * Ejecuta el comando bloqueante guardado en {@link #mensaje}, en un
+         * hilo de {@link #tareasBloqueantes}. Al terminar devuelve la sesión
+         * a su bucle.
+         */
+        private void ejecutarComandoBloqueante() {
+            try {
+                threadServidor.procesarMensaje(mensaje);
+            } catch (IOException | RuntimeException e) {
+                solicitarCierre(e.getMessage());
+            } finally {
+                bucle.reanudar(this);
+            }
+        }
+
+        /**
+         * Sigue procesando los mensajes que llegaron durante un comando
+         * bloqueante, o hace la limpieza de la sesión si se cerró mientras
+         * tanto. Lo ejecuta el hilo del bucle.
+         */
+        void reanudar() {
+            enTrabajo = false;
+            if (cerrada) {
+                if (desconexionPendiente != null) {
+                    threadServidor.manejarDesconexion(desconexionPendiente);
+                    desconexionPendiente = null;
+                }
+                return;
+            }
+            mensajes.flip();
+            procesarMensajes();
+        }
+
+        /**
+         * Decide el transporte con los primeros bytes recibidos: el preámbulo
+         * de {@link TransporteMultiplexado} (que se consume) o el inicio de un
+         * mensaje `writeUTF` de un cliente antiguo. `lectura` debe estar en
+         * modo lectura.
+         *
+         * @return `true` si ya se conoce el transporte.
+         */
+        private boolean detectarTransporte() {
+            int inicio = lectura.position();
+            if (lectura.remaining() >= 2 && (lectura.getShort(inicio) & 0xFFFF) != TransporteMultiplexado.PREAMBULO >>> 16) {
+                transporte = TRANSPORTE_TEXTO;
+            } else if (lectura.remaining() >= 4) {
+                if (lectura.getInt(inicio) == TransporteMultiplexado.PREAMBULO) {
+                    lectura.position(inicio + 4);
+                    comandos = ByteBuffer.allocate(1024);
+                    transporte = TRANSPORTE_MULTIPLEXADO;
+                } else {
+                    transporte = TRANSPORTE_TEXTO;
+                }
+            }
+            return transporte != TRANSPORTE_DESCONOCIDO;
+        }
+
+        /**
+         * Separa las tramas completas que hay en `lectura` y copia a
+         * `comandos` los datos del canal de control. Los demás canales no
+         * llevan nada del cliente al servidor y se descartan.
+         *
+         * @throws IOException Si la cabecera de una trama no es válida, la
+         * trama es demasiado larga o hay demasiados comandos sin procesar.
+         */
+        private void extraerTramas() throws IOException {
+            while (lectura.remaining() >= TransporteMultiplexado.TAMANO_CABECERA) {
+                int inicio = lectura.position();
+                byte canalTrama = lectura.get(inicio);
+                int longitud = lectura.getInt(inicio + 1);
+                if (longitud < 0) {
+                    throw new IOException("Trama multiplexada inválida (canal " + canalTrama + ")");
+                }
+                if (longitud > TransporteMultiplexado.LONGITUD_MAXIMA_TRAMA) {
+                    throw new IOException("Trama multiplexada demasiado larga: " + longitud + " bytes (canal " + canalTrama + ")");
+                }
+                if (lectura.remaining() < TransporteMultiplexado.TAMANO_CABECERA + longitud) {
+                    break; // Trama incompleta, se espera la siguiente lectura
+                }
+                lectura.position(inicio + TransporteMultiplexado.TAMANO_CABECERA);
+                if (canalTrama == TransporteMultiplexado.CANAL_CONTROL) {
+                    if (comandos.remaining() < longitud) {
+                        if (comandos.position() + longitud > CAPACIDAD_MAXIMA_LECTURA) {
+                            throw new IOException("Demasiados comandos sin procesar: se desconecta al cliente");
+                        }
+                        ByteBuffer mayor = ByteBuffer.allocate(Math.min(Math.max(comandos.capacity() * 2, comandos.position() + longitud), CAPACIDAD_MAXIMA_LECTURA));
+                        comandos.flip();
+                        mayor.put(comandos);
+                        comandos = mayor;
+                    }
+                    int limite = lectura.limit();
+                    lectura.limit(lectura.position() + longitud);
+                    comandos.put(lectura);
+                    lectura.limit(limite);
+                } else {
+                    lectura.position(lectura.position() + longitud);
+                }
+            }
+        }
+
+        /**
+         * Encola bytes para enviarlos al cliente por el canal lógico indicado.
+         * Con los clientes antiguos el canal se ignora y los bytes se envían
+         * tal cual. Puede llamarse desde cualquier hilo (por ejemplo, cuando
+         * otra sesión difunde un mensaje). Si la cola está llena, el mensaje
+         * se descarta o se pide al bucle que cierre la conexión.
+         */
+        void encolar(byte canalLogico, byte[] datos, int desde, int longitud) {
+            if (cerrada || desbordada) {
+                return;
+            }
+            if (cantidadPendientes.get() >= capacidadSalida) {
+                if (!descartarAlLlenar) {
+                    desbordada = true;
+                    bucle.solicitarEscritura(this);
+                }
+                return;
+            }
+            byte[] copia;
+            if (transporte == TRANSPORTE_MULTIPLEXADO) {
+                copia = TransporteMultiplexado.empaquetar(canalLogico, datos, desde, longitud);
+            } else {
+                copia = new byte[longitud];
+                System.arraycopy(datos, desde, copia, 0, longitud);
+            }
+            pendientes.add(ByteBuffer.wrap(copia));
+            cantidadPendientes.incrementAndGet();
+            bucle.solicitarEscritura(this);
+        }
+
+        /**
+         * Escribe todo lo que el canal acepte sin bloquear, juntando hasta
+         * {@link #LOTE_ESCRITURA} mensajes en cada escritura. Si queda algo
+         * por enviar, se pide interés de escritura al selector.
+         */
+        void escribir() {
+            if (desbordada) {
+                cerrar("Cola de salida llena: se desconecta al cliente");
+                return;
+            }
+            if (causaCierre != null) {
+                cerrar(causaCierre);
+                return;
+            }
+            try {
+                while (!pendientes.isEmpty()) {
+                    int cantidad = 0;
+                    for (ByteBuffer buffer : pendientes) {
+                        loteEscritura[cantidad++] = buffer;
+                        if (cantidad == LOTE_ESCRITURA) {
+                            break;
+                        }
+                    }
+                    canal.write(loteEscritura, 0, cantidad);
+                    for (int i = 0; i < cantidad; i++) {
+                        if (loteEscritura[i].hasRemaining()) {
+                            break;
+                        }
+                        pendientes.poll();
+                        cantidadPendientes.decrementAndGet();
+                    }
+                    boolean incompleto = loteEscritura[cantidad - 1].hasRemaining();
+                    Arrays.fill(loteEscritura, 0, cantidad, null);
+                    if (incompleto) {
+                        llave.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                }
+                llave.interestOps(SelectionKey.OP_READ);
+            } catch (IOException e) {
+                cerrar(e.getMessage());
+            }
+        }
+
+        /**
+         * Cierra el canal y, si era una sesión de juego, ejecuta la misma
+         * limpieza que el modo de hilos. Si hay un comando bloqueante en
+         * curso, la limpieza espera a que termine.
+         */
+        void cerrar(String causa) {
+            if (cerrada) {
+                return;
+            }
+            cerrada = true;
+            if (llave != null) {
+                llave.cancel();
+            }
+            try {
+                canal.close();
+            } catch (IOException e) {
+                controlServidor.mostrarMensajeConsolaServidor("Error al cerrar el canal del cliente: " + e.getMessage());
+            }
+            pendientes.clear();
+            cantidadPendientes.set(0);
+            if (threadServidor != null) {
+                if (enTrabajo) {
+                    desconexionPendiente = causa; // Se limpia cuando termine el comando en curso
+                } else {
+                    threadServidor.manejarDesconexion(causa);
+                }
+            }
+        }
+
+        /**
+         * Flujo de entrada de solo lectura sobre el buffer de mensajes de la
+         * sesión. Cuando el buffer se agota devuelve -1, lo que hace que
+         * el códec lance {@link EOFException} si el mensaje está incompleto.
+         */
+        private class EntradaBuffer extends InputStream {
+
+            @Override
+            public int read() {
+                return mensajes.hasRemaining() ? mensajes.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] destino, int desde, int longitud) {
+                if (!mensajes.hasRemaining()) {
+                    return -1;
+                }
+                int cantidad = Math.min(longitud, mensajes.remaining());
+                mensajes.get(destino, desde, cantidad);
+                return cantidad;
+            }
+        }
+    }
+
+    /**
+     * Flujo de salida que, en lugar de escribir en el socket, entrega cada
+     * escritura a la cola de la sesión. Así el código que usa
+     * `DataOutputStream.writeUTF` funciona igual en ambos modos. Cada flujo
+     * pertenece a un canal lógico (control o eventos).
+     */
+    private static class SalidaCanal extends OutputStream {
+
+        private final SesionNio sesion;
+        private final byte canalLogico;
+
+        SalidaCanal(SesionNio sesion, byte canalLogico) {
+            this.sesion = sesion;
+            this.canalLogico = canalLogico;
+        }
+
+        @Override
+        public void write(int b) {
+            sesion.encolar(canalLogico, new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] datos, int desde, int longitud) {
+            sesion.encolar(canalLogico, datos, desde, longitud);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.control;
+
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.Protocolo;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.TableroConcentrese;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * La clase `RegistroSalas` guarda las {@link SalaJuego} del servidor y decide
+ * en qué sala entra cada jugador que inicia sesión.
+ *
+ * Sin `JUGADORES_POR_SALA` (o con 0) hay una sola sala, la visible en la
+ * interfaz, y la partida la inicia el administrador con el botón de jugar,
+ * como siempre. Con `JUGADORES_POR_SALA = N` los jugadores llenan salas de N
+ * en orden de llegada y {@link ServicioEmparejamiento} decide cuándo empieza
+ * cada partida; los jugadores que llegan después entran en una sala nueva.
+ *
+ * Solo la asignación de sala toma {@link #candadoAsignacion}; las partidas ya
+ * en curso no lo usan, cada una tiene su propio candado de turnos.
+ *
+ * @author Cristianlol789
+ */
+public final class RegistroSalas {
+
+    private final ControlServidor controlServidor;
+
+    /**
+     * Las salas que todavía no terminaron, por número de sala.
+     */
+    private final ConcurrentHashMap<Integer, SalaJuego> salas;
+
+    /**
+     * Contador para numerar las salas.
+     */
+    private final AtomicInteger contadorSalas;
+
+    /**
+     * Protege la elección de la sala abierta y el alta del jugador en ella.
+     */
+    private final ReentrantLock candadoAsignacion;
+
+    /**
+     * Jugadores por sala, o 0 para una sola sala visible.
+     */
+    private int jugadoresPorSala;
+
+    /**
+     * Filas y columnas del tablero de las salas nuevas.
+     */
+    private int filasTablero;
+    private int columnasTablero;
+
+    /**
+     * Esperas (ms) de las salas nuevas: el volteo de las cartas de un fallo y
+     * el cierre después del ganador.
+     */
+    private long esperaVolteoMs;
+    private long esperaCierreMs;
+
+    /**
+     * Tiempo (ms) que tiene cada jugador para jugar su turno en las salas
+     * nuevas, o 0 para esperarlo siempre.
+     */
+    private long tiempoTurnoMs;
+
+    /**
+     * La sala que está recibiendo jugadores.
+     */
+    private SalaJuego salaAbierta;
+
+    /**
+     * La sala que se muestra en la interfaz, o `null` si las salas se llenan
+     * y empiezan solas.
+     */
+    private volatile SalaJuego salaVisible;
+
+    /**
+     * Constructor de la clase `RegistroSalas`. Empieza con una sola sala
+     * visible.
+     *
+     * @param controlServidor El controlador del servidor.
+     */
+    public RegistroSalas(ControlServidor controlServidor) {
+        this.controlServidor = controlServidor;
+        this.salas = new ConcurrentHashMap<>();
+        this.contadorSalas = new AtomicInteger(1);
+        this.candadoAsignacion = new ReentrantLock();
+        this.filasTablero = SalaJuego.FILAS_POR_DEFECTO;
+        this.columnasTablero = SalaJuego.COLUMNAS_POR_DEFECTO;
+        this.esperaVolteoMs = SalaJuego.ESPERA_VOLTEO_POR_DEFECTO_MS;
+        this.esperaCierreMs = SalaJuego.ESPERA_CIERRE_POR_DEFECTO_MS;
+        this.tiempoTurnoMs = SalaJuego.TIEMPO_TURNO_POR_DEFECTO_MS;
+        configurar(0);
+    }
+
+    /**
+     * Cambia la cantidad de jugadores por sala. Se llama al cargar las
+     * propiedades, antes de aceptar clientes; descarta las salas vacías que
+     * hubiera.
+     *
+     * @param jugadoresPorSala Jugadores por sala (al menos 2), o 0 para una
+     * sola sala iniciada desde la interfaz.
+     */
+    public void configurar(int jugadoresPorSala) {
+        candadoAsignacion.lock();
+        try {
+            this.jugadoresPorSala = jugadoresPorSala >= 2 ? jugadoresPorSala : 0;
+            salas.clear();
+            contadorSalas.set(1);
+            salaAbierta = crearSala();
+            salaVisible = this.jugadoresPorSala == 0 ? salaAbierta : null;
+        } finally {
+            candadoAsignacion.unlock();
+        }
+    }
+
+    /**
+     * Cambia el tamaño del tablero de las salas. Como
+     * {@link #configurar(int)}, se llama al cargar las propiedades y descarta
+     * las salas vacías que hubiera.
+     *
+     * @param filas Las filas del tablero.
+     * @param columnas Las columnas del tablero.
+     * @throws IllegalArgumentException Si no se puede armar un tablero de esas
+     * dimensiones o si alguna pasa de {@link Protocolo#LADO_MAXIMO_TABLERO}.
+     */
+    public void configurarTablero(int filas, int columnas) {
+        TableroConcentrese.validar(filas, columnas);
+        if (filas > Protocolo.LADO_MAXIMO_TABLERO || columnas > Protocolo.LADO_MAXIMO_TABLERO) {
+            throw new IllegalArgumentException("El tablero no puede tener más de " + Protocolo.LADO_MAXIMO_TABLERO + " filas o columnas");
+        }
+        candadoAsignacion.lock();
+        try {
+            this.filasTablero = filas;
+            this.columnasTablero = columnas;
+            configurar(jugadoresPorSala);
+        } finally {
+            candadoAsignacion.unlock();
+        }
+    }
+
+    /**
+     * Cambia las esperas de las salas, incluida la sala abierta.
+     *
+     * @param esperaVolteoMs Cuánto quedan volteadas las cartas de un fallo (ms).
+     * @param esperaCierreMs Cuánto se espera después del ganador para cerrar
+     * el servidor (ms).
+     * @throws IllegalArgumentException Si alguna espera es negativa.
+     */
+    public void configurarEsperas(long esperaVolteoMs, long esperaCierreMs) {
+        if (esperaVolteoMs < 0 || esperaCierreMs < 0) {
+            throw new IllegalArgumentException("Las esperas de la partida no pueden ser negativas");
+        }
+        candadoAsignacion.lock();
+        try {
+            this.esperaVolteoMs = esperaVolteoMs;
+            this.esperaCierreMs = esperaCierreMs;
+            for (SalaJuego sala : salas.values()) {
+                sala.configurarEsperas(esperaVolteoMs, esperaCierreMs);
+            }
+        } finally {
+            candadoAsignacion.unlock();
+        }
+    }
+
+    /**
+     * Cambia el tiempo que tiene cada jugador para jugar su turno, también en
+     * las salas que ya existen.
+     *
+     * @param tiempoTurnoMs El tiempo (ms), o 0 para esperar siempre.
+     * @throws IllegalArgumentException Si el tiempo es negativo.
+     */
+    public void configurarTiempoTurno(long tiempoTurnoMs) {
+        if (tiempoTurnoMs < 0) {
+            throw new IllegalArgumentException("El tiempo del turno no puede ser negativo");
+        }
+        candadoAsignacion.lock();
+        try {
+            this.tiempoTurnoMs = tiempoTurnoMs;
+            for (SalaJuego sala : salas.values()) {
+                sala.configurarTiempoTurno(tiempoTurnoMs);
+            }
+        } finally {
+            candadoAsignacion.unlock();
+        }
+    }
+
+    /**
+     * Agrega un jugador que acaba de iniciar sesión a la sala abierta y le
+     * asigna su turno en ella. Si la sala abierta ya está llena o su partida
+     * ya empezó, antes se abre una sala nueva.
+     *
+     * @param jugador La sesión del jugador.
+     * @return La sala del jugador.
+     */
+    public SalaJuego asignarSala(ThreadServidor jugador) {
+        candadoAsignacion.lock();
+        try {
+            if (jugadoresPorSala > 0 && (salaAbierta.estaCompleta() || !salas.containsKey(salaAbierta.getId()) || salaAbierta.isEnJuego())) {
+                salaAbierta = crearSala();
+            }
+            salaAbierta.agregarJugador(jugador);
+            return salaAbierta;
+        } finally {
+            candadoAsignacion.unlock();
+        }
+    }
+
+    /**
+     * Marca el inicio de la partida de una sala. Se hace con el candado de
+     * asignación para que ningún jugador entre en una sala que ya empezó: el
+     * siguiente que llegue abre una sala nueva.
+     *
+     * @param sala La sala.
+     * @return `true` solo para quien la marca primero.
+     */
+    public boolean cerrarInscripcion(SalaJuego sala) {
+        candadoAsignacion.lock();
+        try {
+            return sala.marcarInicio();
+        } finally {
+            candadoAsignacion.unlock();
+        }
+    }
+
+    /**
+     * Quita una sala del registro, normalmente porque su partida terminó.
+     *
+     * @param sala La sala.
+     */
+    public void removerSala(SalaJuego sala) {
+        salas.remove(sala.getId(), sala);
+    }
+
+    /**
+     * Obtiene la sala que se muestra en la interfaz.
+     *
+     * @return La sala visible, o `null` si las salas empiezan solas.
+     */
+    public SalaJuego getSalaVisible() {
+        return salaVisible;
+    }
+
+    /**
+     * Obtiene las salas que todavía no terminaron.
+     *
+     * @return Una vista concurrente de las salas.
+     */
+    public Collection<SalaJuego> getSalas() {
+        return salas.values();
+    }
+
+    public int getJugadoresPorSala() {
+        return jugadoresPorSala;
+    }
+
+    public int getFilasTablero() {
+        return filasTablero;
+    }
+
+    public int getColumnasTablero() {
+        return columnasTablero;
+    }
+
+    private SalaJuego crearSala() {
+        SalaJuego sala = new SalaJuego(contadorSalas.getAndIncrement(), jugadoresPorSala, jugadoresPorSala == 0,
+                filasTablero, columnasTablero, controlServidor);
+        sala.configurarEsperas(esperaVolteoMs, esperaCierreMs);
+        sala.configurarTiempoTurno(tiempoTurnoMs);
+        salas.put(sala.getId(), sala);
+        return sala;
+    }
+}
@@ -0,0 +1,167 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.control;
+
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.JugadorDAO;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * La clase `RegistroSesiones` guarda las sesiones conectadas al servidor, por
+ * número de sesión y, desde el inicio de sesión, por usuario.
+ *
+ * Los dos índices son {@link ConcurrentHashMap}: agregar, quitar y buscar una
+ * sesión cuestan O(1) sin candados, y recorrer las sesiones (para la consola
+ * o la vigilancia de las sesiones) no copia la lista ni falla si alguien se
+ * conecta o desconecta mientras tanto. Un usuario se registra con
+ * `putIfAbsent`, así que de dos inicios de sesión del mismo usuario al mismo
+ * tiempo solo uno gana.
+ *
+ * Los usuarios se guardan normalizados con
+ * {@link JugadorDAO#normalizarUsuario(String)}, igual que los busca la base de
+ * datos: `"Ana"` y `" ana"` son el mismo jugador y no pueden estar conectados
+ * dos veces.
+ *
+ * El jugador de cada turno se busca en la sala ({@link RotacionTurnos}),
+ * porque los números de turno se repiten entre salas.
+ *
+ * @author Cristianlol789
+ */
+public class RegistroSesiones {
+
+    private final AtomicLong contadorSesiones;
+    private final ConcurrentHashMap<Long, ThreadServidor> porId;
+    private final ConcurrentHashMap<String, ThreadServidor> porUsuario;
+
+    /**
+     * Constructor de la clase `RegistroSesiones`. El registro empieza vacío.
+     */
+    public RegistroSesiones() {
+        this.contadorSesiones = new AtomicLong();
+        this.porId = new ConcurrentHashMap<>();
+        this.porUsuario = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Agrega una sesión recién aceptada y le asigna su número.
+     *
+     * @param sesion La sesión.
+     * @return El número de la sesión.
+     */
+    public long agregar(ThreadServidor sesion) {
+        long id = contadorSesiones.incrementAndGet();
+        sesion.setIdSesion(id);
+        porId.put(id, sesion);
+        return id;
+    }
+
+    /**
+     * Quita una sesión y, si había iniciado sesión, libera su usuario.
+     *
+     * @param sesion La sesión.
+     * @return `true` si la sesión estaba en el registro.
+     */
+    public boolean remover(ThreadServidor sesion) {
+        String usuario = sesion.getServidor().getNombreUsuario();
+        if (usuario != null && !usuario.isBlank()) {
+            porUsuario.remove(clave(usuario), sesion);
+        }
+        return porId.remove(sesion.getIdSesion(), sesion);
+    }
+
+    /**
+     * Registra el usuario de una sesión que inició sesión, si no está
+     * conectado ya en otra sesión.
+     *
+     * @param usuario El nombre de usuario.
+     * @param sesion La sesión.
+     * @return `true` si se registró; `false` si el usuario ya estaba
+     * conectado.
+     */
+    public boolean registrarUsuario(String usuario, ThreadServidor sesion) {
+        return porUsuario.putIfAbsent(clave(usuario), sesion) == null;
+    }
+
+    /**
+     * Libera un usuario, solo si lo tiene registrado esta sesión.
+     *
+     * @param usuario El nombre de usuario.
+     * @param sesion La sesión.
+     * @return `true` si el usuario se liberó.
+     */
+    public boolean desregistrarUsuario(String usuario, ThreadServidor sesion) {
+        return porUsuario.remove(clave(usuario), sesion);
+    }
+
+    /**
+     * Busca la sesión de un usuario.
+     *
+     * @param usuario El nombre de usuario.
+     * @return La sesión, o `null` si el usuario no está conectado.
+     */
+    public ThreadServidor buscarPorUsuario(String usuario) {
+        return usuario == null ? null : porUsuario.get(clave(usuario));
+    }
+
+    /**
+     * Busca una sesión por su número.
+     *
+     * @param id El número de la sesión.
+     * @return La sesión, o `null` si ya se cerró.
+     */
+    public ThreadServidor buscarPorId(long id) {
+        return porId.get(id);
+    }
+
+    /**
+     * Indica si un usuario está conectado.
+     *
+     * @param usuario El nombre de usuario.
+     * @return `true` si alguna sesión lo tiene registrado.
+     */
+    public boolean estaConectado(String usuario) {
+        return usuario != null && porUsuario.containsKey(clave(usuario));
+    }
+
+    /**
+     * Obtiene las sesiones conectadas, hayan iniciado sesión o no.
+     *
+     * @return Una vista concurrente de solo lectura.
+     */
+    public Collection<ThreadServidor> getSesiones() {
+        return Collections.unmodifiableCollection(porId.values());
+    }
+
+    /**
+     * Obtiene los usuarios que iniciaron sesión, normalizados.
+     *
+     * @return Una vista concurrente de solo lectura.
+     */
+    public Set<String> getUsuarios() {
+        return Collections.unmodifiableSet(porUsuario.keySet());
+    }
+
+    /**
+     * Obtiene la cantidad de sesiones conectadas, incluidas las que todavía no
+     * iniciaron sesión.
+     *
+     * @return La cantidad de sesiones.
+     */
+    public int getCantidadSesiones() {
+        return porId.size();
+    }
+
+    /**
+     * Obtiene la cantidad de usuarios que iniciaron sesión.
+     *
+     * @return La cantidad de usuarios conectados.
+     */
+    public int getCantidadUsuarios() {
+        return porUsuario.size();
+    }
+
+    private static String clave(String usuario) {
+        return JugadorDAO.normalizarUsuario(usuario);
+    }
+}
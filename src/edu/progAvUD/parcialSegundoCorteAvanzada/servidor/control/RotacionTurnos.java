@@ -0,0 +1,94 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.control;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * El orden de los turnos de una sala: los jugadores ordenados por su número
+ * de turno, en círculo (después del último viene el primero).
+ *
+ * Los jugadores están en un {@link TreeMap} por número de turno, así que
+ * buscar el siguiente turno, quitar a un jugador que se desconecta y buscar al
+ * jugador del turno activo cuestan O(log n), sin recorrer a todos los
+ * jugadores de la sala en cada cambio de turno.
+ *
+ * No es segura para hilos: {@link SalaJuego} la usa siempre dentro de su
+ * candado de turnos.
+ *
+ * @author Cristianlol789
+ */
+public class RotacionTurnos {
+
+    /**
+     * Lo que devuelve {@link #siguiente(int)} cuando no hay jugadores.
+     */
+    public static final int SIN_TURNO = -1;
+
+    private final TreeMap<Integer, ThreadServidor> jugadores;
+
+    /**
+     * Constructor de la clase `RotacionTurnos`. La rotación empieza vacía.
+     */
+    public RotacionTurnos() {
+        this.jugadores = new TreeMap<>();
+    }
+
+    /**
+     * Agrega un jugador con su número de turno.
+     *
+     * @param turno El número de turno del jugador, único en la sala.
+     * @param jugador La sesión del jugador.
+     */
+    public void agregar(int turno, ThreadServidor jugador) {
+        jugadores.put(turno, jugador);
+    }
+
+    /**
+     * Quita a un jugador de la rotación.
+     *
+     * @param turno El número de turno del jugador.
+     * @param jugador La sesión del jugador; si el turno es de otro jugador no
+     * se quita nada.
+     * @return `true` si el jugador estaba en la rotación.
+     */
+    public boolean remover(int turno, ThreadServidor jugador) {
+        return jugadores.remove(turno, jugador);
+    }
+
+    /**
+     * Busca el turno que sigue a otro en el círculo: el menor turno mayor que
+     * `turno` o, si no hay, el primero. El turno dado no tiene que seguir en
+     * la rotación (por ejemplo, si ese jugador se acaba de desconectar).
+     *
+     * @param turno El turno actual.
+     * @return El siguiente turno (el mismo si es el único jugador), o
+     * {@link #SIN_TURNO} si no hay jugadores.
+     */
+    public int siguiente(int turno) {
+        if (jugadores.isEmpty()) {
+            return SIN_TURNO;
+        }
+        Map.Entry<Integer, ThreadServidor> siguiente = jugadores.higherEntry(turno);
+        return siguiente != null ? siguiente.getKey() : jugadores.firstKey();
+    }
+
+    /**
+     * Busca al jugador de un turno.
+     *
+     * @param turno El número de turno.
+     * @return La sesión del jugador, o `null` si ningún jugador tiene ese
+     * turno.
+     */
+    public ThreadServidor jugador(int turno) {
+        return jugadores.get(turno);
+    }
+
+    /**
+     * Obtiene la cantidad de jugadores en la rotación.
+     *
+     * @return La cantidad de jugadores.
+     */
+    public int getCantidad() {
+        return jugadores.size();
+    }
+}
@@ -0,0 +1,1082 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.control;
+
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.EscrituraEstadisticas;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.EstadisticasJugadorVO;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.MensajeProtocolo;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.NivelConsola;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.Protocolo;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.RegistroServidor;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.ResultadoPartidaVO;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.TablaClasificacion;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.TableroConcentrese;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Vector;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * La clase `SalaJuego` es una partida de Concentrese. Cada sala tiene su
+ * propio tablero, sus cartas emparejadas, su lista de jugadores y su sistema
+ * de turnos, así que un mismo servidor puede llevar muchas partidas a la vez
+ * sin que una afecte a las demás.
+ *
+ * Los cambios de turno se hacen con el candado de la sala
+ * ({@link #candadoTurnos}): dos salas distintas nunca se esperan entre sí.
+ * Dentro del candado no se escribe a los clientes ni a la consola; los
+ * mensajes se envían después de soltarlo. El turno activo se lee sin candado
+ * y los pares encontrados los cuenta el tablero de forma atómica, así que dos
+ * aciertos al mismo tiempo nunca se pierden.
+ * {@link RegistroSalas} decide en qué sala entra cada jugador.
+ *
+ * La sala que se muestra en la interfaz del servidor (la única cuando no se
+ * configura `JUGADORES_POR_SALA`) se marca como visible: solo ella actualiza
+ * el tablero y el panel de estadísticas, y al terminar su partida el servidor
+ * se cierra como siempre.
+ *
+ * @author Cristianlol789
+ */
+public class SalaJuego {
+
+    /**
+     * Filas del tablero si no se configura `FILAS_TABLERO`.
+     */
+    public static final int FILAS_POR_DEFECTO = 5;
+
+    /**
+     * Columnas del tablero si no se configura `COLUMNAS_TABLERO`.
+     */
+    public static final int COLUMNAS_POR_DEFECTO = 8;
+
+    /**
+     * Tiempo (ms) que quedan volteadas las cartas de un fallo si no se
+     * configura `ESPERA_VOLTEO_MS`.
+     */
+    public static final long ESPERA_VOLTEO_POR_DEFECTO_MS = 500;
+
+    /**
+     * Tiempo (ms) entre el anuncio del ganador y el cierre del servidor si no
+     * se configura `ESPERA_CIERRE_MS`.
+     */
+    public static final long ESPERA_CIERRE_POR_DEFECTO_MS = 6000;
+
+    /**
+     * Tiempo por defecto que tiene un jugador para jugar su turno.
+     */
+    public static final long TIEMPO_TURNO_POR_DEFECTO_MS = 60000;
+
+    private final int id;
+    private final ControlServidor controlServidor;
+
+    /**
+     * Indica si la sala se muestra en la interfaz gráfica del servidor.
+     */
+    private final boolean visible;
+
+    /**
+     * Lo que se antepone a los mensajes de la sala en la consola: el número
+     * de sala, o nada si es la sala visible.
+     */
+    private final String prefijoConsola;
+
+    /**
+     * Cantidad de jugadores con la que la sala se llena y empieza su partida,
+     * o 0 si la partida la inicia el administrador desde la interfaz.
+     */
+    private final int capacidad;
+
+    /**
+     * El tablero de la sala: el valor de cada carta y cuáles ya se
+     * emparejaron. Se consulta sin candados.
+     */
+    private final TableroConcentrese tablero;
+
+    /**
+     * Los jugadores de la sala que ya iniciaron sesión.
+     */
+    private final Vector<ThreadServidor> jugadores;
+
+    /**
+     * El orden de los turnos de los jugadores de la sala, para cambiar de
+     * turno sin recorrer la lista. Se usa dentro de {@link #candadoTurnos}.
+     */
+    private final RotacionTurnos rotacion;
+
+    /**
+     * Contador para asignar turnos únicos y consecutivos dentro de la sala.
+     */
+    private final AtomicInteger contadorTurnos;
+
+    /**
+     * El número de turno que está activo en la sala. Es `volatile` para que
+     * las lecturas no necesiten candado; las escrituras se hacen con
+     * {@link #candadoTurnos}.
+     */
+    private volatile int turnoActivo;
+
+    /**
+     * Candado que protege los cambios de turno de la sala. Se usa un
+     * {@link ReentrantLock} para que las sesiones que corren en hilos
+     * virtuales no bloqueen su hilo portador.
+     */
+    private final ReentrantLock candadoTurnos;
+
+    /**
+     * Época del turno: aumenta en uno con cada transición (inicio del juego,
+     * cambio de turno, reinicio), siempre dentro de {@link #candadoTurnos}.
+     * Cada sesión recuerda la última época de la que fue notificada, así que
+     * cada cliente recibe una sola notificación por transición aunque la
+     * difusión se pida varias veces.
+     */
+    private final AtomicLong epocaTurno;
+
+    /**
+     * Cantidad de notificaciones de turno y de resultados enviadas a los
+     * jugadores de la sala. Con N jugadores debe crecer N por cada transición.
+     */
+    private final AtomicLong mensajesTurnoEnviados;
+
+    /**
+     * El número total de pares de cartas de la partida.
+     */
+    private final int totalPares;
+
+    /**
+     * `true` desde que la partida empieza.
+     */
+    private final AtomicBoolean iniciada;
+
+    /**
+     * `true` desde que la partida termina; evita anunciar el final dos veces.
+     */
+    private final AtomicBoolean terminada;
+
+    /**
+     * `true` desde que se programó el cierre del servidor; cada jugador que
+     * pide el ganador no vuelve a programarlo.
+     */
+    private final AtomicBoolean cierreProgramado;
+
+    /**
+     * Las esperas de la sala (ms), que ejecuta el planificador del servidor.
+     */
+    private volatile long esperaVolteoMs;
+    private volatile long esperaCierreMs;
+
+    /**
+     * Tiempo que tiene el jugador activo para jugar (ms), o 0 para esperarlo
+     * siempre.
+     */
+    private volatile long tiempoTurnoMs;
+
+    /**
+     * El vencimiento programado del turno activo, o `null`. Se cambia dentro
+     * de {@link #candadoTurnos}.
+     */
+    private ScheduledFuture<?> plazoTurno;
+
+    /**
+     * Aumenta cada vez que se programa o cancela el plazo del turno; un
+     * vencimiento de un plazo anterior no hace nada. Se cambia dentro de
+     * {@link #candadoTurnos}.
+     */
+    private long versionPlazo;
+
+    /**
+     * Constructor de la clase `SalaJuego`.
+     *
+     * @param id El número de la sala.
+     * @param capacidad Los jugadores con los que la sala empieza sola, o 0 si
+     * la inicia el administrador.
+     * @param visible `true` si la sala se muestra en la interfaz del servidor.
+     * @param filas Las filas del tablero.
+     * @param columnas Las columnas del tablero.
+     * @param controlServidor El controlador del servidor, para la consola y la
+     * interfaz.
+     * @throws IllegalArgumentException Si no se puede armar un tablero de esas
+     * dimensiones.
+     */
+    public SalaJuego(int id, int capacidad, boolean visible, int filas, int columnas, ControlServidor controlServidor) {
+        this.id = id;
+        this.capacidad = capacidad;
+        this.visible = visible;
+        this.prefijoConsola = visible ? "" : "[Sala " + id + "] ";
+        this.controlServidor = controlServidor;
+        this.tablero = new TableroConcentrese(filas, columnas);
+        this.jugadores = new Vector<>();
+        this.rotacion = new RotacionTurnos();
+        this.contadorTurnos = new AtomicInteger(1);
+        this.turnoActivo = 1;
+        this.candadoTurnos = new ReentrantLock();
+        this.epocaTurno = new AtomicLong();
+        this.mensajesTurnoEnviados = new AtomicLong();
+        this.totalPares = tablero.getTotalPares();
+        this.iniciada = new AtomicBoolean();
+        this.terminada = new AtomicBoolean();
+        this.cierreProgramado = new AtomicBoolean();
+        this.esperaVolteoMs = ESPERA_VOLTEO_POR_DEFECTO_MS;
+        this.esperaCierreMs = ESPERA_CIERRE_POR_DEFECTO_MS;
+        this.tiempoTurnoMs = TIEMPO_TURNO_POR_DEFECTO_MS;
+    }
+
+    /**
+     * Cambia las esperas de la sala.
+     *
+     * @param esperaVolteoMs Cuánto quedan volteadas las cartas de un fallo (ms).
+     * @param esperaCierreMs Cuánto se espera después del ganador para cerrar
+     * el servidor (ms).
+     */
+    public void configurarEsperas(long esperaVolteoMs, long esperaCierreMs) {
+        this.esperaVolteoMs = esperaVolteoMs;
+        this.esperaCierreMs = esperaCierreMs;
+    }
+
+    /**
+     * Cambia el tiempo que tiene el jugador activo para jugar. Se aplica desde
+     * el siguiente turno.
+     *
+     * @param tiempoTurnoMs El tiempo (ms), o 0 para esperar siempre.
+     */
+    public void configurarTiempoTurno(long tiempoTurnoMs) {
+        this.tiempoTurnoMs = tiempoTurnoMs;
+    }
+
+    /**
+     * Asigna un orden aleatorio a las cartas de la sala. Cada número (del 1 al
+     * total de pares) queda dos veces en el tablero, en posiciones al azar.
+     */
+    public void barajarCartas() {
+        tablero.barajar();
+    }
+
+    /**
+     * Agrega un jugador que acaba de iniciar sesión y le asigna el siguiente
+     * turno de la sala. El turno se asigna antes de agregarlo a la lista, de
+     * modo que las difusiones nunca ven un jugador sin turno.
+     *
+     * @param jugador La sesión del jugador.
+     * @return El número de turno asignado.
+     */
+    public int agregarJugador(ThreadServidor jugador) {
+        int turno = contadorTurnos.getAndIncrement();
+        jugador.setNumeroTurno(turno);
+        candadoTurnos.lock();
+        try {
+            rotacion.agregar(turno, jugador);
+        } finally {
+            candadoTurnos.unlock();
+        }
+        jugadores.add(jugador);
+        return turno;
+    }
+
+    /**
+     * Quita un jugador de la sala. Si tenía el turno activo y la partida está
+     * en curso, el turno pasa al siguiente jugador.
+     *
+     * @param jugador La sesión del jugador.
+     * @return `true` si el jugador estaba en la sala.
+     */
+    public boolean removerJugador(ThreadServidor jugador) {
+        if (!jugadores.remove(jugador)) {
+            return false;
+        }
+        candadoTurnos.lock();
+        try {
+            rotacion.remover(jugador.getNumeroTurno(), jugador);
+        } finally {
+            candadoTurnos.unlock();
+        }
+        if (isEnJuego() && jugador.getNumeroTurno() == turnoActivo) {
+            mostrarMensaje("Cliente con turno activo se desconectó, avanzando turno...");
+            avanzarSiguienteTurno();
+        }
+        return true;
+    }
+
+    /**
+     * Indica si la sala ya tiene los jugadores con los que empieza sola.
+     *
+     * @return `true` si la sala tiene capacidad y está llena.
+     */
+    public boolean estaCompleta() {
+        return capacidad > 0 && jugadores.size() >= capacidad;
+    }
+
+    /**
+     * Obtiene la cantidad de jugadores con la que la sala empieza sola.
+     *
+     * @return La capacidad, o 0 si la partida la inicia el administrador.
+     */
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    /**
+     * Marca la partida como iniciada.
+     *
+     * @return `true` solo para quien la marca primero.
+     */
+    public boolean marcarInicio() {
+        return iniciada.compareAndSet(false, true);
+    }
+
+    /**
+     * Indica si la partida de la sala empezó y todavía no terminó.
+     *
+     * @return `true` si la partida está en curso.
+     */
+    public boolean isEnJuego() {
+        return iniciada.get() && !terminada.get();
+    }
+
+    /**
+     * Verifica si una carta en las coordenadas dadas ya ha sido emparejada.
+     * La consulta no toma ningún candado ni crea objetos.
+     *
+     * @param x La coordenada X (columna, base 0) de la carta.
+     * @param y La coordenada Y (fila, base 0) de la carta.
+     * @return `true` si la carta ya está emparejada, `false` en caso contrario.
+     */
+    public boolean esCartaYaEmparejada(int x, int y) {
+        return tablero.estaEmparejada(tablero.casilla(x, y));
+    }
+
+    /**
+     * Obtiene el valor de la carta en una posición del tablero de la sala.
+     *
+     * @param x La coordenada X (columna, base 0) de la carta.
+     * @param y La coordenada Y (fila, base 0) de la carta.
+     * @return El valor de la carta, o {@link TableroConcentrese#SIN_CARTA} si
+     * las coordenadas son inválidas.
+     */
+    public int obtenerValorCarta(int x, int y) {
+        return tablero.valor(tablero.casilla(x, y));
+    }
+
+    /**
+     * Método auxiliar para validar si las coordenadas de una carta están dentro
+     * del tablero.
+     *
+     * @param x La coordenada X (columna) a verificar.
+     * @param y La coordenada Y (fila) a verificar.
+     * @return `true` si las coordenadas están dentro de los límites del
+     * tablero, `false` en caso contrario.
+     */
+    public boolean coordenadasValidas(int x, int y) {
+        return tablero.esValida(x, y);
+    }
+
+    /**
+     * Calcula el identificador de la carta que muestra la interfaz para unas
+     * coordenadas enviadas por el cliente.
+     *
+     * @param x La coordenada X (columna, base 1).
+     * @param y La coordenada Y (fila, base 1).
+     * @return El identificador (`(y - 1) * columnas + (x - 1)`), o -1 si las
+     * coordenadas están fuera del tablero.
+     */
+    public int idCarta(int x, int y) {
+        return tablero.casilla(x - 1, y - 1);
+    }
+
+    /**
+     * Verifica si dos cartas seleccionadas forman una pareja y, si es así, las
+     * registra como emparejadas.
+     *
+     * @param x1 Coordenada X de la primera carta seleccionada (base 1).
+     * @param y1 Coordenada Y de la primera carta seleccionada (base 1).
+     * @param x2 Coordenada X de la segunda carta seleccionada (base 1).
+     * @param y2 Coordenada Y de la segunda carta seleccionada (base 1).
+     * @return `true` si las dos cartas forman una pareja, sus coordenadas son
+     * diferentes y ninguna estaba emparejada, `false` en caso contrario.
+     */
+    public boolean verificarPareja(int x1, int y1, int x2, int y2) {
+        int casilla1 = tablero.casilla(x1 - 1, y1 - 1);
+        int casilla2 = tablero.casilla(x2 - 1, y2 - 1);
+
+        // El tablero rechaza la misma carta dos veces, valores distintos y cartas ya emparejadas
+        boolean esPareja = tablero.emparejar(casilla1, casilla2);
+
+        RegistroServidor registro = controlServidor.getRegistro();
+        if (registro.estaActivo(NivelConsola.DEPURACION)) {
+            if (esPareja) {
+                registro.registrar(NivelConsola.DEPURACION, null,
+                        "{}Progreso: {}/{} pares encontrados", prefijoConsola, tablero.getParesEmparejados(), totalPares);
+            } else {
+                registro.registrar(NivelConsola.DEPURACION, null,
+                        "{}No es pareja: '{}' ≠ '{}'", prefijoConsola, tablero.valor(casilla1), tablero.valor(casilla2));
+            }
+        }
+        return esPareja;
+    }
+
+    /**
+     * Verifica si la partida ha terminado, lo cual ocurre cuando todas las
+     * cartas han sido emparejadas.
+     *
+     * @return `true` si ya no quedan pares por encontrar.
+     */
+    public boolean verificarJuegoTerminado() {
+        return tablero.paresRestantes() <= 0;
+    }
+
+    /**
+     * Obtiene el número del turno activo de la sala sin tomar un candado.
+     *
+     * @return El número entero del turno activo.
+     */
+    public int getTurnoActivo() {
+        return this.turnoActivo;
+    }
+
+    /**
+     * Inicia la partida de la sala. El inicio cuenta como una transición de
+     * turno: se abre una nueva época, se actualizan las estadísticas del panel
+     * para el jugador con el turno activo y cada jugador recibe una sola
+     * notificación ("pedirCoordenadas" en el modo de consultas, el turno
+     * activo en el modo de eventos) para que espere su turno o juegue.
+     */
+    public void iniciarJuego() {
+        iniciada.set(true);
+        ThreadServidor jugadorActivo;
+        candadoTurnos.lock();
+        try {
+            epocaTurno.incrementAndGet();
+            programarPlazoTurno();
+            jugadorActivo = rotacion.jugador(turnoActivo);
+        } finally {
+            candadoTurnos.unlock();
+        }
+        mostrarMensaje("Partida iniciada con " + jugadores.size() + " jugadores");
+
+        if (jugadorActivo != null) {
+            actualizarPanelEstadisticas(jugadorActivo);
+        }
+        difundirTransicionTurno(null);
+    }
+
+    /**
+     * Avanza el sistema de turnos al siguiente jugador de la sala. El cambio
+     * de turno se hace con {@link #candadoTurnos}; los mensajes y las
+     * notificaciones se envían después de soltarlo.
+     */
+    public void avanzarSiguienteTurno() {
+        int siguienteTurno;
+        candadoTurnos.lock();
+        try {
+            siguienteTurno = encontrarSiguienteJugadorActivo();
+            if (siguienteTurno != -1) {
+                this.turnoActivo = siguienteTurno;
+                epocaTurno.incrementAndGet();
+                programarPlazoTurno();
+            }
+        } finally {
+            candadoTurnos.unlock();
+        }
+        if (siguienteTurno != -1) {
+            controlServidor.getRegistro().registrar(NivelConsola.DEPURACION, null, "{}Turno activo actualizado a: {}", prefijoConsola, siguienteTurno);
+            notificarCambioTurno();
+            difundirTransicionTurno(null);
+        }
+    }
+
+    /**
+     * Avanza al siguiente turno específicamente para el juego de Concentrese.
+     * El cambio de turno se hace con {@link #candadoTurnos}. No notifica a los
+     * clientes: la sesión que falló primero envía el resultado de la jugada y
+     * luego llama a {@link #difundirTransicionTurno(ThreadServidor)}.
+     */
+    public void avanzarSiguienteTurnoConcentrese() {
+        // Encontrar el siguiente jugador conectado
+        int siguienteTurno;
+        ThreadServidor jugadorActivo = null;
+        candadoTurnos.lock();
+        try {
+            siguienteTurno = encontrarSiguienteJugadorActivo();
+            if (siguienteTurno != -1) {
+                this.turnoActivo = siguienteTurno;
+                epocaTurno.incrementAndGet();
+                programarPlazoTurno();
+                jugadorActivo = rotacion.jugador(siguienteTurno);
+            }
+        } finally {
+            candadoTurnos.unlock();
+        }
+
+        if (siguienteTurno != -1) {
+            controlServidor.getRegistro().registrar(NivelConsola.DEPURACION, null, "{}Turno de Concentrese pasa a: {}", prefijoConsola, siguienteTurno);
+            notificarCambioTurno();
+
+            // Las estadísticas del panel pasan al jugador que recibe el turno
+            if (jugadorActivo != null) {
+                actualizarPanelEstadisticas(jugadorActivo);
+            }
+
+        } else {
+            mostrarMensaje("No hay más jugadores activos");
+        }
+    }
+
+    /**
+     * Encuentra el número de turno del siguiente jugador de la sala en la
+     * secuencia circular: el menor turno mayor al activo o, si no hay, el
+     * primero. Se consulta en la {@link RotacionTurnos}, en O(log n), dentro
+     * de {@link #candadoTurnos}.
+     *
+     * @return El número de turno del siguiente jugador, o -1 si no hay
+     * jugadores.
+     */
+    private int encontrarSiguienteJugadorActivo() {
+        return rotacion.siguiente(turnoActivo);
+    }
+
+    /**
+     * Vuelve a contar el tiempo del turno activo desde ahora. Se llama cuando
+     * el jugador acierta y conserva el turno.
+     */
+    public void renovarPlazoTurno() {
+        candadoTurnos.lock();
+        try {
+            programarPlazoTurno();
+        } finally {
+            candadoTurnos.unlock();
+        }
+    }
+
+    /**
+     * Cancela el plazo del turno anterior y, si la partida está en curso,
+     * programa en el planificador del servidor el vencimiento del turno
+     * activo. No se crea ningún hilo por sala. Se llama dentro de
+     * {@link #candadoTurnos}, en cada cambio de turno.
+     */
+    private void programarPlazoTurno() {
+        if (plazoTurno != null) {
+            plazoTurno.cancel(false);
+            plazoTurno = null;
+        }
+        long version = ++versionPlazo;
+        long tiempo = tiempoTurnoMs;
+        if (tiempo > 0 && isEnJuego()) {
+            plazoTurno = controlServidor.getPlanificador().programar(() -> vencerTurno(version), tiempo);
+        }
+    }
+
+    /**
+     * Pasa el turno al siguiente jugador porque el activo no jugó a tiempo.
+     * El cambio se decide dentro de {@link #candadoTurnos}, así que un plazo
+     * que se renovó o canceló mientras tanto no hace nada; los mensajes se
+     * envían después de soltarlo, como en {@link #avanzarSiguienteTurno()}.
+     *
+     * @param version La versión del plazo que venció.
+     */
+    private void vencerTurno(long version) {
+        int turnoVencido;
+        int siguienteTurno;
+        candadoTurnos.lock();
+        try {
+            if (version != versionPlazo || !isEnJuego()) {
+                return;
+            }
+            turnoVencido = turnoActivo;
+            siguienteTurno = encontrarSiguienteJugadorActivo();
+            if (siguienteTurno == -1) {
+                return;
+            }
+            this.turnoActivo = siguienteTurno;
+            epocaTurno.incrementAndGet();
+            programarPlazoTurno();
+        } finally {
+            candadoTurnos.unlock();
+        }
+        controlServidor.getVigilancia().contarTurnoVencido();
+        controlServidor.getRegistro().registrar(NivelConsola.ADVERTENCIA, null,
+                "{}El turno {} venció sin jugada, pasa a: {}", prefijoConsola, turnoVencido, siguienteTurno);
+        notificarCambioTurno();
+        difundirTransicionTurno(null);
+    }
+
+    /**
+     * Muestra en la consola el estado de turno de cada jugador de la sala.
+     */
+    private void notificarCambioTurno() {
+        for (ThreadServidor jugador : jugadores) {
+            try {
+                jugador.gestionarTurnosConcentrese();
+            } catch (Exception e) {
+                mostrarMensaje("Error al notificar cambio de turno a cliente: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Difunde la última transición de turno a los jugadores de la sala. Cada
+     * jugador que todavía no fue notificado de la época actual recibe un solo
+     * mensaje: `cambioTurno` en el modo de eventos o `pedirCoordenadas` en el
+     * de consultas. Los que ya la recibieron (por ejemplo, con el resultado de
+     * la jugada) se omiten, así que llamar a este método varias veces para la
+     * misma transición no genera tráfico adicional.
+     *
+     * @param excluido Un jugador que no se debe notificar ahora, o `null`. Se
+     * usa con el jugador del modo de consultas que acaba de fallar: todavía
+     * está leyendo respuestas y recibe su notificación cuando envía
+     * `siguienteTurno`.
+     */
+    public void difundirTransicionTurno(ThreadServidor excluido) {
+        long epoca = epocaTurno.get();
+        int turno = turnoActivo;
+        for (ThreadServidor jugador : jugadores) {
+            if (jugador == excluido || !jugador.reclamarNotificacionTurno(epoca)) {
+                continue;
+            }
+            try {
+                if (jugador.isModoEventos()) {
+                    jugador.enviarCambioTurno(turno);
+                } else {
+                    jugador.enviarEvento(Protocolo.OP_PEDIR_COORDENADAS, null);
+                }
+                mensajesTurnoEnviados.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                mostrarMensaje(jugador.getServidor().getNombreUsuario(), "Error al notificar cambio de turno a " + jugador.getServidor().getNombreUsuario() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Difunde el resultado de una jugada. Todos los jugadores del modo de
+     * eventos reciben un solo mensaje con quién jugó, si acertó, el turno que
+     * queda activo, las estadísticas del jugador y las cartas elegidas.
+     *
+     * Como el resultado ya lleva el turno activo, cada jugador que lo recibe
+     * queda notificado de la época actual y
+     * {@link #difundirTransicionTurno(ThreadServidor)} ya no le envía nada.
+     *
+     * Las coordenadas vienen tal como las envió el cliente; solo se repiten
+     * las de cartas que están en el tablero, y las demás van como
+     * {@link Protocolo#COORDENADA_FUERA_TABLERO}. Un error al enviarle el
+     * resultado a un jugador no impide enviárselo a los demás.
+     *
+     * @param jugador El jugador que hizo la jugada.
+     * @param acierto `true` si la jugada fue un acierto.
+     * @param razon La razón del fallo, o `null` si fue un acierto.
+     * @param cartas Las coordenadas (x1, y1, x2, y2) de la jugada, desde 1.
+     */
+    public void difundirResultadoJugada(ThreadServidor jugador, boolean acierto, String razon, int[] cartas) {
+        int[] estadisticas = jugador.getEstadisticas();
+        MensajeProtocolo resultado = new MensajeProtocolo();
+        resultado.reiniciar(Protocolo.OP_RESULTADO_JUGADA);
+        resultado.setValor(Protocolo.RESULTADO_TURNO_JUGADOR, jugador.getNumeroTurno());
+        resultado.setValor(Protocolo.RESULTADO_ACIERTO, acierto ? 1 : 0);
+        resultado.setValor(Protocolo.RESULTADO_TURNO_ACTIVO, turnoActivo);
+        resultado.setValor(Protocolo.RESULTADO_INTENTOS, estadisticas[0]);
+        resultado.setValor(Protocolo.RESULTADO_ACIERTOS, estadisticas[1]);
+        resultado.setValor(Protocolo.RESULTADO_EFICIENCIA, estadisticas[2]);
+        ponerCarta(resultado, Protocolo.RESULTADO_X1, cartas[0], cartas[1]);
+        ponerCarta(resultado, Protocolo.RESULTADO_X2, cartas[2], cartas[3]);
+        resultado.setTexto(razon);
+        long epoca = epocaTurno.get();
+
+        for (ThreadServidor destino : jugadores) {
+            if (!destino.isModoEventos()) {
+                continue;
+            }
+            try {
+                destino.reclamarNotificacionTurno(epoca);
+                destino.enviarResultadoJugada(resultado);
+                mensajesTurnoEnviados.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                mostrarMensaje(destino.getServidor().getNombreUsuario(), "Error al difundir jugada a " + destino.getServidor().getNombreUsuario() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Pone las coordenadas de una carta en el resultado, o
+     * {@link Protocolo#COORDENADA_FUERA_TABLERO} si no está en el tablero.
+     */
+    private void ponerCarta(MensajeProtocolo resultado, int campoX, int x, int y) {
+        boolean valida = tablero.esValida(x - 1, y - 1);
+        resultado.setValor(campoX, valida ? x : Protocolo.COORDENADA_FUERA_TABLERO);
+        resultado.setValor(campoX + 1, valida ? y : Protocolo.COORDENADA_FUERA_TABLERO);
+    }
+
+    /**
+     * Obtiene la cantidad de notificaciones de turno y de resultados enviadas
+     * a los jugadores de la sala.
+     *
+     * @return El número de mensajes enviados.
+     */
+    public long getMensajesTurnoEnviados() {
+        return mensajesTurnoEnviados.get();
+    }
+
+    /**
+     * Reinicia el sistema de turnos, estableciendo el turno activo al número 1.
+     */
+    public void reiniciarTurnos() {
+        candadoTurnos.lock();
+        try {
+            this.turnoActivo = 1;
+            epocaTurno.incrementAndGet();
+            programarPlazoTurno();
+        } finally {
+            candadoTurnos.unlock();
+        }
+        mostrarMensaje("Sistema de turnos reiniciado - Turno activo: " + turnoActivo);
+        notificarCambioTurno();
+        difundirTransicionTurno(null);
+    }
+
+    /**
+     * Fuerza el avance del turno al siguiente jugador. Útil para la
+     * administración manual de la partida.
+     */
+    public void forzarSiguienteTurno() {
+        mostrarMensaje("Forzando avance de turno por administrador...");
+        avanzarSiguienteTurno();
+    }
+
+    /**
+     * Establece manualmente un turno específico en la sala.
+     *
+     * @param numeroTurno El número de turno al que se desea cambiar. Debe ser
+     * mayor que 0.
+     */
+    public void establecerTurno(int numeroTurno) {
+        if (numeroTurno > 0) {
+            candadoTurnos.lock();
+            try {
+                this.turnoActivo = numeroTurno;
+                epocaTurno.incrementAndGet();
+                programarPlazoTurno();
+            } finally {
+                candadoTurnos.unlock();
+            }
+            mostrarMensaje("Turno establecido manualmente a: " + numeroTurno);
+            notificarCambioTurno();
+            difundirTransicionTurno(null);
+        } else {
+            mostrarMensaje("Error: El número de turno debe ser mayor a 0");
+        }
+    }
+
+    /**
+     * Reinicia la partida de la sala: pares encontrados, turno activo y cartas
+     * emparejadas. Notifica a todos los jugadores que la partida se reinició.
+     */
+    public void reiniciarJuegoConcentrese() {
+        candadoTurnos.lock();
+        try {
+            turnoActivo = 1;  // Reinicia el turno al primer jugador.
+            epocaTurno.incrementAndGet();
+            programarPlazoTurno();
+        } finally {
+            candadoTurnos.unlock();
+        }
+        tablero.reiniciar(); // Limpia las cartas emparejadas y el contador de pares.
+        mostrarMensaje("Juego de Concentrese reiniciado");
+
+        for (ThreadServidor jugador : jugadores) {
+            try {
+                jugador.enviarEvento(Protocolo.OP_JUEGO_REINICIADO, null);
+            } catch (IOException e) {
+                mostrarMensaje("Error al notificar reinicio: " + e.getMessage());
+            }
+        }
+
+        notificarCambioTurno(); // Notifica el cambio de turno inicial después del reinicio.
+        difundirTransicionTurno(null);
+    }
+
+    /**
+     * Termina la partida de la sala: muestra los resultados y notifica a los
+     * jugadores. Los del modo de eventos reciben el anuncio del ganador en el
+     * mismo evento; los demás lo piden con `pedirGanador`.
+     *
+     * La sala sale del {@link RegistroSalas}. Si es la sala visible, el
+     * servidor se cierra como siempre; si ningún jugador va a pedir el
+     * ganador, se programa el cierre igual que en
+     * {@link #enviarGanador(ThreadServidor)}.
+     */
+    public void terminarJuego() {
+        if (!terminada.compareAndSet(false, true)) {
+            return;
+        }
+        candadoTurnos.lock();
+        try {
+            programarPlazoTurno(); // La partida terminó: solo cancela el plazo pendiente
+        } finally {
+            candadoTurnos.unlock();
+        }
+        mostrarMensaje("¡JUEGO TERMINADO! Todas las cartas han sido emparejadas");
+        mostrarResultadosFinales();
+        registrarResultados();
+
+        String ganador = construirInformacionGanador();
+        boolean hayClientesConsulta = false;
+
+        for (ThreadServidor jugador : jugadores) {
+            try {
+                if (jugador.isModoEventos()) {
+                    jugador.enviarEvento(Protocolo.OP_JUEGO_TERMINADO, ganador);
+                } else {
+                    hayClientesConsulta = true;
+                    jugador.enviarEvento(Protocolo.OP_JUEGO_TERMINADO, null);
+                }
+            } catch (IOException e) {
+                mostrarMensaje("Error al notificar fin de juego: " + e.getMessage());
+            }
+        }
+
+        controlServidor.cerrarSala(this);
+        if (visible && !hayClientesConsulta) {
+            programarCierre();
+        }
+    }
+
+    /**
+     * Muestra los resultados finales de la partida en la consola del servidor.
+     */
+    private void mostrarResultadosFinales() {
+        mostrarMensaje("=== RESULTADOS FINALES ===");
+        mostrarMensaje("Total de pares encontrados: " + tablero.getParesEmparejados());
+        mostrarMensaje("Notificaciones de turno enviadas: " + mensajesTurnoEnviados.get());
+        mostrarMensaje("Juego completado exitosamente");
+        mostrarMensaje("========================");
+    }
+
+    /**
+     * Anota el resultado de cada jugador en la escritura de estadísticas y
+     * pide que se guarde, y lo suma a la clasificación. No espera a la base
+     * de datos.
+     */
+    private void registrarResultados() {
+        EscrituraEstadisticas estadisticas = controlServidor.getEstadisticas();
+        TablaClasificacion clasificacion = controlServidor.getTablaClasificacion();
+        ArrayList<ThreadServidor> ganadores = buscarGanadores();
+        for (ThreadServidor jugador : jugadores) {
+            int[] estadisticasJugador = jugador.getEstadisticas();
+            boolean gano = ganadores.contains(jugador);
+            estadisticas.registrarPartida(new ResultadoPartidaVO(jugador.getUsuarioRegistrado(), id, estadisticasJugador[0],
+                    estadisticasJugador[1], estadisticasJugador[2], gano));
+            if (jugador.getUsuarioRegistrado() != null) {
+                clasificacion.sumar(new EstadisticasJugadorVO(jugador.getUsuarioRegistrado(), 1, gano ? 1 : 0,
+                        estadisticasJugador[0], estadisticasJugador[1]));
+            }
+        }
+        estadisticas.solicitarEscritura();
+    }
+
+    /**
+     * Busca los jugadores de la sala con el porcentaje de acierto más alto.
+     *
+     * @return Los ganadores; varios si hay empate.
+     */
+    private ArrayList<ThreadServidor> buscarGanadores() {
+        ArrayList<ThreadServidor> ganadores = new ArrayList<>();
+        int mayorPorcentaje = -1; // Inicializa con un valor bajo para encontrar el porcentaje más alto.
+
+        for (ThreadServidor jugador : jugadores) {
+            int porcentajeAcierto = jugador.getEstadisticas()[2];
+
+            if (porcentajeAcierto > mayorPorcentaje) {
+                mayorPorcentaje = porcentajeAcierto;
+                ganadores.clear(); // Limpia la lista de ganadores anteriores si se encuentra un nuevo porcentaje más alto.
+                ganadores.add(jugador);
+            } else if (porcentajeAcierto == mayorPorcentaje) {
+                ganadores.add(jugador); // Agrega jugadores si hay un empate.
+            }
+        }
+        return ganadores;
+    }
+
+    /**
+     * Determina el ganador o los ganadores de la sala por el porcentaje de
+     * acierto más alto. En caso de empate, se listan todos los empatados.
+     *
+     * @return Los nombres de los ganadores y su porcentaje de acierto.
+     */
+    private String construirInformacionGanador() {
+        ArrayList<ThreadServidor> ganadores = buscarGanadores();
+        int mayorPorcentaje = ganadores.isEmpty() ? -1 : ganadores.get(0).getEstadisticas()[2];
+
+        StringBuilder info = new StringBuilder();
+        info.append("Ganador(es) con un porcentaje de acierto del ").append(mayorPorcentaje).append("%:\n");
+
+        for (ThreadServidor ganador : ganadores) {
+            info.append("- ").append(ganador.getInformacionCliente()).append("\n");
+        }
+        return info.toString();
+    }
+
+    /**
+     * Responde `pedirGanador` con la información del ganador de la sala. Si
+     * es la sala visible, el servidor se cierra unos segundos después
+     * (`ESPERA_CIERRE_MS`).
+     *
+     * @param solicitante El jugador que pidió el ganador.
+     */
+    public void enviarGanador(ThreadServidor solicitante) {
+        String info = construirInformacionGanador();
+        try {
+            solicitante.getServidor().getCodec().escribirTexto(solicitante.getServidor().getServidorInformacionSalida1(), info);
+        } catch (IOException ex) {
+            controlServidor.mostrarMensajeError("Ocurrio un error al informar ganador");
+        }
+
+        if (visible) {
+            programarCierre();
+        }
+    }
+
+    /**
+     * Programa el cierre del servidor para cuando los clientes hayan tenido
+     * tiempo de mostrar el ganador. Solo se programa una vez, y ningún hilo
+     * de sesión espera.
+     */
+    private void programarCierre() {
+        if (cierreProgramado.compareAndSet(false, true)) {
+            controlServidor.getPlanificador().programar(() -> System.exit(0), esperaCierreMs);
+        }
+    }
+
+    /**
+     * Vuelve a ocultar en la interfaz las cartas de un fallo, pasado el
+     * tiempo de volteo, sin detener al jugador: el turno pasa enseguida. Una
+     * carta que otro jugador emparejó mientras tanto queda visible.
+     *
+     * @param idCarta1 El identificador de la primera carta, o -1.
+     * @param idCarta2 El identificador de la segunda carta, o -1.
+     */
+    public void programarVolteo(int idCarta1, int idCarta2) {
+        if (!visible) {
+            return;
+        }
+        controlServidor.getPlanificador().programar(() -> {
+            if (idCarta1 >= 0 && !tablero.estaEmparejada(idCarta1)) {
+                deseleccionarCarta(idCarta1);
+            }
+            if (idCarta2 >= 0 && !tablero.estaEmparejada(idCarta2)) {
+                deseleccionarCarta(idCarta2);
+            }
+        }, esperaVolteoMs);
+    }
+
+    /**
+     * Muestra en la consola los jugadores de la sala, indicando si tienen el
+     * turno activo o están esperando.
+     */
+    public void mostrarJugadores() {
+        mostrarMensaje("Turno activo: " + turnoActivo);
+        if (jugadores.isEmpty()) {
+            mostrarMensaje("No hay jugadores en la sala");
+        }
+        for (int i = 0; i < jugadores.size(); i++) {
+            ThreadServidor jugador = jugadores.get(i);
+            String estado = (jugador.getNumeroTurno() == turnoActivo) ? " [TURNO ACTIVO]" : " [ESPERANDO]";
+            mostrarMensaje((i + 1) + ". " + jugador.getInformacionCliente() + estado);
+        }
+    }
+
+    /**
+     * Voltea una carta en el tablero de la interfaz si la sala es la visible.
+     *
+     * @param idCarta El identificador de la carta.
+     */
+    public void seleccionarCarta(int idCarta) {
+        if (visible) {
+            controlServidor.seleccionarCarta(idCarta);
+        }
+    }
+
+    /**
+     * Vuelve a ocultar una carta en el tablero de la interfaz si la sala es
+     * la visible.
+     *
+     * @param idCarta El identificador de la carta.
+     */
+    public void deseleccionarCarta(int idCarta) {
+        if (visible) {
+            controlServidor.deseleccionarCarta(idCarta);
+        }
+    }
+
+    /**
+     * Actualiza el panel de estadísticas de la interfaz si la sala es la
+     * visible.
+     *
+     * @param jugador El jugador cuyas estadísticas se muestran.
+     */
+    public void actualizarPanelEstadisticas(ThreadServidor jugador) {
+        if (visible) {
+            controlServidor.actualizarPanelEstadisticas(jugador);
+        }
+    }
+
+    /**
+     * Muestra un mensaje de la sala en la consola del servidor. Los mensajes
+     * de las salas que no son la visible llevan el número de sala.
+     *
+     * @param mensaje El mensaje.
+     */
+    public void mostrarMensaje(String mensaje) {
+        mostrarMensaje(null, mensaje);
+    }
+
+    /**
+     * Muestra un mensaje de la sala sobre uno de sus jugadores, para poder
+     * filtrar la consola por cliente.
+     *
+     * @param cliente El usuario del jugador, o `null`.
+     * @param mensaje El mensaje.
+     */
+    public void mostrarMensaje(String cliente, String mensaje) {
+        controlServidor.mostrarMensajeConsolaServidor(cliente, prefijoConsola + mensaje);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public boolean isVisible() {
+        return visible;
+    }
+
+    public int getCantidadJugadores() {
+        return jugadores.size();
+    }
+
+    public int getFilas() {
+        return tablero.getFilas();
+    }
+
+    public int getColumnas() {
+        return tablero.getColumnas();
+    }
+
+    /**
+     * Copia el tablero en una matriz [fila][columna] para la interfaz.
+     *
+     * @return La copia del tablero.
+     */
+    public int[][] getMatrizCartas() {
+        return tablero.copiarMatriz();
+    }
+
+    /**
+     * Obtiene los pares encontrados en la partida. El tablero los cuenta al
+     * emparejar cada pareja, así que no hace falta sumarlos aparte.
+     *
+     * @return Los pares emparejados.
+     */
+    public int getParesEncontrados() {
+        return tablero.getParesEmparejados();
+    }
+
+    public int getTotalPares() {
+        return totalPares;
+    }
+}
@@ -0,0 +1,228 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.control;
+
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.MuestrasEspera;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.PlanificadorServidor;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * La clase `ServicioEmparejamiento` es la cola de emparejamiento del servidor:
+ * recibe a cada jugador que termina de iniciar sesión y decide cuándo empieza
+ * la partida de su sala, sin que nadie pulse el botón de jugar.
+ *
+ * Los jugadores esperan en la sala abierta de {@link RegistroSalas}. La
+ * partida empieza cuando todos los jugadores de la sala llena
+ * (`JUGADORES_POR_SALA`) terminaron de iniciar sesión o, si se
+ * configura `ESPERA_MAXIMA_SALA_MS`, cuando el primero de la sala lleva ese
+ * tiempo esperando y hay al menos dos jugadores. El
+ * {@link PlanificadorServidor} del servidor revisa las esperas cada
+ * {@link #PERIODO_REVISION_MS} ms.
+ *
+ * Al empezar cada partida se registra cuánto esperó cada jugador, para
+ * mostrar la cantidad de jugadores en espera y los percentiles de la espera.
+ *
+ * Con una sola sala visible (sin `JUGADORES_POR_SALA`) el servicio no hace
+ * nada: la partida la sigue iniciando el administrador.
+ *
+ * @author Cristianlol789
+ */
+public class ServicioEmparejamiento {
+
+    /**
+     * Cada cuánto se revisa si alguna sala esperó demasiado.
+     */
+    private static final long PERIODO_REVISION_MS = 250;
+
+    private final RegistroSalas registroSalas;
+
+    /**
+     * Los jugadores listos de cada sala que todavía no empieza, con el
+     * instante (`System.nanoTime()`) en que entraron a la cola.
+     */
+    private final ConcurrentHashMap<SalaJuego, ConcurrentHashMap<ThreadServidor, Long>> enEspera;
+
+    /**
+     * Las últimas esperas de los jugadores cuya partida ya empezó.
+     */
+    private final MuestrasEspera muestras;
+
+    /**
+     * Tiempo máximo de espera antes de empezar una sala incompleta, o 0 para
+     * esperar siempre a que se llene.
+     */
+    private volatile long esperaMaximaMs;
+
+    private final PlanificadorServidor planificador;
+
+    /**
+     * La revisión periódica de las esperas, o `null` si no se inició.
+     */
+    private ScheduledFuture<?> revision;
+
+    /**
+     * Constructor de la clase `ServicioEmparejamiento`.
+     *
+     * @param registroSalas El registro que asigna la sala de cada jugador.
+     * @param planificador El planificador que ejecuta la revisión de las
+     * esperas.
+     */
+    public ServicioEmparejamiento(RegistroSalas registroSalas, PlanificadorServidor planificador) {
+        this.registroSalas = registroSalas;
+        this.planificador = planificador;
+        this.enEspera = new ConcurrentHashMap<>();
+        this.muestras = new MuestrasEspera();
+    }
+
+    /**
+     * Asigna el tiempo máximo de espera de una sala incompleta.
+     *
+     * @param esperaMaximaMs La espera en milisegundos, o 0 para esperar a que
+     * la sala se llene.
+     */
+    public void configurar(long esperaMaximaMs) {
+        this.esperaMaximaMs = Math.max(0, esperaMaximaMs);
+    }
+
+    /**
+     * Programa la revisión de las esperas, si hay salas que empiezan solas y
+     * un tiempo máximo de espera configurado.
+     */
+    public void iniciar() {
+        if (revision != null || registroSalas.getJugadoresPorSala() == 0 || esperaMaximaMs == 0) {
+            return;
+        }
+        revision = planificador.programarPeriodica(this::revisarEsperas, PERIODO_REVISION_MS);
+    }
+
+    /**
+     * Pone en la cola a un jugador que ya recibió la respuesta de su inicio de
+     * sesión (y con ella su turno y el tablero). Si con él la cola de la sala
+     * llega a su capacidad, su partida empieza enseguida.
+     *
+     * Se cuentan los jugadores listos, no los que la sala ya tiene: un jugador
+     * puede estar en la sala y seguir enviando su respuesta de inicio de
+     * sesión, y los eventos de la partida no deben mezclarse con ella. La
+     * decisión se toma dentro del `compute`, con la cola de la sala bloqueada.
+     *
+     * @param jugador La sesión del jugador.
+     */
+    public void jugadorListo(ThreadServidor jugador) {
+        SalaJuego sala = jugador.getSala();
+        if (sala == null || sala.isVisible()) {
+            return;
+        }
+        long llegada = System.nanoTime();
+        boolean[] llena = new boolean[1];
+        enEspera.compute(sala, (s, esperando) -> {
+            ConcurrentHashMap<ThreadServidor, Long> cola = esperando != null ? esperando : new ConcurrentHashMap<>();
+            cola.put(jugador, llegada);
+            llena[0] = cola.size() >= s.getCapacidad();
+            return cola;
+        });
+        if (llena[0]) {
+            iniciarSala(sala);
+        }
+    }
+
+    /**
+     * Saca de la cola a un jugador que se desconectó antes de que su partida
+     * empezara.
+     *
+     * @param jugador La sesión del jugador.
+     */
+    public void retirar(ThreadServidor jugador) {
+        SalaJuego sala = jugador.getSala();
+        if (sala == null) {
+            return;
+        }
+        enEspera.computeIfPresent(sala, (s, esperando) -> {
+            esperando.remove(jugador);
+            return esperando.isEmpty() ? null : esperando;
+        });
+    }
+
+    /**
+     * Empieza las salas en las que el primer jugador ya esperó el tiempo
+     * máximo, siempre que tengan al menos dos jugadores y que todos hayan
+     * terminado de iniciar sesión.
+     */
+    private void revisarEsperas() {
+        long ahora = System.nanoTime();
+        long limite = TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+        for (Map.Entry<SalaJuego, ConcurrentHashMap<ThreadServidor, Long>> entrada : enEspera.entrySet()) {
+            SalaJuego sala = entrada.getKey();
+            Map<ThreadServidor, Long> esperando = entrada.getValue();
+            if (esperando.size() < 2 || esperando.size() != sala.getCantidadJugadores()) {
+                continue;
+            }
+            long primeraLlegada = Long.MAX_VALUE;
+            for (long llegada : esperando.values()) {
+                primeraLlegada = Math.min(primeraLlegada, llegada);
+            }
+            if (ahora - primeraLlegada >= limite) {
+                sala.mostrarMensaje("Tiempo de espera agotado, la partida empieza con " + esperando.size() + " jugadores");
+                iniciarSala(sala);
+            }
+        }
+    }
+
+    /**
+     * Cierra la inscripción de la sala, registra la espera de sus jugadores y
+     * empieza su partida. Si otra llamada ya la empezó no hace nada.
+     *
+     * @param sala La sala.
+     */
+    private void iniciarSala(SalaJuego sala) {
+        if (!registroSalas.cerrarInscripcion(sala)) {
+            return;
+        }
+        Map<ThreadServidor, Long> esperando = enEspera.remove(sala);
+        if (esperando != null) {
+            long ahora = System.nanoTime();
+            for (long llegada : esperando.values()) {
+                muestras.registrar(TimeUnit.NANOSECONDS.toMillis(ahora - llegada));
+            }
+        }
+        sala.barajarCartas();
+        sala.iniciarJuego();
+        sala.mostrarMensaje(describirMetricas());
+    }
+
+    /**
+     * Obtiene la cantidad de jugadores que esperan a que empiece su partida.
+     *
+     * @return Los jugadores en la cola.
+     */
+    public int getJugadoresEnEspera() {
+        int total = 0;
+        for (Map<ThreadServidor, Long> esperando : enEspera.values()) {
+            total += esperando.size();
+        }
+        return total;
+    }
+
+    /**
+     * Obtiene los percentiles 50, 90 y 99 de la espera de los jugadores cuya
+     * partida ya empezó.
+     *
+     * @return La espera en milisegundos de cada percentil.
+     */
+    public long[] getPercentilesEspera() {
+        return muestras.calcularPercentiles(50, 90, 99);
+    }
+
+    /**
+     * Describe el estado de la cola para la consola del servidor.
+     *
+     * @return Los jugadores en espera, las partidas emparejadas y los
+     * percentiles de la espera.
+     */
+    public String describirMetricas() {
+        long[] percentiles = getPercentilesEspera();
+        return "Emparejamiento: " + getJugadoresEnEspera() + " en espera | "
+                + muestras.getTotal() + " emparejados | espera p50/p90/p99: "
+                + percentiles[0] + "/" + percentiles[1] + "/" + percentiles[2] + " ms";
+    }
+}
@@ -1,22 +1,39 @@
 package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.control;
 
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.CodecBinario;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.CodecProtocolo;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.CodecTexto;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.ColaSalida;
 import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.JugadorVO;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.MensajeProtocolo;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.NivelConsola;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.Protocolo;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.RegistroServidor;
 import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.Servidor;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.TableroConcentrese;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.TransporteMultiplexado;
+import java.io.BufferedInputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.net.Socket;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
- * **`ThreadServidor`**: Un hilo dedicado a gestionar la comunicación y la
- * lógica del juego para un cliente individual conectado al servidor. Cada
- * instancia de esta clase representa la sesión de un jugador y maneja sus
- * acciones durante el juego "Concéntrese".
+ * **`ThreadServidor`**: La tarea que gestiona la comunicación y la lógica del
+ * juego para un cliente individual conectado al servidor. Cada instancia de
+ * esta clase representa la sesión de un jugador y maneja sus acciones durante
+ * el juego "Concéntrese".
+ *
+ * Implementa {@link Runnable} para que {@link ControlServidor} decida si la
+ * sesión corre en un hilo de plataforma o en un hilo virtual.
  *
  * @author Cristianlol789
  */
-public class ThreadServidor extends Thread {
+public class ThreadServidor implements Runnable {
 
     /**
      * Objeto que encapsula los **sockets de comunicación** (entrada/salida) con
@@ -37,13 +54,26 @@ public class ThreadServidor extends Thread {
     private ControlServidor controlServidor;
 
     /**
-     * Un **contador estático** y atómico para asignar turnos únicos y
-     * secuenciales a cada cliente conectado.
+     * La **sala** (partida) en la que juega este cliente. Se asigna al
+     * iniciar sesión; antes es `null`.
+     */
+    private volatile SalaJuego sala;
+
+    /**
+     * Tiempo máximo, en milisegundos, que se espera el preámbulo del
+     * transporte multiplexado antes de tratar la conexión como un cliente
+     * antiguo de dos sockets.
      */
-    private static AtomicInteger contadorTurnos = new AtomicInteger(1);
+    private static final int TIEMPO_DETECCION_TRANSPORTE_MS = 2000;
 
     /**
-     * El **número de turno** específico asignado a este cliente para el juego.
+     * Lo que devuelve {@link #procesarJugadaConcentrese(int, int)} para una
+     * carta que ya está emparejada.
+     */
+    public static final int CARTA_EMPAREJADA = -1;
+
+    /**
+     * El **número de turno** asignado a este cliente dentro de su sala.
      */
     private int numeroTurno;
 
@@ -55,6 +85,59 @@ public class ThreadServidor extends Thread {
      */
     private int[] estadisticas;
 
+    /**
+     * Coordenadas (x, y) de la primera carta elegida en la jugada actual. El
+     * cliente envía cada carta en un mensaje `eleccionJugador` distinto, así
+     * que la primera se guarda aquí hasta que llega la segunda. Es `null`
+     * cuando no hay una jugada a medias.
+     */
+    private int[] primeraCartaPendiente;
+
+    /**
+     * Coordenadas (x1, y1, x2, y2) de la jugada que se está procesando. Se
+     * incluyen en el resultado que se envía a los clientes del modo de eventos
+     * y vuelven a cero cuando la jugada termina, de modo que un fallo por
+     * formato no arrastra las cartas de la jugada anterior.
+     */
+    private final int[] cartasJugada;
+
+    /**
+     * Indica si el cliente pidió el modo de eventos (`suscribirEventos`). En
+     * ese modo el servidor le envía el resultado completo de cada jugada y
+     * cada cambio de turno, y el cliente ya no consulta el turno ni sus
+     * estadísticas durante la partida.
+     */
+    private volatile boolean modoEventos;
+
+    /**
+     * Última época de turno de la que se notificó a este cliente (ver
+     * {@link SalaJuego#difundirTransicionTurno(ThreadServidor)}).
+     */
+    private final AtomicLong ultimaEpocaNotificada;
+
+    /**
+     * Instante (`System.nanoTime()`) del último mensaje recibido del cliente.
+     */
+    private volatile long ultimaActividad;
+
+    /**
+     * Indica si el cliente envía `latido`. Solo a estos clientes se les cierra
+     * la sesión por inactividad (ver {@link VigilanciaSesiones}).
+     */
+    private volatile boolean enviaLatidos;
+
+    /**
+     * Cómo se cierra la sesión desde otro hilo en el modo `"nio"`, o `null`
+     * en el modo de un hilo por cliente, donde basta con cerrar el socket.
+     */
+    private volatile Consumer<String> cierreSesion;
+
+    /**
+     * Número de la sesión, asignado por {@link RegistroSesiones} al aceptar la
+     * conexión.
+     */
+    private volatile long idSesion;
+
     /**
      * Constructor para inicializar un nuevo hilo de servidor para un cliente.
      * Configura la comunicación con los sockets proporcionados y establece las
@@ -72,6 +155,9 @@ public class ThreadServidor extends Thread {
         this.servidor = new Servidor(socketCliente1, socketCliente2, nombreUsuario);
         this.controlServidor = controlServidor;
         this.estadisticas = new int[3];
+        this.cartasJugada = new int[4];
+        this.ultimaEpocaNotificada = new AtomicLong();
+        this.ultimaActividad = System.nanoTime();
         // Inicializa las estadísticas a cero
         estadisticas[0] = 0; // Intentos totales
         estadisticas[1] = 0; // Parejas resueltas
@@ -99,14 +185,14 @@ public class ThreadServidor extends Thread {
                 this.jugadorAsignado.setCantidadIntentos(0);
                 this.jugadorAsignado.setCantidadParejasResueltas(0);
 
-                controlServidor.mostrarMensajeConsolaServidor(
+                mostrarMensaje(
                         "Jugador asignado: " + infoJugador[0]
                         + " (Usuario: " + infoJugador[2] + ")"
                 );
                 return true;
             }
         } catch (Exception e) {
-            controlServidor.mostrarMensajeConsolaServidor(
+            mostrarMensaje(
                     "Error al asignar jugador: " + e.getMessage()
             );
         }
@@ -114,18 +200,17 @@ public class ThreadServidor extends Thread {
     }
 
     /**
-     * Asigna un **turno único y consecutivo** a cada cliente conectado. Utiliza
-     * un `AtomicInteger` para garantizar la asignación segura de turnos en
-     * entornos concurrentes.
+     * Agrega este cliente a una **sala** y le asigna un turno único y
+     * consecutivo dentro de ella (ver {@link RegistroSalas}).
      *
-     * @return El número de turno asignado a este cliente.
+     * @return La sala asignada a este cliente.
      */
-    private synchronized int asignarTurno() {
-        int turno = contadorTurnos.getAndIncrement();
-        controlServidor.mostrarMensajeConsolaServidor(
-                "Cliente " + servidor.getNombreUsuario() + " conectado - Turno asignado: " + turno
+    private SalaJuego asignarSala() {
+        SalaJuego salaAsignada = controlServidor.asignarSala(this);
+        salaAsignada.mostrarMensaje(
+                "Cliente " + servidor.getNombreUsuario() + " conectado - Turno asignado: " + this.numeroTurno
         );
-        return turno;
+        return salaAsignada;
     }
 
     /**
@@ -135,12 +220,13 @@ public class ThreadServidor extends Thread {
      */
     public void gestionarTurnosConcentrese() {
         // Mostrar información en la consola del servidor
-        controlServidor.mostrarMensajeConsolaServidor(
-                "Cliente: " + servidor.getNombreUsuario()
-                + " | Turno asignado: " + this.numeroTurno
-                + " | Turno activo global: " + controlServidor.getTurnoActivo()
-                + " | Es mi turno: " + (this.numeroTurno == controlServidor.getTurnoActivo())
-        );
+        RegistroServidor registro = controlServidor.getRegistro();
+        if (registro.estaActivo(NivelConsola.INFO)) {
+            int turnoActivo = sala.getTurnoActivo();
+            registro.registrar(NivelConsola.INFO, servidor.getNombreUsuario(),
+                    "Cliente: {} | Turno asignado: {} | Turno activo de la sala: {} | Es mi turno: {}",
+                    servidor.getNombreUsuario(), this.numeroTurno, turnoActivo, this.numeroTurno == turnoActivo);
+        }
     }
 
     /**
@@ -148,16 +234,16 @@ public class ThreadServidor extends Thread {
      * al cliente saber si es su turno o el de otro jugador.
      */
     public void verificarTurnoActivo() {
-        int turnoActivo = controlServidor.getTurnoActivo();
+        int turnoActivo = sala.getTurnoActivo();
 
         try {
             DataOutputStream salida1 = this.servidor.getServidorInformacionSalida1();
             if (salida1 != null) {
-                salida1.writeInt(turnoActivo);
+                this.servidor.getCodec().escribirTurno(salida1, turnoActivo);
                 salida1.flush();
             }
         } catch (IOException ex) {
-            controlServidor.mostrarMensajeConsolaServidor("Error al enviar turno activo a " + servidor.getNombreUsuario() + ": " + ex.getMessage());
+            mostrarMensaje("Error al enviar turno activo a " + servidor.getNombreUsuario() + ": " + ex.getMessage());
         }
     }
 
@@ -168,29 +254,23 @@ public class ThreadServidor extends Thread {
      */
     public void manejarAcierto() {
         try {
-            // Actualizar estadísticas del jugador
-            controlServidor.setParesEncontrados(controlServidor.getParesEncontrados()+1);
+            // El tablero ya contó el par al emparejarlo en SalaJuego.verificarPareja
+            sala.renovarPlazoTurno(); // El jugador sigue jugando: su tiempo vuelve a empezar
 
-            String nombreMostrar = (jugadorAsignado != null) ? jugadorAsignado.getNombreJugador() : servidor.getNombreUsuario();
-            controlServidor.mostrarMensajeConsolaServidor(
-                    "¡" + nombreMostrar + " acertó! Mantiene su turno #" + this.numeroTurno
-                    + " | Parejas resueltas: " + (jugadorAsignado != null ? jugadorAsignado.getCantidadParejasResueltas() : "N/A")
-            );
+            controlServidor.getRegistro().registrar(NivelConsola.DEPURACION, servidor.getNombreUsuario(),
+                    "¡{} acertó! Mantiene su turno #{} | Parejas resueltas: {}", nombreMostrar(), this.numeroTurno,
+                    jugadorAsignado != null ? jugadorAsignado.getCantidadParejasResueltas() : "N/A");
 
-            // Notificar al cliente que ha acertado
-            DataOutputStream salida1 = this.servidor.getServidorInformacionSalida1();
-            if (salida1 != null) {
-                salida1.writeUTF("acerto");
-                salida1.flush();
-            }
+            // Notificar el acierto (canal de eventos)
+            notificarResultadoJugada(true, null);
 
             // Verificar si el juego ha terminado después del acierto
-            if (controlServidor.verificarJuegoTerminado()) {
-                controlServidor.terminarJuego();
+            if (sala.verificarJuegoTerminado()) {
+                sala.terminarJuego();
             }
 
         } catch (IOException e) {
-            controlServidor.mostrarMensajeConsolaServidor(
+            mostrarMensaje(
                     "Error al manejar acierto para " + servidor.getNombreUsuario() + ": " + e.getMessage()
             );
         }
@@ -209,24 +289,18 @@ public class ThreadServidor extends Thread {
                 jugadorAsignado.setCantidadIntentos(jugadorAsignado.getCantidadIntentos() + 1);
             }
 
-            String nombreMostrar = (jugadorAsignado != null) ? jugadorAsignado.getNombreJugador() : servidor.getNombreUsuario();
-            controlServidor.mostrarMensajeConsolaServidor(
-                    nombreMostrar + " falló. Turno pasa al siguiente jugador"
-                    + " | Intentos: " + (jugadorAsignado != null ? jugadorAsignado.getCantidadIntentos() : "N/A")
-            );
+            controlServidor.getRegistro().registrar(NivelConsola.DEPURACION, servidor.getNombreUsuario(),
+                    "{} falló. Turno pasa al siguiente jugador | Intentos: {}", nombreMostrar(),
+                    jugadorAsignado != null ? jugadorAsignado.getCantidadIntentos() : "N/A");
 
-            // Notificar al cliente que falló, incluyendo la razón
-            DataOutputStream salida1 = this.servidor.getServidorInformacionSalida1();
-            if (salida1 != null) {
-                salida1.writeUTF("fallo," + razon);
-                salida1.flush();
-            }
-            
-            // Avanzar al siguiente turno
-            controlServidor.avanzarSiguienteTurnoConcentrese();
+            // Avanzar al siguiente turno antes de notificar, para que el resultado ya lleve el nuevo turno
+            sala.avanzarSiguienteTurnoConcentrese();
+
+            // Notificar el fallo, incluyendo la razón (canal de eventos)
+            notificarResultadoJugada(false, razon);
 
         } catch (IOException e) {
-            controlServidor.mostrarMensajeConsolaServidor(
+            mostrarMensaje(
                     "Error al manejar fallo para " + servidor.getNombreUsuario() + ": " + e.getMessage()
             );
         }
@@ -234,21 +308,21 @@ public class ThreadServidor extends Thread {
 
     /**
      * Procesa la selección de una carta por parte del jugador en el juego
-     * "Concéntrese". Verifica si la carta ya está emparejada y devuelve el tipo
-     * de carta.
+     * "Concéntrese". Verifica si la carta ya está emparejada y devuelve el valor
+     * de la carta.
      *
      * @param x1 Coordenada X (columna) de la carta seleccionada.
      * @param y1 Coordenada Y (fila) de la carta seleccionada.
-     * @return El tipo de carta en la posición especificada, o "emparejada" si
-     * ya lo está.
+     * @return El valor de la carta en la posición especificada,
+     * {@link #CARTA_EMPAREJADA} si ya lo está o
+     * {@link TableroConcentrese#SIN_CARTA} si la posición no existe.
      */
-    public String procesarJugadaConcentrese(int x1, int y1) {
+    public int procesarJugadaConcentrese(int x1, int y1) {
         // Las coordenadas del cliente suelen ser 1-based, mientras que los arrays son 0-based
-        if (controlServidor.esCartaYaEmparejada(x1 - 1, y1 - 1)) {
-            return "emparejada";
+        if (sala.esCartaYaEmparejada(x1 - 1, y1 - 1)) {
+            return CARTA_EMPAREJADA;
         }
-        String tipoCarta1 = controlServidor.obtenerTipoCartaEnPosicion(x1 - 1, y1 - 1);
-        return tipoCarta1;
+        return sala.obtenerValorCarta(x1 - 1, y1 - 1);
     }
 
     /**
@@ -256,52 +330,65 @@ public class ThreadServidor extends Thread {
      * una pareja. Gestiona el acierto o el fallo, actualiza las estadísticas y
      * el turno.
      *
-     * @param tipoCarta1 El tipo de la primera carta seleccionada.
-     * @param tipoCarta2 El tipo de la segunda carta seleccionada.
+     * @param tipoCarta1 El valor de la primera carta seleccionada.
+     * @param tipoCarta2 El valor de la segunda carta seleccionada.
      * @param x1 Coordenada X de la primera carta.
      * @param y1 Coordenada Y de la primera carta.
      * @param x2 Coordenada X de la segunda carta.
      * @param y2 Coordenada Y de la segunda carta.
      */
-    public void compararCartas(String tipoCarta1, String tipoCarta2, int x1, int y1, int x2, int y2) {
+    public void compararCartas(int tipoCarta1, int tipoCarta2, int x1, int y1, int x2, int y2) {
 
         estadisticas[0] = estadisticas[0] + 1;
 
-        if (tipoCarta1.equals("") || tipoCarta2.equals("")) {
+        if (tipoCarta1 == TableroConcentrese.SIN_CARTA || tipoCarta2 == TableroConcentrese.SIN_CARTA) {
             // Esto podría indicar coordenadas fuera de rango o un error en la obtención del tipo de carta
-            manejarFallo("Coordenadas fuera de rango o error al obtener tipo de carta.");
+            controlServidor.getEstadisticas().registrarJugada(getUsuarioRegistrado(), false);
             actualizarPorcentajeAciertos();
+            manejarFallo("Coordenadas fuera de rango o error al obtener tipo de carta.");
             return;
         }
 
-        boolean esPareja = controlServidor.verificarPareja(x1, y1, tipoCarta1, x2, y2, tipoCarta2);
+        boolean esPareja = sala.verificarPareja(x1, y1, x2, y2);
+        // Solo se anota en memoria; se guarda en la base de datos en otro hilo
+        controlServidor.getEstadisticas().registrarJugada(getUsuarioRegistrado(), esPareja);
 
         if (esPareja) {
             estadisticas[1] = estadisticas[1] + 1; // Incrementar parejas acertadas
             actualizarPorcentajeAciertos();
             manejarAcierto();
         } else {
-            try {
-                // Pequeña pausa para que el cliente pueda ver las cartas antes de que se volteen de nuevo
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt(); // Restaurar el estado de interrupción
-                controlServidor.mostrarMensajeConsolaServidor("Hilo interrumpido durante la espera de fallo.");
-            }
-            // Deseleccionar (voltear) las cartas si no son pareja
-            // Asegurarse de que las coordenadas estén dentro del rango antes de deseleccionar
-            if (x1 >= 1 && x1 <= 8 && y1 >= 1 && y1 <= 5) {
-                int idCarta1 = (y1 - 1) * 8 + (x1 - 1);
-                controlServidor.deseleccionarCarta(idCarta1);
-            }
-            if (x2 >= 1 && x2 <= 8 && y2 >= 1 && y2 <= 5) {
-                int idCarta2 = (y2 - 1) * 8 + (x2 - 1);
-                controlServidor.deseleccionarCarta(idCarta2);
-            }
+            // Las cartas quedan visibles un momento en la interfaz y el planificador las voltea;
+            // este hilo no espera y el turno pasa enseguida
+            sala.programarVolteo(sala.idCarta(x1, y1), sala.idCarta(x2, y2));
             actualizarPorcentajeAciertos();
             manejarFallo("Las cartas seleccionadas no forman una pareja.");
         }
-        controlServidor.actualizarPanelEstadisticas(this);
+        sala.actualizarPanelEstadisticas(this);
+    }
+
+    /**
+     * Notifica el resultado de la jugada que se acaba de procesar. Si este
+     * cliente usa el modo de consultas recibe `acerto` o `fallo` como siempre;
+     * además, {@link ControlServidor} difunde el resultado completo a todos
+     * los clientes del modo de eventos.
+     *
+     * @param acierto `true` si la jugada fue un acierto.
+     * @param razon La razón del fallo, o `null` si fue un acierto.
+     * @throws IOException Si ocurre un error al notificar a este cliente.
+     */
+    private void notificarResultadoJugada(boolean acierto, String razon) throws IOException {
+        try {
+            if (!modoEventos) {
+                enviarEvento(acierto ? Protocolo.OP_ACERTO : Protocolo.OP_FALLO, razon);
+            }
+            sala.difundirResultadoJugada(this, acierto, razon, cartasJugada);
+            // Si el turno cambió, los demás clientes del modo de consultas se notifican ya; este
+            // cliente, si usa ese modo, se notifica cuando envíe siguienteTurno
+            sala.difundirTransicionTurno(modoEventos ? null : this);
+        } finally {
+            Arrays.fill(cartasJugada, 0);
+        }
     }
 
     /**
@@ -339,6 +426,25 @@ public class ThreadServidor extends Thread {
         return this.numeroTurno;
     }
 
+    /**
+     * Asigna el número de turno de este cliente; lo usa {@link SalaJuego}
+     * al agregarlo.
+     *
+     * @param numeroTurno El número de turno dentro de la sala.
+     */
+    void setNumeroTurno(int numeroTurno) {
+        this.numeroTurno = numeroTurno;
+    }
+
+    /**
+     * Devuelve la sala en la que juega este cliente.
+     *
+     * @return La sala, o `null` si todavía no inició sesión.
+     */
+    public SalaJuego getSala() {
+        return this.sala;
+    }
+
     /**
      * Devuelve el objeto `Servidor` asociado a este hilo, que contiene los
      * sockets de comunicación.
@@ -359,188 +465,100 @@ public class ThreadServidor extends Thread {
         return estadisticas;
     }
 
+    /**
+     * Devuelve el usuario del jugador tal como está registrado en la base de
+     * datos, con el que se guardan sus estadísticas.
+     *
+     * @return El usuario, o `null` si todavía no inició sesión.
+     */
+    public String getUsuarioRegistrado() {
+        return jugadorAsignado != null ? jugadorAsignado.getUsuario() : null;
+    }
+
+    /**
+     * Reclama la notificación de una época de turno. Devuelve `true` solo la
+     * primera vez que se pide una época mayor que la última notificada, de
+     * modo que dos difusiones simultáneas de la misma transición no envían
+     * el mensaje dos veces.
+     *
+     * @param epoca La época de turno que se quiere notificar.
+     * @return `true` si se debe enviar la notificación a este cliente.
+     */
+    public boolean reclamarNotificacionTurno(long epoca) {
+        long actual;
+        do {
+            actual = ultimaEpocaNotificada.get();
+            if (actual >= epoca) {
+                return false;
+            }
+        } while (!ultimaEpocaNotificada.compareAndSet(actual, epoca));
+        return true;
+    }
+
+    /**
+     * Indica si este cliente usa el modo de eventos.
+     *
+     * @return `true` si el cliente pidió `suscribirEventos`.
+     */
+    public boolean isModoEventos() {
+        return modoEventos;
+    }
+
     /**
      * El método **`run()`** es el punto de entrada principal para la ejecución
-     * del hilo. Establece los flujos de entrada y salida de datos con el
+     * de la sesión. Establece los flujos de entrada y salida de datos con el
      * cliente y entra en un bucle infinito para escuchar los comandos enviados
-     * por el cliente y procesarlos.
-     *
-     * Los comandos manejados incluyen: - **`eleccionJugador`**: Procesa la
-     * selección de cartas de un jugador en el juego "Concéntrese". -
-     * **`consultarTurno`**: Permite al cliente verificar si es su turno. -
-     * **`login`**: Autentica al usuario y le asigna un turno si el login es
-     * exitoso. - **`pedirDatosJugador`**: Envía al cliente las estadísticas
-     * actuales del jugador. - **`pedirGanador`**: Envía la información del
-     * ganador del juego. - **`siguienteTurno`**: Inicia el juego (probablemente
-     * después de que todos los jugadores se hayan conectado).
-     *
-     * Si la conexión con el cliente se interrumpe (`IOException`), se muestra
-     * un mensaje en la consola, se reduce el contador de clientes conectados,
-     * se verifica la posibilidad de mostrar el botón de jugar y se remueve al
-     * cliente de la lista de clientes activos del servidor.
+     * por el cliente y delegarlos a {@link #procesarMensaje(MensajeProtocolo)}.
+     *
+     * Si el cliente envía el preámbulo de {@link TransporteMultiplexado}, los
+     * comandos y respuestas van por el canal de control y los eventos por el
+     * canal de eventos de la misma conexión; si no, se atiende como un cliente
+     * antiguo y todo viaja por el primer socket.
+     *
+     * En ambos casos lo que se envía al cliente pasa por una
+     * {@link ColaSalida}, de modo que las difusiones de otras sesiones no
+     * esperan a que este cliente lea.
+     *
+     * Si la conexión con el cliente se interrumpe (`IOException`), se delega la
+     * limpieza de la sesión a {@link #manejarDesconexion(String)} y se cierran
+     * los sockets.
      */
     @Override
     public void run() {
-        controlServidor.mostrarMensajeConsolaServidor(".::Esperando Mensajes del cliente (" + servidor.getNombreUsuario() + ") ::.");
+        mostrarMensaje(".::Esperando Mensajes del cliente (" + servidor.getNombreUsuario() + ") ::.");
+        ColaSalida salidaSocket = null;
         try {
-            // Configurar los flujos de entrada y salida de datos
-            DataInputStream entrada = new DataInputStream(this.servidor.getServidorCliente1().getInputStream());
+            // Configurar los flujos de entrada y salida de datos según el transporte del cliente
+            Socket socket = this.servidor.getServidorCliente1();
+            BufferedInputStream entradaSocket = new BufferedInputStream(socket.getInputStream());
+            salidaSocket = controlServidor.crearColaSalida(socket);
+            DataInputStream entrada;
+            if (TransporteMultiplexado.detectarPreambulo(entradaSocket, socket, TIEMPO_DETECCION_TRANSPORTE_MS)) {
+                TransporteMultiplexado transporte = new TransporteMultiplexado(entradaSocket, salidaSocket);
+                entrada = new DataInputStream(transporte.getEntrada(TransporteMultiplexado.CANAL_CONTROL));
+                this.servidor.setServidorInformacionSalida1(new DataOutputStream(transporte.getSalida(TransporteMultiplexado.CANAL_CONTROL)));
+                this.servidor.setServidorInformacionSalidaEventos(new DataOutputStream(transporte.getSalida(TransporteMultiplexado.CANAL_EVENTOS)));
+                mostrarMensaje("Cliente con transporte de un solo puerto (multiplexado)");
+            } else {
+                entrada = new DataInputStream(entradaSocket);
+                this.servidor.setServidorInformacionSalida1(new DataOutputStream(salidaSocket));
+            }
             this.servidor.setServidorInformacionEntrada1(entrada);
-            DataOutputStream salida1 = new DataOutputStream(this.servidor.getServidorCliente1().getOutputStream());
-            this.servidor.setServidorInformacionSalida1(salida1);
 
-            // Bucle principal para escuchar y procesar mensajes del cliente
+            // Bucle principal para escuchar y procesar mensajes del cliente. El mensaje se
+            // reutiliza y el códec se consulta cada vez porque puede cambiar tras la negociación.
+            MensajeProtocolo mensaje = new MensajeProtocolo();
             while (true) {
-                String mensaje = entrada.readUTF(); // Lee el mensaje del cliente
-                String[] partes = mensaje.split(","); // Divide el mensaje en partes por coma
-                String comando = partes[0]; // El primer elemento es el comando
-
-                switch (comando) {
-                    case "eleccionJugador":
-                        // Actualiza el panel de estadísticas en la interfaz del servidor
-                        controlServidor.actualizarPanelEstadisticas(this);
-                        try {
-                            // Primera carta seleccionada
-                            int x1 = Integer.parseInt(partes[1]);
-                            int y1 = Integer.parseInt(partes[2]);
-                            String tipoCarta1 = procesarJugadaConcentrese(x1, y1);
-
-                            // Lee el segundo mensaje para la segunda carta seleccionada
-                            mensaje = entrada.readUTF();
-                            partes = mensaje.split(",");
-
-                            // Segunda carta seleccionada
-                            int x2 = Integer.parseInt(partes[1]);
-                            int y2 = Integer.parseInt(partes[2]);
-                            String tipoCarta2 = procesarJugadaConcentrese(x2, y2);
-
-                            // Selecciona las cartas en el modelo del servidor (las voltea visiblemente)
-                            // Se asume que las coordenadas son 1-based desde el cliente, se ajustan a 0-based para el array
-                            if (x1 >= 1 && x1 <= 8 && y1 >= 1 && y1 <= 5) {
-                                int idCarta1 = (y1 - 1) * 8 + (x1 - 1);
-                                controlServidor.seleccionarCarta(idCarta1);
-                            }
-                            if (x2 >= 1 && x2 <= 8 && y2 >= 1 && y2 <= 5) {
-                                int idCarta2 = (y2 - 1) * 8 + (x2 - 1);
-                                controlServidor.seleccionarCarta(idCarta2);
-                            }
-
-                            // Si alguna de las cartas ya estaba emparejada, manejar como fallo
-                            if (tipoCarta1.equals("emparejada") || tipoCarta2.equals("emparejada")) {
-                                // Deseleccionar las cartas que sí se pudieron seleccionar para evitar que se queden visibles
-                                if (!tipoCarta1.equals("emparejada") && x1 >= 1 && x1 <= 8 && y1 >= 1 && y1 <= 5) {
-                                    int idCarta1ToDeselect = (y1 - 1) * 8 + (x1 - 1);
-                                    controlServidor.deseleccionarCarta(idCarta1ToDeselect);
-                                }
-                                if (!tipoCarta2.equals("emparejada") && x2 >= 1 && x2 <= 8 && y2 >= 1 && y2 <= 5) {
-                                    int idCarta2ToDeselect = (y2 - 1) * 8 + (x2 - 1);
-                                    controlServidor.deseleccionarCarta(idCarta2ToDeselect);
-                                }
-                                manejarFallo("Una o ambas cartas ya estaban emparejadas.");
-                                break; // Salir del switch para esperar el siguiente comando
-                            }
-
-                            // Compara las cartas y gestiona el acierto o fallo
-                            compararCartas(tipoCarta1, tipoCarta2, x1, y1, x2, y2);
-                            controlServidor.actualizarPanelEstadisticas(this); // Actualiza estadísticas después de la jugada
-
-                        } catch (NumberFormatException e) {
-                            manejarFallo("Se esperaba un número para las coordenadas, pero se recibió texto.");
-                            controlServidor.mostrarMensajeConsolaServidor("Error de formato numérico en coordenadas del cliente " + servidor.getNombreUsuario() + ": " + e.getMessage());
-                        }
-                        break;
-
-                    case "consultarTurno":
-                        // Si es el turno de este cliente, actualiza el panel de estadísticas
-                        if (controlServidor.getTurnoActivo() == numeroTurno) {
-                            controlServidor.actualizarPanelEstadisticas(this);
-                        }
-                        verificarTurnoActivo(); // Envía el turno activo al cliente
-                        break;
-
-                    case "login":
-                        String usuario = partes[1];
-                        String contrasena = partes[2];
-
-                        // Paso 1: Verificar si el usuario ya está conectado al servidor
-                        if (controlServidor.usuarioYaConectado(usuario)) {
-                            controlServidor.mostrarMensajeConsolaServidor(
-                                    "Intento de login fallido para '" + usuario + "': El usuario ya está conectado."
-                            );
-                            salida1.writeUTF("yaConectado"); // Notifica al cliente que ya está conectado
-                            salida1.flush();
-                            break; // Sale del switch
-                        }
-
-                        // Paso 2: Verificar las credenciales (usuario y contraseña)
-                        boolean jugadorExiste = controlServidor.buscarUsuarioYContrasenaExistente(usuario, contrasena);
-
-                        if (jugadorExiste && asignarJugador(usuario)) {
-                            // Paso 3: Intentar registrar al usuario como conectado
-                            if (controlServidor.registrarUsuarioConectado(usuario)) {
-                                servidor.setNombreUsuario(usuario); // Establece el nombre de usuario en el objeto Servidor
-                                this.numeroTurno = asignarTurno(); // Asigna un turno único
-                                salida1.writeUTF("valido"); // Notifica al cliente que el login fue exitoso
-                                salida1.flush();
-
-                                controlServidor.mostrarMensajeConsolaServidor(
-                                        "Login exitoso para usuario: " + usuario + " (Turno: " + this.numeroTurno + ")"
-                                );
-                                gestionarTurnosConcentrese(); // Muestra información del turno en consola
-
-                                // Incrementa el contador de clientes logeados y verifica si se puede iniciar el juego
-                                ControlServidor.setCantidadClientesLogeados(ControlServidor.getCantidadClientesLogeados() + 1);
-
-                                salida1.writeInt(numeroTurno); // Envía el número de turno asignado al cliente
-                                salida1.flush();
-                                controlServidor.verificarJugadoresMostrarBotonJugar(); // Permite al servidor decidir si mostrar el botón de jugar
-                            } else {
-                                // Esto ocurriría si hay una condición de carrera o un error lógico
-                                controlServidor.mostrarMensajeConsolaServidor(
-                                        "Error: Usuario '" + usuario + "' ya estaba registrado como conectado inesperadamente."
-                                );
-                                salida1.writeUTF("yaConectado");
-                                salida1.flush();
-                            }
-                        } else {
-                            // Login fallido por credenciales incorrectas
-                            controlServidor.mostrarMensajeConsolaServidor(
-                                    "Login fallido: Credenciales incorrectas para usuario: " + usuario
-                            );
-                            salida1.writeUTF("invalido"); // Notifica al cliente que las credenciales son inválidas
-                            salida1.flush();
-                        }
-                        break;
-
-                    case "pedirDatosJugador":
-                        // Envía las estadísticas actuales del jugador al cliente
-                        salida1.writeUTF("" + estadisticas[0] + "," + estadisticas[1] + "," + estadisticas[2]);
-                        break;
-
-                    case "pedirGanador":
-                        // Solicita al controlador principal la información del ganador y la envía al cliente
-                        controlServidor.enviarGanador();
-                        break;
-
-                    case "siguienteTurno":
-                        // Inicia el juego, presumiblemente después de que todos los jugadores se han unido y el administrador lo ha indicado
-                        controlServidor.iniciarJuego();
-                        break;
-
-                    default:
-                        controlServidor.mostrarMensajeConsolaServidor("Comando desconocido recibido de " + servidor.getNombreUsuario() + ": " + comando);
-                        break;
-                }
+                this.servidor.getCodec().leerComando(entrada, mensaje);
+                procesarMensaje(mensaje);
             }
         } catch (IOException e) {
-            // Manejo de la desconexión del cliente
-            controlServidor.mostrarMensajeConsolaServidor("Cliente " + servidor.getNombreUsuario() + " desconectado. Error: " + e.getMessage());
-            // Reduce el contador de clientes logeados y actualiza el estado del servidor
-            ControlServidor.setCantidadClientesLogeados(ControlServidor.getCantidadClientesLogeados() - 1);
-            controlServidor.verificarJugadoresMostrarBotonJugar(); // Vuelve a verificar si el botón de jugar debe estar visible
-            controlServidor.removerCliente(this); // Remueve este hilo (cliente) de la lista de clientes activos
+            manejarDesconexion(e.getMessage());
         } finally {
-            // Asegurarse de cerrar los sockets en caso de una desconexión o error
+            // Detener el escritor de la cola y cerrar los sockets en caso de una desconexión o error
+            if (salidaSocket != null) {
+                salidaSocket.close();
+            }
             try {
                 if (servidor.getServidorCliente1() != null && !servidor.getServidorCliente1().isClosed()) {
                     servidor.getServidorCliente1().close();
@@ -549,8 +567,474 @@ public class ThreadServidor extends Thread {
                     servidor.getServidorCliente2().close();
                 }
             } catch (IOException e) {
-                controlServidor.mostrarMensajeConsolaServidor("Error al cerrar sockets del cliente " + servidor.getNombreUsuario() + ": " + e.getMessage());
+                mostrarMensaje("Error al cerrar sockets del cliente " + servidor.getNombreUsuario() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Procesa un único mensaje recibido del cliente, ya decodificado por el
+     * {@link CodecProtocolo} de la sesión. Este método no depende de cómo se
+     * leyó el mensaje, por lo que lo reutilizan tanto el modo de un hilo por
+     * cliente ({@link #run()}) como el reactor NIO ({@link ReactorServidor}).
+     * Las respuestas se escriben con el mismo códec en el flujo de salida
+     * configurado en {@link Servidor}.
+     *
+     * Los comandos manejados incluyen: - **`OP_ELECCION_PAREJA`**: Procesa las
+     * dos cartas elegidas por el jugador (protocolo binario). -
+     * **`OP_ELECCION_CARTA`**: Una sola carta (`eleccionJugador` del protocolo
+     * de texto); la primera coordenada se guarda hasta recibir la segunda. -
+     * **`OP_CONSULTAR_TURNO`**: Permite al cliente verificar si es su turno. -
+     * **`OP_LOGIN`**: Autentica al usuario y, si el login es exitoso, le
+     * envía su turno y el tamaño del tablero de su sala. - **`OP_PEDIR_DATOS_JUGADOR`**: Envía al cliente las
+     * estadísticas actuales del jugador. - **`OP_PEDIR_GANADOR`**: Envía la
+     * información del ganador del juego. - **`OP_SIGUIENTE_TURNO`**: Pide
+     * la difusión de la última transición de turno (sin duplicados). -
+     * **`OP_PROTOCOLO`**: Negocia el cambio al protocolo binario. -
+     * **`OP_SUSCRIBIR_EVENTOS`**: Activa el modo de eventos de la sesión. -
+     * **`OP_PEDIR_CLASIFICACION`**: Envía los primeros jugadores de la
+     * clasificación y la posición del jugador. - **`OP_PEDIR_TABLERO`**: Envía
+     * las filas y columnas del tablero de la sala del jugador. -
+     * **`OP_LATIDO`**: Solo marca que el cliente sigue vivo; no se responde.
+     *
+     * Las jugadas que llegan cuando no es el turno del jugador (por ejemplo,
+     * porque su tiempo venció) se descartan.
+     *
+     * @param mensaje El mensaje enviado por el cliente.
+     * @throws IOException Si ocurre un error al responder al cliente.
+     */
+    public void procesarMensaje(MensajeProtocolo mensaje) throws IOException {
+        CodecProtocolo codec = this.servidor.getCodec();
+        DataOutputStream salida1 = this.servidor.getServidorInformacionSalida1();
+        ultimaActividad = System.nanoTime();
+
+        if (sala == null && esComandoDeJuego(mensaje.getOpcode())) {
+            mostrarMensaje("Comando de juego antes de iniciar sesión, se ignora");
+            return;
+        }
+
+        if (esJugada(mensaje.getOpcode()) && sala.getTurnoActivo() != numeroTurno) {
+            // El turno venció o cambió antes de que llegara la jugada; el cliente ya recibió el turno nuevo
+            primeraCartaPendiente = null;
+            mostrarMensaje("Jugada fuera de turno de " + servidor.getNombreUsuario() + ", se ignora");
+            return;
+        }
+
+        switch (mensaje.getOpcode()) {
+            case Protocolo.OP_LATIDO:
+                if (!enviaLatidos) {
+                    enviaLatidos = true;
+                    controlServidor.getRegistro().registrar(NivelConsola.DEPURACION, servidor.getNombreUsuario(), "Cliente con latidos");
+                }
+                break;
+
+            case Protocolo.OP_ELECCION_PAREJA:
+                // Jugada completa en un solo mensaje
+                sala.actualizarPanelEstadisticas(this);
+                primeraCartaPendiente = null;
+                procesarEleccion(mensaje.getValor(0), mensaje.getValor(1), mensaje.getValor(2), mensaje.getValor(3));
+                break;
+
+            case Protocolo.OP_ELECCION_CARTA:
+                if (primeraCartaPendiente == null) {
+                    // Actualiza el panel de estadísticas en la interfaz del servidor
+                    sala.actualizarPanelEstadisticas(this);
+                    if (!mensaje.isValido()) {
+                        manejarFallo("Se esperaban coordenadas numéricas dentro del tablero.");
+                        mostrarMensaje("Coordenadas con formato inválido o fuera de rango del cliente " + servidor.getNombreUsuario());
+                        break;
+                    }
+                    // Primera carta seleccionada, se guarda hasta recibir la segunda
+                    primeraCartaPendiente = new int[]{mensaje.getValor(0), mensaje.getValor(1)};
+                    break;
+                }
+                int x1 = primeraCartaPendiente[0];
+                int y1 = primeraCartaPendiente[1];
+                primeraCartaPendiente = null;
+                if (!mensaje.isValido()) {
+                    manejarFallo("Se esperaban coordenadas numéricas dentro del tablero.");
+                    mostrarMensaje("Coordenadas con formato inválido o fuera de rango del cliente " + servidor.getNombreUsuario());
+                    break;
+                }
+                // Segunda carta seleccionada
+                procesarEleccion(x1, y1, mensaje.getValor(0), mensaje.getValor(1));
+                break;
+
+            case Protocolo.OP_CONSULTAR_TURNO:
+                // Si es el turno de este cliente, actualiza el panel de estadísticas
+                if (sala.getTurnoActivo() == numeroTurno) {
+                    sala.actualizarPanelEstadisticas(this);
+                }
+                verificarTurnoActivo(); // Envía el turno activo al cliente
+                break;
+
+            case Protocolo.OP_LOGIN:
+                String usuario = mensaje.getTexto();
+                String contrasena = mensaje.getTexto2();
+
+                // Paso 1: Verificar si el usuario ya está conectado al servidor
+                if (controlServidor.usuarioYaConectado(usuario)) {
+                    mostrarMensaje(
+                            "Intento de login fallido para '" + usuario + "': El usuario ya está conectado."
+                    );
+                    codec.escribirRespuestaLogin(salida1, Protocolo.OP_YA_CONECTADO); // Notifica al cliente que ya está conectado
+                    salida1.flush();
+                    break; // Sale del switch
+                }
+
+                // Paso 2: Verificar las credenciales (usuario y contraseña)
+                boolean jugadorExiste = controlServidor.buscarUsuarioYContrasenaExistente(usuario, contrasena);
+
+                if (jugadorExiste && asignarJugador(usuario)) {
+                    // Paso 3: Intentar registrar al usuario como conectado
+                    if (controlServidor.registrarUsuarioConectado(usuario, this)) {
+                        servidor.setNombreUsuario(usuario); // Establece el nombre de usuario en el objeto Servidor
+                        this.sala = asignarSala(); // Asigna la sala y un turno único dentro de ella
+                        codec.escribirRespuestaLogin(salida1, Protocolo.OP_LOGIN_VALIDO); // Notifica al cliente que el login fue exitoso
+                        salida1.flush();
+
+                        mostrarMensaje(
+                                "Login exitoso para usuario: " + usuario + " (Turno: " + this.numeroTurno + ")"
+                        );
+                        gestionarTurnosConcentrese(); // Muestra información del turno en consola
+
+                        codec.escribirTurno(salida1, numeroTurno); // Envía el número de turno asignado al cliente
+                        // Y el tamaño del tablero, antes de entrar a la cola: después pueden llegar eventos por este mismo flujo
+                        codec.escribirTablero(salida1, sala.getFilas(), sala.getColumnas());
+                        salida1.flush();
+                        controlServidor.verificarJugadoresMostrarBotonJugar(); // Permite al servidor decidir si mostrar el botón de jugar
+                        controlServidor.jugadorListo(this); // Entra en la cola de emparejamiento de su sala
+                    } else {
+                        // Esto ocurriría si hay una condición de carrera o un error lógico
+                        mostrarMensaje(
+                                "Error: Usuario '" + usuario + "' ya estaba registrado como conectado inesperadamente."
+                        );
+                        codec.escribirRespuestaLogin(salida1, Protocolo.OP_YA_CONECTADO);
+                        salida1.flush();
+                    }
+                } else {
+                    // Login fallido por credenciales incorrectas
+                    mostrarMensaje(
+                            "Login fallido: Credenciales incorrectas para usuario: " + usuario
+                    );
+                    codec.escribirRespuestaLogin(salida1, Protocolo.OP_LOGIN_INVALIDO); // Notifica al cliente que las credenciales son inválidas
+                    salida1.flush();
+                }
+                break;
+
+            case Protocolo.OP_PEDIR_DATOS_JUGADOR:
+                // Envía las estadísticas actuales del jugador al cliente
+                codec.escribirDatosJugador(salida1, estadisticas);
+                break;
+
+            case Protocolo.OP_PEDIR_GANADOR:
+                // Solicita al controlador principal la información del ganador y la envía al cliente
+                sala.enviarGanador(this);
+                break;
+
+            case Protocolo.OP_SIGUIENTE_TURNO:
+                // El cliente terminó de procesar su jugada; solo se le notifica si todavía no conoce la última transición
+                sala.difundirTransicionTurno(null);
+                break;
+
+            case Protocolo.OP_PROTOCOLO:
+                negociarProtocolo(mensaje);
+                break;
+
+            case Protocolo.OP_PEDIR_CLASIFICACION:
+                // Se responde con la tabla en memoria, sin consultar la base de datos
+                codec.escribirTexto(salida1, controlServidor.construirClasificacion(
+                        mensaje.isValido() ? mensaje.getValor(0) : Protocolo.CLASIFICACION_POR_DEFECTO, getUsuarioRegistrado()));
+                salida1.flush();
+                break;
+
+            case Protocolo.OP_PEDIR_TABLERO:
+                codec.escribirTablero(salida1, sala.getFilas(), sala.getColumnas());
+                salida1.flush();
+                break;
+
+            case Protocolo.OP_SUSCRIBIR_EVENTOS:
+                // Desde ahora el servidor empuja los turnos y resultados; el cliente deja de consultar
+                this.modoEventos = true;
+                codec.escribirTexto(salida1, Protocolo.RESPUESTA_EVENTOS_ACTIVADOS);
+                salida1.flush();
+                mostrarMensaje("Cliente en modo de eventos");
+                break;
+
+            default:
+                mostrarMensaje("Comando desconocido recibido de " + servidor.getNombreUsuario() + ": " + mensaje.getTexto());
+                break;
+        }
+    }
+
+    /**
+     * Indica si un comando es una jugada, que solo se acepta en el turno del
+     * jugador.
+     *
+     * @param opcode El opcode del comando.
+     * @return `true` para la elección de una carta o de una pareja.
+     */
+    private static boolean esJugada(byte opcode) {
+        return opcode == Protocolo.OP_ELECCION_PAREJA || opcode == Protocolo.OP_ELECCION_CARTA;
+    }
+
+    /**
+     * Indica si un comando puede bloquear al hilo que lo procesa porque
+     * consulta la base de datos. El reactor NIO los ejecuta fuera de sus
+     * bucles de eventos. Las estadísticas del jugador y la clasificación se
+     * leen de memoria, así que no cuentan.
+     *
+     * @param opcode El opcode del comando.
+     * @return `true` solo para el login, que busca al jugador en la base de
+     * datos.
+     */
+    public static boolean esComandoBloqueante(byte opcode) {
+        return opcode == Protocolo.OP_LOGIN;
+    }
+
+    /**
+     * Indica si un comando solo tiene sentido dentro de una sala, es decir,
+     * después de iniciar sesión.
+     *
+     * @param opcode El opcode del comando.
+     * @return `true` para las jugadas y las consultas del juego.
+     */
+    private static boolean esComandoDeJuego(byte opcode) {
+        switch (opcode) {
+            case Protocolo.OP_ELECCION_PAREJA:
+            case Protocolo.OP_ELECCION_CARTA:
+            case Protocolo.OP_CONSULTAR_TURNO:
+            case Protocolo.OP_PEDIR_GANADOR:
+            case Protocolo.OP_SIGUIENTE_TURNO:
+            case Protocolo.OP_PEDIR_TABLERO:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Responde a la petición de cambio de protocolo. Si el cliente pide la
+     * versión binaria que conoce el servidor, la sesión pasa a usar
+     * {@link CodecBinario}; si no, sigue con el protocolo de texto. La
+     * respuesta siempre se envía en texto, que es lo que el cliente espera
+     * leer en ese momento.
+     *
+     * @param mensaje La petición `protocolo,nombre,version`.
+     * @throws IOException Si ocurre un error al responder al cliente.
+     */
+    private void negociarProtocolo(MensajeProtocolo mensaje) throws IOException {
+        CodecTexto texto = new CodecTexto();
+        DataOutputStream salida1 = this.servidor.getServidorInformacionSalida1();
+        if (mensaje.isValido() && CodecBinario.NOMBRE.equals(mensaje.getTexto()) && mensaje.getValor(0) == Protocolo.VERSION_BINARIA) {
+            this.servidor.setCodec(new CodecBinario());
+            texto.escribirTexto(salida1, CodecTexto.COMANDO_PROTOCOLO + "," + CodecBinario.NOMBRE + "," + Protocolo.VERSION_BINARIA);
+            mostrarMensaje("Cliente con protocolo binario v" + Protocolo.VERSION_BINARIA);
+        } else {
+            texto.escribirTexto(salida1, CodecTexto.COMANDO_PROTOCOLO + "," + texto.getNombre());
+        }
+        salida1.flush();
+    }
+
+    /**
+     * Envía un evento a este cliente por su canal de eventos, con el códec de
+     * la sesión.
+     *
+     * @param opcode El opcode del evento (ver {@link Protocolo}).
+     * @param texto El texto del evento (la razón de un fallo) o `null`.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void enviarEvento(byte opcode, String texto) throws IOException {
+        DataOutputStream salidaEventos = this.servidor.getServidorInformacionSalidaEventos();
+        if (salidaEventos != null) {
+            this.servidor.getCodec().escribirEvento(salidaEventos, opcode, texto);
+            salidaEventos.flush();
+        }
+    }
+
+    /**
+     * Envía a este cliente el evento de cambio de turno del modo de eventos.
+     *
+     * @param turno El turno que queda activo.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void enviarCambioTurno(int turno) throws IOException {
+        DataOutputStream salidaEventos = this.servidor.getServidorInformacionSalidaEventos();
+        if (salidaEventos != null) {
+            this.servidor.getCodec().escribirCambioTurno(salidaEventos, turno);
+            salidaEventos.flush();
+        }
+    }
+
+    /**
+     * Envía a este cliente el resultado completo de una jugada del modo de
+     * eventos.
+     *
+     * @param resultado El resultado de la jugada (ver
+     * {@link CodecProtocolo#escribirResultadoJugada}).
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void enviarResultadoJugada(MensajeProtocolo resultado) throws IOException {
+        DataOutputStream salidaEventos = this.servidor.getServidorInformacionSalidaEventos();
+        if (salidaEventos != null) {
+            this.servidor.getCodec().escribirResultadoJugada(salidaEventos, resultado);
+            salidaEventos.flush();
+        }
+    }
+
+    /**
+     * Procesa la jugada completa de un jugador una vez se conocen las dos
+     * cartas seleccionadas. Voltea las cartas en la interfaz del servidor,
+     * descarta las que ya estaban emparejadas y compara las dos cartas.
+     *
+     * @param x1 Coordenada X de la primera carta (1-based).
+     * @param y1 Coordenada Y de la primera carta (1-based).
+     * @param x2 Coordenada X de la segunda carta (1-based).
+     * @param y2 Coordenada Y de la segunda carta (1-based).
+     */
+    private void procesarEleccion(int x1, int y1, int x2, int y2) {
+        cartasJugada[0] = x1;
+        cartasJugada[1] = y1;
+        cartasJugada[2] = x2;
+        cartasJugada[3] = y2;
+
+        int tipoCarta1 = procesarJugadaConcentrese(x1, y1);
+        int tipoCarta2 = procesarJugadaConcentrese(x2, y2);
+
+        // Selecciona las cartas en el modelo del servidor (las voltea visiblemente)
+        // Se asume que las coordenadas son 1-based desde el cliente, se ajustan a 0-based para el array
+        int idCarta1 = sala.idCarta(x1, y1);
+        int idCarta2 = sala.idCarta(x2, y2);
+        if (idCarta1 >= 0) {
+            sala.seleccionarCarta(idCarta1);
+        }
+        if (idCarta2 >= 0) {
+            sala.seleccionarCarta(idCarta2);
+        }
+
+        // Si alguna de las cartas ya estaba emparejada, manejar como fallo
+        if (tipoCarta1 == CARTA_EMPAREJADA || tipoCarta2 == CARTA_EMPAREJADA) {
+            // Deseleccionar las cartas que sí se pudieron seleccionar para evitar que se queden visibles
+            if (tipoCarta1 != CARTA_EMPAREJADA && idCarta1 >= 0) {
+                sala.deseleccionarCarta(idCarta1);
+            }
+            if (tipoCarta2 != CARTA_EMPAREJADA && idCarta2 >= 0) {
+                sala.deseleccionarCarta(idCarta2);
+            }
+            manejarFallo("Una o ambas cartas ya estaban emparejadas.");
+            return;
+        }
+
+        // Compara las cartas y gestiona el acierto o fallo
+        compararCartas(tipoCarta1, tipoCarta2, x1, y1, x2, y2);
+        sala.actualizarPanelEstadisticas(this); // Actualiza estadísticas después de la jugada
+    }
+
+    /**
+     * Cierra la sesión desde otro hilo, por ejemplo, porque el cliente dejó
+     * de enviar latidos. La limpieza es la de cualquier desconexión
+     * ({@link #manejarDesconexion(String)}): en el modo de un hilo por
+     * cliente la lectura del socket cerrado falla; en el modo `"nio"` el
+     * bucle de eventos cierra el canal.
+     *
+     * @param causa La causa del cierre.
+     */
+    public void cerrarSesion(String causa) {
+        Consumer<String> cierre = cierreSesion;
+        if (cierre != null) {
+            cierre.accept(causa);
+            return;
+        }
+        try {
+            Socket socket = servidor.getServidorCliente1();
+            if (socket != null) {
+                socket.close();
             }
+        } catch (IOException e) {
+            mostrarMensaje("Error al cerrar la sesión de " + servidor.getNombreUsuario() + ": " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Asigna cómo se cierra la sesión desde otro hilo; lo usa
+     * {@link ReactorServidor}.
+     *
+     * @param cierreSesion Recibe la causa del cierre.
+     */
+    public void setCierreSesion(Consumer<String> cierreSesion) {
+        this.cierreSesion = cierreSesion;
+    }
+
+    /**
+     * Obtiene el tiempo desde el último mensaje del cliente.
+     *
+     * @return Los milisegundos sin recibir nada del cliente.
+     */
+    public long getInactividadMs() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - ultimaActividad);
+    }
+
+    /**
+     * Indica si el cliente ya envió algún `latido`. La vigilancia de las
+     * sesiones solo cierra por inactividad a estos clientes, porque los que no
+     * envían latidos pueden pasar mucho tiempo callados esperando su turno.
+     *
+     * @return `true` si el cliente envía latidos.
+     */
+    public boolean isEnviaLatidos() {
+        return enviaLatidos;
+    }
+
+    /**
+     * Obtiene el número de la sesión.
+     *
+     * @return El número asignado por {@link RegistroSesiones}, o 0 si la
+     * sesión todavía no está registrada.
+     */
+    public long getIdSesion() {
+        return idSesion;
+    }
+
+    /**
+     * Establece el número de la sesión. Lo llama {@link RegistroSesiones} al
+     * agregarla.
+     *
+     * @param idSesion El número de la sesión.
+     */
+    public void setIdSesion(long idSesion) {
+        this.idSesion = idSesion;
+    }
+
+    /**
+     * Limpia el estado de la sesión cuando la conexión con el cliente se
+     * interrumpe: remueve al cliente del registro de sesiones y de su
+     * sala, y verifica la posibilidad de mostrar el botón de jugar.
+     *
+     * @param causa Descripción del error que provocó la desconexión.
+     */
+    public void manejarDesconexion(String causa) {
+        mostrarMensaje("Cliente " + servidor.getNombreUsuario() + " desconectado. Error: " + causa);
+        controlServidor.removerCliente(this); // Remueve este hilo (cliente) de la lista de clientes activos y de su sala
+        controlServidor.verificarJugadoresMostrarBotonJugar(); // Vuelve a verificar si el botón de jugar debe estar visible
+    }
+
+    /**
+     * Obtiene el nombre con el que se muestra al jugador en la consola.
+     *
+     * @return El nombre del jugador, o su usuario si todavía no tiene uno.
+     */
+    private String nombreMostrar() {
+        return (jugadorAsignado != null) ? jugadorAsignado.getNombreJugador() : servidor.getNombreUsuario();
+    }
+
+    /**
+     * Muestra un mensaje de esta sesión en la consola del servidor, marcado
+     * con el usuario del cliente para poder filtrar la consola por cliente.
+     *
+     * @param mensaje El mensaje.
+     */
+    private void mostrarMensaje(String mensaje) {
+        String usuario = servidor.getNombreUsuario();
+        controlServidor.mostrarMensajeConsolaServidor(usuario == null || usuario.isBlank() ? null : usuario, mensaje);
+    }
+}
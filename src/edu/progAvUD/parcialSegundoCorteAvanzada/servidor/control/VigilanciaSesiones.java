@@ -0,0 +1,155 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.control;
+
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.PlanificadorServidor;
+import java.util.Collection;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * La clase `VigilanciaSesiones` evita que una partida se quede esperando a un
+ * jugador que ya no juega.
+ *
+ * Cada sala programa en el {@link PlanificadorServidor} el vencimiento de su
+ * turno activo (`TIEMPO_TURNO_MS`, ver {@link SalaJuego#configurarTiempoTurno(long)});
+ * si el jugador no juega a tiempo el turno pasa al siguiente y aquí se cuenta.
+ *
+ * Los clientes que envían `latido` se revisan con una tarea periódica del
+ * mismo planificador: una sesión que lleva más de `INACTIVIDAD_MAXIMA_MS` sin
+ * enviar nada se cierra y se limpia como cualquier desconexión. No hay un hilo
+ * ni un temporizador por sesión. Los clientes antiguos, que nunca envían un
+ * latido, no se revisan (esperar su turno sin enviar nada es normal para
+ * ellos); sus conexiones muertas las detecta el keepalive de TCP.
+ *
+ * @author Cristianlol789
+ */
+public final class VigilanciaSesiones {
+
+    /**
+     * Inactividad máxima por defecto de un cliente que envía latidos.
+     */
+    public static final long INACTIVIDAD_MAXIMA_POR_DEFECTO_MS = 30000;
+
+    /**
+     * Periodo mínimo de la revisión, para no recorrer las sesiones a cada
+     * momento con una inactividad máxima muy corta.
+     */
+    private static final long PERIODO_MINIMO_REVISION_MS = 1000;
+
+    private final Collection<ThreadServidor> clientes;
+    private final PlanificadorServidor planificador;
+    private final ControlServidor controlServidor;
+
+    /**
+     * Protege el cambio de la revisión periódica.
+     */
+    private final ReentrantLock candado;
+
+    /**
+     * Tiempo sin mensajes tras el cual se cierra una sesión con latidos, o 0
+     * para no cerrar ninguna.
+     */
+    private volatile long inactividadMaximaMs;
+
+    /**
+     * La revisión periódica de las sesiones, o `null` si está desactivada.
+     */
+    private ScheduledFuture<?> revision;
+
+    private final AtomicLong turnosVencidos;
+    private final AtomicLong sesionesCerradas;
+
+    /**
+     * Constructor de la clase `VigilanciaSesiones`. La revisión empieza con la
+     * inactividad máxima por defecto.
+     *
+     * @param clientes Las sesiones conectadas al servidor, una vista
+     * concurrente que se puede recorrer sin copiarla.
+     * @param planificador El planificador que ejecuta la revisión.
+     * @param controlServidor El controlador del servidor, para la consola.
+     */
+    public VigilanciaSesiones(Collection<ThreadServidor> clientes, PlanificadorServidor planificador, ControlServidor controlServidor) {
+        this.clientes = clientes;
+        this.planificador = planificador;
+        this.controlServidor = controlServidor;
+        this.candado = new ReentrantLock();
+        this.turnosVencidos = new AtomicLong();
+        this.sesionesCerradas = new AtomicLong();
+        configurarInactividad(INACTIVIDAD_MAXIMA_POR_DEFECTO_MS);
+    }
+
+    /**
+     * Cambia la inactividad máxima de los clientes con latidos y vuelve a
+     * programar la revisión, que se hace cada cuarto de ese tiempo.
+     *
+     * @param inactividadMaximaMs La inactividad máxima (ms), o 0 para no
+     * cerrar sesiones por inactividad.
+     * @throws IllegalArgumentException Si es negativa.
+     */
+    public void configurarInactividad(long inactividadMaximaMs) {
+        if (inactividadMaximaMs < 0) {
+            throw new IllegalArgumentException("La inactividad máxima no puede ser negativa");
+        }
+        candado.lock();
+        try {
+            this.inactividadMaximaMs = inactividadMaximaMs;
+            if (revision != null) {
+                revision.cancel(false);
+                revision = null;
+            }
+            if (inactividadMaximaMs > 0) {
+                revision = planificador.programarPeriodica(this::revisarInactividad,
+                        Math.max(PERIODO_MINIMO_REVISION_MS, inactividadMaximaMs / 4));
+            }
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Cuenta un turno que venció sin que el jugador jugara. Lo llama la sala.
+     */
+    public void contarTurnoVencido() {
+        turnosVencidos.incrementAndGet();
+    }
+
+    /**
+     * Cierra las sesiones con latidos que llevan demasiado tiempo sin enviar
+     * nada. El cierre hace que la sesión ejecute su limpieza de siempre.
+     */
+    private void revisarInactividad() {
+        long maxima = inactividadMaximaMs;
+        if (maxima <= 0) {
+            return;
+        }
+        for (ThreadServidor cliente : clientes) {
+            long inactividad = cliente.getInactividadMs();
+            if (cliente.isEnviaLatidos() && inactividad > maxima) {
+                sesionesCerradas.incrementAndGet();
+                controlServidor.mostrarMensajeConsolaServidor("Se cierra la sesión de " + cliente.getInformacionCliente()
+                        + ": " + inactividad + " ms sin latidos");
+                cliente.cerrarSesion("Sin latidos durante " + inactividad + " ms");
+            }
+        }
+    }
+
+    public long getTurnosVencidos() {
+        return turnosVencidos.get();
+    }
+
+    public long getSesionesCerradas() {
+        return sesionesCerradas.get();
+    }
+
+    /**
+     * Resume los plazos para la consola del servidor.
+     *
+     * @return Los turnos vencidos, las sesiones cerradas por inactividad y la
+     * inactividad máxima.
+     */
+    public String describirMetricas() {
+        long maxima = inactividadMaximaMs;
+        return "Plazos: " + turnosVencidos.get() + " turnos vencidos | " + sesionesCerradas.get()
+                + " sesiones cerradas por inactividad | inactividad máxima: " + (maxima > 0 ? maxima + " ms" : "sin límite");
+    }
+}
@@ -0,0 +1,19 @@
+-- Agrega a una tabla jugadores ya creada las columnas de búsqueda de scriptSQL.sql.
+-- Se ejecuta una sola vez. Las columnas son generadas, así que MySQL las llena
+-- para las filas que ya existen y las mantiene al insertar o modificar.
+
+USE datosJugadores;
+
+-- Si esta consulta devuelve filas, hay usuarios que solo se diferencian en
+-- mayúsculas o espacios y el índice único no se puede crear: hay que
+-- corregirlos antes de seguir.
+SELECT LOWER(TRIM(usuario)) AS usuarioNormalizado, COUNT(*) AS repetidos
+FROM jugadores
+GROUP BY LOWER(TRIM(usuario))
+HAVING COUNT(*) > 1;
+
+ALTER TABLE jugadores
+    ADD COLUMN usuarioNormalizado VARCHAR(20) GENERATED ALWAYS AS (LOWER(TRIM(usuario))) STORED,
+    ADD COLUMN cedulaNormalizada VARCHAR(35) GENERATED ALWAYS AS (TRIM(cedula)) STORED,
+    ADD UNIQUE INDEX idxUsuarioNormalizado (usuarioNormalizado),
+    ADD INDEX idxCedulaNormalizada (cedulaNormalizada);
@@ -7,5 +7,33 @@ CREATE TABLE IF NOT EXISTS jugadores (
     nombreJugador VARCHAR(35) NOT NULL,
     cedula VARCHAR(35) NOT NULL,
     usuario VARCHAR(20) NOT NULL UNIQUE,
-    contrasena VARCHAR(20) NOT NULL
-);
\ No newline at end of file
+    contrasena VARCHAR(20) NOT NULL,
+    -- Columnas de búsqueda: el servidor normaliza el dato antes de consultar,
+    -- así que las búsquedas usan el índice en lugar de recorrer la tabla
+    usuarioNormalizado VARCHAR(20) GENERATED ALWAYS AS (LOWER(TRIM(usuario))) STORED,
+    cedulaNormalizada VARCHAR(35) GENERATED ALWAYS AS (TRIM(cedula)) STORED,
+    UNIQUE INDEX idxUsuarioNormalizado (usuarioNormalizado),
+    INDEX idxCedulaNormalizada (cedulaNormalizada)
+);
+
+-- Resultado de cada jugador en cada partida terminada
+CREATE TABLE IF NOT EXISTS resultadosPartida (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY NOT NULL,
+    usuario VARCHAR(20) NOT NULL,
+    sala INT NOT NULL,
+    fechaFin TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    intentos INT NOT NULL,
+    parejas INT NOT NULL,
+    porcentaje INT NOT NULL,
+    gano BOOLEAN NOT NULL,
+    INDEX idxResultadosUsuario (usuario, fechaFin)
+);
+
+-- Estadísticas acumuladas de cada jugador en todas sus partidas
+CREATE TABLE IF NOT EXISTS estadisticasJugador (
+    usuario VARCHAR(20) PRIMARY KEY NOT NULL,
+    partidasJugadas INT NOT NULL DEFAULT 0,
+    partidasGanadas INT NOT NULL DEFAULT 0,
+    intentos BIGINT NOT NULL DEFAULT 0,
+    parejas BIGINT NOT NULL DEFAULT 0
+);
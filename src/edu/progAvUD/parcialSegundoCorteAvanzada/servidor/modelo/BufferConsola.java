@@ -0,0 +1,114 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * La clase `BufferConsola` es un buffer circular sin candados entre los hilos
+ * de red, que escriben los mensajes de la consola, y el hilo de la interfaz,
+ * que los muestra por lotes.
+ *
+ * Cada escritor toma un número de secuencia con un `getAndIncrement` y deja la
+ * línea en la casilla `secuencia % capacidad`; nunca espera, ni siquiera si la
+ * interfaz se atrasa. En ese caso las líneas más viejas se sobrescriben y
+ * {@link #drenar(List, int)} las cuenta como descartadas en lugar de
+ * mostrarlas.
+ *
+ * Solo puede haber un lector (el hilo de eventos de Swing).
+ *
+ * @author Andres Felipe
+ */
+public class BufferConsola {
+
+    private final AtomicReferenceArray<LineaConsola> casillas;
+    private final int mascara;
+
+    /**
+     * La secuencia que tomará la siguiente línea escrita.
+     */
+    private final AtomicLong siguienteEscritura;
+
+    /**
+     * La secuencia de la siguiente línea por leer. Solo la usa el lector.
+     */
+    private long siguienteLectura;
+
+    /**
+     * Líneas que se sobrescribieron antes de que el lector las tomara.
+     */
+    private final AtomicLong descartadas;
+
+    /**
+     * Constructor de la clase `BufferConsola`.
+     *
+     * @param capacidad Las líneas que caben sin leer; se redondea a la
+     * siguiente potencia de dos.
+     */
+    public BufferConsola(int capacidad) {
+        int tamano = Integer.highestOneBit(Math.max(2, capacidad - 1)) << 1;
+        this.casillas = new AtomicReferenceArray<>(tamano);
+        this.mascara = tamano - 1;
+        this.siguienteEscritura = new AtomicLong();
+        this.descartadas = new AtomicLong();
+    }
+
+    /**
+     * Escribe una línea. Se puede llamar desde cualquier hilo y nunca
+     * bloquea.
+     *
+     * @param nivel El nivel del mensaje.
+     * @param cliente El usuario del cliente al que se refiere, o `null`.
+     * @param texto El texto del mensaje.
+     */
+    public void publicar(NivelConsola nivel, String cliente, String texto) {
+        long secuencia = siguienteEscritura.getAndIncrement();
+        casillas.set((int) (secuencia & mascara), new LineaConsola(secuencia, LocalTime.now(), nivel, cliente, texto));
+    }
+
+    /**
+     * Pasa a `destino` las líneas escritas desde la última llamada, en orden y
+     * hasta `maximo`. Si un escritor tomó su secuencia pero todavía no dejó
+     * la línea, la lectura se detiene ahí y sigue en la próxima llamada. Solo
+     * la debe llamar el lector.
+     *
+     * @param destino La lista donde se agregan las líneas.
+     * @param maximo La cantidad máxima de líneas a tomar.
+     * @return La cantidad de líneas agregadas.
+     */
+    public int drenar(List<LineaConsola> destino, int maximo) {
+        long limite = siguienteEscritura.get();
+        int capacidad = mascara + 1;
+        if (limite - siguienteLectura > capacidad) {
+            descartadas.addAndGet(limite - capacidad - siguienteLectura);
+            siguienteLectura = limite - capacidad;
+        }
+        int leidas = 0;
+        while (siguienteLectura < limite && leidas < maximo) {
+            LineaConsola linea = casillas.get((int) (siguienteLectura & mascara));
+            if (linea == null || linea.getSecuencia() < siguienteLectura) {
+                break;
+            }
+            if (linea.getSecuencia() > siguienteLectura) {
+                // La casilla ya tiene una línea de la siguiente vuelta
+                descartadas.incrementAndGet();
+            } else {
+                destino.add(linea);
+                leidas++;
+            }
+            siguienteLectura++;
+        }
+        return leidas;
+    }
+
+    /**
+     * Obtiene cuántas líneas se perdieron porque el lector se atrasó más que
+     * la capacidad del buffer.
+     *
+     * @return Las líneas descartadas desde que se creó el buffer.
+     */
+    public long getDescartadas() {
+        return descartadas.get();
+    }
+}
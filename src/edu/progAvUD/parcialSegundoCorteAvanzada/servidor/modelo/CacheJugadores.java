@@ -0,0 +1,209 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caché de lectura de jugadores delante del {@link JugadorDAO}, para el inicio de sesión.
+ *
+ * La clave es el usuario normalizado igual que en las consultas del DAO
+ * ({@link JugadorDAO#normalizarUsuario(String)}). Cada entrada vence después de un tiempo y, si
+ * la caché se llena, sale la que lleva más tiempo sin usarse. Solo se guardan los jugadores que existen: un usuario desconocido
+ * siempre se consulta en la base de datos.
+ *
+ * Se usa un {@link ReentrantLock} y no `synchronized` porque las sesiones corren en hilos
+ * virtuales; la consulta a la base de datos se hace fuera del candado.
+ *
+ * @author Cristianlol789
+ */
+public class CacheJugadores {
+
+    private final JugadorDAO jugadorDao;
+    private final int capacidad;
+    private final long vigenciaNanos;
+
+    private final ReentrantLock candado = new ReentrantLock();
+
+    /**
+     * Entradas en orden de acceso, de la menos usada a la más usada.
+     */
+    private final LinkedHashMap<String, Entrada> entradas;
+
+    /**
+     * Aumenta con cada invalidación; una consulta que empezó antes no guarda su resultado, porque
+     * pudo leer el jugador antes del cambio.
+     */
+    private long version;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong expulsadas = new AtomicLong();
+
+    /**
+     * Un jugador guardado y el instante (de `System.nanoTime()`) en que vence.
+     */
+    private static final class Entrada {
+
+        private final JugadorVO jugador;
+        private final long vence;
+
+        private Entrada(JugadorVO jugador, long vence) {
+            this.jugador = jugador;
+            this.vence = vence;
+        }
+    }
+
+    /**
+     * Constructor de la clase `CacheJugadores`.
+     *
+     * @param jugadorDao El DAO con el que se consultan los jugadores que no están en la caché.
+     * @param capacidad La cantidad máxima de jugadores guardados; 0 desactiva la caché.
+     * @param vigenciaMs El tiempo (ms) que se usa un jugador guardado antes de volver a consultarlo.
+     * @throws IllegalArgumentException Si la capacidad o la vigencia son negativas.
+     */
+    public CacheJugadores(JugadorDAO jugadorDao, int capacidad, long vigenciaMs) {
+        if (capacidad < 0 || vigenciaMs < 0) {
+            throw new IllegalArgumentException("La capacidad y la vigencia de la caché de jugadores no pueden ser negativas");
+        }
+        this.jugadorDao = jugadorDao;
+        this.capacidad = capacidad;
+        this.vigenciaNanos = TimeUnit.MILLISECONDS.toNanos(vigenciaMs);
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> mayor) {
+                if (size() > CacheJugadores.this.capacidad) {
+                    expulsadas.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Busca un jugador por usuario: primero en la caché y, si no está o ya venció, en la base de
+     * datos, guardando el resultado.
+     *
+     * @param usuario El usuario del jugador.
+     * @return Una copia del jugador, o `null` si no existe.
+     * @throws SQLException Si falla la consulta a la base de datos.
+     */
+    public JugadorVO consultar(String usuario) throws SQLException {
+        if (usuario == null) {
+            return null;
+        }
+        String clave = JugadorDAO.normalizarUsuario(usuario);
+        long versionConsulta;
+        candado.lock();
+        try {
+            Entrada entrada = entradas.get(clave);
+            if (entrada != null) {
+                if (System.nanoTime() - entrada.vence < 0) {
+                    aciertos.incrementAndGet();
+                    return copiar(entrada.jugador);
+                }
+                entradas.remove(clave);
+            }
+            versionConsulta = version;
+        } finally {
+            candado.unlock();
+        }
+
+        fallos.incrementAndGet();
+        JugadorVO jugador = jugadorDao.consultarUsuarioJugador(usuario, new JugadorVO());
+        if (jugador.getNombreJugador() == null) {
+            return null;
+        }
+        if (capacidad > 0) {
+            candado.lock();
+            try {
+                if (versionConsulta == version) {
+                    entradas.put(clave, new Entrada(copiar(jugador), System.nanoTime() + vigenciaNanos));
+                }
+            } finally {
+                candado.unlock();
+            }
+        }
+        return jugador;
+    }
+
+    /**
+     * Saca de la caché a un usuario, para que la próxima consulta lo lea de la base de datos. Se
+     * llama cuando se inserta o modifica un jugador.
+     *
+     * @param usuario El usuario del jugador.
+     */
+    public void invalidar(String usuario) {
+        if (usuario == null) {
+            return;
+        }
+        candado.lock();
+        try {
+            version++;
+            entradas.remove(JugadorDAO.normalizarUsuario(usuario));
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Vacía la caché.
+     */
+    public void limpiar() {
+        candado.lock();
+        try {
+            version++;
+            entradas.clear();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    public long getAciertos() {
+        return aciertos.get();
+    }
+
+    public long getFallos() {
+        return fallos.get();
+    }
+
+    public long getExpulsadas() {
+        return expulsadas.get();
+    }
+
+    /**
+     * Resume el estado de la caché para la consola del servidor.
+     *
+     * @return Las entradas guardadas, los aciertos, los fallos y las expulsiones por capacidad.
+     */
+    public String describirMetricas() {
+        int guardadas;
+        candado.lock();
+        try {
+            guardadas = entradas.size();
+        } finally {
+            candado.unlock();
+        }
+        long totalAciertos = aciertos.get();
+        long totalConsultas = totalAciertos + fallos.get();
+        double porcentaje = totalConsultas == 0 ? 0 : 100.0 * totalAciertos / totalConsultas;
+        return String.format(Locale.ROOT, "Caché de jugadores: %d/%d guardados, %d aciertos, %d fallos (%.1f%% aciertos), %d expulsados",
+                guardadas, capacidad, totalAciertos, fallos.get(), porcentaje, expulsadas.get());
+    }
+
+    /**
+     * Copia un jugador, para que quien lo reciba no cambie el que está guardado.
+     *
+     * @param jugador El jugador.
+     * @return La copia.
+     */
+    private static JugadorVO copiar(JugadorVO jugador) {
+        return new JugadorVO(jugador.getNombreJugador(), jugador.getCedula(), jugador.getUsuario(), jugador.getContrasena(),
+                jugador.getId(), jugador.getCantidadIntentos(), jugador.getCantidadParejasResueltas());
+    }
+}
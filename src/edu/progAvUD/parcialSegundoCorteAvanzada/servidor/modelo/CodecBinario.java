@@ -0,0 +1,519 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * La clase `CodecBinario` implementa la versión {@link Protocolo#VERSION_BINARIA}
+ * del protocolo binario. Cada mensaje tiene el formato:
+ *
+ * <pre>
+ * [longitud: varint][opcode: 1 byte][campos]
+ * </pre>
+ *
+ * La longitud cuenta el opcode y los campos. Los campos tienen un formato fijo
+ * según el opcode:
+ * <ul>
+ * <li>Coordenadas: un byte sin signo por coordenada. Una jugada completa
+ * ({@link Protocolo#OP_ELECCION_PAREJA}) lleva las cuatro coordenadas en un
+ * solo mensaje. El tamaño del tablero ({@link Protocolo#OP_TABLERO}) también
+ * va en dos bytes, filas y columnas.</li>
+ * <li>Turnos y estadísticas: enteros varint (LEB128, 7 bits por byte).</li>
+ * <li>Textos (usuario, contraseña, razón del fallo, ganador): longitud varint
+ * seguida de los bytes UTF-8.</li>
+ * <li>{@link Protocolo#OP_RESULTADO_JUGADA}: turno del jugador, acierto (0 o
+ * 1), turno activo, intentos, aciertos y eficiencia como varints, las cuatro
+ * coordenadas como bytes y la razón del fallo como texto.</li>
+ * </ul>
+ *
+ * Los mensajes se arman y se leen en arreglos internos que se reutilizan, así
+ * que solo se crean objetos para los textos. Cada mensaje se escribe con una
+ * sola llamada a `write`, lo que lo mantiene completo aunque escriban varios
+ * hilos a la vez. Por eso cada conexión debe tener su propia instancia.
+ *
+ * @author Andres Felipe
+ */
+public class CodecBinario implements CodecProtocolo {
+
+    /**
+     * Nombre del protocolo que se envía en la negociación.
+     */
+    public static final String NOMBRE = "binario";
+
+    /**
+     * Longitud máxima aceptada para un mensaje.
+     */
+    public static final int LONGITUD_MAXIMA = 64 * 1024;
+
+    /**
+     * Bytes reservados al inicio del arreglo de escritura para la longitud
+     * varint, que se conoce después de armar los campos.
+     */
+    private static final int RESERVA_LONGITUD = 5;
+
+    private final ReentrantLock candadoEscritura;
+    private byte[] escritura;
+    private int tamanoEscritura;
+
+    private byte[] lectura;
+    private int posicionLectura;
+    private int limiteLectura;
+
+    /**
+     * Constructor de la clase `CodecBinario`.
+     */
+    public CodecBinario() {
+        this.candadoEscritura = new ReentrantLock();
+        this.escritura = new byte[128];
+        this.lectura = new byte[128];
+    }
+
+    /**
+     * Negocia el protocolo binario con el servidor. Envía la petición en texto
+     * (`protocolo,binario,1`) y espera la respuesta del servidor. Si el
+     * servidor la acepta devuelve un `CodecBinario`; si no, un
+     * {@link CodecTexto}.
+     *
+     * @param entrada El flujo de respuestas del servidor.
+     * @param salida El flujo de comandos hacia el servidor.
+     * @return El códec que se debe usar en la conexión.
+     * @throws IOException Si ocurre un error de comunicación.
+     */
+    public static CodecProtocolo negociar(DataInputStream entrada, DataOutputStream salida) throws IOException {
+        CodecTexto texto = new CodecTexto();
+        texto.escribirNegociacion(salida, NOMBRE, Protocolo.VERSION_BINARIA);
+        String respuesta = texto.leerTexto(entrada);
+        if (respuesta.equals(CodecTexto.COMANDO_PROTOCOLO + "," + NOMBRE + "," + Protocolo.VERSION_BINARIA)) {
+            return new CodecBinario();
+        }
+        return texto;
+    }
+
+    @Override
+    public String getNombre() {
+        return NOMBRE;
+    }
+
+    @Override
+    public void escribirLogin(DataOutputStream salida, String usuario, String contrasena) throws IOException {
+        candadoEscritura.lock();
+        try {
+            iniciarMensaje(Protocolo.OP_LOGIN);
+            ponerTexto(usuario);
+            ponerTexto(contrasena);
+            enviarMensaje(salida);
+        } finally {
+            candadoEscritura.unlock();
+        }
+    }
+
+    /**
+     * Envía las dos cartas en un solo mensaje
+     * {@link Protocolo#OP_ELECCION_PAREJA}.
+     */
+    @Override
+    public void escribirEleccion(DataOutputStream salida, int x1, int y1, int x2, int y2) throws IOException {
+        candadoEscritura.lock();
+        try {
+            iniciarMensaje(Protocolo.OP_ELECCION_PAREJA);
+            ponerCoordenada(x1);
+            ponerCoordenada(y1);
+            ponerCoordenada(x2);
+            ponerCoordenada(y2);
+            enviarMensaje(salida);
+        } finally {
+            candadoEscritura.unlock();
+        }
+    }
+
+    @Override
+    public void escribirComando(DataOutputStream salida, byte opcode) throws IOException {
+        escribirSinCampos(salida, opcode);
+    }
+
+    @Override
+    public void escribirPedirClasificacion(DataOutputStream salida, int cantidad) throws IOException {
+        candadoEscritura.lock();
+        try {
+            iniciarMensaje(Protocolo.OP_PEDIR_CLASIFICACION);
+            ponerVarint(cantidad);
+            enviarMensaje(salida);
+        } finally {
+            candadoEscritura.unlock();
+        }
+    }
+
+    @Override
+    public void leerComando(DataInputStream entrada, MensajeProtocolo destino) throws IOException {
+        byte opcode = leerMensaje(entrada);
+        destino.reiniciar(opcode);
+        switch (opcode) {
+            case Protocolo.OP_LOGIN:
+                destino.setTexto(tomarTexto());
+                destino.setTexto2(tomarTexto());
+                break;
+            case Protocolo.OP_ELECCION_CARTA:
+                destino.setValor(0, tomarCoordenada());
+                destino.setValor(1, tomarCoordenada());
+                break;
+            case Protocolo.OP_ELECCION_PAREJA:
+                for (int i = 0; i < 4; i++) {
+                    destino.setValor(i, tomarCoordenada());
+                }
+                break;
+            case Protocolo.OP_CONSULTAR_TURNO:
+            case Protocolo.OP_PEDIR_DATOS_JUGADOR:
+            case Protocolo.OP_PEDIR_GANADOR:
+            case Protocolo.OP_SIGUIENTE_TURNO:
+            case Protocolo.OP_SUSCRIBIR_EVENTOS:
+            case Protocolo.OP_PEDIR_TABLERO:
+            case Protocolo.OP_LATIDO:
+                break;
+            case Protocolo.OP_PEDIR_CLASIFICACION:
+                destino.setValor(0, tomarVarint());
+                break;
+            default:
+                destino.reiniciar(Protocolo.OP_DESCONOCIDO);
+                destino.setTexto("opcode " + opcode);
+                break;
+        }
+    }
+
+    @Override
+    public void escribirRespuestaLogin(DataOutputStream salida, byte opcode) throws IOException {
+        escribirSinCampos(salida, opcode);
+    }
+
+    @Override
+    public byte leerRespuestaLogin(DataInputStream entrada) throws IOException {
+        byte opcode = leerMensaje(entrada);
+        if (opcode == Protocolo.OP_LOGIN_VALIDO || opcode == Protocolo.OP_LOGIN_INVALIDO || opcode == Protocolo.OP_YA_CONECTADO) {
+            return opcode;
+        }
+        return Protocolo.OP_DESCONOCIDO;
+    }
+
+    @Override
+    public void escribirTurno(DataOutputStream salida, int turno) throws IOException {
+        candadoEscritura.lock();
+        try {
+            iniciarMensaje(Protocolo.OP_TURNO);
+            ponerVarint(turno);
+            enviarMensaje(salida);
+        } finally {
+            candadoEscritura.unlock();
+        }
+    }
+
+    @Override
+    public int leerTurno(DataInputStream entrada) throws IOException {
+        esperarOpcode(leerMensaje(entrada), Protocolo.OP_TURNO);
+        return tomarVarint();
+    }
+
+    @Override
+    public void escribirTablero(DataOutputStream salida, int filas, int columnas) throws IOException {
+        candadoEscritura.lock();
+        try {
+            iniciarMensaje(Protocolo.OP_TABLERO);
+            ponerCoordenada(filas);
+            ponerCoordenada(columnas);
+            enviarMensaje(salida);
+        } finally {
+            candadoEscritura.unlock();
+        }
+    }
+
+    @Override
+    public void leerTablero(DataInputStream entrada, int[] destino) throws IOException {
+        esperarOpcode(leerMensaje(entrada), Protocolo.OP_TABLERO);
+        destino[0] = tomarCoordenada();
+        destino[1] = tomarCoordenada();
+    }
+
+    @Override
+    public void escribirDatosJugador(DataOutputStream salida, int[] estadisticas) throws IOException {
+        candadoEscritura.lock();
+        try {
+            iniciarMensaje(Protocolo.OP_DATOS_JUGADOR);
+            ponerVarint(estadisticas[0]);
+            ponerVarint(estadisticas[1]);
+            ponerVarint(estadisticas[2]);
+            enviarMensaje(salida);
+        } finally {
+            candadoEscritura.unlock();
+        }
+    }
+
+    @Override
+    public void leerDatosJugador(DataInputStream entrada, int[] destino) throws IOException {
+        esperarOpcode(leerMensaje(entrada), Protocolo.OP_DATOS_JUGADOR);
+        destino[0] = tomarVarint();
+        destino[1] = tomarVarint();
+        destino[2] = tomarVarint();
+    }
+
+    @Override
+    public void escribirTexto(DataOutputStream salida, String texto) throws IOException {
+        candadoEscritura.lock();
+        try {
+            iniciarMensaje(Protocolo.OP_TEXTO);
+            ponerTexto(texto);
+            enviarMensaje(salida);
+        } finally {
+            candadoEscritura.unlock();
+        }
+    }
+
+    @Override
+    public String leerTexto(DataInputStream entrada) throws IOException {
+        esperarOpcode(leerMensaje(entrada), Protocolo.OP_TEXTO);
+        return tomarTexto();
+    }
+
+    /**
+     * Envía un evento. {@link Protocolo#OP_FALLO} lleva la razón y
+     * {@link Protocolo#OP_JUEGO_TERMINADO} el anuncio del ganador (vacío si
+     * es `null`); los demás eventos no tienen campos.
+     */
+    @Override
+    public void escribirEvento(DataOutputStream salida, byte opcode, String texto) throws IOException {
+        if (opcode != Protocolo.OP_FALLO && opcode != Protocolo.OP_JUEGO_TERMINADO) {
+            escribirSinCampos(salida, opcode);
+            return;
+        }
+        candadoEscritura.lock();
+        try {
+            iniciarMensaje(opcode);
+            ponerTexto(texto);
+            enviarMensaje(salida);
+        } finally {
+            candadoEscritura.unlock();
+        }
+    }
+
+    @Override
+    public void leerEvento(DataInputStream entrada, MensajeProtocolo destino) throws IOException {
+        byte opcode = leerMensaje(entrada);
+        destino.reiniciar(opcode);
+        switch (opcode) {
+            case Protocolo.OP_FALLO:
+                destino.setTexto(tomarTexto());
+                break;
+            case Protocolo.OP_JUEGO_TERMINADO:
+                String ganador = tomarTexto();
+                destino.setTexto(ganador.isEmpty() ? null : ganador);
+                break;
+            case Protocolo.OP_CAMBIO_TURNO:
+                destino.setValor(0, tomarVarint());
+                break;
+            case Protocolo.OP_RESULTADO_JUGADA:
+                for (int i = Protocolo.RESULTADO_TURNO_JUGADOR; i <= Protocolo.RESULTADO_EFICIENCIA; i++) {
+                    destino.setValor(i, tomarVarint());
+                }
+                for (int i = Protocolo.RESULTADO_X1; i <= Protocolo.RESULTADO_Y2; i++) {
+                    destino.setValor(i, tomarCoordenada());
+                }
+                destino.setTexto(tomarTexto());
+                break;
+            case Protocolo.OP_PEDIR_COORDENADAS:
+            case Protocolo.OP_ACERTO:
+            case Protocolo.OP_JUEGO_REINICIADO:
+                break;
+            default:
+                destino.reiniciar(Protocolo.OP_DESCONOCIDO);
+                destino.setTexto("opcode " + opcode);
+                break;
+        }
+    }
+
+    @Override
+    public void escribirCambioTurno(DataOutputStream salida, int turnoActivo) throws IOException {
+        candadoEscritura.lock();
+        try {
+            iniciarMensaje(Protocolo.OP_CAMBIO_TURNO);
+            ponerVarint(turnoActivo);
+            enviarMensaje(salida);
+        } finally {
+            candadoEscritura.unlock();
+        }
+    }
+
+    @Override
+    public void escribirResultadoJugada(DataOutputStream salida, MensajeProtocolo resultado) throws IOException {
+        candadoEscritura.lock();
+        try {
+            iniciarMensaje(Protocolo.OP_RESULTADO_JUGADA);
+            for (int i = Protocolo.RESULTADO_TURNO_JUGADOR; i <= Protocolo.RESULTADO_EFICIENCIA; i++) {
+                ponerVarint(resultado.getValor(i));
+            }
+            for (int i = Protocolo.RESULTADO_X1; i <= Protocolo.RESULTADO_Y2; i++) {
+                ponerCoordenada(resultado.getValor(i));
+            }
+            ponerTexto(resultado.getTexto());
+            enviarMensaje(salida);
+        } finally {
+            candadoEscritura.unlock();
+        }
+    }
+
+    // --- Escritura ---
+
+    private void escribirSinCampos(DataOutputStream salida, byte opcode) throws IOException {
+        candadoEscritura.lock();
+        try {
+            iniciarMensaje(opcode);
+            enviarMensaje(salida);
+        } finally {
+            candadoEscritura.unlock();
+        }
+    }
+
+    private void iniciarMensaje(byte opcode) {
+        tamanoEscritura = RESERVA_LONGITUD;
+        asegurarEscritura(1);
+        escritura[tamanoEscritura++] = opcode;
+    }
+
+    /**
+     * Escribe la longitud justo antes de los campos y envía el mensaje con
+     * una sola llamada a `write`. Un mensaje más largo que
+     * {@link #LONGITUD_MAXIMA} no se envía, porque el otro extremo lo
+     * rechazaría.
+     */
+    private void enviarMensaje(DataOutputStream salida) throws IOException {
+        int longitud = tamanoEscritura - RESERVA_LONGITUD;
+        if (longitud > LONGITUD_MAXIMA) {
+            tamanoEscritura = RESERVA_LONGITUD;
+            throw new IOException("Mensaje demasiado largo: " + longitud + " bytes");
+        }
+        int inicio = RESERVA_LONGITUD - tamanoVarint(longitud);
+        int posicion = inicio;
+        int valor = longitud;
+        while ((valor & ~0x7F) != 0) {
+            escritura[posicion++] = (byte) ((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        escritura[posicion] = (byte) valor;
+        salida.write(escritura, inicio, tamanoEscritura - inicio);
+        salida.flush();
+    }
+
+    /**
+     * Agrega una coordenada de un byte. Una coordenada que no cabe descarta
+     * el mensaje a medio armar, igual que uno demasiado largo.
+     */
+    private void ponerCoordenada(int valor) throws IOException {
+        if (valor < 0 || valor > 0xFF) {
+            tamanoEscritura = RESERVA_LONGITUD;
+            throw new IOException("Coordenada fuera de rango: " + valor);
+        }
+        asegurarEscritura(1);
+        escritura[tamanoEscritura++] = (byte) valor;
+    }
+
+    private void ponerVarint(int valor) {
+        asegurarEscritura(5);
+        while ((valor & ~0x7F) != 0) {
+            escritura[tamanoEscritura++] = (byte) ((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        escritura[tamanoEscritura++] = (byte) valor;
+    }
+
+    private void ponerTexto(String texto) {
+        byte[] bytes = (texto == null ? "" : texto).getBytes(StandardCharsets.UTF_8);
+        ponerVarint(bytes.length);
+        asegurarEscritura(bytes.length);
+        System.arraycopy(bytes, 0, escritura, tamanoEscritura, bytes.length);
+        tamanoEscritura += bytes.length;
+    }
+
+    private void asegurarEscritura(int adicional) {
+        if (tamanoEscritura + adicional > escritura.length) {
+            byte[] mayor = new byte[Math.max(escritura.length * 2, tamanoEscritura + adicional)];
+            System.arraycopy(escritura, 0, mayor, 0, tamanoEscritura);
+            escritura = mayor;
+        }
+    }
+
+    private static int tamanoVarint(int valor) {
+        int tamano = 1;
+        while ((valor & ~0x7F) != 0) {
+            valor >>>= 7;
+            tamano++;
+        }
+        return tamano;
+    }
+
+    // --- Lectura ---
+
+    /**
+     * Lee un mensaje completo en el arreglo de lectura y devuelve su opcode.
+     * Si el flujo se acaba a mitad del mensaje lanza `EOFException`.
+     */
+    private byte leerMensaje(DataInputStream entrada) throws IOException {
+        int longitud = 0;
+        for (int desplazamiento = 0;; desplazamiento += 7) {
+            int b = entrada.readUnsignedByte();
+            longitud |= (b & 0x7F) << desplazamiento;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+            if (desplazamiento >= 28) {
+                throw new IOException("Longitud de mensaje inválida");
+            }
+        }
+        if (longitud < 1 || longitud > LONGITUD_MAXIMA) {
+            throw new IOException("Longitud de mensaje inválida: " + longitud);
+        }
+        if (longitud > lectura.length) {
+            lectura = new byte[Math.max(lectura.length * 2, longitud)];
+        }
+        entrada.readFully(lectura, 0, longitud);
+        posicionLectura = 1;
+        limiteLectura = longitud;
+        return lectura[0];
+    }
+
+    private void esperarOpcode(byte recibido, byte esperado) throws IOException {
+        if (recibido != esperado) {
+            throw new IOException("Se esperaba el opcode " + esperado + " y se recibió " + recibido);
+        }
+    }
+
+    private int tomarCoordenada() throws IOException {
+        verificarDisponible(1);
+        return lectura[posicionLectura++] & 0xFF;
+    }
+
+    private int tomarVarint() throws IOException {
+        int valor = 0;
+        for (int desplazamiento = 0; desplazamiento < 35; desplazamiento += 7) {
+            verificarDisponible(1);
+            int b = lectura[posicionLectura++];
+            valor |= (b & 0x7F) << desplazamiento;
+            if ((b & 0x80) == 0) {
+                return valor;
+            }
+        }
+        throw new IOException("Entero varint demasiado largo");
+    }
+
+    private String tomarTexto() throws IOException {
+        int longitud = tomarVarint();
+        verificarDisponible(longitud);
+        String texto = new String(lectura, posicionLectura, longitud, StandardCharsets.UTF_8);
+        posicionLectura += longitud;
+        return texto;
+    }
+
+    private void verificarDisponible(int cantidad) throws IOException {
+        if (cantidad < 0 || posicionLectura + cantidad > limiteLectura) {
+            throw new IOException("Mensaje binario truncado");
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * La interfaz `CodecProtocolo` define cómo se escriben y se leen los mensajes
+ * entre el cliente y el servidor. Hay dos implementaciones:
+ * {@link CodecTexto}, el protocolo de siempre con cadenas separadas por comas,
+ * y {@link CodecBinario}, que usa opcodes y campos de longitud fija o varint.
+ *
+ * Cada mensaje tiene un método de escritura y uno de lectura, de modo que el
+ * servidor y el cliente nunca trabajan con el formato de los bytes.
+ *
+ * @author Andres Felipe
+ */
+public interface CodecProtocolo {
+
+    /**
+     * Obtiene el nombre del códec ("texto" o "binario").
+     * @return El nombre del códec.
+     */
+    String getNombre();
+
+    /**
+     * Envía el comando de inicio de sesión.
+     * @param salida El flujo de salida.
+     * @param usuario El nombre de usuario.
+     * @param contrasena La contraseña.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    void escribirLogin(DataOutputStream salida, String usuario, String contrasena) throws IOException;
+
+    /**
+     * Envía las dos cartas elegidas por el jugador.
+     * @param salida El flujo de salida.
+     * @param x1 Coordenada X de la primera carta.
+     * @param y1 Coordenada Y de la primera carta.
+     * @param x2 Coordenada X de la segunda carta.
+     * @param y2 Coordenada Y de la segunda carta.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    void escribirEleccion(DataOutputStream salida, int x1, int y1, int x2, int y2) throws IOException;
+
+    /**
+     * Envía un comando sin campos (consultarTurno, pedirDatosJugador,
+     * pedirGanador, siguienteTurno, suscribirEventos, pedirTablero o latido).
+     * @param salida El flujo de salida.
+     * @param opcode El opcode del comando.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    void escribirComando(DataOutputStream salida, byte opcode) throws IOException;
+
+    /**
+     * Pide la clasificación de los jugadores. El servidor responde con un
+     * texto ({@link #leerTexto(DataInputStream)}).
+     * @param salida El flujo de salida.
+     * @param cantidad Cuántos jugadores de la clasificación se quieren.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    void escribirPedirClasificacion(DataOutputStream salida, int cantidad) throws IOException;
+
+    /**
+     * Lee el siguiente comando enviado por el cliente.
+     * @param entrada El flujo de entrada.
+     * @param destino El mensaje en el que se deja el comando leído.
+     * @throws IOException Si ocurre un error de lectura o el mensaje está
+     * incompleto (`EOFException`).
+     */
+    void leerComando(DataInputStream entrada, MensajeProtocolo destino) throws IOException;
+
+    /**
+     * Envía el resultado del inicio de sesión.
+     * @param salida El flujo de salida.
+     * @param opcode {@link Protocolo#OP_LOGIN_VALIDO},
+     * {@link Protocolo#OP_LOGIN_INVALIDO} o {@link Protocolo#OP_YA_CONECTADO}.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    void escribirRespuestaLogin(DataOutputStream salida, byte opcode) throws IOException;
+
+    /**
+     * Lee el resultado del inicio de sesión.
+     * @param entrada El flujo de entrada.
+     * @return El opcode de la respuesta.
+     * @throws IOException Si ocurre un error de lectura.
+     */
+    byte leerRespuestaLogin(DataInputStream entrada) throws IOException;
+
+    /**
+     * Envía un número de turno.
+     * @param salida El flujo de salida.
+     * @param turno El número de turno.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    void escribirTurno(DataOutputStream salida, int turno) throws IOException;
+
+    /**
+     * Lee un número de turno.
+     * @param entrada El flujo de entrada.
+     * @return El número de turno.
+     * @throws IOException Si ocurre un error de lectura.
+     */
+    int leerTurno(DataInputStream entrada) throws IOException;
+
+    /**
+     * Envía el tamaño del tablero de la sala del jugador. Va después del turno
+     * en la respuesta al inicio de sesión, y en respuesta a
+     * {@link Protocolo#OP_PEDIR_TABLERO}.
+     * @param salida El flujo de salida.
+     * @param filas Las filas del tablero.
+     * @param columnas Las columnas del tablero.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    void escribirTablero(DataOutputStream salida, int filas, int columnas) throws IOException;
+
+    /**
+     * Lee el tamaño del tablero.
+     * @param entrada El flujo de entrada.
+     * @param destino Arreglo de dos posiciones donde se dejan las filas y las
+     * columnas.
+     * @throws IOException Si ocurre un error de lectura.
+     */
+    void leerTablero(DataInputStream entrada, int[] destino) throws IOException;
+
+    /**
+     * Envía las estadísticas del jugador: intentos, aciertos y porcentaje.
+     * @param salida El flujo de salida.
+     * @param estadisticas Arreglo de tres posiciones con las estadísticas.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    void escribirDatosJugador(DataOutputStream salida, int[] estadisticas) throws IOException;
+
+    /**
+     * Lee las estadísticas del jugador.
+     * @param entrada El flujo de entrada.
+     * @param destino Arreglo de tres posiciones donde se dejan las estadísticas.
+     * @throws IOException Si ocurre un error de lectura.
+     */
+    void leerDatosJugador(DataInputStream entrada, int[] destino) throws IOException;
+
+    /**
+     * Envía un texto libre, como el anuncio del ganador.
+     * @param salida El flujo de salida.
+     * @param texto El texto.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    void escribirTexto(DataOutputStream salida, String texto) throws IOException;
+
+    /**
+     * Lee un texto libre.
+     * @param entrada El flujo de entrada.
+     * @return El texto.
+     * @throws IOException Si ocurre un error de lectura.
+     */
+    String leerTexto(DataInputStream entrada) throws IOException;
+
+    /**
+     * Envía un evento del servidor.
+     * @param salida El flujo de salida.
+     * @param opcode El opcode del evento.
+     * @param texto El texto del evento (la razón de un fallo) o `null`.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    void escribirEvento(DataOutputStream salida, byte opcode, String texto) throws IOException;
+
+    /**
+     * Envía el evento de cambio de turno del modo de eventos.
+     * @param salida El flujo de salida.
+     * @param turnoActivo El turno que queda activo.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    void escribirCambioTurno(DataOutputStream salida, int turnoActivo) throws IOException;
+
+    /**
+     * Envía el resultado completo de una jugada del modo de eventos: quién
+     * jugó, si acertó, el turno que queda activo, las estadísticas del jugador
+     * y las cartas que eligió. Los campos van en las posiciones
+     * `Protocolo.RESULTADO_*` del mensaje y la razón del fallo en su texto.
+     * @param salida El flujo de salida.
+     * @param resultado El resultado de la jugada.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    void escribirResultadoJugada(DataOutputStream salida, MensajeProtocolo resultado) throws IOException;
+
+    /**
+     * Lee el siguiente evento del servidor.
+     * @param entrada El flujo de entrada.
+     * @param destino El mensaje en el que se deja el evento leído.
+     * @throws IOException Si ocurre un error de lectura.
+     */
+    void leerEvento(DataInputStream entrada, MensajeProtocolo destino) throws IOException;
+}
@@ -0,0 +1,343 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * La clase `CodecTexto` implementa el protocolo original: cada mensaje es una
+ * cadena `writeUTF` con los campos separados por comas (`login,usuario,clave`,
+ * `eleccionJugador,x,y`, `fallo,razon`...) y los turnos se envían con
+ * `writeInt`. Es el códec con el que empieza toda conexión y el que se sigue
+ * usando con los clientes que no negocian el protocolo binario.
+ *
+ * No guarda estado, así que una misma instancia se puede usar desde varios
+ * hilos.
+ *
+ * @author Andres Felipe
+ */
+public class CodecTexto implements CodecProtocolo {
+
+    /**
+     * Nombre del comando con el que el cliente pide cambiar de protocolo.
+     */
+    public static final String COMANDO_PROTOCOLO = "protocolo";
+
+    @Override
+    public String getNombre() {
+        return "texto";
+    }
+
+    @Override
+    public void escribirLogin(DataOutputStream salida, String usuario, String contrasena) throws IOException {
+        salida.writeUTF("login," + usuario + "," + contrasena);
+    }
+
+    /**
+     * Envía las dos cartas como dos mensajes `eleccionJugador`, igual que los
+     * clientes antiguos.
+     */
+    @Override
+    public void escribirEleccion(DataOutputStream salida, int x1, int y1, int x2, int y2) throws IOException {
+        salida.writeUTF("eleccionJugador," + x1 + "," + y1);
+        salida.writeUTF("eleccionJugador," + x2 + "," + y2);
+    }
+
+    @Override
+    public void escribirComando(DataOutputStream salida, byte opcode) throws IOException {
+        switch (opcode) {
+            case Protocolo.OP_CONSULTAR_TURNO:
+                salida.writeUTF("consultarTurno");
+                break;
+            case Protocolo.OP_PEDIR_DATOS_JUGADOR:
+                salida.writeUTF("pedirDatosJugador");
+                break;
+            case Protocolo.OP_PEDIR_GANADOR:
+                salida.writeUTF("pedirGanador");
+                break;
+            case Protocolo.OP_SIGUIENTE_TURNO:
+                salida.writeUTF("siguienteTurno");
+                break;
+            case Protocolo.OP_SUSCRIBIR_EVENTOS:
+                salida.writeUTF("suscribirEventos");
+                break;
+            case Protocolo.OP_PEDIR_TABLERO:
+                salida.writeUTF("pedirTablero");
+                break;
+            case Protocolo.OP_LATIDO:
+                salida.writeUTF("latido");
+                break;
+            default:
+                throw new IllegalArgumentException("Comando sin representación de texto: " + opcode);
+        }
+    }
+
+    @Override
+    public void escribirPedirClasificacion(DataOutputStream salida, int cantidad) throws IOException {
+        salida.writeUTF("pedirClasificacion," + cantidad);
+    }
+
+    /**
+     * Envía la petición de cambio de protocolo (`protocolo,nombre,version`).
+     *
+     * @param salida El flujo de salida.
+     * @param nombre El nombre del protocolo pedido.
+     * @param version La versión del protocolo pedido.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public void escribirNegociacion(DataOutputStream salida, String nombre, int version) throws IOException {
+        salida.writeUTF(COMANDO_PROTOCOLO + "," + nombre + "," + version);
+    }
+
+    @Override
+    public void leerComando(DataInputStream entrada, MensajeProtocolo destino) throws IOException {
+        String[] partes = entrada.readUTF().split(",");
+        switch (partes[0]) {
+            case "login":
+                destino.reiniciar(Protocolo.OP_LOGIN);
+                destino.setTexto(partes.length > 1 ? partes[1] : "");
+                destino.setTexto2(partes.length > 2 ? partes[2] : "");
+                break;
+            case "eleccionJugador":
+                destino.reiniciar(Protocolo.OP_ELECCION_CARTA);
+                try {
+                    int x = Integer.parseInt(partes[1]);
+                    int y = Integer.parseInt(partes[2]);
+                    destino.setValor(0, x);
+                    destino.setValor(1, y);
+                    // Lo mismo que cabe en el códec binario: nada fuera de un tablero posible sigue adelante
+                    destino.setValido(esCoordenada(x) && esCoordenada(y));
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    destino.setValido(false);
+                }
+                break;
+            case "consultarTurno":
+                destino.reiniciar(Protocolo.OP_CONSULTAR_TURNO);
+                break;
+            case "pedirDatosJugador":
+                destino.reiniciar(Protocolo.OP_PEDIR_DATOS_JUGADOR);
+                break;
+            case "pedirGanador":
+                destino.reiniciar(Protocolo.OP_PEDIR_GANADOR);
+                break;
+            case "siguienteTurno":
+                destino.reiniciar(Protocolo.OP_SIGUIENTE_TURNO);
+                break;
+            case "suscribirEventos":
+                destino.reiniciar(Protocolo.OP_SUSCRIBIR_EVENTOS);
+                break;
+            case "pedirTablero":
+                destino.reiniciar(Protocolo.OP_PEDIR_TABLERO);
+                break;
+            case "latido":
+                destino.reiniciar(Protocolo.OP_LATIDO);
+                break;
+            case "pedirClasificacion":
+                destino.reiniciar(Protocolo.OP_PEDIR_CLASIFICACION);
+                try {
+                    destino.setValor(0, partes.length > 1 ? Integer.parseInt(partes[1]) : Protocolo.CLASIFICACION_POR_DEFECTO);
+                } catch (NumberFormatException e) {
+                    destino.setValido(false);
+                }
+                break;
+            case COMANDO_PROTOCOLO:
+                destino.reiniciar(Protocolo.OP_PROTOCOLO);
+                destino.setTexto(partes.length > 1 ? partes[1] : "");
+                try {
+                    destino.setValor(0, partes.length > 2 ? Integer.parseInt(partes[2]) : 0);
+                } catch (NumberFormatException e) {
+                    destino.setValido(false);
+                }
+                break;
+            default:
+                destino.reiniciar(Protocolo.OP_DESCONOCIDO);
+                destino.setTexto(partes[0]);
+                break;
+        }
+    }
+
+    @Override
+    public void escribirRespuestaLogin(DataOutputStream salida, byte opcode) throws IOException {
+        switch (opcode) {
+            case Protocolo.OP_LOGIN_VALIDO:
+                salida.writeUTF("valido");
+                break;
+            case Protocolo.OP_YA_CONECTADO:
+                salida.writeUTF("yaConectado");
+                break;
+            default:
+                salida.writeUTF("invalido");
+                break;
+        }
+    }
+
+    @Override
+    public byte leerRespuestaLogin(DataInputStream entrada) throws IOException {
+        String estado = entrada.readUTF();
+        if (estado.equalsIgnoreCase("valido")) {
+            return Protocolo.OP_LOGIN_VALIDO;
+        } else if (estado.equalsIgnoreCase("yaConectado")) {
+            return Protocolo.OP_YA_CONECTADO;
+        } else if (estado.equalsIgnoreCase("invalido")) {
+            return Protocolo.OP_LOGIN_INVALIDO;
+        }
+        return Protocolo.OP_DESCONOCIDO;
+    }
+
+    @Override
+    public void escribirTurno(DataOutputStream salida, int turno) throws IOException {
+        salida.writeInt(turno);
+    }
+
+    @Override
+    public int leerTurno(DataInputStream entrada) throws IOException {
+        return entrada.readInt();
+    }
+
+    @Override
+    public void escribirTablero(DataOutputStream salida, int filas, int columnas) throws IOException {
+        salida.writeUTF("tablero," + filas + "," + columnas);
+    }
+
+    @Override
+    public void leerTablero(DataInputStream entrada, int[] destino) throws IOException {
+        String[] partes = entrada.readUTF().split(",");
+        try {
+            if (!partes[0].equals("tablero")) {
+                throw new IOException("Se esperaba el tamaño del tablero y llegó: " + partes[0]);
+            }
+            destino[0] = Integer.parseInt(partes[1]);
+            destino[1] = Integer.parseInt(partes[2]);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Tamaño del tablero con formato inválido", e);
+        }
+    }
+
+    @Override
+    public void escribirDatosJugador(DataOutputStream salida, int[] estadisticas) throws IOException {
+        salida.writeUTF("" + estadisticas[0] + "," + estadisticas[1] + "," + estadisticas[2]);
+    }
+
+    @Override
+    public void leerDatosJugador(DataInputStream entrada, int[] destino) throws IOException {
+        String[] partes = entrada.readUTF().split(",");
+        try {
+            for (int i = 0; i < 3; i++) {
+                destino[i] = Integer.parseInt(partes[i]);
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Estadísticas del jugador con formato inválido", e);
+        }
+    }
+
+    @Override
+    public void escribirTexto(DataOutputStream salida, String texto) throws IOException {
+        salida.writeUTF(texto);
+    }
+
+    @Override
+    public String leerTexto(DataInputStream entrada) throws IOException {
+        return entrada.readUTF();
+    }
+
+    @Override
+    public void escribirEvento(DataOutputStream salida, byte opcode, String texto) throws IOException {
+        switch (opcode) {
+            case Protocolo.OP_PEDIR_COORDENADAS:
+                salida.writeUTF("pedirCoordenadas");
+                break;
+            case Protocolo.OP_ACERTO:
+                salida.writeUTF("acerto");
+                break;
+            case Protocolo.OP_FALLO:
+                salida.writeUTF("fallo," + texto);
+                break;
+            case Protocolo.OP_JUEGO_TERMINADO:
+                // Los clientes antiguos solo miran la primera parte, así que el ganador es opcional
+                salida.writeUTF(texto == null ? "juegoTerminado" : "juegoTerminado," + texto);
+                break;
+            case Protocolo.OP_JUEGO_REINICIADO:
+                salida.writeUTF("juegoReiniciado");
+                break;
+            default:
+                throw new IllegalArgumentException("Evento sin representación de texto: " + opcode);
+        }
+    }
+
+    @Override
+    public void escribirCambioTurno(DataOutputStream salida, int turnoActivo) throws IOException {
+        salida.writeUTF("cambioTurno," + turnoActivo);
+    }
+
+    /**
+     * Envía `resultadoJugada` con los diez campos numéricos en orden y la
+     * razón del fallo al final, que puede contener comas.
+     */
+    @Override
+    public void escribirResultadoJugada(DataOutputStream salida, MensajeProtocolo resultado) throws IOException {
+        StringBuilder texto = new StringBuilder("resultadoJugada");
+        for (int i = 0; i < Protocolo.CAMPOS_RESULTADO; i++) {
+            texto.append(',').append(resultado.getValor(i));
+        }
+        texto.append(',').append(resultado.getTexto() == null ? "" : resultado.getTexto());
+        salida.writeUTF(texto.toString());
+    }
+
+    @Override
+    public void leerEvento(DataInputStream entrada, MensajeProtocolo destino) throws IOException {
+        String evento = entrada.readUTF();
+        int coma = evento.indexOf(',');
+        String nombre = coma < 0 ? evento : evento.substring(0, coma);
+        switch (nombre) {
+            case "pedirCoordenadas":
+                destino.reiniciar(Protocolo.OP_PEDIR_COORDENADAS);
+                break;
+            case "acerto":
+                destino.reiniciar(Protocolo.OP_ACERTO);
+                break;
+            case "fallo":
+                destino.reiniciar(Protocolo.OP_FALLO);
+                destino.setTexto(coma < 0 ? "" : evento.substring(coma + 1));
+                break;
+            case "juegoTerminado":
+                destino.reiniciar(Protocolo.OP_JUEGO_TERMINADO);
+                destino.setTexto(coma < 0 ? null : evento.substring(coma + 1));
+                break;
+            case "juegoReiniciado":
+                destino.reiniciar(Protocolo.OP_JUEGO_REINICIADO);
+                break;
+            case "cambioTurno":
+                destino.reiniciar(Protocolo.OP_CAMBIO_TURNO);
+                try {
+                    destino.setValor(0, Integer.parseInt(evento.substring(coma + 1)));
+                } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+                    throw new IOException("Evento cambioTurno con formato inválido", e);
+                }
+                break;
+            case "resultadoJugada":
+                destino.reiniciar(Protocolo.OP_RESULTADO_JUGADA);
+                String[] partes = evento.split(",", Protocolo.CAMPOS_RESULTADO + 2);
+                try {
+                    for (int i = 0; i < Protocolo.CAMPOS_RESULTADO; i++) {
+                        destino.setValor(i, Integer.parseInt(partes[i + 1]));
+                    }
+                    destino.setTexto(partes[Protocolo.CAMPOS_RESULTADO + 1]);
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    throw new IOException("Evento resultadoJugada con formato inválido", e);
+                }
+                break;
+            default:
+                destino.reiniciar(Protocolo.OP_DESCONOCIDO);
+                destino.setTexto(evento);
+                break;
+        }
+    }
+
+    /**
+     * Indica si un valor cabe como coordenada en el códec binario, es decir,
+     * si puede ser una fila o columna de algún tablero.
+     */
+    private static boolean esCoordenada(int valor) {
+        return valor >= 0 && valor <= Protocolo.LADO_MAXIMO_TABLERO;
+    }
+}
@@ -0,0 +1,238 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * La clase `ColaSalida` es el flujo de salida de una sesión en el modo de
+ * hilos. Quien escribe (la propia sesión o cualquier otra que difunde un
+ * mensaje) solo deja una copia de los bytes en una cola acotada; un hilo
+ * escritor propio de la sesión vacía la cola y escribe en el socket. Así un
+ * cliente lento o caído no detiene la difusión al resto.
+ *
+ * El escritor toma de una vez todo lo que se acumuló en la cola desde su
+ * última vuelta y lo envía con un solo `flush`, de modo que varios mensajes
+ * seguidos salen juntos. Por eso `flush()` no escribe nada en el socket.
+ *
+ * Cada llamada a `write` se encola como un bloque. Los códecs y
+ * {@link TransporteMultiplexado} escriben cada mensaje con una sola llamada,
+ * así que descartar un bloque nunca deja un mensaje a medias.
+ *
+ * @author Andres Felipe
+ */
+public class ColaSalida extends OutputStream {
+
+    /**
+     * Qué hacer cuando la cola de un cliente está llena.
+     */
+    public enum Politica {
+        /**
+         * Quien escribe espera a que haya espacio (el comportamiento original,
+         * pero limitado al cliente lento mientras la cola no se llene).
+         */
+        BLOQUEAR,
+        /**
+         * El mensaje se descarta y se cuenta. El cliente puede perder eventos.
+         */
+        DESCARTAR,
+        /**
+         * Se cierra la conexión del cliente; su sesión hace la limpieza
+         * habitual de una desconexión.
+         */
+        DESCONECTAR;
+
+        /**
+         * Convierte el valor del archivo de propiedades ("bloquear",
+         * "descartar" o "desconectar") en una política.
+         *
+         * @param valor El valor de la propiedad.
+         * @param porDefecto La política si el valor está vacío o no se reconoce.
+         * @return La política correspondiente.
+         */
+        public static Politica desde(String valor, Politica porDefecto) {
+            if (valor == null || valor.isBlank()) {
+                return porDefecto;
+            }
+            for (Politica politica : values()) {
+                if (politica.name().equalsIgnoreCase(valor.trim())) {
+                    return politica;
+                }
+            }
+            return porDefecto;
+        }
+    }
+
+    /**
+     * Bloque vacío que le indica al escritor que termine.
+     */
+    private static final byte[] FIN = new byte[0];
+
+    /**
+     * Cada cuánto revisa la política `BLOQUEAR` si la cola se cerró mientras
+     * espera espacio.
+     */
+    private static final long ESPERA_BLOQUEAR_MS = 100;
+
+    private final ArrayBlockingQueue<byte[]> cola;
+    private final OutputStream destino;
+    private final Socket socket;
+    private final Politica politica;
+    private final AtomicLong descartados;
+    private final Thread escritor;
+    private volatile boolean cerrada;
+
+    /**
+     * Constructor de la clase `ColaSalida`. Arranca el hilo escritor.
+     *
+     * @param socket El socket del cliente.
+     * @param capacidad La cantidad máxima de mensajes en espera.
+     * @param politica Qué hacer cuando la cola está llena.
+     * @param fabricaHilos La fábrica del hilo escritor (de plataforma o
+     * virtual, igual que las sesiones).
+     * @throws IOException Si no se puede obtener el flujo del socket.
+     */
+    public ColaSalida(Socket socket, int capacidad, Politica politica, ThreadFactory fabricaHilos) throws IOException {
+        this.socket = socket;
+        this.destino = new BufferedOutputStream(socket.getOutputStream());
+        this.cola = new ArrayBlockingQueue<>(Math.max(1, capacidad));
+        this.politica = politica;
+        this.descartados = new AtomicLong();
+        this.escritor = fabricaHilos.newThread(this::drenar);
+        this.escritor.start();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    /**
+     * Encola una copia de los bytes. Si la cola está llena se aplica la
+     * política configurada.
+     *
+     * @throws IOException Si la cola está cerrada, o si estaba llena y la
+     * política es `DESCONECTAR`.
+     */
+    @Override
+    public void write(byte[] datos, int desde, int longitud) throws IOException {
+        verificarAbierta();
+        byte[] bloque = Arrays.copyOfRange(datos, desde, desde + longitud);
+        switch (politica) {
+            case BLOQUEAR:
+                try {
+                    while (!cola.offer(bloque, ESPERA_BLOQUEAR_MS, TimeUnit.MILLISECONDS)) {
+                        verificarAbierta();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrumpido esperando espacio en la cola de salida");
+                }
+                break;
+            case DESCARTAR:
+                if (!cola.offer(bloque)) {
+                    descartados.incrementAndGet();
+                }
+                break;
+            default:
+                if (!cola.offer(bloque)) {
+                    cerrarSocket();
+                    throw new IOException("Cola de salida llena: se desconecta al cliente");
+                }
+                break;
+        }
+    }
+
+    /**
+     * No escribe en el socket: el escritor hace un `flush` por cada grupo de
+     * mensajes que envía.
+     *
+     * @throws IOException Si la cola está cerrada.
+     */
+    @Override
+    public void flush() throws IOException {
+        verificarAbierta();
+    }
+
+    /**
+     * Cierra la cola. Los mensajes que ya estaban en ella se envían antes de
+     * que termine el escritor, salvo que la cola esté llena, en cuyo caso el
+     * escritor se interrumpe.
+     */
+    @Override
+    public void close() {
+        if (cerrada) {
+            return;
+        }
+        cerrada = true;
+        if (!cola.offer(FIN)) {
+            escritor.interrupt();
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de mensajes descartados con la política
+     * `DESCARTAR`.
+     *
+     * @return El número de mensajes descartados.
+     */
+    public long getDescartados() {
+        return descartados.get();
+    }
+
+    /**
+     * Bucle del hilo escritor: espera el primer mensaje, toma también todos
+     * los que ya estén en la cola, los escribe y hace un solo `flush`. Si el
+     * socket falla, cierra la conexión para que la sesión la detecte.
+     */
+    private void drenar() {
+        List<byte[]> lote = new ArrayList<>();
+        try {
+            boolean fin = false;
+            while (!fin) {
+                lote.add(cola.take());
+                cola.drainTo(lote);
+                for (byte[] bloque : lote) {
+                    if (bloque == FIN) {
+                        fin = true;
+                        break;
+                    }
+                    destino.write(bloque);
+                }
+                destino.flush();
+                lote.clear();
+            }
+        } catch (IOException e) {
+            cerrarSocket();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            cerrada = true;
+            cola.clear();
+        }
+    }
+
+    private void verificarAbierta() throws IOException {
+        if (cerrada) {
+            throw new IOException("La cola de salida está cerrada");
+        }
+    }
+
+    private void cerrarSocket() {
+        cerrada = true;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // El socket ya estaba cerrado; la sesión se entera al leer
+        }
+    }
+}
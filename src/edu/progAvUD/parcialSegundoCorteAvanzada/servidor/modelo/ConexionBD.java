@@ -1,24 +1,32 @@
 package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * La clase **`ConexionBD`** es una utilidad estática diseñada para gestionar la conexión a una base de datos utilizando JDBC.
- * Proporciona métodos para establecer, obtener y cerrar una única conexión a la base de datos, así como para configurar
- * los parámetros de acceso como la URL, el usuario y la contraseña.
+ * Proporciona métodos para obtener conexiones de un {@link PoolConexiones} y cerrarlo, así como para configurar
+ * los parámetros de acceso como la URL, el usuario y la contraseña, y el tamaño del pool.
+ *
+ * Cada conexión obtenida con {@link #getConnection()} es prestada: hay que cerrarla (con try-with-resources)
+ * para devolverla al pool. Varias sesiones pueden pedir conexiones a la vez.
  *
  * @author Andres Felipe
  */
 public class ConexionBD {
 
     /**
-     * Un objeto estático de tipo {@link Connection} que representa la **única conexión activa** a la base de datos.
-     * Se mantiene estático para asegurar que solo haya una conexión abierta en un momento dado, siguiendo
-     * un patrón de diseño similar a un Singleton (aunque no implementado formalmente como tal).
+     * El **pool de conexiones** a la base de datos. Se crea con la primera conexión que se pide,
+     * con la configuración que haya en ese momento.
      */
-    private static Connection connection;
+    private static volatile PoolConexiones pool;
+
+    /**
+     * Protege la creación y el cierre del pool.
+     */
+    private static final ReentrantLock candadoPool = new ReentrantLock();
 
     /**
      * Una cadena estática que almacena la **URL de conexión** a la base de datos.
@@ -36,41 +44,125 @@ public class ConexionBD {
      */
     private static String contrasena;
 
+    // Configuración del pool: conexiones mínimas y máximas, espera por una conexión libre (ms),
+    // inactividad antes de cerrar una conexión libre (ms) y tiempo prestada antes de avisar de una fuga (ms)
+    private static int minimoConexiones = 1;
+    private static int maximoConexiones = 8;
+    private static long esperaMaximaMs = 5000;
+    private static long inactividadMaximaMs = 300000;
+    private static long fugaMs = 30000;
+
     /**
-     * Obtiene una conexión a la base de datos. Si ya existe una conexión previa, esta será cerrada
-     * y reemplazada por una nueva conexión, asegurando que siempre se devuelva una conexión activa y fresca.
+     * Dónde se avisan las fugas de conexiones y los errores del pool.
+     */
+    private static Consumer<String> avisos = System.err::println;
+
+    /**
+     * Presta una conexión del pool. La conexión se devuelve al pool al cerrarla, así que se debe usar
+     * con try-with-resources. Si el pool todavía no existe, se crea con la configuración actual.
      *
      * Es crucial que los parámetros de conexión (URL, usuario, contraseña) hayan sido previamente
      * establecidos usando los métodos `setURLBD`, `setUsuario` y `setContrasena`.
      *
      * @return Un objeto {@link Connection} listo para interactuar con la base de datos.
      * @throws SQLException Si ocurre un error al intentar establecer la conexión con la base de datos,
-     * por ejemplo, credenciales incorrectas, base de datos no disponible, o URL inválida.
+     * por ejemplo, credenciales incorrectas, base de datos no disponible, o URL inválida, o si no se
+     * liberó ninguna conexión a tiempo.
      */
     public static Connection getConnection() throws SQLException {
-        // Antes de establecer una nueva conexión, se recomienda cerrar la existente si está abierta
-        // Esto evita fugas de conexiones si se llama repetidamente sin desconectar explícitamente
-        if (connection != null && !connection.isClosed()) {
-            connection.close(); // Cierra la conexión anterior para evitar acumulación
+        PoolConexiones actual = pool;
+        if (actual == null) {
+            candadoPool.lock();
+            try {
+                actual = pool;
+                if (actual == null) {
+                    actual = new PoolConexiones(conLotesReescritos(URLBD), usuario, contrasena, minimoConexiones, maximoConexiones,
+                            esperaMaximaMs, inactividadMaximaMs, fugaMs, avisos);
+                    pool = actual;
+                }
+            } finally {
+                candadoPool.unlock();
+            }
         }
-        // Establece una nueva conexión utilizando los parámetros configurados
-        connection = DriverManager.getConnection(URLBD, usuario, contrasena);
-        return connection;
+        return actual.prestar();
     }
 
     /**
-     * Cierra la conexión actual a la base de datos.
-     * Este método invoca el método `close()` del objeto {@link Connection} para liberar los recursos
-     * asociados y luego establece la referencia `connection` a `null` para indicar que no hay una
-     * conexión activa.
+     * Agrega `rewriteBatchedStatements=true` a una URL de MySQL que no lo tenga, para que el driver
+     * envíe cada lote de {@link InsercionPorLotes} como un solo `INSERT` de varias filas en lugar de
+     * una sentencia por fila. No cambia nada para las consultas que no van por lotes.
      *
-     * @throws SQLException Si ocurre un error al intentar cerrar la conexión.
+     * @param url La URL de conexión.
+     * @return La URL con la propiedad, o la misma URL si no es de MySQL o ya la tiene.
      */
-    public static void desconectar() throws SQLException {
-        if (connection != null && !connection.isClosed()) {
-            connection.close();
+    private static String conLotesReescritos(String url) {
+        if (url == null || !url.startsWith("jdbc:mysql:") || url.contains("rewriteBatchedStatements")) {
+            return url;
         }
-        connection = null; // Establece la referencia a null para indicar que no hay conexión activa
+        return url + (url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true";
+    }
+
+    /**
+     * Cierra el pool de conexiones. Las conexiones libres se cierran enseguida y las prestadas al
+     * devolverse. La siguiente llamada a {@link #getConnection()} crea un pool nuevo.
+     */
+    public static void desconectar() {
+        candadoPool.lock();
+        try {
+            if (pool != null) {
+                pool.cerrar();
+                pool = null;
+            }
+        } finally {
+            candadoPool.unlock();
+        }
+    }
+
+    /**
+     * Configura el tamaño y los tiempos del pool. Si el pool ya existía, se cierra para que el
+     * siguiente {@link #getConnection()} use la configuración nueva.
+     *
+     * @param minimo Las conexiones que se mantienen abiertas.
+     * @param maximo El máximo de conexiones abiertas a la vez.
+     * @param esperaMaxima Cuánto se espera una conexión libre (ms).
+     * @param inactividadMaxima Cuánto puede estar libre una conexión antes de cerrarla (ms), o 0 para no cerrarlas.
+     * @param fuga Cuánto puede estar prestada una conexión antes de avisar de una fuga (ms), o 0 para no vigilarlas.
+     */
+    public static void configurarPool(int minimo, int maximo, long esperaMaxima, long inactividadMaxima, long fuga) {
+        minimoConexiones = minimo;
+        maximoConexiones = maximo;
+        esperaMaximaMs = esperaMaxima;
+        inactividadMaximaMs = inactividadMaxima;
+        fugaMs = fuga;
+        desconectar();
+    }
+
+    /**
+     * Obtiene el máximo de conexiones del pool configurado (`POOL_MAXIMO`).
+     *
+     * @return El máximo de conexiones abiertas a la vez, al menos 1.
+     */
+    public static int getMaximoConexiones() {
+        return Math.max(1, maximoConexiones);
+    }
+
+    /**
+     * Establece dónde se avisan las fugas de conexiones y los errores del pool.
+     *
+     * @param avisos Quien recibe los avisos, normalmente la consola del servidor.
+     */
+    public static void setAvisos(Consumer<String> avisos) {
+        ConexionBD.avisos = avisos;
+    }
+
+    /**
+     * Describe el estado del pool para la consola del servidor.
+     *
+     * @return Las conexiones abiertas, libres y prestadas, o un aviso si el pool no se ha creado.
+     */
+    public static String describirPool() {
+        PoolConexiones actual = pool;
+        return actual != null ? actual.describirEstado() : "Pool de conexiones: sin crear";
     }
 
     /**
@@ -0,0 +1,228 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * La clase `EscrituraEstadisticas` guarda las estadísticas de los jugadores en la base de datos sin
+ * que las partidas esperen a MySQL (escritura diferida).
+ *
+ * Los hilos de las partidas solo anotan en memoria: cada jugada se suma al acumulado pendiente del
+ * jugador con un `merge` de un {@link ConcurrentHashMap}, así que mil jugadas de un jugador entre
+ * dos escrituras se guardan como una sola fila; cada partida terminada deja sus resultados en una
+ * cola. El hilo `estadisticas-jugadores` lo guarda todo con {@link EstadisticasDAO} cada cierto
+ * tiempo y cuando termina una partida.
+ *
+ * Si la base de datos falla, los cambios vuelven a quedar pendientes para la siguiente escritura;
+ * si se acumulan más de {@link #MAXIMO_RESULTADOS_PENDIENTES} resultados sin guardar, los más
+ * viejos se descartan y se cuentan.
+ *
+ * @author Andres Felipe
+ */
+public final class EscrituraEstadisticas {
+
+    /**
+     * Resultados de partidas que pueden esperar a guardarse.
+     */
+    private static final int MAXIMO_RESULTADOS_PENDIENTES = 10000;
+
+    private final EstadisticasDAO estadisticasDao;
+    private final Consumer<String> avisos;
+
+    /**
+     * Cambios de cada jugador desde la última escritura, por usuario.
+     */
+    private final ConcurrentHashMap<String, EstadisticasJugadorVO> acumuladosPendientes;
+
+    private final ConcurrentLinkedQueue<ResultadoPartidaVO> resultadosPendientes;
+    private final AtomicInteger cantidadResultadosPendientes;
+
+    private final ScheduledExecutorService escritor;
+
+    /**
+     * Evita que dos escrituras (la periódica y la de fin de partida) se crucen.
+     */
+    private final ReentrantLock candadoEscritura;
+
+    private ScheduledFuture<?> escrituraPeriodica;
+
+    private final AtomicLong escrituras;
+    private final AtomicLong fallidas;
+    private final AtomicLong descartados;
+
+    /**
+     * Constructor de la clase `EscrituraEstadisticas`.
+     *
+     * @param estadisticasDao El DAO con el que se guardan las estadísticas.
+     * @param periodoMs Cada cuánto (ms) se guardan los cambios pendientes.
+     * @param avisos Dónde se avisan los errores al guardar, normalmente la consola del servidor.
+     */
+    public EscrituraEstadisticas(EstadisticasDAO estadisticasDao, long periodoMs, Consumer<String> avisos) {
+        this.estadisticasDao = estadisticasDao;
+        this.avisos = avisos;
+        this.acumuladosPendientes = new ConcurrentHashMap<>();
+        this.resultadosPendientes = new ConcurrentLinkedQueue<>();
+        this.cantidadResultadosPendientes = new AtomicInteger();
+        this.candadoEscritura = new ReentrantLock();
+        this.escrituras = new AtomicLong();
+        this.fallidas = new AtomicLong();
+        this.descartados = new AtomicLong();
+        this.escritor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon(true).name("estadisticas-jugadores").factory());
+        configurarPeriodo(periodoMs);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::cerrar, "estadisticas-jugadores-cierre"));
+    }
+
+    /**
+     * Cambia cada cuánto se guardan los cambios pendientes.
+     *
+     * @param periodoMs El periodo (ms), mayor que 0.
+     * @throws IllegalArgumentException Si el periodo no es positivo.
+     */
+    public void configurarPeriodo(long periodoMs) {
+        if (periodoMs <= 0) {
+            throw new IllegalArgumentException("El periodo de escritura de estadísticas debe ser mayor que 0");
+        }
+        candadoEscritura.lock();
+        try {
+            if (escrituraPeriodica != null) {
+                escrituraPeriodica.cancel(false);
+            }
+            escrituraPeriodica = escritor.scheduleWithFixedDelay(this::guardarPendientes, periodoMs, periodoMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Ya se cerró: no hay más escrituras periódicas
+        } finally {
+            candadoEscritura.unlock();
+        }
+    }
+
+    /**
+     * Anota una jugada de un jugador. No espera a la base de datos.
+     *
+     * @param usuario El usuario del jugador.
+     * @param acierto Si la jugada encontró una pareja.
+     */
+    public void registrarJugada(String usuario, boolean acierto) {
+        if (usuario == null) {
+            return;
+        }
+        acumuladosPendientes.merge(usuario, new EstadisticasJugadorVO(usuario, 0, 0, 1, acierto ? 1 : 0), EstadisticasJugadorVO::sumar);
+    }
+
+    /**
+     * Anota el resultado de un jugador en una partida terminada. Las jugadas ya se anotaron con
+     * {@link #registrarJugada(String, boolean)}; aquí se suma la partida jugada (y ganada).
+     *
+     * @param resultado El resultado del jugador.
+     */
+    public void registrarPartida(ResultadoPartidaVO resultado) {
+        if (resultado.getUsuario() == null) {
+            return;
+        }
+        acumuladosPendientes.merge(resultado.getUsuario(),
+                new EstadisticasJugadorVO(resultado.getUsuario(), 1, resultado.isGano() ? 1 : 0, 0, 0), EstadisticasJugadorVO::sumar);
+        encolarResultado(resultado);
+    }
+
+    /**
+     * Pide que se guarde lo pendiente ya, sin esperar al periodo (por ejemplo, al terminar una
+     * partida). Vuelve enseguida; la escritura se hace en el hilo de las estadísticas.
+     */
+    public void solicitarEscritura() {
+        try {
+            escritor.execute(this::guardarPendientes);
+        } catch (RejectedExecutionException e) {
+            // Ya se cerró: lo pendiente se guardó al cerrar
+        }
+    }
+
+    /**
+     * Guarda lo pendiente y detiene el hilo de las estadísticas. Se llama al cerrar el servidor.
+     */
+    public void cerrar() {
+        escritor.shutdown();
+        try {
+            escritor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        guardarPendientes();
+    }
+
+    /**
+     * Resume el estado de la escritura para la consola del servidor.
+     *
+     * @return Los jugadores y resultados pendientes y las escrituras hechas, fallidas y descartadas.
+     */
+    public String describirEstado() {
+        return "Estadísticas: " + acumuladosPendientes.size() + " jugadores y " + cantidadResultadosPendientes.get()
+                + " resultados pendientes, " + escrituras.get() + " escrituras, " + fallidas.get() + " fallidas, "
+                + descartados.get() + " resultados descartados";
+    }
+
+    /**
+     * Toma todo lo pendiente y lo guarda en una sola transacción. Si falla, lo devuelve a los
+     * pendientes.
+     */
+    private void guardarPendientes() {
+        candadoEscritura.lock();
+        try {
+            ArrayList<EstadisticasJugadorVO> acumulados = new ArrayList<>();
+            for (String usuario : acumuladosPendientes.keySet()) {
+                EstadisticasJugadorVO cambio = acumuladosPendientes.remove(usuario);
+                if (cambio != null) {
+                    acumulados.add(cambio);
+                }
+            }
+            ArrayList<ResultadoPartidaVO> resultados = new ArrayList<>();
+            ResultadoPartidaVO resultado;
+            while ((resultado = resultadosPendientes.poll()) != null) {
+                cantidadResultadosPendientes.decrementAndGet();
+                resultados.add(resultado);
+            }
+            if (acumulados.isEmpty() && resultados.isEmpty()) {
+                return;
+            }
+
+            try {
+                estadisticasDao.guardar(resultados, acumulados);
+                escrituras.incrementAndGet();
+            } catch (SQLException | RuntimeException ex) {
+                fallidas.incrementAndGet();
+                for (EstadisticasJugadorVO cambio : acumulados) {
+                    acumuladosPendientes.merge(cambio.getUsuario(), cambio, EstadisticasJugadorVO::sumar);
+                }
+                for (ResultadoPartidaVO pendiente : resultados) {
+                    encolarResultado(pendiente);
+                }
+                avisos.accept("No se pudieron guardar las estadísticas de " + acumulados.size() + " jugadores, se reintentará: " + ex.getMessage());
+            }
+        } finally {
+            candadoEscritura.unlock();
+        }
+    }
+
+    /**
+     * Deja un resultado en la cola, descartando el más viejo si la cola está llena.
+     *
+     * @param resultado El resultado.
+     */
+    private void encolarResultado(ResultadoPartidaVO resultado) {
+        resultadosPendientes.add(resultado);
+        if (cantidadResultadosPendientes.incrementAndGet() > MAXIMO_RESULTADOS_PENDIENTES
+                && resultadosPendientes.poll() != null) {
+            cantidadResultadosPendientes.decrementAndGet();
+            descartados.incrementAndGet();
+        }
+    }
+}
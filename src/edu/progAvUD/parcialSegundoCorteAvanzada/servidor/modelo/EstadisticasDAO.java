@@ -0,0 +1,97 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * DAO de las estadísticas de los jugadores: los resultados de cada partida (tabla
+ * `resultadosPartida`) y los acumulados de toda la vida de cada jugador (tabla
+ * `estadisticasJugador`).
+ *
+ * No se usa desde los hilos de las partidas: lo llama {@link EscrituraEstadisticas}, que junta los
+ * cambios y los guarda por lotes en su propio hilo.
+ *
+ * @author Cristianlol789
+ */
+public class EstadisticasDAO {
+
+    /**
+     * Constructor por defecto.
+     */
+    public EstadisticasDAO() {
+    }
+
+    /**
+     * Guarda en una sola transacción los resultados de partidas y suma los cambios a los acumulados
+     * de cada jugador (creando su fila si no existe)
+     *
+     * @param resultados los resultados de las partidas terminadas
+     * @param acumulados los cambios por jugador desde la última vez
+     * @throws SQLException Si ocurre un error; en ese caso no se guarda nada
+     */
+    public void guardar(Collection<ResultadoPartidaVO> resultados, Collection<EstadisticasJugadorVO> acumulados) throws SQLException {
+        String insercionResultado = "INSERT INTO resultadosPartida (usuario, sala, intentos, parejas, porcentaje, gano) VALUES (?, ?, ?, ?, ?, ?)";
+        String actualizacionAcumulado = "INSERT INTO estadisticasJugador (usuario, partidasJugadas, partidasGanadas, intentos, parejas) "
+                + "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+                + "partidasJugadas = partidasJugadas + VALUES(partidasJugadas), "
+                + "partidasGanadas = partidasGanadas + VALUES(partidasGanadas), "
+                + "intentos = intentos + VALUES(intentos), "
+                + "parejas = parejas + VALUES(parejas)";
+        try (Connection connection = ConexionBD.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement resultado = connection.prepareStatement(insercionResultado);
+                    PreparedStatement acumulado = connection.prepareStatement(actualizacionAcumulado)) {
+                for (ResultadoPartidaVO partida : resultados) {
+                    resultado.setString(1, partida.getUsuario());
+                    resultado.setInt(2, partida.getSala());
+                    resultado.setInt(3, partida.getIntentos());
+                    resultado.setInt(4, partida.getParejas());
+                    resultado.setInt(5, partida.getPorcentaje());
+                    resultado.setBoolean(6, partida.isGano());
+                    resultado.addBatch();
+                }
+                for (EstadisticasJugadorVO cambio : acumulados) {
+                    acumulado.setString(1, cambio.getUsuario());
+                    acumulado.setLong(2, cambio.getPartidasJugadas());
+                    acumulado.setLong(3, cambio.getPartidasGanadas());
+                    acumulado.setLong(4, cambio.getIntentos());
+                    acumulado.setLong(5, cambio.getParejas());
+                    acumulado.addBatch();
+                }
+                resultado.executeBatch();
+                acumulado.executeBatch();
+                connection.commit();
+            } catch (SQLException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Obtiene las estadísticas acumuladas de todos los jugadores, para armar la clasificación al
+     * arrancar el servidor
+     *
+     * @return Lista con las estadísticas de cada jugador que ha terminado alguna partida
+     * @throws SQLException Si ocurre un error al ejecutar la consulta
+     */
+    public ArrayList<EstadisticasJugadorVO> darEstadisticasJugadores() throws SQLException {
+        String consulta = "SELECT usuario, partidasJugadas, partidasGanadas, intentos, parejas FROM estadisticasJugador WHERE partidasJugadas > 0";
+        ArrayList<EstadisticasJugadorVO> estadisticas = new ArrayList<>();
+        try (Connection connection = ConexionBD.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(consulta);
+                ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                estadisticas.add(new EstadisticasJugadorVO(resultSet.getString("usuario"), resultSet.getLong("partidasJugadas"),
+                        resultSet.getLong("partidasGanadas"), resultSet.getLong("intentos"), resultSet.getLong("parejas")));
+            }
+        }
+        return estadisticas;
+    }
+}
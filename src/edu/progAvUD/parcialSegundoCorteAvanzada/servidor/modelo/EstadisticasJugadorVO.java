@@ -0,0 +1,65 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+/**
+ * Las estadísticas acumuladas de un jugador: partidas jugadas y ganadas, intentos y parejas
+ * encontradas. También sirve para un cambio que se suma a esos acumulados. Es inmutable:
+ * {@link #sumar(EstadisticasJugadorVO)} devuelve una instancia nueva.
+ *
+ * @author Cristianlol789
+ */
+public final class EstadisticasJugadorVO {
+
+    private final String usuario;
+    private final long partidasJugadas;
+    private final long partidasGanadas;
+    private final long intentos;
+    private final long parejas;
+
+    /**
+     * Constructor de la clase `EstadisticasJugadorVO`.
+     *
+     * @param usuario El usuario del jugador.
+     * @param partidasJugadas Las partidas que terminó.
+     * @param partidasGanadas Las partidas que ganó.
+     * @param intentos Las jugadas que hizo.
+     * @param parejas Las parejas que encontró.
+     */
+    public EstadisticasJugadorVO(String usuario, long partidasJugadas, long partidasGanadas, long intentos, long parejas) {
+        this.usuario = usuario;
+        this.partidasJugadas = partidasJugadas;
+        this.partidasGanadas = partidasGanadas;
+        this.intentos = intentos;
+        this.parejas = parejas;
+    }
+
+    /**
+     * Suma dos estadísticas del mismo jugador.
+     *
+     * @param otras Las estadísticas a sumar.
+     * @return Una instancia nueva con la suma.
+     */
+    public EstadisticasJugadorVO sumar(EstadisticasJugadorVO otras) {
+        return new EstadisticasJugadorVO(usuario, partidasJugadas + otras.partidasJugadas, partidasGanadas + otras.partidasGanadas,
+                intentos + otras.intentos, parejas + otras.parejas);
+    }
+
+    public String getUsuario() {
+        return usuario;
+    }
+
+    public long getPartidasJugadas() {
+        return partidasJugadas;
+    }
+
+    public long getPartidasGanadas() {
+        return partidasGanadas;
+    }
+
+    public long getIntentos() {
+        return intentos;
+    }
+
+    public long getParejas() {
+        return parejas;
+    }
+}
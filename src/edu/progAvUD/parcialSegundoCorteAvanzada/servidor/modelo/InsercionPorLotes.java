@@ -0,0 +1,119 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Inserción de muchos jugadores en una sola transacción, enviándolos a la base de datos por lotes
+ * con `addBatch`/`executeBatch`. Con MySQL, {@link ConexionBD} agrega `rewriteBatchedStatements`
+ * a la URL, así que cada lote viaja como un solo `INSERT` de varias filas.
+ *
+ * Se usa con try-with-resources: si se cierra sin llamar a {@link #confirmar()}, se deshace todo lo
+ * insertado y la conexión vuelve al pool.
+ *
+ * No vuelve a verificar que el usuario o la cédula sean únicos; eso lo hace quien llama, en
+ * memoria. Si aun así llega un usuario repetido, el índice único de la tabla hace fallar el lote.
+ *
+ * @author Cristianlol789
+ */
+public class InsercionPorLotes implements AutoCloseable {
+
+    private final Connection connection;
+    private final PreparedStatement preparedStatement;
+    private final int tamanoLote;
+    private int pendientes;
+    private int insertados;
+    private boolean confirmada;
+
+    /**
+     * Abre la transacción. Lo llama {@link JugadorDAO#iniciarInsercionPorLotes(int)}.
+     *
+     * @param tamanoLote Cuántos jugadores se envían en cada lote.
+     * @throws SQLException Si no se pudo obtener la conexión o preparar la inserción.
+     */
+    InsercionPorLotes(int tamanoLote) throws SQLException {
+        this(ConexionBD.getConnection(), tamanoLote);
+    }
+
+    /**
+     * Abre la transacción sobre una conexión dada, que se cierra junto con la
+     * inserción.
+     *
+     * @param connection La conexión con la que se inserta.
+     * @param tamanoLote Cuántos jugadores se envían en cada lote.
+     * @throws SQLException Si no se pudo preparar la inserción.
+     */
+    InsercionPorLotes(Connection connection, int tamanoLote) throws SQLException {
+        this.tamanoLote = Math.max(1, tamanoLote);
+        this.connection = connection;
+        try {
+            connection.setAutoCommit(false);
+            this.preparedStatement = connection.prepareStatement(
+                    "INSERT INTO jugadores (nombreJugador, cedula, usuario, contrasena) VALUES (?, ?, ?, ?)");
+        } catch (SQLException ex) {
+            connection.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Agrega un jugador al lote actual y envía el lote si ya está lleno.
+     *
+     * @param jugador El jugador, ya validado.
+     * @throws SQLException Si falla el envío del lote.
+     */
+    public void agregar(JugadorVO jugador) throws SQLException {
+        preparedStatement.setString(1, jugador.getNombreJugador());
+        preparedStatement.setString(2, jugador.getCedula());
+        preparedStatement.setString(3, jugador.getUsuario());
+        preparedStatement.setString(4, jugador.getContrasena());
+        preparedStatement.addBatch();
+        pendientes++;
+        if (pendientes >= tamanoLote) {
+            enviarLote();
+        }
+    }
+
+    /**
+     * Envía el último lote y confirma la transacción.
+     *
+     * @return La cantidad de jugadores insertados.
+     * @throws SQLException Si falla el envío o la confirmación.
+     */
+    public int confirmar() throws SQLException {
+        enviarLote();
+        connection.commit();
+        confirmada = true;
+        return insertados;
+    }
+
+    private void enviarLote() throws SQLException {
+        if (pendientes > 0) {
+            preparedStatement.executeBatch();
+            insertados += pendientes;
+            pendientes = 0;
+        }
+    }
+
+    /**
+     * Deshace la transacción si no se confirmó y devuelve la conexión al pool.
+     *
+     * @throws SQLException Si falla el cierre.
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (!confirmada) {
+                connection.rollback();
+            }
+            connection.setAutoCommit(true);
+        } finally {
+            try {
+                preparedStatement.close();
+            } finally {
+                connection.close();
+            }
+        }
+    }
+}
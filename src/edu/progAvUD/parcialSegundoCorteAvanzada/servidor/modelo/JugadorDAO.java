@@ -5,25 +5,35 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Set;
 
 /**
  * DAO de Jugador con validación mejorada para usuarios únicos
  *
+ * Cada método pide su propia conexión al pool ({@link ConexionBD#getConnection()}) y la devuelve al
+ * terminar, así que varias sesiones pueden usar el mismo DAO a la vez.
+ *
  * @author Cristianlol789
  */
 public class JugadorDAO {
 
-    private Connection connection;
-    private PreparedStatement preparedStatement;
-    private ResultSet resultSet;
-
     /**
-     * Constructor por defecto, inicializa las variables como null.
+     * Constructor por defecto.
      */
     public JugadorDAO() {
-        this.connection = null;
-        this.preparedStatement = null;
-        this.resultSet = null;
+    }
+
+    /**
+     * Normaliza un usuario igual que la columna `usuarioNormalizado` de la tabla
+     * (`LOWER(TRIM(usuario))`). Las consultas comparan contra esa columna con el dato ya
+     * normalizado, para que MySQL use su índice en lugar de recorrer la tabla.
+     *
+     * @param usuario el usuario
+     * @return el usuario sin espacios a los lados y en minúsculas
+     */
+    public static String normalizarUsuario(String usuario) {
+        return usuario.trim().toLowerCase(Locale.ROOT);
     }
 
     /**
@@ -34,27 +44,15 @@ public class JugadorDAO {
      * @throws SQLException Si ocurre un error al ejecutar la consulta
      */
     public boolean existeUsuario(String usuario) throws SQLException {
-        String consulta = "SELECT COUNT(*) FROM jugadores WHERE LOWER(TRIM(usuario)) = LOWER(TRIM(?))";
-        connection = ConexionBD.getConnection();
-        preparedStatement = connection.prepareStatement(consulta);
-        preparedStatement.setString(1, usuario);
-        resultSet = preparedStatement.executeQuery();
-
-        boolean existe = false;
-        if (resultSet.next()) {
-            existe = resultSet.getInt(1) > 0;
-        }
-
-        // Cerrar recursos
-        if (resultSet != null) {
-            resultSet.close();
-        }
-        if (preparedStatement != null) {
-            preparedStatement.close();
+        String consulta = "SELECT COUNT(*) FROM jugadores WHERE usuarioNormalizado = ?";
+        // Los recursos se cierran (y la conexión vuelve al pool) al salir del try
+        try (Connection connection = ConexionBD.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(consulta)) {
+            preparedStatement.setString(1, normalizarUsuario(usuario));
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                return resultSet.next() && resultSet.getInt(1) > 0;
+            }
         }
-        ConexionBD.desconectar();
-
-        return existe;
     }
 
     /**
@@ -69,27 +67,14 @@ public class JugadorDAO {
             return false; // Si no hay cédula, no puede estar duplicada
         }
         
-        String consulta = "SELECT COUNT(*) FROM jugadores WHERE TRIM(cedula) = TRIM(?)";
-        connection = ConexionBD.getConnection();
-        preparedStatement = connection.prepareStatement(consulta);
-        preparedStatement.setString(1, cedula);
-        resultSet = preparedStatement.executeQuery();
-
-        boolean existe = false;
-        if (resultSet.next()) {
-            existe = resultSet.getInt(1) > 0;
-        }
-
-        // Cerrar recursos
-        if (resultSet != null) {
-            resultSet.close();
-        }
-        if (preparedStatement != null) {
-            preparedStatement.close();
+        String consulta = "SELECT COUNT(*) FROM jugadores WHERE cedulaNormalizada = ?";
+        try (Connection connection = ConexionBD.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(consulta)) {
+            preparedStatement.setString(1, cedula.trim());
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                return resultSet.next() && resultSet.getInt(1) > 0;
+            }
         }
-        ConexionBD.desconectar();
-
-        return existe;
     }
 
     /**
@@ -103,27 +88,19 @@ public class JugadorDAO {
      * @throws SQLException Si ocurre un error al ejecutar la consulta
      */
     public JugadorVO consultarUsuarioJugador(String usuario, JugadorVO jugador) throws SQLException {
-        String consulta = "SELECT * FROM jugadores WHERE LOWER(TRIM(usuario)) = LOWER(TRIM(?))";
-        connection = ConexionBD.getConnection();
-        preparedStatement = connection.prepareStatement(consulta);
-        preparedStatement.setString(1, usuario);
-        resultSet = preparedStatement.executeQuery();
-
-        if (resultSet.next()) {
-            jugador.setNombreJugador(resultSet.getString("nombreJugador"));
-            jugador.setCedula(resultSet.getString("cedula"));
-            jugador.setUsuario(resultSet.getString("usuario"));
-            jugador.setContrasena(resultSet.getString("contrasena"));
-        }
-
-        // Cerrar recursos
-        if (resultSet != null) {
-            resultSet.close();
-        }
-        if (preparedStatement != null) {
-            preparedStatement.close();
+        String consulta = "SELECT nombreJugador, cedula, usuario, contrasena FROM jugadores WHERE usuarioNormalizado = ?";
+        try (Connection connection = ConexionBD.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(consulta)) {
+            preparedStatement.setString(1, normalizarUsuario(usuario));
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    jugador.setNombreJugador(resultSet.getString("nombreJugador"));
+                    jugador.setCedula(resultSet.getString("cedula"));
+                    jugador.setUsuario(resultSet.getString("usuario"));
+                    jugador.setContrasena(resultSet.getString("contrasena"));
+                }
+            }
         }
-        ConexionBD.desconectar();
 
         return jugador;
     }
@@ -136,25 +113,11 @@ public class JugadorDAO {
      */
     public int consultarCantidadJugadores() throws SQLException {
         String consulta = "SELECT COUNT(*) FROM jugadores";
-        connection = ConexionBD.getConnection();
-        preparedStatement = connection.prepareStatement(consulta);
-        resultSet = preparedStatement.executeQuery();
-
-        int numero = 0;
-        if (resultSet.next()) {
-            numero = resultSet.getInt(1);
+        try (Connection connection = ConexionBD.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(consulta);
+                ResultSet resultSet = preparedStatement.executeQuery()) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
         }
-
-        // Cerrar recursos
-        if (resultSet != null) {
-            resultSet.close();
-        }
-        if (preparedStatement != null) {
-            preparedStatement.close();
-        }
-        ConexionBD.desconectar();
-
-        return numero;
     }
 
     /**
@@ -165,28 +128,19 @@ public class JugadorDAO {
      */
     public ArrayList<JugadorVO> darListaJugadores() throws SQLException {
         String consulta = "SELECT * FROM jugadores";
-        connection = ConexionBD.getConnection();
-        preparedStatement = connection.prepareStatement(consulta);
-        resultSet = preparedStatement.executeQuery();
-
         ArrayList<JugadorVO> jugadores = new ArrayList<>();
-        while (resultSet.next()) {
-            JugadorVO jugador = new JugadorVO();
-            jugador.setNombreJugador(resultSet.getString("nombreJugador"));
-            jugador.setCedula(resultSet.getString("cedula"));
-            jugador.setUsuario(resultSet.getString("usuario"));
-            jugador.setContrasena(resultSet.getString("contrasena"));
-            jugadores.add(jugador);
-        }
-
-        // Cerrar recursos
-        if (resultSet != null) {
-            resultSet.close();
-        }
-        if (preparedStatement != null) {
-            preparedStatement.close();
+        try (Connection connection = ConexionBD.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(consulta);
+                ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                JugadorVO jugador = new JugadorVO();
+                jugador.setNombreJugador(resultSet.getString("nombreJugador"));
+                jugador.setCedula(resultSet.getString("cedula"));
+                jugador.setUsuario(resultSet.getString("usuario"));
+                jugador.setContrasena(resultSet.getString("contrasena"));
+                jugadores.add(jugador);
+            }
         }
-        ConexionBD.desconectar();
 
         return jugadores;
     }
@@ -213,19 +167,45 @@ public class JugadorDAO {
         }
 
         String insercion = "INSERT INTO jugadores (nombreJugador, cedula, usuario, contrasena) VALUES (?, ?, ?, ?)";
-        connection = ConexionBD.getConnection();
-        preparedStatement = connection.prepareStatement(insercion);
+        try (Connection connection = ConexionBD.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(insercion)) {
+            preparedStatement.setString(1, jugador.getNombreJugador());
+            preparedStatement.setString(2, jugador.getCedula());
+            preparedStatement.setString(3, jugador.getUsuario());
+            preparedStatement.setString(4, jugador.getContrasena());
 
-        preparedStatement.setString(1, jugador.getNombreJugador());
-        preparedStatement.setString(2, jugador.getCedula());
-        preparedStatement.setString(3, jugador.getUsuario());
-        preparedStatement.setString(4, jugador.getContrasena());
-
-        preparedStatement.executeUpdate();
+            preparedStatement.executeUpdate();
+        }
+    }
 
-        if (preparedStatement != null) {
-            preparedStatement.close();
+    /**
+     * Agrega a los conjuntos los usuarios y las cédulas ya registrados, normalizados como en las
+     * columnas de búsqueda, para validar en memoria una importación grande
+     *
+     * @param usuarios conjunto donde se agregan los usuarios normalizados
+     * @param cedulas conjunto donde se agregan las cédulas normalizadas
+     * @throws SQLException Si ocurre un error al ejecutar la consulta
+     */
+    public void cargarUsuariosYCedulas(Set<String> usuarios, Set<String> cedulas) throws SQLException {
+        String consulta = "SELECT usuarioNormalizado, cedulaNormalizada FROM jugadores";
+        try (Connection connection = ConexionBD.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(consulta);
+                ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                usuarios.add(resultSet.getString(1));
+                cedulas.add(resultSet.getString(2));
+            }
         }
-        ConexionBD.desconectar();
     }
-}
\ No newline at end of file
+
+    /**
+     * Abre una inserción por lotes en una sola transacción, para importar muchos jugadores
+     *
+     * @param tamanoLote cuántos jugadores se envían en cada lote
+     * @return la inserción, que se debe cerrar (con try-with-resources)
+     * @throws SQLException Si no se pudo obtener la conexión
+     */
+    public InsercionPorLotes iniciarInsercionPorLotes(int tamanoLote) throws SQLException {
+        return new InsercionPorLotes(tamanoLote);
+    }
+}
@@ -0,0 +1,137 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Vector;
+
+/**
+ * Lee jugadores de un archivo CSV línea por línea, sin cargar el archivo completo en memoria, para
+ * importar archivos muy grandes.
+ *
+ * Cada línea tiene `nombreJugador,cedula,usuario,contrasena`, en UTF-8. Se aceptan campos entre
+ * comillas dobles (con `""` para una comilla dentro del campo), se ignoran las líneas vacías y la
+ * primera línea si es un encabezado que empieza por `nombre`. El id de cada {@link JugadorVO} es el
+ * número de la línea. Una línea que no tiene exactamente cuatro campos se entrega sin datos, para
+ * que la importación la rechace con su número de línea.
+ *
+ * @author Cristianlol789
+ */
+public class LectorCsvJugadores implements Iterator<JugadorVO>, Closeable {
+
+    private final BufferedReader lector;
+    private int numeroLinea;
+    private JugadorVO siguiente;
+
+    /**
+     * Abre el archivo.
+     *
+     * @param archivo El archivo CSV.
+     * @throws IOException Si no se pudo abrir.
+     */
+    public LectorCsvJugadores(Path archivo) throws IOException {
+        this.lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException Si falla la lectura del archivo.
+     */
+    @Override
+    public boolean hasNext() {
+        if (siguiente != null) {
+            return true;
+        }
+        try {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                numeroLinea++;
+                if (linea.isBlank()) {
+                    continue;
+                }
+                if (numeroLinea == 1 && linea.trim().toLowerCase().startsWith("nombre")) {
+                    continue; // Encabezado
+                }
+                siguiente = convertir(linea);
+                return true;
+            }
+            return false;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public JugadorVO next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        JugadorVO jugador = siguiente;
+        siguiente = null;
+        return jugador;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lector.close();
+    }
+
+    /**
+     * Convierte una línea en un jugador.
+     *
+     * @param linea La línea del archivo.
+     * @return El jugador, sin datos si la línea no tiene cuatro campos.
+     */
+    private JugadorVO convertir(String linea) {
+        Vector<String> campos = separarCampos(linea);
+        if (campos.size() != 4) {
+            JugadorVO incompleto = new JugadorVO();
+            incompleto.setId(numeroLinea);
+            return incompleto;
+        }
+        return new JugadorVO(campos.get(0).trim(), campos.get(1).trim(), campos.get(2).trim(), campos.get(3).trim(), numeroLinea, 0, 0);
+    }
+
+    /**
+     * Separa los campos de una línea por comas, respetando las comillas dobles.
+     *
+     * @param linea La línea.
+     * @return Los campos.
+     */
+    private static Vector<String> separarCampos(String linea) {
+        Vector<String> campos = new Vector<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"') {
+                    if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                        campo.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    campo.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        campos.add(campo.toString());
+        return campos;
+    }
+}
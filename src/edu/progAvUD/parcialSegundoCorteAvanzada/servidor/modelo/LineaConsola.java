@@ -0,0 +1,57 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.time.LocalTime;
+
+/**
+ * La clase `LineaConsola` es un mensaje de la consola del servidor guardado en
+ * el {@link BufferConsola}: su número de secuencia, la hora, el nivel, el
+ * cliente al que se refiere (si hay uno) y el texto. Es inmutable, así que
+ * se puede pasar del hilo que la escribe al de la interfaz sin copiarla.
+ *
+ * @author Andres Felipe
+ */
+public final class LineaConsola {
+
+    private final long secuencia;
+    private final LocalTime hora;
+    private final NivelConsola nivel;
+    private final String cliente;
+    private final String texto;
+
+    /**
+     * Constructor de la clase `LineaConsola`.
+     *
+     * @param secuencia El número de la línea en el buffer.
+     * @param hora La hora en que se escribió.
+     * @param nivel El nivel del mensaje.
+     * @param cliente El usuario del cliente al que se refiere, o `null`.
+     * @param texto El texto del mensaje.
+     */
+    public LineaConsola(long secuencia, LocalTime hora, NivelConsola nivel, String cliente, String texto) {
+        this.secuencia = secuencia;
+        this.hora = hora;
+        this.nivel = nivel;
+        this.cliente = cliente;
+        this.texto = texto;
+    }
+
+    public long getSecuencia() {
+        return secuencia;
+    }
+
+    public LocalTime getHora() {
+        return hora;
+    }
+
+    public NivelConsola getNivel() {
+        return nivel;
+    }
+
+    public String getCliente() {
+        return cliente;
+    }
+
+    public String getTexto() {
+        return texto;
+    }
+}
@@ -0,0 +1,122 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+/**
+ * La clase `MensajeProtocolo` es el contenedor en el que los códecs dejan el
+ * mensaje que acaban de leer. Es mutable a propósito: cada sesión reutiliza la
+ * misma instancia para todos sus mensajes, así que leer un comando no crea
+ * objetos nuevos (salvo los textos, como el usuario del login).
+ *
+ * @author Andres Felipe
+ */
+public final class MensajeProtocolo {
+
+    /**
+     * Cantidad máxima de valores numéricos de un mensaje (los campos de
+     * {@link Protocolo#OP_RESULTADO_JUGADA}).
+     */
+    public static final int MAXIMO_VALORES = Protocolo.CAMPOS_RESULTADO;
+
+    private byte opcode;
+    private final int[] valores;
+    private String texto;
+    private String texto2;
+    private boolean valido;
+
+    /**
+     * Constructor de la clase `MensajeProtocolo`. Crea un mensaje vacío.
+     */
+    public MensajeProtocolo() {
+        this.valores = new int[MAXIMO_VALORES];
+        reiniciar(Protocolo.OP_DESCONOCIDO);
+    }
+
+    /**
+     * Limpia el mensaje para reutilizarlo con un nuevo opcode.
+     *
+     * @param opcode El opcode del nuevo mensaje.
+     */
+    public void reiniciar(byte opcode) {
+        this.opcode = opcode;
+        this.texto = null;
+        this.texto2 = null;
+        this.valido = true;
+    }
+
+    /**
+     * Obtiene el opcode del mensaje (ver {@link Protocolo}).
+     * @return El opcode.
+     */
+    public byte getOpcode() {
+        return opcode;
+    }
+
+    /**
+     * Obtiene uno de los valores numéricos del mensaje: coordenadas, turno,
+     * estadísticas o versión del protocolo.
+     * @param indice La posición del valor.
+     * @return El valor.
+     */
+    public int getValor(int indice) {
+        return valores[indice];
+    }
+
+    /**
+     * Establece uno de los valores numéricos del mensaje.
+     * @param indice La posición del valor.
+     * @param valor El valor.
+     */
+    public void setValor(int indice, int valor) {
+        valores[indice] = valor;
+    }
+
+    /**
+     * Obtiene el primer texto del mensaje (usuario del login, razón del
+     * fallo, nombre del protocolo...).
+     * @return El texto, o `null` si el mensaje no lleva.
+     */
+    public String getTexto() {
+        return texto;
+    }
+
+    /**
+     * Establece el primer texto del mensaje.
+     * @param texto El texto.
+     */
+    public void setTexto(String texto) {
+        this.texto = texto;
+    }
+
+    /**
+     * Obtiene el segundo texto del mensaje (contraseña del login).
+     * @return El texto, o `null` si el mensaje no lleva.
+     */
+    public String getTexto2() {
+        return texto2;
+    }
+
+    /**
+     * Establece el segundo texto del mensaje.
+     * @param texto2 El texto.
+     */
+    public void setTexto2(String texto2) {
+        this.texto2 = texto2;
+    }
+
+    /**
+     * Indica si los campos del mensaje tenían el formato esperado. Con el
+     * códec de texto es `false`, por ejemplo, si una coordenada no era un
+     * número.
+     * @return `true` si el mensaje es válido.
+     */
+    public boolean isValido() {
+        return valido;
+    }
+
+    /**
+     * Marca si los campos del mensaje tenían el formato esperado.
+     * @param valido `false` si algún campo no se pudo interpretar.
+     */
+    public void setValido(boolean valido) {
+        this.valido = valido;
+    }
+}
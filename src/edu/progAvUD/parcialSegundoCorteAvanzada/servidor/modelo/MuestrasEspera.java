@@ -0,0 +1,99 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * La clase `MuestrasEspera` guarda los últimos tiempos de espera (en
+ * milisegundos) de los jugadores en la cola de emparejamiento y calcula sus
+ * percentiles. Solo conserva las últimas {@link #CAPACIDAD} muestras en un
+ * arreglo circular, así que la memoria no crece con el tiempo.
+ *
+ * Registrar una muestra es O(1); calcular un percentil copia y ordena las
+ * muestras, lo que solo se hace al mostrar las métricas.
+ *
+ * @author Andres Felipe
+ */
+public class MuestrasEspera {
+
+    /**
+     * Cantidad máxima de muestras que se conservan.
+     */
+    public static final int CAPACIDAD = 1024;
+
+    private final long[] muestras;
+    private final ReentrantLock candado;
+    private int siguiente;
+    private int cantidad;
+    private long total;
+
+    /**
+     * Constructor de la clase `MuestrasEspera`.
+     */
+    public MuestrasEspera() {
+        this.muestras = new long[CAPACIDAD];
+        this.candado = new ReentrantLock();
+    }
+
+    /**
+     * Registra el tiempo de espera de un jugador.
+     *
+     * @param esperaMs La espera en milisegundos.
+     */
+    public void registrar(long esperaMs) {
+        candado.lock();
+        try {
+            muestras[siguiente] = esperaMs;
+            siguiente = (siguiente + 1) % CAPACIDAD;
+            if (cantidad < CAPACIDAD) {
+                cantidad++;
+            }
+            total++;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Calcula varios percentiles de las muestras guardadas con el método del
+     * rango más cercano.
+     *
+     * @param percentiles Los percentiles pedidos, entre 0 y 100.
+     * @return La espera en milisegundos de cada percentil, en el mismo orden,
+     * o ceros si todavía no hay muestras.
+     */
+    public long[] calcularPercentiles(double... percentiles) {
+        long[] copia;
+        candado.lock();
+        try {
+            copia = Arrays.copyOf(muestras, cantidad);
+        } finally {
+            candado.unlock();
+        }
+        long[] resultado = new long[percentiles.length];
+        if (copia.length == 0) {
+            return resultado;
+        }
+        Arrays.sort(copia);
+        for (int i = 0; i < percentiles.length; i++) {
+            int rango = (int) Math.ceil(percentiles[i] / 100.0 * copia.length);
+            resultado[i] = copia[Math.min(copia.length - 1, Math.max(0, rango - 1))];
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtiene la cantidad de esperas registradas desde que arrancó el
+     * servidor, incluidas las que ya salieron del arreglo.
+     *
+     * @return El total de muestras registradas.
+     */
+    public long getTotal() {
+        candado.lock();
+        try {
+            return total;
+        } finally {
+            candado.unlock();
+        }
+    }
+}
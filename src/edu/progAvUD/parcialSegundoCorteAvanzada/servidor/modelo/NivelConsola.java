@@ -0,0 +1,42 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+/**
+ * El enum `NivelConsola` es la gravedad de un mensaje de la consola del
+ * servidor, que se usa para filtrarla. Van de menor a mayor gravedad.
+ *
+ * @author Andres Felipe
+ */
+public enum NivelConsola {
+    /**
+     * Detalle de cada jugada y turno; solo se registra si se pide.
+     */
+    DEPURACION,
+    INFO,
+    ADVERTENCIA,
+    ERROR;
+
+    /**
+     * Deduce el nivel de un mensaje por su texto. Los mensajes de la consola
+     * se escriben como texto libre en todo el servidor, así que se reconocen
+     * por las palabras con las que se redactan los errores ("Error ...",
+     * "... failed", "No se pudo ...") y las advertencias (valores inválidos,
+     * comandos ignorados o desconocidos, desconexiones).
+     *
+     * @param mensaje El texto del mensaje.
+     * @return El nivel del mensaje.
+     */
+    public static NivelConsola deducir(String mensaje) {
+        if (mensaje == null) {
+            return INFO;
+        }
+        String texto = mensaje.toLowerCase();
+        if (texto.startsWith("error") || texto.contains(" error") || texto.contains("failed") || texto.contains("no se pudo")) {
+            return ERROR;
+        }
+        if (texto.contains("no es un número válido") || texto.contains("se ignora") || texto.contains("desconocido")
+                || texto.contains("desconect") || texto.contains("descartad")) {
+            return ADVERTENCIA;
+        }
+        return INFO;
+    }
+}
@@ -0,0 +1,101 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * La clase `PlanificadorServidor` ejecuta las tareas del servidor que tienen que esperar un tiempo:
+ * voltear las cartas de un fallo, revisar las esperas del emparejamiento, cerrar el servidor después
+ * de anunciar el ganador. Así ningún hilo de sesión se queda dormido esperando.
+ *
+ * Todas las salas comparten el mismo planificador, con pocos hilos, así que las tareas deben ser
+ * cortas. Si una tarea lanza una excepción se avisa y se cuenta; las tareas periódicas siguen
+ * ejecutándose. Las tareas canceladas salen de la cola enseguida.
+ *
+ * @author Andres Felipe
+ */
+public class PlanificadorServidor {
+
+    private final ScheduledThreadPoolExecutor ejecutor;
+    private final Consumer<String> avisos;
+
+    private final AtomicLong ejecutadas;
+    private final AtomicLong fallidas;
+
+    /**
+     * Constructor de la clase `PlanificadorServidor`.
+     *
+     * @param hilos Los hilos que ejecutan las tareas (al menos 1).
+     * @param avisos Dónde se avisan las tareas que fallan, normalmente la consola del servidor.
+     */
+    public PlanificadorServidor(int hilos, Consumer<String> avisos) {
+        this.avisos = avisos;
+        this.ejecutadas = new AtomicLong();
+        this.fallidas = new AtomicLong();
+        this.ejecutor = new ScheduledThreadPoolExecutor(Math.max(1, hilos), Thread.ofPlatform().daemon(true).name("planificador-", 1).factory());
+        this.ejecutor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Ejecuta una tarea una sola vez, pasado un tiempo.
+     *
+     * @param tarea La tarea.
+     * @param retrasoMs Cuánto esperar (ms); 0 o menos para ejecutarla enseguida.
+     * @return La tarea programada, para cancelarla; `null` si el planificador ya se detuvo.
+     */
+    public ScheduledFuture<?> programar(Runnable tarea, long retrasoMs) {
+        try {
+            return ejecutor.schedule(() -> ejecutar(tarea), Math.max(0, retrasoMs), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Ejecuta una tarea cada cierto tiempo, empezando después de un periodo.
+     *
+     * @param tarea La tarea.
+     * @param periodoMs El periodo (ms), mayor que 0.
+     * @return La tarea programada, para cancelarla; `null` si el planificador ya se detuvo.
+     * @throws IllegalArgumentException Si el periodo no es positivo.
+     */
+    public ScheduledFuture<?> programarPeriodica(Runnable tarea, long periodoMs) {
+        if (periodoMs <= 0) {
+            throw new IllegalArgumentException("El periodo de una tarea periódica debe ser mayor que 0");
+        }
+        try {
+            return ejecutor.scheduleAtFixedRate(() -> ejecutar(tarea), periodoMs, periodoMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Resume el estado del planificador para la consola del servidor.
+     *
+     * @return Las tareas en espera, las ejecutadas y las que fallaron.
+     */
+    public String describirEstado() {
+        return "Planificador: " + ejecutor.getQueue().size() + " tareas en espera, " + ejecutadas.get()
+                + " ejecutadas, " + fallidas.get() + " fallidas";
+    }
+
+    /**
+     * Ejecuta una tarea sin dejar que su excepción detenga las siguientes ejecuciones.
+     *
+     * @param tarea La tarea.
+     */
+    private void ejecutar(Runnable tarea) {
+        try {
+            tarea.run();
+            ejecutadas.incrementAndGet();
+        } catch (RuntimeException e) {
+            fallidas.incrementAndGet();
+            avisos.accept("Falló una tarea programada: " + e);
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * La clase `PoolConexiones` mantiene abiertas conexiones JDBC a la base de
+ * datos para que cada consulta no pague una conexión nueva con MySQL.
+ *
+ * {@link #prestar()} entrega una conexión libre (validada antes con
+ * `isValid`), abre una nueva si todavía no se llegó al máximo, o espera a que
+ * otra se devuelva. La conexión prestada se devuelve al pool con `close()`,
+ * así que se usa con un try-with-resources igual que una conexión normal.
+ *
+ * Un hilo de mantenimiento revisa el pool cada
+ * {@link #PERIODO_MANTENIMIENTO_MS} ms: cierra las conexiones que llevan
+ * demasiado tiempo sin usarse (sin bajar del mínimo), vuelve a abrir hasta el
+ * mínimo y avisa de las conexiones prestadas hace demasiado tiempo, que
+ * probablemente nunca se cerraron, con el lugar donde se pidieron.
+ *
+ * @author Andres Felipe
+ */
+public class PoolConexiones {
+
+    /**
+     * Cada cuánto se revisan las conexiones inactivas y las fugas.
+     */
+    private static final long PERIODO_MANTENIMIENTO_MS = 5000;
+
+    /**
+     * Segundos que se espera a que una conexión responda al validarla.
+     */
+    private static final int SEGUNDOS_VALIDACION = 2;
+
+    private final String url;
+    private final String usuario;
+    private final String contrasena;
+    private final int minimo;
+    private final int maximo;
+    private final long esperaMaximaMs;
+    private final long inactividadMaximaMs;
+    private final long fugaMs;
+    private final Consumer<String> avisos;
+
+    /**
+     * Protege {@link #libres} y {@link #abiertas}.
+     */
+    private final ReentrantLock candado;
+    private final Condition hayLibre;
+
+    /**
+     * Las conexiones libres; la más reciente al principio.
+     */
+    private final ArrayDeque<ConexionLibre> libres;
+
+    /**
+     * Las conexiones abiertas, libres o prestadas, incluidas las que se están
+     * abriendo.
+     */
+    private int abiertas;
+
+    /**
+     * Las conexiones prestadas, con cuándo y dónde se pidieron.
+     */
+    private final Map<Connection, Prestamo> prestadas;
+
+    private final ScheduledExecutorService mantenimiento;
+    private volatile boolean cerrado;
+
+    /**
+     * Una conexión libre y desde cuándo lo está.
+     */
+    private static final class ConexionLibre {
+
+        private final Connection conexion;
+        private final long libreDesde;
+
+        private ConexionLibre(Connection conexion, long libreDesde) {
+            this.conexion = conexion;
+            this.libreDesde = libreDesde;
+        }
+    }
+
+    /**
+     * Una conexión prestada: cuándo se pidió y, si se vigilan las fugas, la
+     * pila de quien la pidió.
+     */
+    private static final class Prestamo {
+
+        private final long desde;
+        private final Throwable origen;
+        private volatile boolean avisado;
+
+        private Prestamo(long desde, Throwable origen) {
+            this.desde = desde;
+            this.origen = origen;
+        }
+    }
+
+    /**
+     * Constructor de la clase `PoolConexiones`. Abre las conexiones mínimas
+     * en segundo plano y arranca el hilo de mantenimiento.
+     *
+     * @param url La URL JDBC de la base de datos.
+     * @param usuario El usuario de la base de datos.
+     * @param contrasena La contraseña del usuario.
+     * @param minimo Las conexiones que se mantienen abiertas.
+     * @param maximo El máximo de conexiones abiertas a la vez.
+     * @param esperaMaximaMs Cuánto espera {@link #prestar()} una conexión
+     * libre antes de fallar.
+     * @param inactividadMaximaMs Cuánto puede estar libre una conexión antes
+     * de cerrarla, o 0 para no cerrarlas.
+     * @param fugaMs Cuánto puede estar prestada una conexión antes de avisar
+     * de una posible fuga, o 0 para no vigilarlas.
+     * @param avisos Dónde se avisan las fugas y los errores del mantenimiento.
+     */
+    public PoolConexiones(String url, String usuario, String contrasena, int minimo, int maximo,
+            long esperaMaximaMs, long inactividadMaximaMs, long fugaMs, Consumer<String> avisos) {
+        this.url = url;
+        this.usuario = usuario;
+        this.contrasena = contrasena;
+        this.maximo = Math.max(1, maximo);
+        this.minimo = Math.max(0, Math.min(minimo, this.maximo));
+        this.esperaMaximaMs = Math.max(0, esperaMaximaMs);
+        this.inactividadMaximaMs = Math.max(0, inactividadMaximaMs);
+        this.fugaMs = Math.max(0, fugaMs);
+        this.avisos = avisos;
+        this.candado = new ReentrantLock();
+        this.hayLibre = candado.newCondition();
+        this.libres = new ArrayDeque<>();
+        this.prestadas = new ConcurrentHashMap<>();
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon(true).name("pool-conexiones").factory());
+        this.mantenimiento.execute(this::completarMinimo);
+        this.mantenimiento.scheduleWithFixedDelay(this::mantener, PERIODO_MANTENIMIENTO_MS, PERIODO_MANTENIMIENTO_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Presta una conexión. Hay que cerrarla (mejor con try-with-resources)
+     * para devolverla al pool.
+     *
+     * @return Una conexión válida.
+     * @throws SQLException Si no se pudo abrir una conexión o no se liberó
+     * ninguna a tiempo.
+     */
+    public Connection prestar() throws SQLException {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+        while (true) {
+            if (cerrado) {
+                throw new SQLException("El pool de conexiones está cerrado");
+            }
+            Connection fisica = null;
+            boolean abrirNueva = false;
+            candado.lock();
+            try {
+                ConexionLibre libre = libres.pollFirst();
+                if (libre != null) {
+                    fisica = libre.conexion;
+                } else if (abiertas < maximo) {
+                    abiertas++;
+                    abrirNueva = true;
+                } else {
+                    long restante = limite - System.nanoTime();
+                    if (restante <= 0) {
+                        throw new SQLException("No hay conexiones libres después de " + esperaMaximaMs + " ms (máximo " + maximo + ")");
+                    }
+                    try {
+                        hayLibre.awaitNanos(restante);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Se interrumpió la espera de una conexión", e);
+                    }
+                    continue;
+                }
+            } finally {
+                candado.unlock();
+            }
+
+            if (abrirNueva) {
+                fisica = abrir();
+            } else if (!esValida(fisica)) {
+                descartar(fisica);
+                continue;
+            }
+            return envolver(fisica);
+        }
+    }
+
+    /**
+     * Obtiene cuántas conexiones hay abiertas y cuántas están prestadas.
+     *
+     * @return Un texto con el estado del pool para la consola.
+     */
+    public String describirEstado() {
+        candado.lock();
+        try {
+            return "Pool de conexiones: " + abiertas + " abiertas | " + libres.size() + " libres | "
+                    + prestadas.size() + " prestadas | máximo " + maximo;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Cierra el pool: cierra las conexiones libres y las prestadas se cierran
+     * al devolverse.
+     */
+    public void cerrar() {
+        cerrado = true;
+        mantenimiento.shutdownNow();
+        List<ConexionLibre> porCerrar;
+        candado.lock();
+        try {
+            porCerrar = new ArrayList<>(libres);
+            abiertas -= libres.size();
+            libres.clear();
+            hayLibre.signalAll();
+        } finally {
+            candado.unlock();
+        }
+        for (ConexionLibre libre : porCerrar) {
+            cerrarSilencioso(libre.conexion);
+        }
+    }
+
+    /**
+     * Abre una conexión física. Quien llama ya contó la conexión en
+     * {@link #abiertas}; si falla, se descuenta.
+     */
+    private Connection abrir() throws SQLException {
+        try {
+            return DriverManager.getConnection(url, usuario, contrasena);
+        } catch (SQLException | RuntimeException e) {
+            candado.lock();
+            try {
+                abiertas--;
+                hayLibre.signal();
+            } finally {
+                candado.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private boolean esValida(Connection fisica) {
+        try {
+            return fisica.isValid(SEGUNDOS_VALIDACION);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Cierra una conexión que ya no sirve y deja su lugar a otra.
+     */
+    private void descartar(Connection fisica) {
+        cerrarSilencioso(fisica);
+        candado.lock();
+        try {
+            abiertas--;
+            hayLibre.signal();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Recibe una conexión devuelta. Si quedó una transacción abierta se
+     * deshace, para que el siguiente no la herede.
+     */
+    private void devolver(Connection fisica) {
+        try {
+            if (!fisica.getAutoCommit()) {
+                fisica.rollback();
+                fisica.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            descartar(fisica);
+            return;
+        }
+        if (cerrado) {
+            descartar(fisica);
+            return;
+        }
+        candado.lock();
+        try {
+            libres.addFirst(new ConexionLibre(fisica, System.nanoTime()));
+            hayLibre.signal();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Envuelve la conexión física en una que la devuelve al pool al
+     * cerrarse. Después de cerrarla, usarla lanza una `SQLException`.
+     */
+    private Connection envolver(Connection fisica) {
+        InvocationHandler manejador = new InvocationHandler() {
+            private boolean devuelta;
+
+            @Override
+            public Object invoke(Object proxy, Method metodo, Object[] argumentos) throws Throwable {
+                switch (metodo.getName()) {
+                    case "close":
+                        if (!devuelta) {
+                            devuelta = true;
+                            prestadas.remove((Connection) proxy);
+                            devolver(fisica);
+                        }
+                        return null;
+                    case "isClosed":
+                        return devuelta || fisica.isClosed();
+                    case "equals":
+                        return proxy == argumentos[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "Conexión del pool (" + fisica + ")";
+                    default:
+                        if (devuelta) {
+                            throw new SQLException("La conexión ya se devolvió al pool");
+                        }
+                        try {
+                            return metodo.invoke(fisica, argumentos);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                }
+            }
+        };
+        Connection prestada = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, manejador);
+        prestadas.put(prestada, new Prestamo(System.nanoTime(),
+                fugaMs > 0 ? new Throwable("Conexión pedida aquí") : null));
+        return prestada;
+    }
+
+    /**
+     * La revisión periódica: cierra las inactivas, completa el mínimo y
+     * busca fugas.
+     */
+    private void mantener() {
+        try {
+            cerrarInactivas();
+            completarMinimo();
+            buscarFugas();
+        } catch (RuntimeException e) {
+            avisos.accept("Error en el mantenimiento del pool de conexiones: " + e.getMessage());
+        }
+    }
+
+    private void cerrarInactivas() {
+        if (inactividadMaximaMs == 0) {
+            return;
+        }
+        long limite = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(inactividadMaximaMs);
+        List<Connection> porCerrar = new ArrayList<>();
+        candado.lock();
+        try {
+            // Las más viejas están al final
+            Iterator<ConexionLibre> iterador = libres.descendingIterator();
+            while (iterador.hasNext() && abiertas > minimo) {
+                ConexionLibre libre = iterador.next();
+                if (libre.libreDesde - limite > 0) {
+                    break;
+                }
+                iterador.remove();
+                abiertas--;
+                porCerrar.add(libre.conexion);
+            }
+        } finally {
+            candado.unlock();
+        }
+        for (Connection conexion : porCerrar) {
+            cerrarSilencioso(conexion);
+        }
+    }
+
+    private void completarMinimo() {
+        while (!cerrado) {
+            candado.lock();
+            try {
+                if (abiertas >= minimo) {
+                    return;
+                }
+                abiertas++;
+            } finally {
+                candado.unlock();
+            }
+            try {
+                Connection fisica = abrir();
+                devolver(fisica);
+            } catch (SQLException e) {
+                avisos.accept("No se pudo abrir una conexión del pool: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void buscarFugas() {
+        if (fugaMs == 0) {
+            return;
+        }
+        long limite = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(fugaMs);
+        for (Prestamo prestamo : prestadas.values()) {
+            if (!prestamo.avisado && prestamo.desde - limite < 0) {
+                prestamo.avisado = true;
+                StackTraceElement[] pila = prestamo.origen.getStackTrace();
+                // El primer elemento fuera del pool es quien pidió la conexión
+                String lugar = "desconocido";
+                for (StackTraceElement elemento : pila) {
+                    if (!elemento.getClassName().equals(PoolConexiones.class.getName())
+                            && !elemento.getClassName().equals(ConexionBD.class.getName())) {
+                        lugar = elemento.toString();
+                        break;
+                    }
+                }
+                avisos.accept("Posible fuga: una conexión lleva más de " + fugaMs + " ms prestada, pedida en " + lugar);
+            }
+        }
+    }
+
+    private static void cerrarSilencioso(Connection conexion) {
+        try {
+            conexion.close();
+        } catch (SQLException e) {
+            // La conexión ya no sirve de todos modos
+        }
+    }
+}
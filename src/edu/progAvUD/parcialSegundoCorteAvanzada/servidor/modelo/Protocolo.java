@@ -0,0 +1,109 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+/**
+ * La clase `Protocolo` reúne los códigos de operación (opcodes) de los mensajes
+ * que intercambian el cliente y el servidor. Los usan los dos códecs
+ * ({@link CodecTexto} y {@link CodecBinario}), de modo que la lógica del
+ * servidor y del cliente trabaja con números y no compara cadenas.
+ *
+ * En el códec binario el opcode es el primer byte de cada mensaje; en el códec
+ * de texto cada opcode corresponde a uno de los comandos de siempre
+ * (`login`, `consultarTurno`, `acerto`...).
+ *
+ * @author Andres Felipe
+ */
+public final class Protocolo {
+
+    /**
+     * Versión actual del protocolo binario. Se envía en la negociación.
+     */
+    public static final int VERSION_BINARIA = 1;
+
+    /**
+     * Mensaje que el códec no reconoce.
+     */
+    public static final byte OP_DESCONOCIDO = 0;
+
+    // Comandos del cliente al servidor
+    public static final byte OP_LOGIN = 1;
+    public static final byte OP_ELECCION_CARTA = 2;
+    public static final byte OP_ELECCION_PAREJA = 3;
+    public static final byte OP_CONSULTAR_TURNO = 4;
+    public static final byte OP_PEDIR_DATOS_JUGADOR = 5;
+    public static final byte OP_PEDIR_GANADOR = 6;
+    public static final byte OP_SIGUIENTE_TURNO = 7;
+    public static final byte OP_PROTOCOLO = 8;
+    public static final byte OP_SUSCRIBIR_EVENTOS = 9;
+    public static final byte OP_PEDIR_CLASIFICACION = 10;
+    public static final byte OP_PEDIR_TABLERO = 11;
+    /**
+     * Aviso periódico de que el cliente sigue vivo. No tiene respuesta; el
+     * servidor cierra las sesiones que dejan de enviarlo.
+     */
+    public static final byte OP_LATIDO = 12;
+
+    // Respuestas del servidor
+    public static final byte OP_LOGIN_VALIDO = 20;
+    public static final byte OP_LOGIN_INVALIDO = 21;
+    public static final byte OP_YA_CONECTADO = 22;
+    public static final byte OP_TURNO = 23;
+    public static final byte OP_DATOS_JUGADOR = 24;
+    public static final byte OP_TEXTO = 25;
+    public static final byte OP_TABLERO = 26;
+
+    // Eventos que el servidor envía por su cuenta
+    public static final byte OP_PEDIR_COORDENADAS = 40;
+    public static final byte OP_ACERTO = 41;
+    public static final byte OP_FALLO = 42;
+    public static final byte OP_JUEGO_TERMINADO = 43;
+    public static final byte OP_JUEGO_REINICIADO = 44;
+
+    // Eventos del modo de eventos (el cliente no hace consultas durante la partida)
+    public static final byte OP_CAMBIO_TURNO = 45;
+    public static final byte OP_RESULTADO_JUGADA = 46;
+
+    /**
+     * Respuesta del servidor que confirma el modo de eventos.
+     */
+    public static final String RESPUESTA_EVENTOS_ACTIVADOS = "eventosActivados";
+
+    /**
+     * Jugadores de la clasificación que se envían si el cliente no pide una
+     * cantidad, y máximo que se envía.
+     */
+    public static final int CLASIFICACION_POR_DEFECTO = 10;
+    public static final int CLASIFICACION_MAXIMA = 100;
+
+    /**
+     * Filas y columnas máximas del tablero: el códec binario envía cada
+     * coordenada en un byte sin signo.
+     */
+    public static final int LADO_MAXIMO_TABLERO = 255;
+
+    // Posición de cada campo de OP_RESULTADO_JUGADA en MensajeProtocolo
+    public static final int RESULTADO_TURNO_JUGADOR = 0;
+    public static final int RESULTADO_ACIERTO = 1;
+    public static final int RESULTADO_TURNO_ACTIVO = 2;
+    public static final int RESULTADO_INTENTOS = 3;
+    public static final int RESULTADO_ACIERTOS = 4;
+    public static final int RESULTADO_EFICIENCIA = 5;
+    public static final int RESULTADO_X1 = 6;
+    public static final int RESULTADO_Y1 = 7;
+    public static final int RESULTADO_X2 = 8;
+    public static final int RESULTADO_Y2 = 9;
+
+    /**
+     * Lo que lleva una coordenada de OP_RESULTADO_JUGADA cuando la carta
+     * elegida no está en el tablero. Las coordenadas de las jugadas empiezan
+     * en 1, así que 0 nunca es una casilla.
+     */
+    public static final int COORDENADA_FUERA_TABLERO = 0;
+
+    /**
+     * Cantidad de campos numéricos de OP_RESULTADO_JUGADA.
+     */
+    public static final int CAMPOS_RESULTADO = 10;
+
+    private Protocolo() {
+    }
+}
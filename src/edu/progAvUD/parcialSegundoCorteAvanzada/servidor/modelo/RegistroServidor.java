@@ -0,0 +1,430 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * La clase `RegistroServidor` es el registro de eventos del servidor. Reemplaza
+ * las cadenas armadas con `+` en cada llamada a la consola: quien registra
+ * pasa el nivel, el cliente, una plantilla con `{}` y los parámetros, y el
+ * texto solo se arma si el nivel está activo, en el hilo del registro.
+ *
+ * Registrar un evento con un nivel inactivo solo compara el nivel; con un
+ * nivel activo, deja el evento en una cola acotada y sigue. Si la cola se
+ * llena el evento se descarta y se cuenta, nunca se bloquea a una sesión. El
+ * hilo `registro-servidor` vacía la cola por lotes, arma los textos, los
+ * escribe en el archivo de registro (si se configuró uno), que rota al llegar
+ * a su tamaño máximo, y los pasa a la consola del servidor.
+ *
+ * Los parámetros se formatean después, en otro hilo: deben ser valores que no
+ * cambien (números, textos). Si calcular un parámetro es costoso, conviene
+ * preguntar antes con {@link #estaActivo(NivelConsola)}.
+ *
+ * @author Andres Felipe
+ */
+public final class RegistroServidor {
+
+    /**
+     * Recibe los eventos ya formateados, normalmente la consola del servidor.
+     */
+    public interface Destino {
+
+        /**
+         * Muestra un evento ya formateado.
+         *
+         * @param nivel El nivel del evento.
+         * @param cliente El usuario del cliente, o `null`.
+         * @param texto El texto del evento.
+         */
+        void escribir(NivelConsola nivel, String cliente, String texto);
+    }
+
+    /**
+     * Eventos que pueden esperar a ser escritos.
+     */
+    private static final int CAPACIDAD_COLA = 8192;
+
+    /**
+     * Eventos que el hilo del registro toma por vuelta.
+     */
+    private static final int LOTE = 512;
+
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private static final Object[] SIN_PARAMETROS = new Object[0];
+
+    /**
+     * Evento que le pide al hilo del registro que termine.
+     */
+    private static final Evento FIN = new Evento(NivelConsola.INFO, null, "", SIN_PARAMETROS);
+
+    private final Destino destino;
+    private final ArrayBlockingQueue<Evento> cola;
+    private final AtomicLong descartados;
+    private final Thread escritor;
+
+    /**
+     * Nivel mínimo que se registra.
+     */
+    private volatile NivelConsola nivelMinimo;
+
+    // Archivo de registro, solo lo usa el hilo del registro
+    private volatile Path archivo;
+    private volatile long tamanoMaximo;
+    private volatile int archivosGuardados;
+    private BufferedWriter salidaArchivo;
+    private long tamanoActual;
+    private long descartadosAvisados;
+
+    /**
+     * Un evento pendiente de escribir.
+     */
+    private static final class Evento {
+
+        private final LocalDateTime hora;
+        private final NivelConsola nivel;
+        private final String hilo;
+        private final String cliente;
+        private final String plantilla;
+        private final Object[] parametros;
+
+        private Evento(NivelConsola nivel, String cliente, String plantilla, Object[] parametros) {
+            this.hora = LocalDateTime.now();
+            this.nivel = nivel;
+            this.hilo = Thread.currentThread().getName();
+            this.cliente = cliente;
+            this.plantilla = plantilla;
+            this.parametros = parametros;
+        }
+    }
+
+    /**
+     * Constructor de la clase `RegistroServidor`. Empieza con nivel `INFO` y
+     * sin archivo, y arranca el hilo del registro.
+     *
+     * @param destino A dónde se pasan los eventos formateados.
+     */
+    public RegistroServidor(Destino destino) {
+        this.destino = destino;
+        this.cola = new ArrayBlockingQueue<>(CAPACIDAD_COLA);
+        this.descartados = new AtomicLong();
+        this.nivelMinimo = NivelConsola.INFO;
+        this.escritor = Thread.ofPlatform().daemon(true).name("registro-servidor").unstarted(this::escribirEventos);
+        this.escritor.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::cerrar, "registro-servidor-cierre"));
+    }
+
+    /**
+     * Configura el nivel mínimo y el archivo de registro.
+     *
+     * @param nivelMinimo El nivel mínimo que se registra.
+     * @param archivo El archivo de registro, o `null` para no escribir en
+     * archivo.
+     * @param tamanoMaximo Los bytes del archivo antes de rotarlo.
+     * @param archivosGuardados Cuántos archivos viejos se conservan
+     * (`archivo.1`, `archivo.2`, ...).
+     */
+    public void configurar(NivelConsola nivelMinimo, Path archivo, long tamanoMaximo, int archivosGuardados) {
+        this.nivelMinimo = nivelMinimo;
+        this.tamanoMaximo = Math.max(1024, tamanoMaximo);
+        this.archivosGuardados = Math.max(0, archivosGuardados);
+        this.archivo = archivo;
+    }
+
+    /**
+     * Indica si un nivel se registra.
+     *
+     * @param nivel El nivel.
+     * @return `true` si los eventos de ese nivel se registran.
+     */
+    public boolean estaActivo(NivelConsola nivel) {
+        return nivel.ordinal() >= nivelMinimo.ordinal();
+    }
+
+    /**
+     * Registra un evento sin parámetros.
+     *
+     * @param nivel El nivel del evento.
+     * @param cliente El usuario del cliente, o `null`.
+     * @param texto El texto del evento.
+     */
+    public void registrar(NivelConsola nivel, String cliente, String texto) {
+        if (estaActivo(nivel)) {
+            encolar(new Evento(nivel, cliente, texto, SIN_PARAMETROS));
+        }
+    }
+
+    /**
+     * Registra un evento con un parámetro.
+     *
+     * @param nivel El nivel del evento.
+     * @param cliente El usuario del cliente, o `null`.
+     * @param plantilla El texto con un `{}` donde va el parámetro.
+     * @param parametro El parámetro.
+     */
+    public void registrar(NivelConsola nivel, String cliente, String plantilla, Object parametro) {
+        if (estaActivo(nivel)) {
+            encolar(new Evento(nivel, cliente, plantilla, new Object[]{parametro}));
+        }
+    }
+
+    /**
+     * Registra un evento con dos parámetros.
+     *
+     * @param nivel El nivel del evento.
+     * @param cliente El usuario del cliente, o `null`.
+     * @param plantilla El texto con un `{}` por parámetro.
+     * @param parametro1 El primer parámetro.
+     * @param parametro2 El segundo parámetro.
+     */
+    public void registrar(NivelConsola nivel, String cliente, String plantilla, Object parametro1, Object parametro2) {
+        if (estaActivo(nivel)) {
+            encolar(new Evento(nivel, cliente, plantilla, new Object[]{parametro1, parametro2}));
+        }
+    }
+
+    /**
+     * Registra un evento con tres parámetros.
+     *
+     * @param nivel El nivel del evento.
+     * @param cliente El usuario del cliente, o `null`.
+     * @param plantilla El texto con un `{}` por parámetro.
+     * @param parametro1 El primer parámetro.
+     * @param parametro2 El segundo parámetro.
+     * @param parametro3 El tercer parámetro.
+     */
+    public void registrar(NivelConsola nivel, String cliente, String plantilla, Object parametro1, Object parametro2, Object parametro3) {
+        if (estaActivo(nivel)) {
+            encolar(new Evento(nivel, cliente, plantilla, new Object[]{parametro1, parametro2, parametro3}));
+        }
+    }
+
+    /**
+     * Registra un evento con cuatro o más parámetros. El arreglo de los
+     * parámetros se crea aunque el nivel esté inactivo; en los caminos
+     * frecuentes conviene preguntar antes con {@link #estaActivo(NivelConsola)}.
+     *
+     * @param nivel El nivel del evento.
+     * @param cliente El usuario del cliente, o `null`.
+     * @param plantilla El texto con un `{}` por parámetro.
+     * @param parametros Los parámetros.
+     */
+    public void registrar(NivelConsola nivel, String cliente, String plantilla, Object... parametros) {
+        if (estaActivo(nivel)) {
+            encolar(new Evento(nivel, cliente, plantilla, parametros));
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de eventos descartados porque la cola estaba llena.
+     *
+     * @return Los eventos descartados desde que arrancó el servidor.
+     */
+    public long getDescartados() {
+        return descartados.get();
+    }
+
+    /**
+     * Escribe los eventos pendientes y cierra el archivo. Se llama al cerrar
+     * el servidor.
+     */
+    public void cerrar() {
+        // No se interrumpe al hilo: interrumpirlo a mitad de una escritura cerraría el archivo
+        try {
+            if (cola.offer(FIN, 1, TimeUnit.SECONDS)) {
+                escritor.join(TimeUnit.SECONDS.toMillis(2));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void encolar(Evento evento) {
+        if (!cola.offer(evento)) {
+            descartados.incrementAndGet();
+        }
+    }
+
+    /**
+     * El ciclo del hilo del registro: espera eventos y los escribe por lotes
+     * hasta recibir {@link #FIN}.
+     */
+    private void escribirEventos() {
+        List<Evento> lote = new ArrayList<>(LOTE);
+        boolean activo = true;
+        while (activo) {
+            try {
+                lote.add(cola.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            cola.drainTo(lote, LOTE - lote.size());
+            int fin = lote.indexOf(FIN);
+            if (fin >= 0) {
+                lote.subList(fin, lote.size()).clear();
+                activo = false;
+            }
+            escribirLote(lote);
+            lote.clear();
+        }
+        cerrarArchivo();
+    }
+
+    private void escribirLote(List<Evento> lote) {
+        long perdidos = descartados.get();
+        if (perdidos > descartadosAvisados) {
+            escribir(new Evento(NivelConsola.ADVERTENCIA, null, "Registro: {} eventos descartados por cola llena",
+                    new Object[]{perdidos - descartadosAvisados}));
+            descartadosAvisados = perdidos;
+        }
+        for (Evento evento : lote) {
+            escribir(evento);
+        }
+        if (salidaArchivo != null) {
+            try {
+                salidaArchivo.flush();
+            } catch (IOException e) {
+                fallaArchivo(e);
+            }
+        }
+    }
+
+    private void escribir(Evento evento) {
+        String texto = formatear(evento.plantilla, evento.parametros);
+        try {
+            destino.escribir(evento.nivel, evento.cliente, texto);
+        } catch (RuntimeException e) {
+            // Un error de la consola no debe detener el registro
+        }
+        escribirArchivo(evento, texto);
+    }
+
+    private void escribirArchivo(Evento evento, String texto) {
+        Path ruta = archivo;
+        if (ruta == null) {
+            return;
+        }
+        StringBuilder linea = new StringBuilder(texto.length() + 64);
+        linea.append(evento.hora.format(FORMATO_HORA)).append(' ').append(evento.nivel)
+                .append(" [").append(evento.hilo).append(']');
+        if (evento.cliente != null) {
+            linea.append(" [").append(evento.cliente).append(']');
+        }
+        linea.append(' ').append(texto).append(System.lineSeparator());
+        long bytes = longitudUtf8(linea);
+        try {
+            if (salidaArchivo == null) {
+                abrirArchivo(ruta);
+            } else if (tamanoActual + bytes > tamanoMaximo) {
+                rotarArchivo(ruta);
+            }
+            salidaArchivo.write(linea.toString());
+            tamanoActual += bytes;
+        } catch (IOException e) {
+            fallaArchivo(e);
+        }
+    }
+
+    /**
+     * Cuenta los bytes que ocupa un texto en UTF-8 sin codificarlo, para que
+     * el tamaño del archivo no se quede corto con tildes o eñes.
+     */
+    private static long longitudUtf8(CharSequence texto) {
+        long bytes = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < texto.length() && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private void abrirArchivo(Path ruta) throws IOException {
+        salidaArchivo = Files.newBufferedWriter(ruta, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        tamanoActual = Files.size(ruta);
+    }
+
+    /**
+     * Rota el archivo: `archivo.(n-1)` pasa a `archivo.n`, ..., el actual pasa
+     * a `archivo.1` y se empieza uno nuevo. El más viejo se borra.
+     */
+    private void rotarArchivo(Path ruta) throws IOException {
+        cerrarArchivo();
+        int guardados = archivosGuardados;
+        if (guardados == 0) {
+            Files.deleteIfExists(ruta);
+        } else {
+            Files.deleteIfExists(Path.of(ruta + "." + guardados));
+            for (int i = guardados - 1; i >= 1; i--) {
+                Path viejo = Path.of(ruta + "." + i);
+                if (Files.exists(viejo)) {
+                    Files.move(viejo, Path.of(ruta + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(ruta, Path.of(ruta + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        abrirArchivo(ruta);
+    }
+
+    private void cerrarArchivo() {
+        if (salidaArchivo != null) {
+            try {
+                salidaArchivo.close();
+            } catch (IOException e) {
+                // Ya no hay dónde avisar
+            }
+            salidaArchivo = null;
+        }
+    }
+
+    /**
+     * Deja de escribir en el archivo si falla, y lo avisa en la consola.
+     */
+    private void fallaArchivo(IOException e) {
+        archivo = null;
+        cerrarArchivo();
+        destino.escribir(NivelConsola.ERROR, null, "No se pudo escribir el archivo de registro: " + e.getMessage());
+    }
+
+    /**
+     * Reemplaza cada `{}` de la plantilla por el siguiente parámetro.
+     *
+     * @param plantilla El texto con los `{}`.
+     * @param parametros Los parámetros.
+     * @return El texto formateado.
+     */
+    static String formatear(String plantilla, Object[] parametros) {
+        if (parametros.length == 0) {
+            return plantilla;
+        }
+        StringBuilder texto = new StringBuilder(plantilla.length() + 16 * parametros.length);
+        int desde = 0;
+        int siguiente = 0;
+        int marca;
+        while (siguiente < parametros.length && (marca = plantilla.indexOf("{}", desde)) >= 0) {
+            texto.append(plantilla, desde, marca).append(parametros[siguiente++]);
+            desde = marca + 2;
+        }
+        return texto.append(plantilla, desde, plantilla.length()).toString();
+    }
+}
@@ -0,0 +1,45 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * El resultado de una importación de jugadores por lotes: cuántos se insertaron y, por cada fila
+ * que no se insertó, el motivo.
+ *
+ * @author Cristianlol789
+ */
+public class ResultadoImportacion {
+
+    private int insertados;
+    private final Vector<String> rechazos;
+
+    /**
+     * Constructor de la clase `ResultadoImportacion`.
+     */
+    public ResultadoImportacion() {
+        this.rechazos = new Vector<>();
+    }
+
+    /**
+     * Anota una fila que no se insertó.
+     *
+     * @param fila El número de la fila (o del jugador en el archivo de propiedades).
+     * @param motivo Por qué no se insertó.
+     */
+    public void rechazar(int fila, String motivo) {
+        rechazos.add("Fila " + fila + ": " + motivo);
+    }
+
+    public int getInsertados() {
+        return insertados;
+    }
+
+    public void setInsertados(int insertados) {
+        this.insertados = insertados;
+    }
+
+    public List<String> getRechazos() {
+        return rechazos;
+    }
+}
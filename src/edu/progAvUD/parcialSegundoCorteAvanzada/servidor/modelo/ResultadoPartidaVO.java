@@ -0,0 +1,61 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+/**
+ * El resultado de un jugador en una partida terminada: sus intentos, las parejas que encontró, su
+ * porcentaje de acierto y si ganó. Es inmutable, así que se puede pasar del hilo de la partida al
+ * que lo guarda sin copiarlo.
+ *
+ * @author Cristianlol789
+ */
+public final class ResultadoPartidaVO {
+
+    private final String usuario;
+    private final int sala;
+    private final int intentos;
+    private final int parejas;
+    private final int porcentaje;
+    private final boolean gano;
+
+    /**
+     * Constructor de la clase `ResultadoPartidaVO`.
+     *
+     * @param usuario El usuario del jugador.
+     * @param sala El número de la sala donde jugó.
+     * @param intentos Las jugadas que hizo.
+     * @param parejas Las parejas que encontró.
+     * @param porcentaje Su porcentaje de acierto.
+     * @param gano Si quedó entre los ganadores.
+     */
+    public ResultadoPartidaVO(String usuario, int sala, int intentos, int parejas, int porcentaje, boolean gano) {
+        this.usuario = usuario;
+        this.sala = sala;
+        this.intentos = intentos;
+        this.parejas = parejas;
+        this.porcentaje = porcentaje;
+        this.gano = gano;
+    }
+
+    public String getUsuario() {
+        return usuario;
+    }
+
+    public int getSala() {
+        return sala;
+    }
+
+    public int getIntentos() {
+        return intentos;
+    }
+
+    public int getParejas() {
+        return parejas;
+    }
+
+    public int getPorcentaje() {
+        return porcentaje;
+    }
+
+    public boolean isGano() {
+        return gano;
+    }
+}
@@ -54,6 +54,23 @@ public class Servidor {
      */
     private DataOutputStream servidorInformacionSalida1;
 
+    /**
+     * El flujo de salida del **canal de eventos** cuando el cliente usa el
+     * {@link TransporteMultiplexado}. Por aquí viajan los avisos que el servidor
+     * envía por su cuenta (pedirCoordenadas, acerto, fallo...). Con los clientes
+     * antiguos de dos sockets es `null` y los eventos van por
+     * `servidorInformacionSalida1`.
+     */
+    private DataOutputStream servidorInformacionSalidaEventos;
+
+    /**
+     * El **códec** con el que se leen y escriben los mensajes de este cliente.
+     * Toda conexión empieza con {@link CodecTexto}; si el cliente negocia el
+     * protocolo binario se reemplaza por un {@link CodecBinario}. Es `volatile`
+     * porque otros hilos lo usan al difundir eventos.
+     */
+    private volatile CodecProtocolo codec;
+
     /**
      * El **nombre de usuario** que identifica al cliente en la aplicación.
      * Este nombre se establece típicamente después de un proceso de autenticación.
@@ -73,6 +90,7 @@ public class Servidor {
         this.servidorCliente1 = servidorCliente1;
         this.servidorCliente2 = servidorCliente2;
         this.nombreUsuario = nombreUsuario;
+        this.codec = new CodecTexto();
     }
 
     /**
@@ -143,6 +161,40 @@ public class Servidor {
         this.servidorInformacionSalida1 = servidorInformacionSalida1;
     }
 
+    /**
+     * Obtiene el flujo de salida por el que se envían los eventos al cliente.
+     * Si el cliente no usa el transporte multiplexado, devuelve el mismo flujo
+     * que {@link #getServidorInformacionSalida1()}.
+     * @return El {@link DataOutputStream} de eventos del cliente.
+     */
+    public DataOutputStream getServidorInformacionSalidaEventos() {
+        return servidorInformacionSalidaEventos != null ? servidorInformacionSalidaEventos : servidorInformacionSalida1;
+    }
+
+    /**
+     * Establece el flujo de salida del canal de eventos.
+     * @param servidorInformacionSalidaEventos El nuevo {@link DataOutputStream} de eventos, o `null` para usar el flujo principal.
+     */
+    public void setServidorInformacionSalidaEventos(DataOutputStream servidorInformacionSalidaEventos) {
+        this.servidorInformacionSalidaEventos = servidorInformacionSalidaEventos;
+    }
+
+    /**
+     * Obtiene el códec con el que se comunica este cliente.
+     * @return El {@link CodecProtocolo} de la sesión.
+     */
+    public CodecProtocolo getCodec() {
+        return codec;
+    }
+
+    /**
+     * Establece el códec con el que se comunica este cliente.
+     * @param codec El nuevo {@link CodecProtocolo}.
+     */
+    public void setCodec(CodecProtocolo codec) {
+        this.codec = codec;
+    }
+
     /**
      * Obtiene el nombre de usuario asociado a esta sesión de cliente.
      * @return El nombre del usuario.
@@ -0,0 +1,311 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * La clase `TablaClasificacion` es la clasificación de todos los jugadores, ordenada en memoria para
+ * responder sin consultar MySQL.
+ *
+ * El orden es: mayor porcentaje de partidas ganadas, más parejas encontradas, mayor eficiencia
+ * (parejas por intento) y, para desempatar, el usuario. Los jugadores se guardan en un treap (árbol
+ * binario de búsqueda con prioridades aleatorias, que se mantiene balanceado en promedio) en el que
+ * cada nodo sabe cuántos nodos tiene su subárbol. Así, actualizar a un jugador, buscar su posición
+ * y tomar los primeros N cuestan O(log n) (más N para copiar los primeros).
+ *
+ * Los primeros N se guardan hasta el siguiente cambio, porque todos los clientes piden casi siempre
+ * la misma lista.
+ *
+ * @author Andres Felipe
+ */
+public class TablaClasificacion {
+
+    /**
+     * El orden de la clasificación: el primero es el mejor.
+     */
+    private static final Comparator<EstadisticasJugadorVO> ORDEN = Comparator
+            .comparingDouble(TablaClasificacion::porcentajeVictorias).reversed()
+            .thenComparing(Comparator.comparingLong(EstadisticasJugadorVO::getParejas).reversed())
+            .thenComparing(Comparator.comparingDouble(TablaClasificacion::eficiencia).reversed())
+            .thenComparing(EstadisticasJugadorVO::getUsuario);
+
+    /**
+     * Un nodo del treap.
+     */
+    private static final class Nodo {
+
+        private final EstadisticasJugadorVO jugador;
+        private final int prioridad;
+        private Nodo izquierdo;
+        private Nodo derecho;
+        private int tamano;
+
+        private Nodo(EstadisticasJugadorVO jugador) {
+            this.jugador = jugador;
+            this.prioridad = ThreadLocalRandom.current().nextInt();
+            this.tamano = 1;
+        }
+    }
+
+    private final ReentrantLock candado = new ReentrantLock();
+
+    private Nodo raiz;
+
+    /**
+     * Las estadísticas actuales de cada jugador, para encontrar su nodo en el árbol.
+     */
+    private final HashMap<String, EstadisticasJugadorVO> porUsuario = new HashMap<>();
+
+    /**
+     * Los primeros jugadores desde el último cambio, o `null` si hubo un cambio.
+     */
+    private List<EstadisticasJugadorVO> mejoresGuardados;
+
+    /**
+     * Constructor de la clase `TablaClasificacion`. La tabla empieza vacía.
+     */
+    public TablaClasificacion() {
+    }
+
+    /**
+     * Reemplaza la clasificación por la de estos jugadores, por ejemplo, los acumulados leídos de la
+     * base de datos al arrancar.
+     *
+     * @param jugadores Las estadísticas acumuladas de cada jugador.
+     */
+    public void cargar(Collection<EstadisticasJugadorVO> jugadores) {
+        candado.lock();
+        try {
+            raiz = null;
+            porUsuario.clear();
+            for (EstadisticasJugadorVO jugador : jugadores) {
+                sumarSinCandado(jugador);
+            }
+            mejoresGuardados = null;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Suma a un jugador las estadísticas de una partida y lo mueve a su nueva posición.
+     *
+     * @param cambio Las partidas, intentos y parejas a sumar.
+     */
+    public void sumar(EstadisticasJugadorVO cambio) {
+        candado.lock();
+        try {
+            sumarSinCandado(cambio);
+            mejoresGuardados = null;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Obtiene los primeros jugadores de la clasificación.
+     *
+     * @param cantidad Cuántos jugadores.
+     * @return Los primeros `cantidad` jugadores (o todos, si hay menos), del mejor al peor.
+     */
+    public List<EstadisticasJugadorVO> mejores(int cantidad) {
+        candado.lock();
+        try {
+            if (mejoresGuardados == null || (mejoresGuardados.size() < cantidad && mejoresGuardados.size() < porUsuario.size())) {
+                ArrayList<EstadisticasJugadorVO> mejores = new ArrayList<>(Math.min(Math.max(cantidad, 0), porUsuario.size()));
+                recorrerEnOrden(raiz, mejores, cantidad);
+                mejoresGuardados = Collections.unmodifiableList(mejores);
+            }
+            return mejoresGuardados.size() <= cantidad ? mejoresGuardados : mejoresGuardados.subList(0, Math.max(cantidad, 0));
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Busca la posición de un jugador en la clasificación.
+     *
+     * @param usuario El usuario del jugador.
+     * @return La posición, desde 1, o 0 si el jugador no ha terminado ninguna partida.
+     */
+    public int posicion(String usuario) {
+        candado.lock();
+        try {
+            EstadisticasJugadorVO jugador = porUsuario.get(usuario);
+            return jugador == null ? 0 : contarAnteriores(raiz, jugador) + 1;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Obtiene las estadísticas de un jugador.
+     *
+     * @param usuario El usuario del jugador.
+     * @return Sus estadísticas, o `null` si no ha terminado ninguna partida.
+     */
+    public EstadisticasJugadorVO getEstadisticas(String usuario) {
+        candado.lock();
+        try {
+            return porUsuario.get(usuario);
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Obtiene cuántos jugadores hay en la clasificación.
+     *
+     * @return La cantidad de jugadores.
+     */
+    public int getCantidadJugadores() {
+        candado.lock();
+        try {
+            return porUsuario.size();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Calcula el porcentaje de partidas ganadas.
+     *
+     * @param jugador Las estadísticas del jugador.
+     * @return El porcentaje, de 0 a 100.
+     */
+    public static double porcentajeVictorias(EstadisticasJugadorVO jugador) {
+        return jugador.getPartidasJugadas() == 0 ? 0 : 100.0 * jugador.getPartidasGanadas() / jugador.getPartidasJugadas();
+    }
+
+    /**
+     * Calcula la eficiencia: el porcentaje de intentos que encontraron una pareja.
+     *
+     * @param jugador Las estadísticas del jugador.
+     * @return La eficiencia, de 0 a 100.
+     */
+    public static double eficiencia(EstadisticasJugadorVO jugador) {
+        return jugador.getIntentos() == 0 ? 0 : 100.0 * jugador.getParejas() / jugador.getIntentos();
+    }
+
+    private void sumarSinCandado(EstadisticasJugadorVO cambio) {
+        EstadisticasJugadorVO anterior = porUsuario.get(cambio.getUsuario());
+        EstadisticasJugadorVO nuevo = cambio;
+        if (anterior != null) {
+            raiz = eliminar(raiz, anterior);
+            nuevo = anterior.sumar(cambio);
+        }
+        porUsuario.put(nuevo.getUsuario(), nuevo);
+        raiz = insertar(raiz, new Nodo(nuevo));
+    }
+
+    private static int tamano(Nodo nodo) {
+        return nodo == null ? 0 : nodo.tamano;
+    }
+
+    private static void actualizarTamano(Nodo nodo) {
+        nodo.tamano = 1 + tamano(nodo.izquierdo) + tamano(nodo.derecho);
+    }
+
+    private static Nodo rotarDerecha(Nodo nodo) {
+        Nodo izquierdo = nodo.izquierdo;
+        nodo.izquierdo = izquierdo.derecho;
+        izquierdo.derecho = nodo;
+        actualizarTamano(nodo);
+        actualizarTamano(izquierdo);
+        return izquierdo;
+    }
+
+    private static Nodo rotarIzquierda(Nodo nodo) {
+        Nodo derecho = nodo.derecho;
+        nodo.derecho = derecho.izquierdo;
+        derecho.izquierdo = nodo;
+        actualizarTamano(nodo);
+        actualizarTamano(derecho);
+        return derecho;
+    }
+
+    private static Nodo insertar(Nodo nodo, Nodo nuevo) {
+        if (nodo == null) {
+            return nuevo;
+        }
+        if (ORDEN.compare(nuevo.jugador, nodo.jugador) < 0) {
+            nodo.izquierdo = insertar(nodo.izquierdo, nuevo);
+            if (nodo.izquierdo.prioridad > nodo.prioridad) {
+                return rotarDerecha(nodo);
+            }
+        } else {
+            nodo.derecho = insertar(nodo.derecho, nuevo);
+            if (nodo.derecho.prioridad > nodo.prioridad) {
+                return rotarIzquierda(nodo);
+            }
+        }
+        actualizarTamano(nodo);
+        return nodo;
+    }
+
+    private static Nodo eliminar(Nodo nodo, EstadisticasJugadorVO jugador) {
+        if (nodo == null) {
+            return null;
+        }
+        int comparacion = ORDEN.compare(jugador, nodo.jugador);
+        if (comparacion < 0) {
+            nodo.izquierdo = eliminar(nodo.izquierdo, jugador);
+        } else if (comparacion > 0) {
+            nodo.derecho = eliminar(nodo.derecho, jugador);
+        } else {
+            // Se baja el nodo rotándolo hacia el hijo de mayor prioridad hasta que quede como hoja
+            if (nodo.izquierdo == null) {
+                return nodo.derecho;
+            }
+            if (nodo.derecho == null) {
+                return nodo.izquierdo;
+            }
+            if (nodo.izquierdo.prioridad > nodo.derecho.prioridad) {
+                nodo = rotarDerecha(nodo);
+                nodo.derecho = eliminar(nodo.derecho, jugador);
+            } else {
+                nodo = rotarIzquierda(nodo);
+                nodo.izquierdo = eliminar(nodo.izquierdo, jugador);
+            }
+        }
+        actualizarTamano(nodo);
+        return nodo;
+    }
+
+    /**
+     * Cuenta los jugadores que van antes de `jugador`, bajando una sola vez por el árbol.
+     */
+    private static int contarAnteriores(Nodo nodo, EstadisticasJugadorVO jugador) {
+        int anteriores = 0;
+        while (nodo != null) {
+            int comparacion = ORDEN.compare(jugador, nodo.jugador);
+            if (comparacion <= 0) {
+                if (comparacion == 0) {
+                    return anteriores + tamano(nodo.izquierdo);
+                }
+                nodo = nodo.izquierdo;
+            } else {
+                anteriores += tamano(nodo.izquierdo) + 1;
+                nodo = nodo.derecho;
+            }
+        }
+        return anteriores;
+    }
+
+    private static void recorrerEnOrden(Nodo nodo, List<EstadisticasJugadorVO> destino, int cantidad) {
+        if (nodo == null || destino.size() >= cantidad) {
+            return;
+        }
+        recorrerEnOrden(nodo.izquierdo, destino, cantidad);
+        if (destino.size() < cantidad) {
+            destino.add(nodo.jugador);
+            recorrerEnOrden(nodo.derecho, destino, cantidad);
+        }
+    }
+}
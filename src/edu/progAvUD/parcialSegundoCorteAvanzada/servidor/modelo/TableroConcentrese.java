@@ -0,0 +1,248 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * El tablero de una partida de Concéntrese: el valor de cada carta y cuáles ya
+ * se emparejaron.
+ *
+ * Cada casilla tiene un número, `fila * columnas + columna`. Los valores están
+ * en un arreglo de `short` y las cartas emparejadas en una máscara de bits (un
+ * bit por casilla, 64 casillas por `long`). Consultar una carta, emparejar dos
+ * y contar los pares no crean objetos ni toman candados: la máscara es un
+ * {@link AtomicLongArray} y cada bit se marca con `compareAndSet`, así que la
+ * pueden leer los hilos de todos los jugadores de la sala.
+ *
+ * Las coordenadas que reciben los métodos son de base 0.
+ *
+ * @author Cristianlol789
+ */
+public class TableroConcentrese {
+
+    /**
+     * Lo que devuelve {@link #valor(int)} para una casilla que no existe. Los
+     * valores de las cartas empiezan en 1.
+     */
+    public static final int SIN_CARTA = 0;
+
+    private final int filas;
+    private final int columnas;
+    private final short[] valores;
+    private final AtomicLongArray emparejadas;
+    private final AtomicInteger paresEmparejados;
+
+    /**
+     * Constructor de la clase `TableroConcentrese`. El tablero empieza sin
+     * barajar (todas las casillas en {@link #SIN_CARTA}).
+     *
+     * @param filas Las filas del tablero.
+     * @param columnas Las columnas del tablero.
+     * @throws IllegalArgumentException Si alguna dimensión no es positiva o si
+     * la cantidad de casillas es impar o no cabe en los valores de las cartas.
+     */
+    public TableroConcentrese(int filas, int columnas) {
+        validar(filas, columnas);
+        this.filas = filas;
+        this.columnas = columnas;
+        this.valores = new short[filas * columnas];
+        this.emparejadas = new AtomicLongArray((valores.length + 63) >>> 6);
+        this.paresEmparejados = new AtomicInteger();
+    }
+
+    /**
+     * Verifica que se pueda armar un tablero de estas dimensiones, sin crearlo.
+     *
+     * @param filas Las filas del tablero.
+     * @param columnas Las columnas del tablero.
+     * @throws IllegalArgumentException Si alguna dimensión no es positiva o si
+     * la cantidad de casillas es impar o no cabe en los valores de las cartas.
+     */
+    public static void validar(int filas, int columnas) {
+        if (filas <= 0 || columnas <= 0) {
+            throw new IllegalArgumentException("El tablero debe tener al menos una fila y una columna");
+        }
+        long casillas = (long) filas * columnas;
+        if (casillas % 2 != 0) {
+            throw new IllegalArgumentException("El tablero de " + filas + "x" + columnas + " tiene un número impar de casillas");
+        }
+        if (casillas / 2 > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("El tablero de " + filas + "x" + columnas + " es demasiado grande");
+        }
+    }
+
+    /**
+     * Reparte las cartas al azar (cada valor de 1 al total de pares, dos veces)
+     * con el algoritmo de Fisher-Yates, en tiempo lineal, y deja todas las
+     * cartas sin emparejar. Se llama antes de que empiece la partida.
+     */
+    public void barajar() {
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = (short) (i / 2 + 1);
+        }
+        ThreadLocalRandom azar = ThreadLocalRandom.current();
+        for (int i = valores.length - 1; i > 0; i--) {
+            int j = azar.nextInt(i + 1);
+            short valor = valores[i];
+            valores[i] = valores[j];
+            valores[j] = valor;
+        }
+        reiniciar();
+    }
+
+    /**
+     * Deja todas las cartas sin emparejar, sin cambiar su orden.
+     */
+    public void reiniciar() {
+        for (int i = 0; i < emparejadas.length(); i++) {
+            emparejadas.set(i, 0L);
+        }
+        paresEmparejados.set(0);
+    }
+
+    /**
+     * Calcula la casilla de unas coordenadas.
+     *
+     * @param x La columna, desde 0.
+     * @param y La fila, desde 0.
+     * @return El número de la casilla, o -1 si las coordenadas están fuera del
+     * tablero.
+     */
+    public int casilla(int x, int y) {
+        return esValida(x, y) ? y * columnas + x : -1;
+    }
+
+    /**
+     * Indica si unas coordenadas están dentro del tablero.
+     *
+     * @param x La columna, desde 0.
+     * @param y La fila, desde 0.
+     * @return `true` si la casilla existe.
+     */
+    public boolean esValida(int x, int y) {
+        return x >= 0 && x < columnas && y >= 0 && y < filas;
+    }
+
+    /**
+     * Obtiene el valor de la carta de una casilla.
+     *
+     * @param casilla El número de la casilla.
+     * @return El valor, o {@link #SIN_CARTA} si la casilla no existe.
+     */
+    public int valor(int casilla) {
+        return casilla >= 0 && casilla < valores.length ? valores[casilla] : SIN_CARTA;
+    }
+
+    /**
+     * Indica si la carta de una casilla ya se emparejó.
+     *
+     * @param casilla El número de la casilla.
+     * @return `true` si está emparejada; `false` también si la casilla no
+     * existe.
+     */
+    public boolean estaEmparejada(int casilla) {
+        if (casilla < 0 || casilla >= valores.length) {
+            return false;
+        }
+        return (emparejadas.get(casilla >>> 6) & (1L << casilla)) != 0;
+    }
+
+    /**
+     * Empareja dos cartas si son distintas casillas con el mismo valor y
+     * ninguna estaba emparejada.
+     *
+     * Las casillas se marcan siempre en el mismo orden (la menor primero): si
+     * dos jugadores eligen el mismo par al mismo tiempo, uno en cada orden, el
+     * que pierde la primera casilla se retira sin tocar la segunda, así que el
+     * par se cuenta exactamente una vez.
+     *
+     * @param casilla1 La casilla de la primera carta.
+     * @param casilla2 La casilla de la segunda carta.
+     * @return `true` si las cartas se emparejaron con esta llamada.
+     */
+    public boolean emparejar(int casilla1, int casilla2) {
+        if (casilla1 == casilla2 || valor(casilla1) == SIN_CARTA || valor(casilla1) != valor(casilla2)) {
+            return false;
+        }
+        int menor = Math.min(casilla1, casilla2);
+        int mayor = Math.max(casilla1, casilla2);
+        if (!marcar(menor)) {
+            return false;
+        }
+        if (!marcar(mayor)) {
+            desmarcar(menor);
+            return false;
+        }
+        paresEmparejados.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Obtiene los pares que faltan por encontrar.
+     *
+     * @return El total de pares menos los emparejados.
+     */
+    public int paresRestantes() {
+        return getTotalPares() - paresEmparejados.get();
+    }
+
+    public int getParesEmparejados() {
+        return paresEmparejados.get();
+    }
+
+    public int getTotalPares() {
+        return valores.length / 2;
+    }
+
+    public int getFilas() {
+        return filas;
+    }
+
+    public int getColumnas() {
+        return columnas;
+    }
+
+    /**
+     * Copia los valores del tablero en una matriz [fila][columna], para
+     * mostrarlo en la interfaz.
+     *
+     * @return La copia.
+     */
+    public int[][] copiarMatriz() {
+        int[][] matriz = new int[filas][columnas];
+        for (int fila = 0; fila < filas; fila++) {
+            for (int columna = 0; columna < columnas; columna++) {
+                matriz[fila][columna] = valores[fila * columnas + columna];
+            }
+        }
+        return matriz;
+    }
+
+    /**
+     * Marca una casilla como emparejada.
+     *
+     * @return `true` si no estaba marcada.
+     */
+    private boolean marcar(int casilla) {
+        int indice = casilla >>> 6;
+        long bit = 1L << casilla;
+        long actual;
+        do {
+            actual = emparejadas.get(indice);
+            if ((actual & bit) != 0) {
+                return false;
+            }
+        } while (!emparejadas.compareAndSet(indice, actual, actual | bit));
+        return true;
+    }
+
+    private void desmarcar(int casilla) {
+        int indice = casilla >>> 6;
+        long bit = 1L << casilla;
+        long actual;
+        do {
+            actual = emparejadas.get(indice);
+        } while (!emparejadas.compareAndSet(indice, actual, actual & ~bit));
+    }
+}
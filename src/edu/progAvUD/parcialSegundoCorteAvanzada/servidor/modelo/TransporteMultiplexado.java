@@ -0,0 +1,392 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * La clase `TransporteMultiplexado` permite que el cliente y el servidor usen
+ * una sola conexión TCP con varios canales lógicos, en lugar del par de sockets
+ * `PUERTO_1` / `PUERTO_2`. La usan tanto el servidor como el cliente.
+ *
+ * Al conectarse, el cliente envía el {@link #PREAMBULO}; a partir de ahí todo
+ * lo que viaja por el socket son tramas con el formato:
+ *
+ * <pre>
+ * [canal: 1 byte][longitud: int de 4 bytes][datos: longitud bytes]
+ * </pre>
+ *
+ * El canal {@link #CANAL_CONTROL} lleva los comandos y sus respuestas (login,
+ * consultarTurno, pedirDatosJugador...) y el canal {@link #CANAL_EVENTOS} lleva
+ * los avisos que el servidor envía por su cuenta (pedirCoordenadas, acerto,
+ * fallo, juegoTerminado...). Cada canal se expone como un flujo de entrada y uno
+ * de salida normales, así que encima se siguen usando `DataInputStream` y
+ * `DataOutputStream` como antes.
+ *
+ * La lectura se demultiplexa bajo demanda: el hilo que necesita datos de un
+ * canal lee tramas del socket y guarda las de los otros canales para quien las
+ * pida después, de modo que no hace falta un hilo extra por conexión.
+ *
+ * Como la longitud de cada trama la envía el otro extremo, una trama de más de
+ * {@link #LONGITUD_MAXIMA_TRAMA} bytes, o un canal que acumula más de
+ * {@link #MAXIMO_BYTES_PENDIENTES} bytes sin que nadie los lea, se trata como
+ * un error de lectura y la conexión se cierra.
+ *
+ * @author Andres Felipe
+ */
+public class TransporteMultiplexado {
+
+    /**
+     * Los primeros cuatro bytes que envía un cliente multiplexado ("MUX1").
+     * Un cliente antiguo empieza con los dos bytes de longitud de `writeUTF`,
+     * que nunca valen `0x4D55`, así que no se pueden confundir.
+     */
+    public static final int PREAMBULO = 0x4D555831;
+
+    /**
+     * Canal de comandos y respuestas.
+     */
+    public static final byte CANAL_CONTROL = 0;
+
+    /**
+     * Canal de eventos que el servidor envía sin que el cliente los pida.
+     */
+    public static final byte CANAL_EVENTOS = 1;
+
+    /**
+     * Tamaño de la cabecera de cada trama: un byte de canal y un entero de
+     * longitud.
+     */
+    public static final int TAMANO_CABECERA = 5;
+
+    /**
+     * Longitud máxima de los datos de una trama: un mensaje binario de
+     * {@link CodecBinario#LONGITUD_MAXIMA} bytes más su longitud varint, que
+     * también alcanza para el mensaje `writeUTF` más largo.
+     */
+    public static final int LONGITUD_MAXIMA_TRAMA = CodecBinario.LONGITUD_MAXIMA + 5;
+
+    /**
+     * Cantidad máxima de bytes que un canal puede acumular sin que nadie los
+     * lea.
+     */
+    public static final int MAXIMO_BYTES_PENDIENTES = 16 * LONGITUD_MAXIMA_TRAMA;
+
+    private static final int CANTIDAD_CANALES = 2;
+
+    private final DataInputStream entradaFisica;
+    private final OutputStream salidaFisica;
+
+    /**
+     * Candado de escritura: una trama se escribe completa antes que la
+     * siguiente, venga del canal que venga.
+     */
+    private final ReentrantLock candadoEscritura;
+
+    /**
+     * Candado de lectura, que protege las colas de cada canal. Solo un hilo a
+     * la vez lee del socket, y lo hace sin tener el candado tomado.
+     */
+    private final ReentrantLock candadoLectura;
+    private final Condition hayDatos;
+    private final List<ArrayDeque<ByteBuffer>> pendientes;
+
+    /**
+     * Bytes guardados en la cola de cada canal, para limitarla.
+     */
+    private final int[] bytesPendientes;
+    private boolean leyendo;
+    private IOException errorLectura;
+
+    private final InputStream[] entradas;
+    private final OutputStream[] salidas;
+
+    /**
+     * Constructor de la clase `TransporteMultiplexado`. El preámbulo ya debe
+     * haberse enviado (cliente) o consumido (servidor).
+     *
+     * @param entradaFisica El flujo de entrada del socket.
+     * @param salidaFisica El flujo de salida del socket.
+     */
+    public TransporteMultiplexado(InputStream entradaFisica, OutputStream salidaFisica) {
+        this.entradaFisica = new DataInputStream(entradaFisica);
+        this.salidaFisica = salidaFisica;
+        this.candadoEscritura = new ReentrantLock();
+        this.candadoLectura = new ReentrantLock();
+        this.hayDatos = candadoLectura.newCondition();
+        this.pendientes = new ArrayList<>(CANTIDAD_CANALES);
+        this.bytesPendientes = new int[CANTIDAD_CANALES];
+        this.entradas = new InputStream[CANTIDAD_CANALES];
+        this.salidas = new OutputStream[CANTIDAD_CANALES];
+        for (byte canal = 0; canal < CANTIDAD_CANALES; canal++) {
+            pendientes.add(new ArrayDeque<>());
+            entradas[canal] = new EntradaCanal(canal);
+            salidas[canal] = new SalidaCanal(canal);
+        }
+    }
+
+    /**
+     * Envía el preámbulo que identifica a un cliente multiplexado. Lo llama el
+     * cliente justo después de conectarse.
+     *
+     * @param salida El flujo de salida del socket.
+     * @throws IOException Si no se puede escribir.
+     */
+    public static void enviarPreambulo(OutputStream salida) throws IOException {
+        salida.write(new byte[]{(byte) (PREAMBULO >>> 24), (byte) (PREAMBULO >>> 16), (byte) (PREAMBULO >>> 8), (byte) PREAMBULO});
+        salida.flush();
+    }
+
+    /**
+     * Comprueba si el cliente que acaba de conectarse envió el preámbulo. Si
+     * no lo envió (cliente antiguo de dos sockets), los bytes leídos se
+     * devuelven al flujo para que se procesen como texto normal. Un cliente
+     * antiguo no envía nada hasta que el usuario inicia sesión, por eso la
+     * espera se limita a `tiempoMaximoMs`.
+     *
+     * @param entrada El flujo de entrada del socket; debe soportar `mark`.
+     * @param socket El socket del cliente, para limitar el tiempo de espera.
+     * @param tiempoMaximoMs El tiempo máximo de espera del preámbulo.
+     * @return `true` si el cliente usa el transporte multiplexado.
+     * @throws IOException Si ocurre un error de lectura.
+     */
+    public static boolean detectarPreambulo(BufferedInputStream entrada, Socket socket, int tiempoMaximoMs) throws IOException {
+        byte[] inicio = new byte[4];
+        int leidos = 0;
+        int tiempoAnterior = socket.getSoTimeout();
+        entrada.mark(inicio.length);
+        socket.setSoTimeout(tiempoMaximoMs);
+        try {
+            while (leidos < inicio.length) {
+                int n = entrada.read(inicio, leidos, inicio.length - leidos);
+                if (n < 0) {
+                    break;
+                }
+                leidos += n;
+                if (leidos >= 2 && ((inicio[0] & 0xFF) << 8 | (inicio[1] & 0xFF)) != PREAMBULO >>> 16) {
+                    break; // Ya se sabe que es un mensaje de texto
+                }
+            }
+        } catch (SocketTimeoutException e) {
+            // El cliente no ha enviado nada: es un cliente antiguo
+        } finally {
+            socket.setSoTimeout(tiempoAnterior);
+        }
+        if (leidos == inicio.length && ByteBuffer.wrap(inicio).getInt() == PREAMBULO) {
+            return true;
+        }
+        entrada.reset();
+        return false;
+    }
+
+    /**
+     * Arma una trama completa (cabecera y datos) en un arreglo nuevo. Lo usa
+     * el reactor NIO, que escribe en el canal sin pasar por esta clase.
+     *
+     * @param canal El canal lógico.
+     * @param datos Los datos de la trama.
+     * @param desde La posición inicial en `datos`.
+     * @param longitud La cantidad de bytes.
+     * @return La trama lista para enviarse.
+     */
+    public static byte[] empaquetar(byte canal, byte[] datos, int desde, int longitud) {
+        byte[] trama = new byte[TAMANO_CABECERA + longitud];
+        trama[0] = canal;
+        trama[1] = (byte) (longitud >>> 24);
+        trama[2] = (byte) (longitud >>> 16);
+        trama[3] = (byte) (longitud >>> 8);
+        trama[4] = (byte) longitud;
+        System.arraycopy(datos, desde, trama, TAMANO_CABECERA, longitud);
+        return trama;
+    }
+
+    /**
+     * Obtiene el flujo de entrada de un canal lógico.
+     *
+     * @param canal {@link #CANAL_CONTROL} o {@link #CANAL_EVENTOS}.
+     * @return El flujo de entrada del canal.
+     */
+    public InputStream getEntrada(byte canal) {
+        return entradas[canal];
+    }
+
+    /**
+     * Obtiene el flujo de salida de un canal lógico. Cada llamada a `write`
+     * se envía como una trama.
+     *
+     * @param canal {@link #CANAL_CONTROL} o {@link #CANAL_EVENTOS}.
+     * @return El flujo de salida del canal.
+     */
+    public OutputStream getSalida(byte canal) {
+        return salidas[canal];
+    }
+
+    /**
+     * Escribe una trama en el socket.
+     */
+    private void escribirTrama(byte canal, byte[] datos, int desde, int longitud) throws IOException {
+        byte[] trama = empaquetar(canal, datos, desde, longitud);
+        candadoEscritura.lock();
+        try {
+            salidaFisica.write(trama);
+            salidaFisica.flush();
+        } finally {
+            candadoEscritura.unlock();
+        }
+    }
+
+    /**
+     * Espera hasta que haya datos para el canal indicado y devuelve el primer
+     * bloque pendiente. Si ningún otro hilo está leyendo del socket, este hilo
+     * lee la siguiente trama y la guarda en la cola de su canal.
+     *
+     * @throws IOException Si la trama no es válida, es demasiado larga o su
+     * canal ya tiene demasiados datos sin leer.
+     */
+    private ByteBuffer esperarDatos(byte canal) throws IOException {
+        candadoLectura.lock();
+        try {
+            while (pendientes.get(canal).isEmpty()) {
+                if (errorLectura != null) {
+                    throw errorLectura;
+                }
+                if (leyendo) {
+                    hayDatos.awaitUninterruptibly();
+                    continue;
+                }
+                leyendo = true;
+                candadoLectura.unlock();
+                byte canalTrama;
+                byte[] datos;
+                try {
+                    canalTrama = entradaFisica.readByte();
+                    int longitud = entradaFisica.readInt();
+                    if (canalTrama < 0 || canalTrama >= CANTIDAD_CANALES || longitud < 0) {
+                        throw new IOException("Trama multiplexada inválida (canal " + canalTrama + ")");
+                    }
+                    if (longitud > LONGITUD_MAXIMA_TRAMA) {
+                        throw new IOException("Trama multiplexada demasiado larga: " + longitud + " bytes (canal " + canalTrama + ")");
+                    }
+                    datos = new byte[longitud];
+                    entradaFisica.readFully(datos);
+                } catch (IOException e) {
+                    candadoLectura.lock();
+                    leyendo = false;
+                    errorLectura = e;
+                    hayDatos.signalAll();
+                    throw e;
+                }
+                candadoLectura.lock();
+                leyendo = false;
+                if (bytesPendientes[canalTrama] + datos.length > MAXIMO_BYTES_PENDIENTES) {
+                    errorLectura = new IOException("El canal " + canalTrama + " acumuló más de " + MAXIMO_BYTES_PENDIENTES + " bytes sin leer");
+                    hayDatos.signalAll();
+                    throw errorLectura;
+                }
+                if (datos.length > 0) {
+                    pendientes.get(canalTrama).add(ByteBuffer.wrap(datos));
+                    bytesPendientes[canalTrama] += datos.length;
+                }
+                hayDatos.signalAll();
+            }
+            return pendientes.get(canal).peek();
+        } finally {
+            candadoLectura.unlock();
+        }
+    }
+
+    /**
+     * Descarta de la cola del canal el bloque que ya se consumió por completo.
+     */
+    private void liberar(byte canal, ByteBuffer bloque) {
+        if (bloque.hasRemaining()) {
+            return;
+        }
+        candadoLectura.lock();
+        try {
+            if (pendientes.get(canal).peek() == bloque) {
+                pendientes.get(canal).poll();
+                bytesPendientes[canal] -= bloque.capacity();
+            }
+        } finally {
+            candadoLectura.unlock();
+        }
+    }
+
+    /**
+     * Flujo de entrada de un canal lógico. Se asume un solo lector por canal.
+     */
+    private class EntradaCanal extends InputStream {
+
+        private final byte canal;
+
+        EntradaCanal(byte canal) {
+            this.canal = canal;
+        }
+
+        @Override
+        public int read() throws IOException {
+            ByteBuffer bloque;
+            try {
+                bloque = esperarDatos(canal);
+            } catch (EOFException e) {
+                return -1;
+            }
+            int valor = bloque.get() & 0xFF;
+            liberar(canal, bloque);
+            return valor;
+        }
+
+        @Override
+        public int read(byte[] destino, int desde, int longitud) throws IOException {
+            if (longitud == 0) {
+                return 0;
+            }
+            ByteBuffer bloque;
+            try {
+                bloque = esperarDatos(canal);
+            } catch (EOFException e) {
+                return -1;
+            }
+            int cantidad = Math.min(longitud, bloque.remaining());
+            bloque.get(destino, desde, cantidad);
+            liberar(canal, bloque);
+            return cantidad;
+        }
+    }
+
+    /**
+     * Flujo de salida de un canal lógico: cada escritura viaja como una trama.
+     */
+    private class SalidaCanal extends OutputStream {
+
+        private final byte canal;
+
+        SalidaCanal(byte canal) {
+            this.canal = canal;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            escribirTrama(canal, new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] datos, int desde, int longitud) throws IOException {
+            if (longitud > 0) {
+                escribirTrama(canal, datos, desde, longitud);
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@ package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.vista;
  * 
  * Esta clase representa un panel gráfico que forma parte de la interfaz del servidor.
  * Su propósito puede incluir mostrar información de log, mensajes o controles de la consola del servidor.
+ * Arriba tiene los filtros de la consola: por nivel y por usuario del cliente (se aplica con Enter).
  * 
  * Extiende {@code javax.swing.JPanel} y se inicializa con los componentes definidos en el método {@code initComponents()}.
  * 
@@ -30,12 +31,33 @@ public class PanelConsolaServidor extends javax.swing.JPanel {
     // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
     private void initComponents() {
 
+        jPanelFiltros = new javax.swing.JPanel();
+        jLabelNivel = new javax.swing.JLabel();
+        jComboBoxNivel = new javax.swing.JComboBox<>();
+        jLabelCliente = new javax.swing.JLabel();
+        jTextFieldCliente = new javax.swing.JTextField();
         jScrollPane1 = new javax.swing.JScrollPane();
         jTextAreaConsola = new javax.swing.JTextArea();
         jButtonEmpezarJuego = new javax.swing.JButton();
 
         setLayout(new java.awt.BorderLayout());
 
+        jPanelFiltros.setLayout(new java.awt.FlowLayout(java.awt.FlowLayout.LEFT));
+
+        jLabelNivel.setText("Nivel:");
+        jPanelFiltros.add(jLabelNivel);
+
+        jComboBoxNivel.setModel(new javax.swing.DefaultComboBoxModel<>(new String[] { "Todos", "DEPURACION", "INFO", "ADVERTENCIA", "ERROR" }));
+        jPanelFiltros.add(jComboBoxNivel);
+
+        jLabelCliente.setText("Cliente:");
+        jPanelFiltros.add(jLabelCliente);
+
+        jTextFieldCliente.setColumns(12);
+        jPanelFiltros.add(jTextFieldCliente);
+
+        add(jPanelFiltros, java.awt.BorderLayout.PAGE_START);
+
         jTextAreaConsola.setEditable(false);
         jTextAreaConsola.setColumns(20);
         jTextAreaConsola.setRows(5);
@@ -50,7 +72,12 @@ public class PanelConsolaServidor extends javax.swing.JPanel {
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
     public javax.swing.JButton jButtonEmpezarJuego;
+    public javax.swing.JComboBox<String> jComboBoxNivel;
+    private javax.swing.JLabel jLabelCliente;
+    private javax.swing.JLabel jLabelNivel;
+    private javax.swing.JPanel jPanelFiltros;
     private javax.swing.JScrollPane jScrollPane1;
     public javax.swing.JTextArea jTextAreaConsola;
+    public javax.swing.JTextField jTextFieldCliente;
     // End of variables declaration//GEN-END:variables
 }
@@ -1,7 +1,10 @@
 package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.vista;
 
 import javax.swing.ImageIcon;
+import javax.swing.JLabel;
 import javax.swing.JToggleButton;
+import javax.swing.SwingConstants;
+import java.awt.Font;
 import java.awt.GridLayout; // Importar GridLayout para un mejor manejo de la disposición de botones
 
 /**
@@ -25,18 +28,61 @@ public class PanelJuego extends javax.swing.JPanel {
      */
     public JToggleButton[] cartas;
 
+    /**
+     * Cantidad de imágenes de cartas distintas (`1.jpg` a `20.jpg`). En los
+     * tableros con más pares las imágenes se repiten.
+     */
+    private static final int CANTIDAD_IMAGENES = 20;
+
+    /**
+     * La carpeta de las imágenes. Se asume que la ruta es correcta desde la
+     * raíz del proyecto.
+     */
+    private static final String CARPETA_IMAGENES = System.getProperty("user.dir") + "/src/edu/progAvUD/parcialSegundoCorteAvanzada/servidor/imagenes/";
+
+    /**
+     * La imagen del dorso y la de cada carta, cargadas una sola vez y
+     * compartidas por todos los botones.
+     */
+    private ImageIcon iconoDorso;
+    private final ImageIcon[] iconosCartas = new ImageIcon[CANTIDAD_IMAGENES + 1];
+
     /**
      * Creates new form PanelJuego. Constructor de la clase `PanelJuego`.
      * Inicializa los componentes de la interfaz de usuario generados por el
      * constructor de formularios y crea el arreglo de `JToggleButton` para
-     * almacenar las 40 cartas del juego.
+     * almacenar las 40 cartas del tablero de 5x8. Para otro tamaño se llama a
+     * {@link #prepararTablero(int, int)}.
      */
     public PanelJuego() {
         initComponents();
         this.cartas = new JToggleButton[40]; // Se inicializa el arreglo para 40 cartas (8 columnas x 5 filas)
-        // Opcional: Configurar un layout para jPanelBotones si no está configurado en initComponents()
-        // Por ejemplo, para un tablero de 8x5:
-        // jPanelBotones.setLayout(new GridLayout(5, 8)); 
+    }
+
+    /**
+     * Prepara el panel para un tablero de `filas` x `columnas`: quita los
+     * botones que hubiera, ajusta la cuadrícula y vuelve a numerar las filas y
+     * las columnas.
+     *
+     * @param filas Las filas del tablero.
+     * @param columnas Las columnas del tablero.
+     */
+    public void prepararTablero(int filas, int columnas) {
+        this.cartas = new JToggleButton[filas * columnas];
+        jPanelBotones.removeAll();
+        jPanelBotones.setLayout(new GridLayout(filas, columnas));
+
+        jPanel3.removeAll();
+        jPanel3.setLayout(new GridLayout(filas, 1));
+        for (int fila = 1; fila <= filas; fila++) {
+            jPanel3.add(crearEtiquetaEje(" " + fila + " "));
+        }
+        jPanel4.removeAll();
+        jPanel4.setLayout(new GridLayout(1, columnas));
+        for (int columna = 1; columna <= columnas; columna++) {
+            jPanel4.add(crearEtiquetaEje(String.valueOf(columna)));
+        }
+        revalidate();
     }
 
     /**
@@ -45,13 +91,15 @@ public class PanelJuego extends javax.swing.JPanel {
      * boca abajo).
      *
      * @param numeroBoton El índice en el arreglo `cartas` donde se almacenará y
-     * añadirá el nuevo botón. Debe ser un valor entre 0 y 39.
+     * añadirá el nuevo botón. Debe ser un valor entre 0 y la cantidad de
+     * cartas menos uno.
      */
     public void anadirBoton(int numeroBoton) {
         JToggleButton carta = new JToggleButton();
-        // Carga la imagen del dorso de la carta. Se asume que la ruta es correcta desde la raíz del proyecto.
-        ImageIcon iconNormal = new ImageIcon(System.getProperty("user.dir") + "/src/edu/progAvUD/parcialSegundoCorteAvanzada/servidor/imagenes/dorso.png");
-        carta.setIcon(iconNormal); // Establece la imagen por defecto (cuando la carta no está seleccionada)
+        if (iconoDorso == null) {
+            iconoDorso = new ImageIcon(CARPETA_IMAGENES + "dorso.png");
+        }
+        carta.setIcon(iconoDorso); // Establece la imagen por defecto (cuando la carta no está seleccionada)
         cartas[numeroBoton] = carta; // Almacena la referencia del botón en el arreglo
         jPanelBotones.add(carta); // Añade el botón al panel visual
         revalidate(); // Revalida el layout del contenedor para asegurar que el nuevo botón se muestre
@@ -59,19 +107,23 @@ public class PanelJuego extends javax.swing.JPanel {
 
     /**
      * Establece la imagen que se mostrará cuando una carta sea seleccionada
-     * (volteada). La imagen se carga dinámicamente según el `idImagen`
-     * proporcionado.
+     * (volteada). Cada imagen se carga la primera vez que se usa.
      *
      * @param idCarta El índice de la carta en el arreglo `cartas` a la que se
      * le asignará la imagen.
-     * @param idImagen El identificador numérico de la imagen de la carta (ej.,
-     * "1.jpg", "2.jpg").
+     * @param idImagen El valor de la carta. Del 1 al 20 es la imagen
+     * "1.jpg"... "20.jpg"; los valores mayores repiten las imágenes.
      */
     public void ponerImagenCarta(int idCarta, int idImagen) {
         JToggleButton carta = cartas[idCarta];
-        // Carga la imagen específica de la carta según su ID.
-        ImageIcon iconSeleccionado = new ImageIcon(System.getProperty("user.dir") + "/src/edu/progAvUD/parcialSegundoCorteAvanzada/servidor/imagenes/" + idImagen + ".jpg");
-        carta.setSelectedIcon(iconSeleccionado); // Establece la imagen cuando la carta está seleccionada
+        int imagen = (idImagen - 1) % CANTIDAD_IMAGENES + 1;
+        if (iconosCartas[imagen] == null) {
+            iconosCartas[imagen] = new ImageIcon(CARPETA_IMAGENES + imagen + ".jpg");
+        }
+        carta.setSelectedIcon(iconosCartas[imagen]); // Establece la imagen cuando la carta está seleccionada
+        if (idImagen > CANTIDAD_IMAGENES) {
+            carta.setToolTipText(String.valueOf(idImagen)); // Distingue las cartas que comparten imagen
+        }
         revalidate(); // Revalida el layout para asegurar la actualización visual
     }
 
@@ -106,6 +158,20 @@ public class PanelJuego extends javax.swing.JPanel {
         }
     }
 
+    /**
+     * Crea una etiqueta de la numeración de filas o columnas, con el mismo
+     * formato que las del formulario.
+     *
+     * @param texto El número.
+     * @return La etiqueta.
+     */
+    private static JLabel crearEtiquetaEje(String texto) {
+        JLabel etiqueta = new JLabel(texto);
+        etiqueta.setFont(new Font("Segoe UI", Font.BOLD, 12));
+        etiqueta.setHorizontalAlignment(SwingConstants.CENTER);
+        return etiqueta;
+    }
+
     /**
      * This method is called from within the constructor to initialize the form.
      * WARNING: Do NOT modify this code. The content of this method is always
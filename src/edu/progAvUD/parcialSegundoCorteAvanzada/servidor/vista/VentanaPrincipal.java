@@ -6,8 +6,10 @@ import javax.swing.JDialog;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.text.BadLocationException;
 
 /**
  *
@@ -119,12 +121,34 @@ public class VentanaPrincipal extends javax.swing.JFrame {
     }
     
     /**
-     * Muestra un mensaje en el área de texto de la consola del servidor.
+     * Agrega un lote de líneas al área de texto de la consola del servidor y
+     * borra las más viejas si se pasa del máximo. Se llama desde el hilo de eventos.
      * 
-     * @param mensaje Texto que se desea añadir al log de la consola.
+     * @param lineas Las líneas que se desean añadir al log de la consola, cada una terminada en salto de línea.
+     * @param maximoLineas La cantidad de líneas que se conservan.
      */
-    public void mostrarMensajeConsolaServidor(String mensaje) {
-        panelConsolaServidor.jTextAreaConsola.append(mensaje + "\n");
+    public void agregarLineasConsola(String lineas, int maximoLineas) {
+        JTextArea consola = panelConsolaServidor.jTextAreaConsola;
+        consola.append(lineas);
+        // La última línea del área queda vacía después del salto de línea final
+        int sobrantes = consola.getLineCount() - 1 - maximoLineas;
+        if (sobrantes > 0) {
+            try {
+                consola.replaceRange("", 0, consola.getLineEndOffset(sobrantes - 1));
+            } catch (BadLocationException e) {
+                consola.setText("");
+            }
+        }
+    }
+
+    /**
+     * Reemplaza todo el contenido de la consola del servidor, por ejemplo al
+     * cambiar los filtros.
+     * 
+     * @param lineas Las líneas que se deben mostrar.
+     */
+    public void reemplazarConsola(String lineas) {
+        panelConsolaServidor.jTextAreaConsola.setText(lineas);
     }
 
     /**
@@ -0,0 +1,97 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.control;
+
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.CodecTexto;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.Protocolo;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.Servidor;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas del modo `"hilos"` con `TIPO_HILOS = virtual`: muchas sesiones
+ * abiertas y sin actividad no deben crear un hilo de plataforma cada una.
+ *
+ * @author Cristianlol789
+ */
+public class ControlServidorTipoHilosTest {
+
+    /**
+     * Sesiones que se abren en la prueba. Con hilos de plataforma serían dos
+     * hilos por sesión (la sesión y el escritor de su cola de salida).
+     */
+    private static final int SESIONES = 500;
+
+    @Rule
+    public TemporaryFolder carpeta = new TemporaryFolder();
+
+    private final List<Socket> clientes = new ArrayList<>();
+
+    @After
+    public void cerrarClientes() throws IOException {
+        for (Socket cliente : clientes) {
+            cliente.close();
+        }
+    }
+
+    @Test
+    public void sesionesInactivasEnHilosVirtualesNoCreanHilosDePlataforma() throws Exception {
+        ControlPrincipal controlPrincipal = new ControlPrincipal(new File(carpeta.getRoot(), "servidor.log").getPath());
+        ControlServidor controlServidor = new ControlServidor(controlPrincipal);
+        controlServidor.asignarTipoHilos("virtual");
+        int puerto = puertoLibre();
+        Servidor.setPUERTO_1(puerto);
+        Servidor.setPUERTO_2(0);
+        Thread servidor = new Thread(controlServidor::runServer, "servidor-prueba");
+        servidor.setDaemon(true);
+        servidor.start();
+
+        int hilosAntes = ManagementFactory.getThreadMXBean().getThreadCount();
+        for (int i = 0; i < SESIONES; i++) {
+            clientes.add(conectar(puerto));
+        }
+        // Cada sesión responde a la negociación, así que todas están atendidas
+        for (Socket cliente : clientes) {
+            DataOutputStream salida = new DataOutputStream(cliente.getOutputStream());
+            new CodecTexto().escribirNegociacion(salida, "desconocido", Protocolo.VERSION_BINARIA);
+            String respuesta = new DataInputStream(cliente.getInputStream()).readUTF();
+            assertEquals(CodecTexto.COMANDO_PROTOCOLO + "," + new CodecTexto().getNombre(), respuesta);
+        }
+        int hilosNuevos = ManagementFactory.getThreadMXBean().getThreadCount() - hilosAntes;
+
+        // Solo pueden aparecer los portadores de los hilos virtuales, no uno por sesión
+        assertTrue("Hilos de plataforma nuevos: " + hilosNuevos, hilosNuevos < SESIONES / 10);
+    }
+
+    private Socket conectar(int puerto) throws IOException, InterruptedException {
+        for (int intento = 0;; intento++) {
+            try {
+                Socket socket = new Socket("localhost", puerto);
+                socket.setSoTimeout(10000);
+                return socket;
+            } catch (IOException e) {
+                if (intento == 50) {
+                    throw e;
+                }
+                Thread.sleep(100); // El servidor todavía no abrió el puerto
+            }
+        }
+    }
+
+    private static int puertoLibre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
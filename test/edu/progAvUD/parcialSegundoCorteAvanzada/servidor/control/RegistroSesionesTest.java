@@ -0,0 +1,50 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.control;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de {@link RegistroSesiones}: un usuario escrito con otras
+ * mayúsculas o espacios es el mismo usuario conectado.
+ *
+ * @author Cristianlol789
+ */
+public class RegistroSesionesTest {
+
+    private final RegistroSesiones registro = new RegistroSesiones();
+
+    private ThreadServidor sesion() {
+        ThreadServidor sesion = new ThreadServidor(null, null, null);
+        registro.agregar(sesion);
+        return sesion;
+    }
+
+    @Test
+    public void elMismoUsuarioConOtraEscrituraNoSeConectaDosVeces() {
+        ThreadServidor primera = sesion();
+        ThreadServidor segunda = sesion();
+
+        assertTrue(registro.registrarUsuario("Ana", primera));
+        assertTrue(registro.estaConectado(" ana"));
+        assertFalse(registro.registrarUsuario(" ana", segunda));
+        assertSame(primera, registro.buscarPorUsuario("ANA "));
+        assertEquals(1, registro.getCantidadUsuarios());
+        assertEquals(2, registro.getCantidadSesiones());
+    }
+
+    @Test
+    public void alCerrarLaSesionSeLiberaElUsuario() {
+        ThreadServidor primera = sesion();
+        primera.getServidor().setNombreUsuario("Ana");
+        registro.registrarUsuario("Ana", primera);
+
+        // Otra sesión no libera un usuario que no es suyo
+        assertFalse(registro.desregistrarUsuario("ana", sesion()));
+        assertTrue(registro.remover(primera));
+        assertFalse(registro.estaConectado("ana"));
+        assertTrue(registro.registrarUsuario("ana", sesion()));
+    }
+}
@@ -0,0 +1,108 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.control;
+
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.NivelConsola;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de {@link RotacionTurnos}: el turno da la vuelta después del
+ * último jugador, y quitar al jugador del turno activo no rompe la rotación
+ * ni en la tabla ni en la {@link SalaJuego}.
+ *
+ * @author Cristianlol789
+ */
+public class RotacionTurnosTest {
+
+    @Rule
+    public TemporaryFolder carpeta = new TemporaryFolder();
+
+    private static ThreadServidor sesion() {
+        return new ThreadServidor(null, null, null);
+    }
+
+    @Test
+    public void despuesDelUltimoVieneElPrimero() {
+        RotacionTurnos rotacion = new RotacionTurnos();
+        assertEquals(RotacionTurnos.SIN_TURNO, rotacion.siguiente(1));
+
+        rotacion.agregar(1, sesion());
+        assertEquals("Con un solo jugador el turno vuelve a él", 1, rotacion.siguiente(1));
+
+        rotacion.agregar(3, sesion());
+        rotacion.agregar(7, sesion());
+        assertEquals(3, rotacion.siguiente(1));
+        assertEquals(7, rotacion.siguiente(3));
+        assertEquals(1, rotacion.siguiente(7));
+        assertEquals("Un turno por encima de todos también da la vuelta", 1, rotacion.siguiente(20));
+        assertEquals(3, rotacion.getCantidad());
+    }
+
+    @Test
+    public void quitarAlJugadorDelTurnoActivoSigueConElSiguiente() {
+        RotacionTurnos rotacion = new RotacionTurnos();
+        ThreadServidor primero = sesion();
+        ThreadServidor segundo = sesion();
+        ThreadServidor tercero = sesion();
+        rotacion.agregar(1, primero);
+        rotacion.agregar(2, segundo);
+        rotacion.agregar(3, tercero);
+
+        assertTrue(rotacion.remover(2, segundo));
+        assertNull(rotacion.jugador(2));
+        // El turno 2 ya no está, pero sigue sirviendo como punto de partida
+        assertEquals(3, rotacion.siguiente(2));
+
+        assertTrue(rotacion.remover(3, tercero));
+        assertEquals(1, rotacion.siguiente(3));
+        assertEquals(1, rotacion.getCantidad());
+    }
+
+    @Test
+    public void noQuitaAUnJugadorConElTurnoDeOtro() {
+        RotacionTurnos rotacion = new RotacionTurnos();
+        ThreadServidor jugador = sesion();
+        rotacion.agregar(1, jugador);
+
+        assertFalse(rotacion.remover(1, sesion()));
+        assertSame(jugador, rotacion.jugador(1));
+    }
+
+    @Test
+    public void laSalaPasaElTurnoCuandoSeVaQuienLoTiene() throws IOException {
+        ControlPrincipal controlPrincipal = new ControlPrincipal(new File(carpeta.getRoot(), "servidor.log").getPath());
+        controlPrincipal.getRegistro().configurar(NivelConsola.ADVERTENCIA, null, 0, 0);
+        ControlServidor controlServidor = new ControlServidor(controlPrincipal);
+        SalaJuego sala = new SalaJuego(1, 3, false, 4, 4, controlServidor);
+        sala.configurarTiempoTurno(0);
+        ThreadServidor[] jugadores = new ThreadServidor[3];
+        for (int i = 0; i < jugadores.length; i++) {
+            jugadores[i] = new ThreadServidor(null, null, controlServidor);
+            jugadores[i].getServidor().setServidorInformacionSalida1(new DataOutputStream(new ByteArrayOutputStream()));
+            sala.agregarJugador(jugadores[i]);
+        }
+        sala.iniciarJuego();
+        sala.avanzarSiguienteTurno();
+        sala.avanzarSiguienteTurno();
+        assertEquals(3, sala.getTurnoActivo());
+
+        // Se va el último: el turno da la vuelta al primero
+        assertTrue(sala.removerJugador(jugadores[2]));
+        assertEquals(1, sala.getTurnoActivo());
+
+        // Se va quien no tiene el turno: nada cambia
+        assertTrue(sala.removerJugador(jugadores[1]));
+        assertEquals(1, sala.getTurnoActivo());
+        sala.avanzarSiguienteTurno();
+        assertEquals("Con un solo jugador el turno vuelve a él", 1, sala.getTurnoActivo());
+    }
+}
@@ -0,0 +1,112 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.control;
+
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.CodecBinario;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.MensajeProtocolo;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.NivelConsola;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.Protocolo;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pruebas de la difusión del resultado de una jugada: una jugada con cartas
+ * fuera del tablero se difunde sin repetir sus coordenadas, y un jugador al
+ * que no se le puede enviar el resultado no deja sin él a los demás.
+ *
+ * @author Cristianlol789
+ */
+public class SalaJuegoResultadoTest {
+
+    @Rule
+    public TemporaryFolder carpeta = new TemporaryFolder();
+
+    private ControlServidor controlServidor;
+
+    @Before
+    public void crearServidor() throws IOException {
+        ControlPrincipal controlPrincipal = new ControlPrincipal(new File(carpeta.getRoot(), "servidor.log").getPath());
+        controlPrincipal.getRegistro().configurar(NivelConsola.ERROR, null, 0, 0);
+        controlServidor = new ControlServidor(controlPrincipal);
+    }
+
+    @Test
+    public void unaJugadaFueraDelTableroSeDifundeSinSusCoordenadas() throws IOException {
+        SalaJuego sala = new SalaJuego(1, 2, false, 4, 4, controlServidor);
+        sala.configurarTiempoTurno(0);
+        ByteArrayOutputStream eventos1 = new ByteArrayOutputStream();
+        ByteArrayOutputStream eventos2 = new ByteArrayOutputStream();
+        ThreadServidor jugador1 = crearJugador(eventos1);
+        ThreadServidor jugador2 = crearJugador(eventos2);
+        sala.agregarJugador(jugador1);
+        sala.agregarJugador(jugador2);
+        sala.iniciarJuego();
+
+        // Las coordenadas tal como llegan de un cliente de texto con `eleccionJugador,9,1` y `eleccionJugador,2,2`
+        sala.difundirResultadoJugada(jugador1, false, "Coordenadas fuera del tablero", new int[]{9, 1, 2, 2});
+
+        for (ByteArrayOutputStream eventos : new ByteArrayOutputStream[]{eventos1, eventos2}) {
+            MensajeProtocolo resultado = ultimoEvento(eventos);
+            assertEquals(Protocolo.OP_RESULTADO_JUGADA, resultado.getOpcode());
+            assertEquals(0, resultado.getValor(Protocolo.RESULTADO_ACIERTO));
+            assertEquals(Protocolo.COORDENADA_FUERA_TABLERO, resultado.getValor(Protocolo.RESULTADO_X1));
+            assertEquals(Protocolo.COORDENADA_FUERA_TABLERO, resultado.getValor(Protocolo.RESULTADO_Y1));
+            assertEquals(2, resultado.getValor(Protocolo.RESULTADO_X2));
+            assertEquals(2, resultado.getValor(Protocolo.RESULTADO_Y2));
+        }
+    }
+
+    @Test
+    public void unEnvioFallidoNoCortaLaDifusion() throws IOException {
+        SalaJuego sala = new SalaJuego(1, 2, false, 4, 4, controlServidor);
+        sala.configurarTiempoTurno(0);
+        ThreadServidor roto = crearJugador(new OutputStream() {
+            @Override
+            public void write(int b) {
+                throw new IllegalStateException("Salida rota");
+            }
+        });
+        ByteArrayOutputStream eventos = new ByteArrayOutputStream();
+        sala.agregarJugador(roto);
+        sala.agregarJugador(crearJugador(eventos));
+
+        sala.difundirResultadoJugada(roto, false, "No coinciden", new int[]{1, 1, 1, 2});
+
+        MensajeProtocolo resultado = ultimoEvento(eventos);
+        assertEquals(Protocolo.OP_RESULTADO_JUGADA, resultado.getOpcode());
+        assertEquals(1, resultado.getValor(Protocolo.RESULTADO_TURNO_JUGADOR));
+    }
+
+    /**
+     * Crea una sesión sin socket, en el modo de eventos y con el protocolo
+     * binario, cuyo canal de eventos escribe en el flujo dado.
+     */
+    private ThreadServidor crearJugador(OutputStream eventos) throws IOException {
+        ThreadServidor jugador = new ThreadServidor(null, null, controlServidor);
+        jugador.getServidor().setServidorInformacionSalida1(new DataOutputStream(new ByteArrayOutputStream()));
+        MensajeProtocolo suscripcion = new MensajeProtocolo();
+        suscripcion.reiniciar(Protocolo.OP_SUSCRIBIR_EVENTOS);
+        jugador.procesarMensaje(suscripcion);
+        jugador.getServidor().setCodec(new CodecBinario());
+        jugador.getServidor().setServidorInformacionSalidaEventos(new DataOutputStream(eventos));
+        return jugador;
+    }
+
+    private static MensajeProtocolo ultimoEvento(ByteArrayOutputStream bytes) throws IOException {
+        DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        CodecBinario codec = new CodecBinario();
+        MensajeProtocolo evento = new MensajeProtocolo();
+        while (entrada.available() > 0) {
+            codec.leerEvento(entrada, evento);
+        }
+        return evento;
+    }
+}
@@ -0,0 +1,143 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.control;
+
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.CodecTexto;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.MensajeProtocolo;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.NivelConsola;
+import edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo.Protocolo;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pruebas del tráfico de las transiciones de turno de una {@link SalaJuego}:
+ * cada jugador recibe un solo mensaje por transición, aunque todos los
+ * clientes respondan con `siguienteTurno`, así que el total crece linealmente
+ * con la cantidad de jugadores.
+ *
+ * @author Cristianlol789
+ */
+public class SalaJuegoTurnosTest {
+
+    /**
+     * Transiciones de turno que se hacen en cada partida, además del inicio.
+     */
+    private static final int TRANSICIONES = 5;
+
+    @Rule
+    public TemporaryFolder carpeta = new TemporaryFolder();
+
+    private ControlServidor controlServidor;
+
+    @Before
+    public void crearServidor() throws IOException {
+        ControlPrincipal controlPrincipal = new ControlPrincipal(new File(carpeta.getRoot(), "servidor.log").getPath());
+        // Sin los mensajes de INFO de cada turno, que consultan la sala de la sesión
+        controlPrincipal.getRegistro().configurar(NivelConsola.ADVERTENCIA, null, 0, 0);
+        controlServidor = new ControlServidor(controlPrincipal);
+    }
+
+    @Test
+    public void cadaTransicionEnviaUnMensajePorJugador() throws IOException {
+        for (int cantidad = 2; cantidad <= 16; cantidad *= 2) {
+            SalaJuego sala = new SalaJuego(cantidad, cantidad, false, 4, 4, controlServidor);
+            sala.configurarTiempoTurno(0);
+            List<ByteArrayOutputStream> eventos = new ArrayList<>();
+            List<ThreadServidor> jugadores = new ArrayList<>();
+            for (int i = 0; i < cantidad; i++) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                ThreadServidor jugador = crearJugador(bytes, i % 2 == 0);
+                sala.agregarJugador(jugador);
+                eventos.add(bytes);
+                jugadores.add(jugador);
+            }
+
+            sala.iniciarJuego();
+            responderSiguienteTurno(sala, jugadores);
+            for (int t = 0; t < TRANSICIONES; t++) {
+                sala.avanzarSiguienteTurno();
+                responderSiguienteTurno(sala, jugadores);
+            }
+
+            int esperados = cantidad * (TRANSICIONES + 1);
+            assertEquals("Jugadores: " + cantidad, esperados, sala.getMensajesTurnoEnviados());
+            for (int i = 0; i < cantidad; i++) {
+                assertEquals("Jugador " + i + " de " + cantidad, TRANSICIONES + 1, contarEventos(eventos.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void elResultadoDeLaJugadaYaCuentaComoNotificacion() throws IOException {
+        SalaJuego sala = new SalaJuego(1, 3, false, 4, 4, controlServidor);
+        sala.configurarTiempoTurno(0);
+        List<ByteArrayOutputStream> eventos = new ArrayList<>();
+        List<ThreadServidor> jugadores = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            jugadores.add(crearJugador(bytes, true));
+            sala.agregarJugador(jugadores.get(i));
+            eventos.add(bytes);
+        }
+        sala.iniciarJuego();
+
+        // Un fallo: el turno pasa y el resultado lleva el turno nuevo
+        sala.avanzarSiguienteTurnoConcentrese();
+        sala.difundirResultadoJugada(jugadores.get(0), false, "No coinciden", new int[]{0, 0, 0, 1});
+        responderSiguienteTurno(sala, jugadores);
+
+        for (ByteArrayOutputStream bytes : eventos) {
+            assertEquals(2, contarEventos(bytes)); // Inicio y resultado, sin cambioTurno repetido
+        }
+    }
+
+    /**
+     * Crea una sesión sin socket cuyo canal de eventos escribe en memoria.
+     */
+    private ThreadServidor crearJugador(ByteArrayOutputStream eventos, boolean modoEventos) throws IOException {
+        ThreadServidor jugador = new ThreadServidor(null, null, controlServidor);
+        jugador.getServidor().setServidorInformacionSalida1(new DataOutputStream(new ByteArrayOutputStream()));
+        jugador.getServidor().setServidorInformacionSalidaEventos(new DataOutputStream(eventos));
+        if (modoEventos) {
+            MensajeProtocolo suscripcion = new MensajeProtocolo();
+            suscripcion.reiniciar(Protocolo.OP_SUSCRIBIR_EVENTOS);
+            jugador.procesarMensaje(suscripcion);
+        }
+        return jugador;
+    }
+
+    /**
+     * Lo que hace cada cliente del modo de consultas al terminar una jugada:
+     * enviar `siguienteTurno`.
+     */
+    private static void responderSiguienteTurno(SalaJuego sala, List<ThreadServidor> jugadores) {
+        for (int i = 0; i < jugadores.size(); i++) {
+            sala.difundirTransicionTurno(null);
+        }
+    }
+
+    private static int contarEventos(ByteArrayOutputStream bytes) throws IOException {
+        DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        CodecTexto codec = new CodecTexto();
+        MensajeProtocolo evento = new MensajeProtocolo();
+        int cantidad = 0;
+        while (true) {
+            try {
+                codec.leerEvento(entrada, evento);
+            } catch (EOFException fin) {
+                return cantidad;
+            }
+            cantidad++;
+        }
+    }
+}
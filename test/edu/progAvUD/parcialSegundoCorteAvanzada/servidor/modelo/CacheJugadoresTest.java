@@ -0,0 +1,116 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Pruebas de {@link CacheJugadores}: la clave es el usuario normalizado, las
+ * entradas vencen, y al llenarse sale la que lleva más tiempo sin usarse.
+ *
+ * @author Cristianlol789
+ */
+public class CacheJugadoresTest {
+
+    /**
+     * Un DAO en memoria que cuenta las consultas que llegan a la "base de
+     * datos".
+     */
+    private static class JugadorDaoEnMemoria extends JugadorDAO {
+
+        private final Map<String, Integer> consultas = new HashMap<>();
+
+        @Override
+        public synchronized JugadorVO consultarUsuarioJugador(String usuario, JugadorVO jugador) throws SQLException {
+            String clave = normalizarUsuario(usuario);
+            consultas.merge(clave, 1, Integer::sum);
+            if (!clave.startsWith("desconocido")) {
+                jugador.setNombreJugador("Jugador " + clave);
+                jugador.setUsuario(clave);
+            }
+            return jugador;
+        }
+
+        synchronized int consultas(String usuario) {
+            return consultas.getOrDefault(usuario, 0);
+        }
+    }
+
+    private final JugadorDaoEnMemoria dao = new JugadorDaoEnMemoria();
+
+    @Test
+    public void normalizarUsuarioQuitaEspaciosYMayusculas() {
+        assertEquals("ana", JugadorDAO.normalizarUsuario("  Ana "));
+        assertEquals("ivan", JugadorDAO.normalizarUsuario("IVAN"));
+    }
+
+    @Test
+    public void elMismoUsuarioEscritoDistintoUsaLaMismaEntrada() throws SQLException {
+        CacheJugadores cache = new CacheJugadores(dao, 10, 60000);
+        cache.consultar("Ana");
+        cache.consultar(" ana ");
+        cache.consultar("ANA");
+
+        assertEquals(1, dao.consultas("ana"));
+        assertEquals(2, cache.getAciertos());
+        assertEquals(1, cache.getFallos());
+    }
+
+    @Test
+    public void unaEntradaVencidaSeVuelveAConsultar() throws Exception {
+        CacheJugadores cache = new CacheJugadores(dao, 10, 50);
+        cache.consultar("ana");
+        cache.consultar("ana");
+        assertEquals(1, dao.consultas("ana"));
+
+        Thread.sleep(120);
+        cache.consultar("ana");
+        assertEquals(2, dao.consultas("ana"));
+    }
+
+    @Test
+    public void alLlenarseSaleLaMenosUsada() throws SQLException {
+        CacheJugadores cache = new CacheJugadores(dao, 2, 60000);
+        cache.consultar("ana");
+        cache.consultar("beto");
+        cache.consultar("ana"); // Ahora la menos usada es "beto"
+        cache.consultar("carla");
+        assertEquals(1, cache.getExpulsadas());
+
+        cache.consultar("ana");
+        assertEquals(1, dao.consultas("ana"));
+        cache.consultar("beto");
+        assertEquals(2, dao.consultas("beto"));
+    }
+
+    @Test
+    public void losDesconocidosYLosInvalidadosSeConsultanSiempre() throws SQLException {
+        CacheJugadores cache = new CacheJugadores(dao, 10, 60000);
+        assertNull(cache.consultar("desconocido"));
+        assertNull(cache.consultar("desconocido"));
+        assertEquals(2, dao.consultas("desconocido"));
+
+        cache.consultar("ana");
+        cache.invalidar(" Ana");
+        cache.consultar("ana");
+        assertEquals(2, dao.consultas("ana"));
+    }
+
+    @Test
+    public void cambiarElJugadorDevueltoNoCambiaElGuardado() throws SQLException {
+        CacheJugadores cache = new CacheJugadores(dao, 10, 60000);
+        cache.consultar("ana").setNombreJugador("Otro");
+        assertEquals("Jugador ana", cache.consultar("ana").getNombreJugador());
+    }
+
+    @Test
+    public void conCapacidadCeroNoGuardaNada() throws SQLException {
+        CacheJugadores cache = new CacheJugadores(dao, 0, 60000);
+        cache.consultar("ana");
+        cache.consultar("ana");
+        assertEquals(2, dao.consultas("ana"));
+    }
+}
@@ -0,0 +1,180 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Pruebas de {@link CodecBinario}: lo que escribe un extremo lo lee igual el
+ * otro, y los mensajes demasiado largos o cortados se rechazan.
+ *
+ * @author Andres Felipe
+ */
+public class CodecBinarioTest {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream salida = new DataOutputStream(bytes);
+    private final CodecBinario codec = new CodecBinario();
+
+    private DataInputStream entrada() {
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Test
+    public void loginYJugadaLleganIguales() throws IOException {
+        codec.escribirLogin(salida, "ñandú", "clave secreta");
+        codec.escribirEleccion(salida, 0, 255, 17, 3);
+        codec.escribirPedirClasificacion(salida, 42);
+        codec.escribirComando(salida, Protocolo.OP_LATIDO);
+
+        DataInputStream entrada = entrada();
+        MensajeProtocolo mensaje = new MensajeProtocolo();
+        codec.leerComando(entrada, mensaje);
+        assertEquals(Protocolo.OP_LOGIN, mensaje.getOpcode());
+        assertEquals("ñandú", mensaje.getTexto());
+        assertEquals("clave secreta", mensaje.getTexto2());
+
+        codec.leerComando(entrada, mensaje);
+        assertEquals(Protocolo.OP_ELECCION_PAREJA, mensaje.getOpcode());
+        assertEquals(0, mensaje.getValor(0));
+        assertEquals(255, mensaje.getValor(1));
+        assertEquals(17, mensaje.getValor(2));
+        assertEquals(3, mensaje.getValor(3));
+
+        codec.leerComando(entrada, mensaje);
+        assertEquals(Protocolo.OP_PEDIR_CLASIFICACION, mensaje.getOpcode());
+        assertEquals(42, mensaje.getValor(0));
+
+        codec.leerComando(entrada, mensaje);
+        assertEquals(Protocolo.OP_LATIDO, mensaje.getOpcode());
+        assertEquals(0, entrada.available());
+    }
+
+    @Test
+    public void respuestasLleganIguales() throws IOException {
+        codec.escribirRespuestaLogin(salida, Protocolo.OP_LOGIN_VALIDO);
+        codec.escribirTurno(salida, 300);
+        codec.escribirTablero(salida, 5, 8);
+        codec.escribirDatosJugador(salida, new int[]{12, 5, 41});
+        codec.escribirTexto(salida, "Ganador: ana");
+
+        DataInputStream entrada = entrada();
+        assertEquals(Protocolo.OP_LOGIN_VALIDO, codec.leerRespuestaLogin(entrada));
+        assertEquals(300, codec.leerTurno(entrada));
+        int[] tablero = new int[2];
+        codec.leerTablero(entrada, tablero);
+        assertArrayEquals(new int[]{5, 8}, tablero);
+        int[] datos = new int[3];
+        codec.leerDatosJugador(entrada, datos);
+        assertArrayEquals(new int[]{12, 5, 41}, datos);
+        assertEquals("Ganador: ana", codec.leerTexto(entrada));
+    }
+
+    @Test
+    public void eventosLleganIguales() throws IOException {
+        MensajeProtocolo resultado = new MensajeProtocolo();
+        int[] valores = {2, 1, 3, 9, 4, 44, 1, 2, 3, 4};
+        for (int i = 0; i < valores.length; i++) {
+            resultado.setValor(i, valores[i]);
+        }
+        resultado.setTexto("");
+        codec.escribirResultadoJugada(salida, resultado);
+        codec.escribirCambioTurno(salida, 7);
+        codec.escribirEvento(salida, Protocolo.OP_JUEGO_TERMINADO, null);
+
+        DataInputStream entrada = entrada();
+        MensajeProtocolo evento = new MensajeProtocolo();
+        codec.leerEvento(entrada, evento);
+        assertEquals(Protocolo.OP_RESULTADO_JUGADA, evento.getOpcode());
+        int[] leidos = new int[valores.length];
+        for (int i = 0; i < leidos.length; i++) {
+            leidos[i] = evento.getValor(i);
+        }
+        assertArrayEquals(valores, leidos);
+
+        codec.leerEvento(entrada, evento);
+        assertEquals(Protocolo.OP_CAMBIO_TURNO, evento.getOpcode());
+        assertEquals(7, evento.getValor(0));
+
+        codec.leerEvento(entrada, evento);
+        assertEquals(Protocolo.OP_JUEGO_TERMINADO, evento.getOpcode());
+        assertNull(evento.getTexto());
+    }
+
+    @Test
+    public void rechazaUnaLongitudMayorQueLaMaxima() {
+        int longitud = CodecBinario.LONGITUD_MAXIMA + 1;
+        // Solo la cabecera: el mensaje debe rechazarse antes de esperar los datos
+        bytes.write((longitud & 0x7F) | 0x80);
+        bytes.write(((longitud >>> 7) & 0x7F) | 0x80);
+        bytes.write(longitud >>> 14);
+        bytes.write(Protocolo.OP_TEXTO);
+        try {
+            codec.leerTexto(entrada());
+            fail("Se aceptó un mensaje de " + longitud + " bytes");
+        } catch (IOException e) {
+            assertFalse("Debe rechazarse, no esperar más datos", e instanceof EOFException);
+        }
+    }
+
+    @Test
+    public void rechazaUnaLongitudVarintDemasiadoLarga() {
+        byte[] cabecera = new byte[6];
+        Arrays.fill(cabecera, (byte) 0xFF);
+        bytes.write(cabecera, 0, cabecera.length);
+        try {
+            codec.leerComando(entrada(), new MensajeProtocolo());
+            fail("Se aceptó una longitud de más de cinco bytes");
+        } catch (IOException e) {
+            assertFalse(e instanceof EOFException);
+        }
+    }
+
+    @Test
+    public void noEnviaUnMensajeMasLargoQueElMaximo() throws IOException {
+        char[] texto = new char[CodecBinario.LONGITUD_MAXIMA];
+        Arrays.fill(texto, 'a');
+        try {
+            codec.escribirTexto(salida, new String(texto));
+            fail("Se envió un mensaje que el otro extremo rechazaría");
+        } catch (IOException e) {
+            assertEquals(0, bytes.size());
+        }
+        // El códec sigue sirviendo después del rechazo
+        codec.escribirTexto(salida, "corto");
+        assertEquals("corto", codec.leerTexto(entrada()));
+    }
+
+    @Test
+    public void unaCoordenadaQueNoCabeDescartaElMensaje() throws IOException {
+        try {
+            codec.escribirEleccion(salida, 1, 2, 256, 1);
+            fail("Se envió una coordenada de más de un byte");
+        } catch (IOException e) {
+            assertEquals(0, bytes.size());
+        }
+        // El mensaje siguiente no arrastra las coordenadas del descartado
+        codec.escribirTurno(salida, 4);
+        DataInputStream entrada = entrada();
+        assertEquals(4, codec.leerTurno(entrada));
+        assertEquals(0, entrada.available());
+    }
+
+    @Test(expected = EOFException.class)
+    public void unMensajeCortadoEsperaMasDatos() throws IOException {
+        codec.escribirLogin(salida, "ana", "123");
+        byte[] completo = bytes.toByteArray();
+        DataInputStream cortado = new DataInputStream(new ByteArrayInputStream(completo, 0, completo.length - 1));
+        codec.leerComando(cortado, new MensajeProtocolo());
+    }
+}
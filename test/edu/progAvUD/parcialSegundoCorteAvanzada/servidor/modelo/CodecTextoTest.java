@@ -0,0 +1,47 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de {@link CodecTexto}: una carta elegida solo es válida si sus
+ * coordenadas son números que caben en un tablero.
+ *
+ * @author Andres Felipe
+ */
+public class CodecTextoTest {
+
+    private final CodecTexto codec = new CodecTexto();
+
+    private MensajeProtocolo leer(String comando) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeUTF(comando);
+        MensajeProtocolo mensaje = new MensajeProtocolo();
+        codec.leerComando(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), mensaje);
+        return mensaje;
+    }
+
+    @Test
+    public void unaCartaEnRangoEsValida() throws IOException {
+        MensajeProtocolo mensaje = leer("eleccionJugador,0," + Protocolo.LADO_MAXIMO_TABLERO);
+        assertEquals(Protocolo.OP_ELECCION_CARTA, mensaje.getOpcode());
+        assertTrue(mensaje.isValido());
+        assertEquals(0, mensaje.getValor(0));
+        assertEquals(Protocolo.LADO_MAXIMO_TABLERO, mensaje.getValor(1));
+    }
+
+    @Test
+    public void unaCartaFueraDeRangoOSinNumerosNoEsValida() throws IOException {
+        assertFalse(leer("eleccionJugador,300,1").isValido());
+        assertFalse(leer("eleccionJugador,1,-1").isValido());
+        assertFalse(leer("eleccionJugador,a,1").isValido());
+        assertFalse(leer("eleccionJugador,1").isValido());
+    }
+}
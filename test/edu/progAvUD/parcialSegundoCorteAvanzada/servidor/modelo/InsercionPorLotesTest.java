@@ -0,0 +1,107 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pruebas de {@link InsercionPorLotes}: cada lote se envía justo al llenarse,
+ * el último se envía aunque quede a medias, y lo que no se confirma se
+ * deshace.
+ *
+ * @author Cristianlol789
+ */
+public class InsercionPorLotesTest {
+
+    /**
+     * Lo que la inserción le pide a la "base de datos", en orden: `lote n`
+     * por cada `executeBatch` con n filas, `commit`, `rollback` y `close`.
+     */
+    private final List<String> llamadas = new ArrayList<>();
+
+    private int filasPendientes;
+
+    private Connection conexion() {
+        PreparedStatement sentencia = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, metodo, argumentos) -> {
+                    switch (metodo.getName()) {
+                        case "addBatch":
+                            filasPendientes++;
+                            return null;
+                        case "executeBatch":
+                            llamadas.add("lote " + filasPendientes);
+                            int[] cuentas = new int[filasPendientes];
+                            Arrays.fill(cuentas, 1);
+                            filasPendientes = 0;
+                            return cuentas;
+                        default:
+                            return null;
+                    }
+                });
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, metodo, argumentos) -> {
+                    switch (metodo.getName()) {
+                        case "prepareStatement":
+                            return sentencia;
+                        case "commit":
+                        case "rollback":
+                        case "close":
+                            llamadas.add(metodo.getName());
+                            return null;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static JugadorVO jugador(int i) {
+        JugadorVO jugador = new JugadorVO();
+        jugador.setNombreJugador("Jugador " + i);
+        jugador.setCedula(String.valueOf(1000 + i));
+        jugador.setUsuario("jugador" + i);
+        jugador.setContrasena("clave" + i);
+        return jugador;
+    }
+
+    private void agregar(InsercionPorLotes insercion, int cantidad) throws SQLException {
+        for (int i = 0; i < cantidad; i++) {
+            insercion.agregar(jugador(i));
+        }
+    }
+
+    @Test
+    public void cadaLoteSeEnviaAlLlenarseYElUltimoAunqueFalten() throws SQLException {
+        try (InsercionPorLotes insercion = new InsercionPorLotes(conexion(), 3)) {
+            agregar(insercion, 2);
+            assertEquals("Un lote a medias espera", List.of(), llamadas);
+            insercion.agregar(jugador(2));
+            assertEquals(List.of("lote 3"), llamadas);
+            agregar(insercion, 4);
+            assertEquals(7, insercion.confirmar());
+        }
+        assertEquals(List.of("lote 3", "lote 3", "lote 1", "commit", "close"), llamadas);
+    }
+
+    @Test
+    public void unaCantidadExactaNoEnviaUnLoteVacio() throws SQLException {
+        try (InsercionPorLotes insercion = new InsercionPorLotes(conexion(), 2)) {
+            agregar(insercion, 4);
+            assertEquals(4, insercion.confirmar());
+        }
+        assertEquals(List.of("lote 2", "lote 2", "commit", "close"), llamadas);
+    }
+
+    @Test
+    public void sinConfirmarSeDeshaceTodo() throws SQLException {
+        try (InsercionPorLotes insercion = new InsercionPorLotes(conexion(), 2)) {
+            agregar(insercion, 3);
+        }
+        assertEquals(List.of("lote 2", "rollback", "close"), llamadas);
+    }
+}
@@ -0,0 +1,98 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de {@link RegistroServidor}: los niveles inactivos no arman el
+ * texto, los activos llegan en orden al destino y el archivo rota al llegar a
+ * su tamaño máximo.
+ *
+ * @author Andres Felipe
+ */
+public class RegistroServidorTest {
+
+    @Rule
+    public TemporaryFolder carpeta = new TemporaryFolder();
+
+    private final List<String> recibidos = new CopyOnWriteArrayList<>();
+
+    private RegistroServidor crearRegistro() {
+        return new RegistroServidor((nivel, cliente, texto) -> recibidos.add(nivel + " " + cliente + " " + texto));
+    }
+
+    @Test
+    public void unNivelInactivoNoFormateaNiEncola() {
+        RegistroServidor registro = crearRegistro();
+        registro.configurar(NivelConsola.ADVERTENCIA, null, 0, 0);
+        AtomicInteger formateos = new AtomicInteger();
+        Object parametro = new Object() {
+            @Override
+            public String toString() {
+                formateos.incrementAndGet();
+                return "costoso";
+            }
+        };
+
+        assertFalse(registro.estaActivo(NivelConsola.INFO));
+        registro.registrar(NivelConsola.INFO, "ana", "Valor {}", parametro);
+        registro.registrar(NivelConsola.DEPURACION, null, "Valor {} y {}", parametro, parametro);
+        registro.cerrar();
+
+        assertEquals(0, formateos.get());
+        assertTrue(recibidos.isEmpty());
+    }
+
+    @Test
+    public void losEventosActivosLleganEnOrdenYFormateados() {
+        RegistroServidor registro = crearRegistro();
+        registro.registrar(NivelConsola.INFO, "ana", "Turno {} de {}", 2, 4);
+        registro.registrar(NivelConsola.ERROR, null, "Sin parámetros");
+        registro.registrar(NivelConsola.ADVERTENCIA, "beto", "{} {} {} {}", "a", "b", "c", "d");
+        registro.cerrar();
+
+        assertEquals(List.of("INFO ana Turno 2 de 4", "ERROR null Sin parámetros", "ADVERTENCIA beto a b c d"), recibidos);
+        assertEquals(0, registro.getDescartados());
+    }
+
+    @Test
+    public void formatearToleraMarcasYParametrosDeMas() {
+        assertEquals("1 y {}", RegistroServidor.formatear("{} y {}", new Object[]{1}));
+        assertEquals("solo 1", RegistroServidor.formatear("solo {}", new Object[]{1, 2}));
+        assertEquals("null", RegistroServidor.formatear("{}", new Object[]{null}));
+    }
+
+    @Test
+    public void elArchivoRotaYConservaLosGuardados() throws IOException {
+        Path archivo = carpeta.getRoot().toPath().resolve("servidor.log");
+        RegistroServidor registro = crearRegistro();
+        registro.configurar(NivelConsola.INFO, archivo, 1024, 2);
+        for (int i = 0; i < 200; i++) {
+            registro.registrar(NivelConsola.INFO, "ana", "Evento número {}", i);
+        }
+        registro.cerrar();
+
+        assertTrue(Files.exists(archivo));
+        assertTrue(Files.exists(Path.of(archivo + ".1")));
+        assertTrue(Files.exists(Path.of(archivo + ".2")));
+        assertFalse("Solo se guardan dos archivos viejos", Files.exists(Path.of(archivo + ".3")));
+        for (Path ruta : List.of(archivo, Path.of(archivo + ".1"), Path.of(archivo + ".2"))) {
+            assertTrue(ruta + ": " + Files.size(ruta), Files.size(ruta) <= 1024);
+        }
+        // El último evento queda al final del archivo actual
+        List<String> lineas = Files.readAllLines(archivo, StandardCharsets.UTF_8);
+        assertTrue(lineas.get(lineas.size() - 1).endsWith("[ana] Evento número 199"));
+        assertEquals(200, recibidos.size());
+    }
+}
@@ -0,0 +1,160 @@
+package edu.progAvUD.parcialSegundoCorteAvanzada.servidor.modelo;
+
+import java.util.Arrays;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de {@link TableroConcentrese}: el reparto de las cartas, las
+ * reglas para emparejar dos y la cuenta de los pares que faltan, también con
+ * tableros de más de 64 casillas (más de un `long` en la máscara).
+ *
+ * @author Cristianlol789
+ */
+public class TableroConcentreseTest {
+
+    /**
+     * Busca, para cada casilla, la otra casilla con el mismo valor.
+     */
+    private static int[] parejas(TableroConcentrese tablero) {
+        int casillas = tablero.getFilas() * tablero.getColumnas();
+        int[] primera = new int[tablero.getTotalPares() + 1];
+        int[] pareja = new int[casillas];
+        Arrays.fill(primera, -1);
+        for (int casilla = 0; casilla < casillas; casilla++) {
+            int valor = tablero.valor(casilla);
+            if (primera[valor] < 0) {
+                primera[valor] = casilla;
+            } else {
+                pareja[casilla] = primera[valor];
+                pareja[primera[valor]] = casilla;
+            }
+        }
+        return pareja;
+    }
+
+    @Test
+    public void barajarRepiteCadaValorDosVeces() {
+        TableroConcentrese tablero = new TableroConcentrese(6, 7);
+        tablero.barajar();
+        int[] cuenta = new int[tablero.getTotalPares() + 1];
+        for (int casilla = 0; casilla < 42; casilla++) {
+            cuenta[tablero.valor(casilla)]++;
+        }
+        assertEquals(0, cuenta[TableroConcentrese.SIN_CARTA]);
+        for (int valor = 1; valor < cuenta.length; valor++) {
+            assertEquals("Valor " + valor, 2, cuenta[valor]);
+        }
+    }
+
+    @Test
+    public void lasCoordenadasYLaMatrizCoinciden() {
+        TableroConcentrese tablero = new TableroConcentrese(3, 4);
+        tablero.barajar();
+        int[][] matriz = tablero.copiarMatriz();
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 4; x++) {
+                assertEquals(tablero.valor(tablero.casilla(x, y)), matriz[y][x]);
+            }
+        }
+        assertEquals(-1, tablero.casilla(4, 0));
+        assertEquals(-1, tablero.casilla(0, -1));
+        assertEquals(TableroConcentrese.SIN_CARTA, tablero.valor(-1));
+        assertFalse(tablero.estaEmparejada(12));
+    }
+
+    @Test
+    public void soloSeEmparejanDosCasillasDistintasConElMismoValor() {
+        TableroConcentrese tablero = new TableroConcentrese(4, 4);
+        tablero.barajar();
+        int[] pareja = parejas(tablero);
+        int otra = pareja[0] == 1 ? 2 : 1;
+
+        assertFalse(tablero.emparejar(0, 0));
+        assertFalse(tablero.emparejar(0, otra));
+        assertFalse("Una carta que no coincide no queda marcada", tablero.estaEmparejada(0));
+        assertTrue(tablero.emparejar(0, pareja[0]));
+        assertTrue(tablero.estaEmparejada(0));
+        assertTrue(tablero.estaEmparejada(pareja[0]));
+        assertFalse("Un par ya emparejado no cuenta dos veces", tablero.emparejar(pareja[0], 0));
+        assertEquals(1, tablero.getParesEmparejados());
+        assertEquals(7, tablero.paresRestantes());
+    }
+
+    @Test
+    public void unTableroGrandeSeCompletaYSeReinicia() {
+        // 100 casillas: la máscara ocupa dos `long`
+        TableroConcentrese tablero = new TableroConcentrese(10, 10);
+        tablero.barajar();
+        int[] pareja = parejas(tablero);
+        for (int casilla = 0; casilla < 100; casilla++) {
+            if (casilla < pareja[casilla]) {
+                assertTrue("Casilla " + casilla, tablero.emparejar(casilla, pareja[casilla]));
+            }
+        }
+        assertEquals(0, tablero.paresRestantes());
+        for (int casilla = 0; casilla < 100; casilla++) {
+            assertTrue(tablero.estaEmparejada(casilla));
+        }
+
+        int[][] antes = tablero.copiarMatriz();
+        tablero.reiniciar();
+        assertEquals(50, tablero.paresRestantes());
+        assertFalse(tablero.estaEmparejada(99));
+        assertArrayEquals("Reiniciar no cambia el orden de las cartas", antes, tablero.copiarMatriz());
+    }
+
+    @Test
+    public void emparejarAlMismoTiempoCuentaUnSoloPar() throws Exception {
+        final int hilos = 8;
+        final int rondas = 2000;
+        TableroConcentrese tablero = new TableroConcentrese(4, 4);
+        tablero.barajar();
+        int[] pareja = parejas(tablero);
+        int casilla = 0;
+        int otra = pareja[0];
+        AtomicInteger aciertos = new AtomicInteger();
+        AtomicInteger errores = new AtomicInteger();
+        // Cada ronda todos los hilos eligen el mismo par, la mitad en el orden inverso
+        CyclicBarrier inicio = new CyclicBarrier(hilos);
+        CyclicBarrier fin = new CyclicBarrier(hilos, () -> {
+            if (aciertos.getAndSet(0) != 1 || tablero.paresRestantes() != tablero.getTotalPares() - 1
+                    || !tablero.estaEmparejada(casilla) || !tablero.estaEmparejada(otra)) {
+                errores.incrementAndGet();
+            }
+            tablero.reiniciar();
+        });
+        Thread[] jugadores = new Thread[hilos];
+        for (int i = 0; i < hilos; i++) {
+            boolean inverso = i % 2 == 1;
+            jugadores[i] = new Thread(() -> {
+                try {
+                    for (int r = 0; r < rondas; r++) {
+                        inicio.await();
+                        if (inverso ? tablero.emparejar(otra, casilla) : tablero.emparejar(casilla, otra)) {
+                            aciertos.incrementAndGet();
+                        }
+                        fin.await();
+                    }
+                } catch (Exception e) {
+                    errores.incrementAndGet();
+                }
+            });
+            jugadores[i].start();
+        }
+        for (Thread jugador : jugadores) {
+            jugador.join();
+        }
+        assertEquals("Rondas sin exactamente un par", 0, errores.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rechazaUnTableroConCasillasImpares() {
+        new TableroConcentrese(3, 3);
+    }
+}